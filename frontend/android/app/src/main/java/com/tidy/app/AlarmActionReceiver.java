@@ -0,0 +1,109 @@
+package com.tidy.app;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+
+/**
+ * Acciones "Detener" y "Posponer" de la notificación de alarma.
+ *
+ * Se atienden sin abrir ninguna actividad ni arrancar el WebView: la orden va a
+ * RingingService, que deja de sonar y vacía la RingingSession (AlarmActivity, si
+ * está abierta, se cierra).
+ *
+ * dismiss() y snooze() son los que usa RingingService para guardar cada alarma:
+ * estado en AlarmStore, pospuesta en SnoozeManager y evento para JS.
+ */
+public class AlarmActionReceiver extends BroadcastReceiver {
+    private static final String TAG = "AlarmActionReceiver";
+
+    public static final String ACTION_DISMISS = "com.tidy.app.action.ALARM_DISMISS";
+    public static final String ACTION_SNOOZE = "com.tidy.app.action.ALARM_SNOOZE";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final String action = intent.getAction();
+        if (!ACTION_DISMISS.equals(action) && !ACTION_SNOOZE.equals(action)) {
+            return;
+        }
+        Log.d(TAG, "👆 Acción desde la notificación: " + action);
+
+        // La notificación actúa sobre toda la sesión que está sonando; si el proceso
+        // murió desde el disparo, sólo queda la alarma de la notificación
+        AlarmPayload payload = AlarmPayload.from(intent);
+        RingingService.send(context,
+            ACTION_SNOOZE.equals(action) ? RingingService.ACTION_SNOOZE : RingingService.ACTION_DISMISS,
+            payload.alarmId, payload.title, true);
+    }
+
+    /**
+     * PendingIntent para un botón de la notificación de la sesión.
+     */
+    static PendingIntent actionIntent(Context context, String action, int alarmId, String title) {
+        Intent intent = new Intent(context, AlarmActionReceiver.class);
+        intent.setAction(action);
+        new AlarmPayload(alarmId, 0, title, null, 0, false).putInto(intent);
+        int requestCode = ACTION_SNOOZE.equals(action) ? RequestCodes.ACTION_SNOOZE : RequestCodes.ACTION_DISMISS;
+        return PendingIntent.getBroadcast(context, requestCode, intent, AlarmScheduler.pendingIntentFlags());
+    }
+
+    /**
+     * Alarma detenida: termina su cadena de pospuestas, estado en el almacén y evento para JS.
+     */
+    static void dismiss(Context context, int alarmId) {
+        Log.d(TAG, "🛑 Alarma " + alarmId + " detenida");
+        SnoozeManager.finish(context, alarmId);
+        markHandled(context, alarmId, AlarmRecord.STATE_DISMISSED);
+
+        JSObject event = new JSObject();
+        event.put("alarmId", alarmId);
+        AlarmPlugin.emit(AlarmPlugin.EVENT_ALARM_DISMISSED, event);
+    }
+
+    /**
+     * Pospone la alarma los minutos configurados. Si ya alcanzó el máximo de
+     * pospuestas se detiene en su lugar.
+     */
+    static void snooze(Context context, int alarmId, String title) {
+        SnoozeChain chain = SnoozeManager.snooze(context, alarmId, title);
+        if (chain == null) {
+            AlarmMetrics.increment(context, AlarmMetrics.SNOOZE_LIMIT_REACHED);
+            dismiss(context, alarmId);
+            return;
+        }
+        AlarmMetrics.increment(context, AlarmMetrics.SNOOZED);
+
+        markHandled(context, alarmId, AlarmRecord.STATE_SNOOZED);
+
+        JSObject event = new JSObject();
+        event.put("alarmId", alarmId);
+        // La pospuesta suena con el mismo ID que la alarma original
+        event.put("snoozeAlarmId", alarmId);
+        event.put("snoozeCount", chain.snoozeCount);
+        event.put("triggerTime", chain.triggerTime);
+        AlarmPlugin.emit(AlarmPlugin.EVENT_ALARM_SNOOZED, event);
+    }
+
+    /**
+     * Actualiza el estado de una alarma de un solo disparo ya sonada, también cuando
+     * suena una pospuesta (estado "snoozed"). Las recurrentes ya se reprogramaron al
+     * dispararse y siguen en estado "scheduled".
+     */
+    private static void markHandled(Context context, int alarmId, String state) {
+        AlarmExecutor.execute(() -> {
+            try {
+                AlarmStore store = AlarmStore.getInstance(context);
+                AlarmRecord record = store.get(alarmId);
+                if (record != null && (AlarmRecord.STATE_FIRED.equals(record.state)
+                        || AlarmRecord.STATE_SNOOZED.equals(record.state))) {
+                    store.updateState(alarmId, state);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ No se pudo actualizar el estado de la alarma " + alarmId + ": " + e.getMessage());
+            }
+        });
+    }
+}
@@ -1,46 +1,79 @@
 package com.tidy.app;
 
-import android.app.AlarmManager;
 import android.app.KeyguardManager;
-import android.app.PendingIntent;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.media.AudioAttributes;
-import android.media.MediaPlayer;
-import android.media.RingtoneManager;
-import android.net.Uri;
+import android.content.ServiceConnection;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
+import android.os.IBinder;
 import android.util.Log;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.WindowManager;
 import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.io.IOException;
+import com.getcapacitor.JSObject;
+
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 /**
  * Actividad de pantalla completa que se muestra cuando suena una alarma.
  * Se muestra incluso cuando el teléfono está bloqueado.
- * Reproduce sonido y vibración continuamente hasta que el usuario la detenga.
+ * Sonido, vibración y tiempo máximo los lleva RingingService: la actividad se
+ * enlaza con él y sólo le pasa las órdenes de los botones, así que girar la
+ * pantalla o recrearla no corta ni reinicia el sonido.
+ *
+ * Muestra la RingingSession completa: si varias alarmas suenan a la vez se
+ * listan todas con un único sonido, y cada una se detiene o pospone por separado.
  */
-public class AlarmActivity extends AppCompatActivity {
+public class AlarmActivity extends AppCompatActivity implements RingingSession.Listener {
 
     private static final String TAG = "AlarmActivity";
-    private MediaPlayer mediaPlayer;
-    private Vibrator vibrator;
-    private int alarmId;
+    // A partir de aquí la lista se desplaza en lugar de empujar los botones fuera de pantalla
+    private static final int MAX_VISIBLE_ROWS = 4;
+    // Además del AlarmPayload: cuándo llegó el disparo a AlarmReceiver
+    static final String EXTRA_RECEIVED_AT = "received_at";
+
+    // null hasta que se enlaza (o si el servicio no llegó a arrancar)
+    private RingingService ringingService;
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            ringingService = ((RingingService.LocalBinder) service).getService();
+            Log.d(TAG, "🔗 Enlazada con RingingService");
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            ringingService = null;
+        }
+    };
+
+    private TextView labelText;
+    private ScrollView listScroll;
+    private LinearLayout listView;
+    private Button dismissButton;
+    private Button snoozeButton;
+    // Configuración de pospuestas, leída una vez al abrir
+    private int snoozeMinutes;
+    private int maxSnoozes;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        final long createdAt = System.currentTimeMillis();
 
         Log.d(TAG, "🔔 AlarmActivity.onCreate() - Mostrando alarma en pantalla completa");
 
@@ -49,34 +82,36 @@ public class AlarmActivity extends AppCompatActivity {
 
         setContentView(R.layout.activity_alarm);
 
-        // Obtener datos de la alarma
-        alarmId = getIntent().getIntExtra("alarmId", 0);
-        String label = getIntent().getStringExtra("label");
-        if (label == null || label.isEmpty()) {
-            label = "Alarma Tidy";
+        // Sin sesión (p. ej. el proceso murió): reconstruirla con los extras del Intent
+        // y volver a hacer sonar la alarma en el servicio
+        if (RingingSession.size() == 0) {
+            RingingSession.offer(itemFromIntent(getIntent()));
+            RingingService.start(this, AlarmPayload.from(getIntent()),
+                getIntent().getLongExtra(EXTRA_RECEIVED_AT, 0));
         }
-
-        Log.d(TAG, "📋 Alarma ID: " + alarmId + ", Label: " + label);
+        RingingSession.attach(this);
+        // Sin BIND_AUTO_CREATE: se enlaza cuando el servicio existe, no lo arranca
+        bindService(new Intent(this, RingingService.class), connection, 0);
+        snoozeMinutes = SnoozeManager.getMinutes(this);
+        maxSnoozes = SnoozeManager.getMaxCount(this);
 
         // Configurar UI
         TextView timeText = findViewById(R.id.alarm_time);
-        TextView labelText = findViewById(R.id.alarm_label);
-        Button dismissButton = findViewById(R.id.dismiss_button);
-        Button snoozeButton = findViewById(R.id.snooze_button);
+        labelText = findViewById(R.id.alarm_label);
+        listScroll = findViewById(R.id.alarm_list_scroll);
+        listView = findViewById(R.id.alarm_list);
+        dismissButton = findViewById(R.id.dismiss_button);
+        snoozeButton = findViewById(R.id.snooze_button);
 
         // Mostrar hora actual
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        timeText.setText(sdf.format(new Date()));
-
-        // Mostrar label
-        labelText.setText(label);
+        timeText.setText(timeFormat.format(new Date()));
 
-        // Configurar botones
+        // Configurar botones: actúan sobre todas las alarmas de la sesión
         dismissButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 Log.d(TAG, "👆 Usuario presionó DETENER");
-                dismissAlarm();
+                dismissAll();
             }
         });
 
@@ -84,17 +119,119 @@ public class AlarmActivity extends AppCompatActivity {
             @Override
             public void onClick(View v) {
                 Log.d(TAG, "👆 Usuario presionó POSPONER");
-                snoozeAlarm();
+                snoozeAll();
             }
         });
 
-        // Iniciar sonido y vibración
-        playAlarmSound();
-        startVibration();
+        // Repintar cuando el sonido empiece a oírse, para medir la etapa de audio
+        AlarmSound.getInstance(this).setListener(audibleAt -> runOnUiThread(() -> {
+            if (!isFinishing()) {
+                render(System.currentTimeMillis());
+            }
+        }));
+        render(createdAt);
 
         Log.d(TAG, "✅ AlarmActivity configurada correctamente");
     }
 
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        Log.d(TAG, "➕ Nuevo disparo durante la sesión");
+        render(System.currentTimeMillis());
+    }
+
+    @Override
+    public void onItemsChanged() {
+        render(System.currentTimeMillis());
+    }
+
+    private static RingingSession.Item itemFromIntent(Intent intent) {
+        AlarmPayload payload = AlarmPayload.from(intent);
+        return new RingingSession.Item(
+            payload.alarmId,
+            payload.title,
+            payload.triggerTime,
+            intent.getLongExtra(EXTRA_RECEIVED_AT, 0),
+            payload.scheduleApi,
+            payload.snoozeCount);
+    }
+
+    /**
+     * Pinta la sesión: una alarma como siempre, varias como lista con botones por alarma.
+     */
+    private void render(long observedAt) {
+        List<RingingSession.Item> items = RingingSession.items();
+        if (items.isEmpty()) {
+            // RingingService ya dejó de sonar y quitó la notificación
+            if (!isFinishing()) {
+                finish();
+            }
+            return;
+        }
+
+        // Las que llegan con el sonido ya en marcha se oyen desde que se reciben
+        long audibleAt = AlarmSound.getInstance(this).audibleAt();
+        for (RingingSession.Item item : items) {
+            if (!item.shown) {
+                item.shown = true;
+                recordDelivery(item, DeliveryStats.STAGE_ACTIVITY, observedAt);
+            }
+            if (audibleAt != 0 && !item.audible) {
+                item.audible = true;
+                recordDelivery(item, DeliveryStats.STAGE_AUDIO, Math.max(audibleAt, item.receivedAt));
+            }
+        }
+
+        if (items.size() == 1) {
+            RingingSession.Item item = items.get(0);
+            Log.d(TAG, "📋 Alarma ID: " + item.alarmId + ", Label: " + item.title);
+            labelText.setText(item.title);
+            listScroll.setVisibility(View.GONE);
+            dismissButton.setText("DETENER");
+            snoozeButton.setText("POSPONER " + snoozeMinutes + " MIN");
+            snoozeButton.setVisibility(canSnooze(item) ? View.VISIBLE : View.GONE);
+            return;
+        }
+
+        Log.d(TAG, "📋 " + items.size() + " alarmas sonando");
+        labelText.setText(items.size() + " alarmas");
+        dismissButton.setText("DETENER TODAS");
+        snoozeButton.setText("POSPONER TODAS " + snoozeMinutes + " MIN");
+        boolean anySnoozable = false;
+
+        listView.removeAllViews();
+        LayoutInflater inflater = getLayoutInflater();
+        for (RingingSession.Item item : items) {
+            View row = inflater.inflate(R.layout.item_ringing_alarm, listView, false);
+            ((TextView) row.findViewById(R.id.ringing_title)).setText(item.title);
+            ((TextView) row.findViewById(R.id.ringing_time)).setText(
+                timeFormat.format(new Date(item.triggerTime > 0 ? item.triggerTime : item.receivedAt)));
+            row.findViewById(R.id.ringing_dismiss).setOnClickListener(v -> dismissAlarm(item));
+            View rowSnooze = row.findViewById(R.id.ringing_snooze);
+            if (canSnooze(item)) {
+                anySnoozable = true;
+                rowSnooze.setOnClickListener(v -> snoozeAlarm(item));
+            } else {
+                rowSnooze.setVisibility(View.GONE);
+            }
+            listView.addView(row);
+        }
+        // Las que ya no pueden posponerse se detienen al pulsar "posponer todas"
+        snoozeButton.setVisibility(anySnoozable ? View.VISIBLE : View.GONE);
+
+        ViewGroup.LayoutParams params = listScroll.getLayoutParams();
+        params.height = items.size() > MAX_VISIBLE_ROWS
+            ? (int) (MAX_VISIBLE_ROWS * 64 * getResources().getDisplayMetrics().density)
+            : ViewGroup.LayoutParams.WRAP_CONTENT;
+        listScroll.setLayoutParams(params);
+        listScroll.setVisibility(View.VISIBLE);
+    }
+
+    private boolean canSnooze(RingingSession.Item item) {
+        return SnoozeManager.canSnooze(item.snoozeCount, maxSnoozes);
+    }
+
     /**
      * Configura la actividad para mostrarse sobre la pantalla de bloqueo.
      */
@@ -121,155 +258,83 @@ public class AlarmActivity extends AppCompatActivity {
     }
 
     /**
-     * Reproduce el sonido de alarma en loop.
+     * Registra la latencia de una etapa respecto a la hora programada.
      */
-    private void playAlarmSound() {
-        try {
-            Uri alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-            if (alarmUri == null) {
-                alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-            }
-
-            Log.d(TAG, "🔊 Reproduciendo sonido: " + alarmUri);
-
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setDataSource(this, alarmUri);
-
-            AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                .setUsage(AudioAttributes.USAGE_ALARM)
-                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                .build();
-
-            mediaPlayer.setAudioAttributes(audioAttributes);
-            mediaPlayer.setLooping(true); // Loop infinito
-            mediaPlayer.prepare();
-            mediaPlayer.start();
-
-            Log.d(TAG, "✅ Sonido de alarma iniciado");
-        } catch (IOException e) {
-            Log.e(TAG, "❌ Error al reproducir sonido: " + e.getMessage(), e);
+    private void recordDelivery(RingingSession.Item item, String stage, long observedAt) {
+        // Adelantada por agrupación (recibida antes de su hora): no es latencia de entrega
+        if (item.triggerTime <= 0 || item.receivedAt < item.triggerTime) {
+            return;
         }
+        final Context appContext = getApplicationContext();
+        AlarmExecutor.execute(() ->
+            DeliveryStats.record(appContext, item.scheduleApi, stage, item.triggerTime, observedAt));
     }
 
     /**
-     * Inicia vibración continua.
+     * Detiene una alarma de la sesión; el servicio la quita y, si era la última,
+     * la actividad se cierra al repintar.
      */
-    private void startVibration() {
-        vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-        if (vibrator != null && vibrator.hasVibrator()) {
-            long[] pattern = {0, 1000, 500, 1000}; // Vibrar 1s, pausa 0.5s, repetir
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                vibrator.vibrate(VibrationEffect.createWaveform(pattern, 0)); // 0 = repetir desde inicio
-            } else {
-                vibrator.vibrate(pattern, 0);
-            }
-
-            Log.d(TAG, "📳 Vibración iniciada");
+    private void dismissAlarm(RingingSession.Item item) {
+        Log.d(TAG, "🛑 Deteniendo alarma " + item.alarmId);
+        if (ringingService != null) {
+            ringingService.dismiss(item.alarmId);
         } else {
-            Log.w(TAG, "⚠️ Vibrator no disponible");
+            RingingService.send(this, RingingService.ACTION_DISMISS, item.alarmId, item.title, false);
         }
     }
 
     /**
-     * Detiene la alarma y cierra la actividad.
+     * Pospone una alarma de la sesión (se detiene si ya llegó al máximo).
      */
-    private void dismissAlarm() {
-        Log.d(TAG, "🛑 Deteniendo alarma...");
-        stopAlarm();
-        finish();
+    private void snoozeAlarm(RingingSession.Item item) {
+        Log.d(TAG, "⏰ Posponiendo alarma " + item.alarmId);
+        if (ringingService != null) {
+            ringingService.snooze(item.alarmId);
+        } else {
+            RingingService.send(this, RingingService.ACTION_SNOOZE, item.alarmId, item.title, false);
+        }
     }
 
-    /**
-     * Pospone la alarma por 10 minutos.
-     * TODO: Implementar lógica de reprogramación.
-     */
-    private void snoozeAlarm() {
-        Log.d(TAG, "⏰ Posponiendo alarma por 10 minutos...");
-        stopAlarm();
-
-        try {
-            // Calcular tiempo para 10 minutos en el futuro
-            long snoozeTime = System.currentTimeMillis() + (10 * 60 * 1000); // 10 minutos
-
-            // Crear intent para AlarmReceiver
-            Intent intent = new Intent(this, AlarmReceiver.class);
-            intent.putExtra("alarm_id", alarmId + 1000000); // ID temporal diferente
-            intent.putExtra("title", "Alarma Pospuesta");
-            intent.putExtra("message", "Pospuesta por 10 minutos");
-            intent.putExtra("trigger_time", snoozeTime);
-            intent.putExtra("is_recurring", false); // No repetir el snooze
-
-            // Crear PendingIntent
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                flags |= PendingIntent.FLAG_IMMUTABLE;
-            }
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                this,
-                alarmId + 1000000,
-                intent,
-                flags
-            );
-
-            // Obtener AlarmManager
-            AlarmManager alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
-
-            if (alarmManager != null) {
-                // Programar alarma pospuesta
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                        AlarmManager.RTC_WAKEUP,
-                        snoozeTime,
-                        pendingIntent
-                    );
-                } else {
-                    alarmManager.setExact(
-                        AlarmManager.RTC_WAKEUP,
-                        snoozeTime,
-                        pendingIntent
-                    );
-                }
-
-                Log.d(TAG, "✅ Alarma pospuesta para 10 minutos: " + new java.util.Date(snoozeTime));
-            } else {
-                Log.e(TAG, "❌ AlarmManager no disponible");
-            }
-
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error al posponer alarma: " + e.getMessage(), e);
+    private void dismissAll() {
+        Log.d(TAG, "🛑 Deteniendo todas las alarmas...");
+        if (ringingService != null) {
+            ringingService.dismissAll();
+        } else {
+            sendToAll(RingingService.ACTION_DISMISS);
         }
-
-        finish();
     }
 
     /**
-     * Detiene sonido y vibración.
+     * Pospone las que se pueden posponer y detiene el resto.
      */
-    private void stopAlarm() {
-        if (mediaPlayer != null) {
-            try {
-                mediaPlayer.stop();
-                mediaPlayer.release();
-                Log.d(TAG, "🔇 Sonido detenido");
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Error al detener sonido: " + e.getMessage());
-            }
-            mediaPlayer = null;
+    private void snoozeAll() {
+        Log.d(TAG, "⏰ Posponiendo todas las alarmas por " + snoozeMinutes + " minutos...");
+        if (ringingService != null) {
+            ringingService.snoozeAll();
+        } else {
+            sendToAll(RingingService.ACTION_SNOOZE);
         }
+    }
 
-        if (vibrator != null) {
-            vibrator.cancel();
-            Log.d(TAG, "📴 Vibración detenida");
+    private void sendToAll(String action) {
+        List<RingingSession.Item> items = RingingSession.items();
+        if (items.isEmpty()) {
+            finish();
+            return;
         }
+        RingingSession.Item first = items.get(0);
+        RingingService.send(this, action, first.alarmId, first.title, true);
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "💀 AlarmActivity.onDestroy()");
-        stopAlarm();
+        RingingSession.detach(this);
+        AlarmSound.getInstance(this).setListener(null);
+        // Cerrada sin pasar por los botones: la sesión sigue sonando en el servicio,
+        // con su notificación para volver a abrirla
+        unbindService(connection);
     }
 
     @Override
@@ -0,0 +1,57 @@
+package com.tidy.app;
+
+import android.os.Process;
+import android.util.Log;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutor acotado para el trabajo de las alarmas fuera del hilo principal
+ * (persistencia, reprogramación, notificaciones).
+ *
+ * Usa pocos hilos y una cola sin límite: una ráfaga anormal de disparos sólo
+ * espera más, porque ninguna tarea puede perderse y ejecutarla en el hilo que
+ * la envía (a menudo el principal o un onReceive) llevaría SQLite y
+ * AlarmManager al hilo de la UI. Si la cola crece mucho se avisa en el log.
+ */
+public final class AlarmExecutor {
+    private static final String TAG = "AlarmExecutor";
+
+    private static final int MAX_THREADS = 2;
+    // A partir de aquí la cola se considera atascada (sólo para el log)
+    private static final int BACKLOG_WARNING = 64;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        MAX_THREADS,
+        MAX_THREADS,
+        30, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "tidy-alarm-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private AlarmExecutor() {
+    }
+
+    public static void execute(Runnable task) {
+        executor.execute(task);
+        int backlog = executor.getQueue().size();
+        if (backlog == BACKLOG_WARNING || (backlog > BACKLOG_WARNING && backlog % BACKLOG_WARNING == 0)) {
+            Log.w(TAG, "⚠️ " + backlog + " tareas de alarmas en cola");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.tidy.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import com.getcapacitor.JSObject;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Métricas del subsistema de alarmas para telemetría: contadores de alarmas
+ * programadas, canceladas, disparadas, perdidas, reprogramadas y con error,
+ * pospuestas, rechazos por falta de permiso de alarmas exactas y el tiempo de
+ * cada método de AlarmPlugin.
+ *
+ * Registrar una métrica sólo toca memoria (MetricsRegistry). El acumulado se
+ * guarda en SharedPreferences como mucho cada FLUSH_INTERVAL_MS y al terminar
+ * el trabajo de cada receiver, con apply() (escritura asíncrona).
+ */
+public final class AlarmMetrics {
+    private static final String PREFS_NAME = "tidy_alarm_metrics";
+    private static final long FLUSH_INTERVAL_MS = 30_000;
+
+    // Índices de los contadores en el registro
+    public static final int SCHEDULED = 0;
+    public static final int CANCELLED = 1;
+    public static final int FIRED = 2;
+    public static final int MISSED = 3;
+    public static final int RESCHEDULED = 4;
+    public static final int FAILED = 5;
+    public static final int SNOOZED = 6;
+    public static final int SNOOZE_LIMIT_REACHED = 7;
+    public static final int PERMISSION_DENIED = 8;
+
+    private static final String[] COUNTERS = {
+        "scheduled",
+        "cancelled",
+        "fired",
+        "missed",
+        "rescheduled",
+        "failed",
+        "snoozed",
+        "snoozeLimitReached",
+        "permissionDenied",
+    };
+
+    private static volatile MetricsRegistry registry;
+    private static volatile long lastFlush;
+
+    private AlarmMetrics() {
+    }
+
+    /**
+     * Registro del proceso; la primera vez suma lo guardado en SharedPreferences.
+     */
+    static MetricsRegistry registry(Context context) {
+        MetricsRegistry current = registry;
+        if (current != null) {
+            return current;
+        }
+        synchronized (AlarmMetrics.class) {
+            if (registry == null) {
+                final Context appContext = context.getApplicationContext();
+                MetricsRegistry created = new MetricsRegistry(COUNTERS);
+                created.restore(load(appContext));
+                created.gauge("storedAlarms",
+                    () -> AlarmStore.getInstance(appContext).countScheduled(0, Long.MAX_VALUE));
+                created.gauge("activeSnoozes",
+                    () -> AlarmStore.getInstance(appContext).getSnoozes().size());
+                created.gauge("ringing", RingingSession::size);
+                lastFlush = SystemClock.elapsedRealtime();
+                registry = created;
+            }
+            return registry;
+        }
+    }
+
+    public static void increment(Context context, int counter) {
+        add(context, counter, 1);
+    }
+
+    public static void add(Context context, int counter, long delta) {
+        registry(context).add(counter, delta);
+        maybeFlush(context);
+    }
+
+    /**
+     * Inicio de una medición para {@link #recordCall(Context, String, long)}.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra el tiempo de un método de AlarmPlugin, desde que se llamó hasta que
+     * resolvió o rechazó (incluye el trabajo en segundo plano).
+     */
+    public static void recordCall(Context context, String method, long startNanos) {
+        registry(context).recordSince(method, startNanos);
+        maybeFlush(context);
+    }
+
+    private static void maybeFlush(Context context) {
+        if (SystemClock.elapsedRealtime() - lastFlush >= FLUSH_INTERVAL_MS) {
+            flush(context);
+        }
+    }
+
+    /**
+     * Guarda el acumulado. Los receivers lo llaman al terminar, porque el proceso
+     * puede morir poco después.
+     */
+    public static synchronized void flush(Context context) {
+        lastFlush = SystemClock.elapsedRealtime();
+        SharedPreferences.Editor editor = prefs(context).edit();
+        for (Map.Entry<String, Long> entry : registry(context).snapshot().entrySet()) {
+            editor.putLong(entry.getKey(), entry.getValue());
+        }
+        editor.apply();
+    }
+
+    /**
+     * Pone las métricas a cero, en memoria y en disco.
+     */
+    public static synchronized void reset(Context context) {
+        registry(context).reset();
+        prefs(context).edit().clear().apply();
+        lastFlush = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Resumen para exponer a JS: contadores, gauges y tiempos por método en milisegundos.
+     */
+    public static JSObject toJSObject(Context context) {
+        MetricsRegistry metrics = registry(context);
+
+        JSObject counters = new JSObject();
+        for (int i = 0; i < metrics.counterCount(); i++) {
+            counters.put(metrics.counterName(i), metrics.get(i));
+        }
+
+        JSObject gauges = new JSObject();
+        for (Map.Entry<String, Long> entry : metrics.readGauges().entrySet()) {
+            gauges.put(entry.getKey(), entry.getValue());
+        }
+
+        JSObject methods = new JSObject();
+        for (Map.Entry<String, MetricsRegistry.Timer> entry : metrics.timers().entrySet()) {
+            MetricsRegistry.Timer timer = entry.getValue();
+            long count = timer.count();
+            JSObject method = new JSObject();
+            method.put("count", count);
+            method.put("avgMs", count == 0 ? 0 : timer.totalMicros() / 1000.0 / count);
+            method.put("maxMs", timer.maxMicros() / 1000.0);
+            method.put("totalMs", timer.totalMicros() / 1000.0);
+            methods.put(entry.getKey(), method);
+        }
+
+        JSObject result = new JSObject();
+        result.put("counters", counters);
+        result.put("gauges", gauges);
+        result.put("methods", methods);
+        return result;
+    }
+
+    private static Map<String, Long> load(Context context) {
+        Map<String, Long> values = new HashMap<>();
+        for (Map.Entry<String, ?> entry : prefs(context).getAll().entrySet()) {
+            if (entry.getValue() instanceof Long) {
+                values.put(entry.getKey(), (Long) entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
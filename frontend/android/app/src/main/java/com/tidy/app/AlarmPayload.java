@@ -0,0 +1,158 @@
+package com.tidy.app;
+
+import android.content.Intent;
+import android.util.Log;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Datos de una alarma que viajan en los Intent/PendingIntent (AlarmManager,
+ * notificación y AlarmActivity), empaquetados en un único extra binario.
+ *
+ * Sólo lleva lo que hace falta antes de leer AlarmStore: ID, hora programada,
+ * título (recortado) para mostrar la alarma al instante, API de registro y
+ * número de pospuestas. Mensaje y recurrencia se leen del almacén, así que
+ * system_server no guarda el texto completo de cada alarma pendiente.
+ *
+ * Formato (big endian), versión 2:
+ *   u8 versión, u8 flags, i32 id, i64 trigger, u16 pospuestas, UTF título, UTF api
+ * Las versiones futuras sólo añaden campos al final: un lector v2 lee el prefijo
+ * que conoce. Las alarmas registradas antes (versión 1) traen extras sueltos y
+ * se siguen leyendo con {@link #from(Intent)}.
+ */
+public final class AlarmPayload {
+    private static final String TAG = "AlarmPayload";
+
+    static final String EXTRA = "tidy_payload";
+    static final int VERSION = 2;
+    static final int LEGACY_VERSION = 1;
+    static final int MAX_TITLE_LENGTH = 80;
+
+    private static final int FLAG_RECURRING = 1;
+
+    public final int version;
+    public final int alarmId;
+    public final long triggerTime;
+    public final String title;
+    public final String scheduleApi;
+    public final int snoozeCount;
+    public final boolean recurring;
+
+    // Sólo en la versión 1: el resto de datos viajaba en el Intent
+    String legacyMessage;
+    String legacyFrequency;
+    String legacyRepeatDays;
+
+    public AlarmPayload(int alarmId, long triggerTime, String title, String scheduleApi,
+                        int snoozeCount, boolean recurring) {
+        this(VERSION, alarmId, triggerTime, title, scheduleApi, snoozeCount, recurring);
+    }
+
+    private AlarmPayload(int version, int alarmId, long triggerTime, String title, String scheduleApi,
+                         int snoozeCount, boolean recurring) {
+        this.version = version;
+        this.alarmId = alarmId;
+        this.triggerTime = triggerTime;
+        this.title = title;
+        this.scheduleApi = scheduleApi;
+        this.snoozeCount = snoozeCount;
+        this.recurring = recurring;
+    }
+
+    static AlarmPayload of(AlarmRecord record, String scheduleApi) {
+        return new AlarmPayload(record.id, record.triggerTime, record.title, scheduleApi, 0, record.isRecurring);
+    }
+
+    /**
+     * Guarda el payload en el Intent como un único extra.
+     */
+    public void putInto(Intent intent) {
+        intent.putExtra(EXTRA, encode(this));
+    }
+
+    /**
+     * Lee el payload del Intent; si no lo trae (alarma registrada por una versión
+     * anterior de la app) lo arma con los extras sueltos.
+     */
+    public static AlarmPayload from(Intent intent) {
+        byte[] bytes = intent.getByteArrayExtra(EXTRA);
+        if (bytes != null) {
+            try {
+                return decode(bytes);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "⚠️ Payload ilegible, se usan los extras: " + e.getMessage());
+            }
+        }
+
+        AlarmPayload legacy = new AlarmPayload(LEGACY_VERSION,
+            intent.getIntExtra("alarm_id", 0),
+            intent.getLongExtra("trigger_time", 0),
+            intent.getStringExtra("title"),
+            intent.getStringExtra("schedule_api"),
+            intent.getIntExtra("snooze_count", 0),
+            intent.getBooleanExtra("is_recurring", false));
+        legacy.legacyMessage = intent.getStringExtra("message");
+        legacy.legacyFrequency = intent.getStringExtra("frequency");
+        legacy.legacyRepeatDays = intent.getStringExtra("repeat_days");
+        return legacy;
+    }
+
+    static byte[] encode(AlarmPayload payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(payload.recurring ? FLAG_RECURRING : 0);
+            out.writeInt(payload.alarmId);
+            out.writeLong(payload.triggerTime);
+            out.writeShort(Math.min(payload.snoozeCount, 0xFFFF));
+            out.writeUTF(truncate(payload.title));
+            out.writeUTF(payload.scheduleApi != null ? payload.scheduleApi : "");
+        } catch (IOException e) {
+            // ByteArrayOutputStream no lanza IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static AlarmPayload decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = in.readUnsignedByte();
+            if (version < VERSION) {
+                throw new IllegalArgumentException("versión de payload desconocida: " + version);
+            }
+            int flags = in.readUnsignedByte();
+            int alarmId = in.readInt();
+            long triggerTime = in.readLong();
+            int snoozeCount = in.readUnsignedShort();
+            String title = in.readUTF();
+            String scheduleApi = in.readUTF();
+            // Campos de versiones posteriores, si los hay, se ignoran
+            return new AlarmPayload(version, alarmId, triggerTime,
+                title.isEmpty() ? null : title,
+                scheduleApi.isEmpty() ? null : scheduleApi,
+                snoozeCount, (flags & FLAG_RECURRING) != 0);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("payload truncado", e);
+        }
+    }
+
+    /**
+     * Título recortado a MAX_TITLE_LENGTH sin partir un par sustituto (emoji).
+     */
+    static String truncate(String title) {
+        if (title == null) {
+            return "";
+        }
+        if (title.length() <= MAX_TITLE_LENGTH) {
+            return title;
+        }
+        int end = MAX_TITLE_LENGTH - 1;
+        if (Character.isHighSurrogate(title.charAt(end - 1))) {
+            end--;
+        }
+        return title.substring(0, end) + "…";
+    }
+}
@@ -1,7 +1,6 @@
 package com.tidy.app;
 
 import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
@@ -10,8 +9,13 @@ import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONObject;
 
 /**
  * Plugin personalizado para programar alarmas usando AlarmManager nativo de Android.
@@ -23,6 +27,56 @@ import java.util.Calendar;
 public class AlarmPlugin extends Plugin {
     private static final String TAG = "AlarmPlugin";
 
+    // Ejecutor en segundo plano para las operaciones por lotes (scheduleAlarms / cancelAlarms)
+    private static final ExecutorService batchExecutor = Executors.newSingleThreadExecutor();
+
+    // Páginas de getScheduledAlarms: acotadas para no cruzar el bridge con miles de alarmas
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    // getOccurrences: páginas más grandes (dos números por elemento) y rango acotado
+    private static final int DEFAULT_OCCURRENCE_PAGE_SIZE = 500;
+    private static final int MAX_OCCURRENCE_PAGE_SIZE = 2000;
+    private static final long MAX_OCCURRENCE_RANGE_MS = 400L * 24 * 60 * 60 * 1000;
+
+    // Eventos que se envían a JS (addListener) desde AlarmReceiver y RingingService
+    public static final String EVENT_ALARM_FIRED = "alarmFired";
+    public static final String EVENT_ALARM_SNOOZED = "alarmSnoozed";
+    public static final String EVENT_ALARM_DISMISSED = "alarmDismissed";
+    public static final String EVENT_ALARM_RESCHEDULED = "alarmRescheduled";
+    public static final String EVENT_ALARMS_MISSED = "alarmsMissed";
+
+    // Instancia cargada por el Bridge; null si el WebView no está activo
+    private static volatile AlarmPlugin instance;
+
+    @Override
+    public void load() {
+        instance = this;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (instance == this) {
+            instance = null;
+        }
+        super.handleOnDestroy();
+    }
+
+    /**
+     * Envía un evento a los listeners de JS si la app está abierta.
+     * Si todavía no hay listeners, Capacitor lo retiene hasta que se registre uno.
+     * Sin WebView activo se descarta: al abrirse, la app recarga el estado completo.
+     */
+    public static void emit(String eventName, JSObject data) {
+        AlarmPlugin plugin = instance;
+        if (plugin == null) {
+            Log.d(TAG, "📭 Evento " + eventName + " sin WebView activo, se descarta");
+            return;
+        }
+        data.put("timestamp", System.currentTimeMillis());
+        plugin.notifyListeners(eventName, data, true);
+        Log.d(TAG, "📨 Evento " + eventName + " enviado a JS");
+    }
+
     /**
      * Programa una alarma usando AlarmManager nativo.
      *
@@ -32,10 +86,12 @@ public class AlarmPlugin extends Plugin {
      *   - title: Título de la alarma (String)
      *   - message: Mensaje de la alarma (String)
      *   - repeatDays: Array de días para repetir [0-6] (opcional)
+     *   - critical: true para despertadores, siempre exactos aunque falte mucho (opcional)
      */
     @PluginMethod
     public void scheduleAlarm(PluginCall call) {
         Log.d(TAG, "📅 scheduleAlarm() llamado");
+        final long started = AlarmMetrics.start();
 
         // Obtener parámetros
         Integer alarmId = call.getInt("id");
@@ -71,71 +127,42 @@ public class AlarmPlugin extends Plugin {
             String frequency = call.getString("frequency");
             String repeatDays = call.getString("repeatDays");
 
-            // Crear intent para AlarmReceiver
-            Intent intent = new Intent(context, AlarmReceiver.class);
-            intent.putExtra("alarm_id", alarmId);
-            intent.putExtra("title", title);
-            intent.putExtra("message", message);
-            intent.putExtra("trigger_time", triggerTime);
-            intent.putExtra("is_recurring", isRecurring);
-            intent.putExtra("frequency", frequency);
-            intent.putExtra("repeat_days", repeatDays);
-
-            // Crear PendingIntent
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                flags |= PendingIntent.FLAG_IMMUTABLE;
+            // Android 12+ - Verificar permiso para alarmas exactas
+            if (!AlarmScheduler.canScheduleExact(alarmManager)) {
+                Log.e(TAG, "❌ No hay permiso para alarmas exactas");
+                AlarmMetrics.increment(context, AlarmMetrics.PERMISSION_DENIED);
+                call.reject("Permiso de alarmas exactas no otorgado. Ve a Configuración > Aplicaciones > Tidy > Alarmas y recordatorios");
+                return;
             }
 
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                alarmId,
-                intent,
-                flags
-            );
+            AlarmRecord record = new AlarmRecord(
+                alarmId, triggerTime, title, message, isRecurring, frequency, repeatDays);
+            record.critical = call.getBoolean("critical", false);
 
-            // Programar alarma según versión de Android
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                // Android 12+ - Verificar permiso para alarmas exactas
-                if (alarmManager.canScheduleExactAlarms()) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTime,
-                        pendingIntent
-                    );
-                    Log.d(TAG, "✅ Alarma programada con setExactAndAllowWhileIdle() [Android 12+]");
-                } else {
-                    Log.e(TAG, "❌ No hay permiso para alarmas exactas");
-                    call.reject("Permiso de alarmas exactas no otorgado. Ve a Configuración > Aplicaciones > Tidy > Alarmas y recordatorios");
-                    return;
-                }
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                // Android 6+ - Con soporte para Doze mode
-                alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTime,
-                    pendingIntent
-                );
-                Log.d(TAG, "✅ Alarma programada con setExactAndAllowWhileIdle() [Android 6+]");
-            } else {
-                // Android 5 y anteriores
-                alarmManager.setExact(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTime,
-                    pendingIntent
-                );
-                Log.d(TAG, "✅ Alarma programada con setExact() [Android 5]");
-            }
+            // Recurrentes: primera ocurrencia válida según RecurrenceRule
+            AlarmScheduler.alignToRecurrence(record, System.currentTimeMillis());
+
+            // Primero el almacén: una alarma registrada que no está guardada sonaría, pero
+            // reconcile, la reprogramación tras reiniciar y las perdidas no la verían.
+            // Si falla no se registra nada y la llamada se rechaza.
+            AlarmStore.getInstance(context).upsert(record);
+
+            AlarmScheduler.setAlarm(context, alarmManager, record);
+            AlarmMetrics.increment(context, AlarmMetrics.SCHEDULED);
+            Log.d(TAG, "✅ Alarma programada en AlarmManager [SDK " + Build.VERSION.SDK_INT + "]");
 
             JSObject result = new JSObject();
             result.put("success", true);
             result.put("alarmId", alarmId);
-            result.put("scheduledFor", new java.util.Date(triggerTime).toString());
+            result.put("scheduledFor", new java.util.Date(record.triggerTime).toString());
             call.resolve(result);
 
         } catch (Exception e) {
             Log.e(TAG, "❌ Error al programar alarma: " + e.getMessage(), e);
+            AlarmMetrics.increment(getContext(), AlarmMetrics.FAILED);
             call.reject("Error al programar alarma: " + e.getMessage());
+        } finally {
+            AlarmMetrics.recordCall(getContext(), "scheduleAlarm", started);
         }
     }
 
@@ -147,6 +174,7 @@ public class AlarmPlugin extends Plugin {
     @PluginMethod
     public void cancelAlarm(PluginCall call) {
         Log.d(TAG, "🗑️ cancelAlarm() llamado");
+        final long started = AlarmMetrics.start();
 
         Integer alarmId = call.getInt("id");
 
@@ -168,25 +196,17 @@ public class AlarmPlugin extends Plugin {
                 return;
             }
 
-            // Crear intent idéntico al usado para programar
-            Intent intent = new Intent(context, AlarmReceiver.class);
+            // Cancelar la alarma
+            AlarmScheduler.cancelAlarm(context, alarmManager, alarmId);
+            AlarmMetrics.increment(context, AlarmMetrics.CANCELLED);
 
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                flags |= PendingIntent.FLAG_IMMUTABLE;
+            try {
+                SnoozeManager.finish(context, alarmId);
+                AlarmStore.getInstance(context).delete(alarmId);
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ No se pudo eliminar la alarma del almacén: " + e.getMessage(), e);
             }
 
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                alarmId,
-                intent,
-                flags
-            );
-
-            // Cancelar la alarma
-            alarmManager.cancel(pendingIntent);
-            pendingIntent.cancel();
-
             Log.d(TAG, "✅ Alarma " + alarmId + " cancelada correctamente");
 
             JSObject result = new JSObject();
@@ -196,8 +216,793 @@ public class AlarmPlugin extends Plugin {
 
         } catch (Exception e) {
             Log.e(TAG, "❌ Error al cancelar alarma: " + e.getMessage(), e);
+            AlarmMetrics.increment(getContext(), AlarmMetrics.FAILED);
             call.reject("Error al cancelar alarma: " + e.getMessage());
+        } finally {
+            AlarmMetrics.recordCall(getContext(), "cancelAlarm", started);
+        }
+    }
+
+    /**
+     * Programa varias alarmas en una sola llamada al bridge.
+     *
+     * Se obtiene AlarmManager y se verifica el permiso una única vez, se registran
+     * todas las alarmas en segundo plano y se persisten en una sola transacción.
+     *
+     * @param call - Objeto con:
+     *   - alarms: Array de alarmas con el mismo formato que scheduleAlarm
+     * @return results: Array con { id, success, error? } por cada alarma, en el mismo orden
+     */
+    @PluginMethod
+    public void scheduleAlarms(PluginCall call) {
+        JSArray alarms = call.getArray("alarms");
+
+        if (alarms == null) {
+            Log.e(TAG, "❌ Falta parámetro: alarms");
+            call.reject("Falta parámetro obligatorio: alarms");
+            return;
+        }
+
+        Log.d(TAG, "📅 scheduleAlarms() llamado con " + alarms.length() + " alarmas");
+        final long started = AlarmMetrics.start();
+
+        batchExecutor.execute(() -> {
+            try {
+                Context context = getContext();
+                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+                if (alarmManager == null) {
+                    Log.e(TAG, "❌ AlarmManager no disponible");
+                    call.reject("AlarmManager no disponible");
+                    return;
+                }
+
+                if (!AlarmScheduler.canScheduleExact(alarmManager)) {
+                    Log.e(TAG, "❌ No hay permiso para alarmas exactas");
+                    AlarmMetrics.increment(context, AlarmMetrics.PERMISSION_DENIED);
+                    call.reject("Permiso de alarmas exactas no otorgado. Ve a Configuración > Aplicaciones > Tidy > Alarmas y recordatorios");
+                    return;
+                }
+
+                JSArray results = new JSArray();
+                List<AlarmRecord> valid = new ArrayList<>();
+                // Resultado de cada alarma válida, en el orden de la lista
+                List<JSObject> validResults = new ArrayList<>();
+                List<AlarmRecord> scheduled = new ArrayList<>();
+                int failed = 0;
+
+                for (int i = 0; i < alarms.length(); i++) {
+                    JSONObject item = alarms.optJSONObject(i);
+                    JSObject itemResult = new JSObject();
+                    results.put(itemResult);
+
+                    if (item == null || !item.has("id") || !item.has("triggerTime")) {
+                        itemResult.put("id", item != null && item.has("id") ? item.optInt("id") : JSONObject.NULL);
+                        itemResult.put("success", false);
+                        itemResult.put("error", "Faltan parámetros obligatorios: id y triggerTime");
+                        failed++;
+                        continue;
+                    }
+
+                    AlarmRecord record = parseAlarm(item);
+                    itemResult.put("id", record.id);
+                    valid.add(record);
+                    validResults.add(itemResult);
+                }
+
+                // Primero el almacén (como scheduleAlarm): si no se puede guardar no se registra nada
+                boolean stored;
+                try {
+                    AlarmStore.getInstance(context).upsertAll(valid);
+                    stored = true;
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ No se pudieron guardar las alarmas en el almacén: " + e.getMessage(), e);
+                    for (JSObject itemResult : validResults) {
+                        itemResult.put("success", false);
+                        itemResult.put("error", "No se pudo guardar la alarma: " + e.getMessage());
+                    }
+                    failed += valid.size();
+                    stored = false;
+                }
+
+                if (stored) {
+                    AlarmScheduler.beginBatch(context);
+                    try {
+                        for (int i = 0; i < valid.size(); i++) {
+                            AlarmRecord record = valid.get(i);
+                            JSObject itemResult = validResults.get(i);
+                            try {
+                                AlarmScheduler.setAlarm(context, alarmManager, record);
+                                scheduled.add(record);
+                                itemResult.put("success", true);
+                            } catch (Exception e) {
+                                // Queda en el almacén: la registra el próximo reconcile o reinicio
+                                Log.e(TAG, "❌ Error al programar alarma " + record.id + ": " + e.getMessage());
+                                itemResult.put("success", false);
+                                itemResult.put("error", e.getMessage());
+                                failed++;
+                            }
+                        }
+                    } finally {
+                        AlarmScheduler.endBatch(context);
+                    }
+                }
+
+                Log.d(TAG, "✅ scheduleAlarms(): " + scheduled.size() + " programadas, " + failed + " con error");
+                AlarmMetrics.add(context, AlarmMetrics.SCHEDULED, scheduled.size());
+                AlarmMetrics.add(context, AlarmMetrics.FAILED, failed);
+
+                JSObject result = new JSObject();
+                result.put("success", failed == 0);
+                result.put("scheduled", scheduled.size());
+                result.put("failed", failed);
+                result.put("results", results);
+                call.resolve(result);
+
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al programar alarmas: " + e.getMessage(), e);
+                AlarmMetrics.increment(getContext(), AlarmMetrics.FAILED);
+                call.reject("Error al programar alarmas: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(getContext(), "scheduleAlarms", started);
+            }
+        });
+    }
+
+    /**
+     * Cancela varias alarmas en una sola llamada al bridge.
+     *
+     * @param call - Objeto con:
+     *   - ids: Array de IDs de alarmas a cancelar
+     * @return results: Array con { id, success, error? } por cada ID, en el mismo orden
+     */
+    @PluginMethod
+    public void cancelAlarms(PluginCall call) {
+        JSArray ids = call.getArray("ids");
+
+        if (ids == null) {
+            Log.e(TAG, "❌ Falta parámetro: ids");
+            call.reject("Falta parámetro obligatorio: ids");
+            return;
+        }
+
+        Log.d(TAG, "🗑️ cancelAlarms() llamado con " + ids.length() + " IDs");
+        final long started = AlarmMetrics.start();
+
+        batchExecutor.execute(() -> {
+            try {
+                Context context = getContext();
+                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+                if (alarmManager == null) {
+                    Log.e(TAG, "❌ AlarmManager no disponible");
+                    call.reject("AlarmManager no disponible");
+                    return;
+                }
+
+                JSArray results = new JSArray();
+                List<Integer> cancelled = new ArrayList<>();
+                int failed = 0;
+
+                AlarmScheduler.beginBatch(context);
+                try {
+                    for (int i = 0; i < ids.length(); i++) {
+                        JSObject itemResult = new JSObject();
+
+                        if (ids.isNull(i)) {
+                            itemResult.put("id", JSONObject.NULL);
+                            itemResult.put("success", false);
+                            itemResult.put("error", "ID inválido");
+                            results.put(itemResult);
+                            failed++;
+                            continue;
+                        }
+
+                        int alarmId = ids.optInt(i);
+                        itemResult.put("id", alarmId);
+
+                        try {
+                            AlarmScheduler.cancelAlarm(context, alarmManager, alarmId);
+                            // Igual que cancelAlarm: una pospuesta pendiente no debe volver a sonar
+                            SnoozeManager.finish(context, alarmId);
+                            cancelled.add(alarmId);
+                            itemResult.put("success", true);
+                        } catch (Exception e) {
+                            Log.e(TAG, "❌ Error al cancelar alarma " + alarmId + ": " + e.getMessage());
+                            itemResult.put("success", false);
+                            itemResult.put("error", e.getMessage());
+                            failed++;
+                        }
+                        results.put(itemResult);
+                    }
+                } finally {
+                    AlarmScheduler.endBatch(context);
+                }
+
+                try {
+                    AlarmStore.getInstance(context).deleteAll(cancelled);
+                } catch (Exception e) {
+                    Log.w(TAG, "⚠️ No se pudieron eliminar las alarmas del almacén: " + e.getMessage(), e);
+                }
+
+                Log.d(TAG, "✅ cancelAlarms(): " + cancelled.size() + " canceladas, " + failed + " con error");
+                AlarmMetrics.add(context, AlarmMetrics.CANCELLED, cancelled.size());
+                AlarmMetrics.add(context, AlarmMetrics.FAILED, failed);
+
+                JSObject result = new JSObject();
+                result.put("success", failed == 0);
+                result.put("cancelled", cancelled.size());
+                result.put("failed", failed);
+                result.put("results", results);
+                call.resolve(result);
+
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al cancelar alarmas: " + e.getMessage(), e);
+                AlarmMetrics.increment(getContext(), AlarmMetrics.FAILED);
+                call.reject("Error al cancelar alarmas: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(getContext(), "cancelAlarms", started);
+            }
+        });
+    }
+
+    /**
+     * Sincroniza las alarmas nativas con la lista deseada tocando sólo lo que cambió.
+     *
+     * Compara la huella de cada alarma (hora original, recurrencia y textos) con la
+     * guardada en AlarmStore: las nuevas o modificadas se programan, las que ya no
+     * están en la lista se cancelan y las iguales no generan llamadas a AlarmManager.
+     *
+     * @param call - Objeto con:
+     *   - alarms: Array de alarmas con el mismo formato que scheduleAlarm (lista completa)
+     * @return added, updated, removed, unchanged, failed y errors: [{ id, error }]
+     */
+    @PluginMethod
+    public void reconcileAlarms(PluginCall call) {
+        JSArray alarms = call.getArray("alarms");
+
+        if (alarms == null) {
+            Log.e(TAG, "❌ Falta parámetro: alarms");
+            call.reject("Falta parámetro obligatorio: alarms");
+            return;
+        }
+
+        Log.d(TAG, "🔁 reconcileAlarms() llamado con " + alarms.length() + " alarmas");
+        final long started = AlarmMetrics.start();
+
+        batchExecutor.execute(() -> {
+            try {
+                Context context = getContext();
+                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+                if (alarmManager == null) {
+                    Log.e(TAG, "❌ AlarmManager no disponible");
+                    call.reject("AlarmManager no disponible");
+                    return;
+                }
+
+                if (!AlarmScheduler.canScheduleExact(alarmManager)) {
+                    Log.e(TAG, "❌ No hay permiso para alarmas exactas");
+                    AlarmMetrics.increment(context, AlarmMetrics.PERMISSION_DENIED);
+                    call.reject("Permiso de alarmas exactas no otorgado. Ve a Configuración > Aplicaciones > Tidy > Alarmas y recordatorios");
+                    return;
+                }
+
+                JSArray errors = new JSArray();
+                List<AlarmRecord> desired = new ArrayList<>();
+                for (int i = 0; i < alarms.length(); i++) {
+                    JSONObject item = alarms.optJSONObject(i);
+                    if (item == null || !item.has("id") || !item.has("triggerTime")) {
+                        JSObject error = new JSObject();
+                        error.put("id", item != null && item.has("id") ? item.optInt("id") : JSONObject.NULL);
+                        error.put("error", "Faltan parámetros obligatorios: id y triggerTime");
+                        errors.put(error);
+                        continue;
+                    }
+                    desired.add(parseAlarm(item));
+                }
+
+                AlarmStore store = AlarmStore.getInstance(context);
+                AlarmReconciler.Plan plan = AlarmReconciler.diff(desired, store.getScheduledAlarms());
+
+                List<AlarmRecord> scheduled = new ArrayList<>();
+                List<Integer> cancelled = new ArrayList<>();
+                int added = 0;
+                int updated = 0;
+
+                // Primero el almacén: una alarma registrada que no está guardada no la
+                // verían el próximo reconcile, el reinicio ni las perdidas
+                List<AlarmRecord> changed = new ArrayList<>(plan.added);
+                changed.addAll(plan.updated);
+                try {
+                    store.upsertAll(changed);
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ No se pudo actualizar el almacén: " + e.getMessage(), e);
+                    for (AlarmRecord record : changed) {
+                        errors.put(errorItem(record.id, e));
+                    }
+                    changed.clear();
+                }
+
+                AlarmScheduler.beginBatch(context);
+                try {
+                    for (int alarmId : plan.removed) {
+                        try {
+                            AlarmScheduler.cancelAlarm(context, alarmManager, alarmId);
+                            // Una alarma que ya no existe no debe volver a sonar por una pospuesta
+                            SnoozeManager.finish(context, alarmId);
+                            cancelled.add(alarmId);
+                        } catch (Exception e) {
+                            Log.e(TAG, "❌ Error al cancelar alarma " + alarmId + ": " + e.getMessage());
+                            errors.put(errorItem(alarmId, e));
+                        }
+                    }
+
+                    for (int i = 0; i < changed.size(); i++) {
+                        AlarmRecord record = changed.get(i);
+                        try {
+                            // setAlarm reemplaza el PendingIntent existente (FLAG_UPDATE_CURRENT)
+                            AlarmScheduler.setAlarm(context, alarmManager, record);
+                            scheduled.add(record);
+                            if (i < plan.added.size()) {
+                                added++;
+                            } else {
+                                updated++;
+                            }
+                        } catch (Exception e) {
+                            Log.e(TAG, "❌ Error al programar alarma " + record.id + ": " + e.getMessage());
+                            errors.put(errorItem(record.id, e));
+                        }
+                    }
+                } finally {
+                    AlarmScheduler.endBatch(context);
+                }
+
+                // Las quitadas se borran después de cancelarlas: si esto falla siguen en el
+                // almacén sin registrar y el próximo reconcile las vuelve a quitar
+                try {
+                    store.deleteAll(cancelled);
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Alarmas canceladas pero no se pudieron borrar del almacén: " + e.getMessage(), e);
+                    for (int alarmId : cancelled) {
+                        errors.put(errorItem(alarmId, e));
+                    }
+                }
+
+                Log.d(TAG, "✅ reconcileAlarms(): +" + added + " ~" + updated + " -" + cancelled.size()
+                    + " =" + plan.unchanged + " (" + errors.length() + " con error)");
+                AlarmMetrics.add(context, AlarmMetrics.SCHEDULED, scheduled.size());
+                AlarmMetrics.add(context, AlarmMetrics.CANCELLED, cancelled.size());
+                AlarmMetrics.add(context, AlarmMetrics.FAILED, errors.length());
+
+                JSObject result = new JSObject();
+                result.put("success", errors.length() == 0);
+                result.put("added", added);
+                result.put("updated", updated);
+                result.put("removed", cancelled.size());
+                result.put("unchanged", plan.unchanged);
+                result.put("failed", errors.length());
+                result.put("errors", errors);
+                call.resolve(result);
+
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al sincronizar alarmas: " + e.getMessage(), e);
+                AlarmMetrics.increment(getContext(), AlarmMetrics.FAILED);
+                call.reject("Error al sincronizar alarmas: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(getContext(), "reconcileAlarms", started);
+            }
+        });
+    }
+
+    /**
+     * Lista las alarmas programadas en páginas, ordenadas por próximo disparo.
+     * Lee del índice de AlarmStore en lugar de LocalNotifications.getPending(),
+     * y cada página sólo lleva los campos que necesita una lista.
+     *
+     * @param call - Objeto con (todos opcionales):
+     *   - offset: posición del primer elemento (por defecto 0)
+     *   - limit: tamaño de la página (por defecto 100, máximo 500)
+     *   - from / to: rango de hora de disparo en ms
+     */
+    @PluginMethod
+    public void getScheduledAlarms(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        final int offset = Math.max(0, call.getInt("offset", 0));
+        final int limit = Math.min(MAX_PAGE_SIZE, Math.max(1, call.getInt("limit", DEFAULT_PAGE_SIZE)));
+        final long from = call.getLong("from", 0L);
+        final long to = call.getLong("to", Long.MAX_VALUE);
+        if (from > to) {
+            call.reject("from debe ser anterior a to");
+            return;
         }
+
+        final Context context = getContext();
+        batchExecutor.execute(() -> {
+            try {
+                AlarmStore store = AlarmStore.getInstance(context);
+                List<AlarmRecord> page = store.getScheduledPage(from, to, offset, limit);
+                int total = store.countScheduled(from, to);
+
+                JSArray items = new JSArray();
+                for (AlarmRecord record : page) {
+                    JSObject item = new JSObject();
+                    item.put("id", record.id);
+                    item.put("triggerTime", record.triggerTime);
+                    item.put("title", record.title);
+                    item.put("isRecurring", record.isRecurring);
+                    item.put("frequency", record.frequency);
+                    item.put("critical", record.critical);
+                    items.put(item);
+                }
+
+                int next = offset + page.size();
+                JSObject result = new JSObject();
+                result.put("total", total);
+                result.put("offset", offset);
+                result.put("nextOffset", next < total ? next : -1);
+                result.put("alarms", items);
+                call.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al listar alarmas: " + e.getMessage(), e);
+                call.reject("Error al listar alarmas: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(context, "getScheduledAlarms", started);
+            }
+        });
+    }
+
+    /**
+     * Ocurrencias de las alarmas programadas entre dos instantes, con las recurrentes
+     * expandidas (diaria, semanal, mensual, anual), en orden de hora.
+     *
+     * @param call - Objeto con:
+     *   - from / to: rango [from, to) en ms, como máximo 400 días
+     *   - offset, limit: paginación (limit por defecto 500, máximo 2000)
+     */
+    @PluginMethod
+    public void getOccurrences(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        Long from = call.getLong("from");
+        Long to = call.getLong("to");
+        if (from == null || to == null) {
+            call.reject("Faltan parámetros obligatorios: from, to");
+            return;
+        }
+        if (to <= from || to - from > MAX_OCCURRENCE_RANGE_MS) {
+            call.reject("Rango inválido: to debe ser posterior a from y abarcar como máximo 400 días");
+            return;
+        }
+        final long rangeFrom = from;
+        final long rangeTo = to;
+        final int offset = Math.max(0, call.getInt("offset", 0));
+        final int limit = Math.min(MAX_OCCURRENCE_PAGE_SIZE,
+            Math.max(1, call.getInt("limit", DEFAULT_OCCURRENCE_PAGE_SIZE)));
+
+        final Context context = getContext();
+        batchExecutor.execute(() -> {
+            try {
+                OccurrenceIndex.Page page = AlarmScheduler.occurrenceIndex(context)
+                    .query(rangeFrom, rangeTo, offset, limit);
+
+                JSArray occurrences = new JSArray();
+                for (int i = 0; i < page.size(); i++) {
+                    JSObject item = new JSObject();
+                    item.put("alarmId", page.alarmIds[i]);
+                    item.put("time", page.times[i]);
+                    occurrences.put(item);
+                }
+
+                JSObject result = new JSObject();
+                result.put("offset", offset);
+                result.put("nextOffset", page.nextOffset);
+                result.put("occurrences", occurrences);
+                call.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al calcular ocurrencias: " + e.getMessage(), e);
+                call.reject("Error al calcular ocurrencias: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(context, "getOccurrences", started);
+            }
+        });
+    }
+
+    /**
+     * Construye un AlarmRecord desde un elemento del array de alarmas de JS.
+     * Las recurrentes quedan alineadas a su primera ocurrencia válida.
+     */
+    private static AlarmRecord parseAlarm(JSONObject item) {
+        AlarmRecord record = new AlarmRecord(
+            item.optInt("id"),
+            item.optLong("triggerTime"),
+            item.optString("title", "Alarma Tidy"),
+            item.optString("message", "Es hora de tu alarma"),
+            item.optBoolean("isRecurring", false),
+            item.isNull("frequency") ? null : item.optString("frequency"),
+            item.isNull("repeatDays") ? null : item.optString("repeatDays")
+        );
+        record.critical = item.optBoolean("critical", false);
+        AlarmScheduler.alignToRecurrence(record, System.currentTimeMillis());
+        return record;
+    }
+
+    private static JSObject errorItem(int alarmId, Exception e) {
+        JSObject error = new JSObject();
+        error.put("id", alarmId);
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    /**
+     * Cambia el modo de programación de alarmas.
+     *
+     * @param call - Objeto con:
+     *   - mode: "per_alarm" (un PendingIntent por alarma, por defecto) o
+     *           "single_slot" (sólo la alarma más próxima se registra en AlarmManager)
+     */
+    @PluginMethod
+    public void setSchedulingMode(PluginCall call) {
+        String mode = call.getString("mode");
+        Log.d(TAG, "🔀 setSchedulingMode() llamado: " + mode);
+        final long started = AlarmMetrics.start();
+
+        if (mode == null) {
+            call.reject("Falta parámetro obligatorio: mode");
+            return;
+        }
+
+        try {
+            Context context = getContext();
+            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+            if (alarmManager == null) {
+                Log.e(TAG, "❌ AlarmManager no disponible");
+                call.reject("AlarmManager no disponible");
+                return;
+            }
+
+            AlarmScheduler.setSchedulingMode(context, alarmManager, mode);
+
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("mode", AlarmScheduler.getSchedulingMode(context));
+            call.resolve(result);
+
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al cambiar modo de programación: " + e.getMessage(), e);
+            call.reject("Error al cambiar modo de programación: " + e.getMessage());
+        } finally {
+            AlarmMetrics.recordCall(getContext(), "setSchedulingMode", started);
+        }
+    }
+
+    /**
+     * Devuelve el modo de programación actual.
+     */
+    @PluginMethod
+    public void getSchedulingMode(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        JSObject result = new JSObject();
+        result.put("mode", AlarmScheduler.getSchedulingMode(getContext()));
+        call.resolve(result);
+        AlarmMetrics.recordCall(getContext(), "getSchedulingMode", started);
+    }
+
+    /**
+     * Cambia el horizonte a partir del cual las alarmas no críticas se retienen
+     * en lugar de registrarse como exactas, y reprograma las alarmas guardadas.
+     *
+     * @param call - Objeto con:
+     *   - horizonMinutes: minutos (0 = todas exactas)
+     */
+    @PluginMethod
+    public void setSchedulingHorizon(PluginCall call) {
+        Integer minutes = call.getInt("horizonMinutes");
+        Log.d(TAG, "🔭 setSchedulingHorizon() llamado: " + minutes);
+        final long started = AlarmMetrics.start();
+
+        if (minutes == null || minutes < 0) {
+            call.reject("Parámetro inválido: horizonMinutes debe ser un entero >= 0");
+            return;
+        }
+
+        final Context context = getContext();
+        HorizonScheduler.setHorizonMs(context, minutes * 60000L);
+
+        batchExecutor.execute(() -> {
+            try {
+                int count = AlarmScheduler.rescheduleFromStore(context);
+                JSObject result = new JSObject();
+                result.put("success", true);
+                result.put("horizonMinutes", minutes);
+                result.put("rescheduled", count);
+                call.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al aplicar el horizonte: " + e.getMessage(), e);
+                call.reject("Error al aplicar el horizonte: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(context, "setSchedulingHorizon", started);
+            }
+        });
+    }
+
+    /**
+     * Devuelve el horizonte actual y los contadores de registros exactos,
+     * retenidos y despertares de promoción.
+     */
+    @PluginMethod
+    public void getSchedulingTierStats(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        call.resolve(HorizonScheduler.toJSObject(getContext()));
+        AlarmMetrics.recordCall(getContext(), "getSchedulingTierStats", started);
+    }
+
+    /**
+     * Devuelve la API de AlarmManager con la que se registran las alarmas en este
+     * dispositivo y la latencia p95 observada para cada API.
+     */
+    @PluginMethod
+    public void getSchedulingStrategy(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        call.resolve(SchedulingStrategy.toJSObject(getContext()));
+        AlarmMetrics.recordCall(getContext(), "getSchedulingStrategy", started);
+    }
+
+    /**
+     * Fija la API de programación o vuelve a la selección automática.
+     *
+     * @param call - Objeto con:
+     *   - strategy: "auto", "setAlarmClock", "setExactAndAllowWhileIdle" o "setExact"
+     */
+    @PluginMethod
+    public void setSchedulingStrategy(PluginCall call) {
+        String strategy = call.getString("strategy");
+        Log.d(TAG, "🔀 setSchedulingStrategy() llamado: " + strategy);
+        final long started = AlarmMetrics.start();
+
+        if (strategy == null) {
+            call.reject("Falta parámetro obligatorio: strategy");
+            return;
+        }
+
+        final Context context = getContext();
+        try {
+            SchedulingStrategy.setOverride(context, strategy);
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+
+        batchExecutor.execute(() -> {
+            try {
+                AlarmScheduler.rescheduleFromStore(context);
+                call.resolve(SchedulingStrategy.toJSObject(context));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al aplicar la estrategia: " + e.getMessage(), e);
+                call.reject("Error al aplicar la estrategia: " + e.getMessage());
+            } finally {
+                AlarmMetrics.recordCall(context, "setSchedulingStrategy", started);
+            }
+        });
+    }
+
+    /**
+     * Devuelve la configuración de pospuestas y las cadenas de pospuestas activas.
+     */
+    @PluginMethod
+    public void getSnoozeConfig(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        final Context context = getContext();
+        batchExecutor.execute(() -> {
+            call.resolve(SnoozeManager.toJSObject(context));
+            AlarmMetrics.recordCall(context, "getSnoozeConfig", started);
+        });
+    }
+
+    /**
+     * Configura la duración de la pospuesta y cuántas veces seguidas se permite.
+     *
+     * @param call - Objeto con:
+     *   - minutes: duración de cada pospuesta (1-120)
+     *   - maxCount: máximo de pospuestas seguidas (0 = sin límite, hasta 10)
+     */
+    @PluginMethod
+    public void setSnoozeConfig(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        final Context context = getContext();
+        int minutes = call.getInt("minutes", SnoozeManager.getMinutes(context));
+        int maxCount = call.getInt("maxCount", SnoozeManager.getMaxCount(context));
+        Log.d(TAG, "⏰ setSnoozeConfig() llamado: " + minutes + " min, máximo " + maxCount);
+
+        try {
+            SnoozeManager.setConfig(context, minutes, maxCount);
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+        batchExecutor.execute(() -> {
+            call.resolve(SnoozeManager.toJSObject(context));
+            AlarmMetrics.recordCall(context, "setSnoozeConfig", started);
+        });
+    }
+
+    /**
+     * Devuelve los tiempos medidos de AlarmReceiver (hilo principal vs segundo plano).
+     */
+    @PluginMethod
+    public void getReceiverTimings(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        call.resolve(ReceiverTimings.toJSObject(getContext()));
+        AlarmMetrics.recordCall(getContext(), "getReceiverTimings", started);
+    }
+
+    /**
+     * Devuelve cuánto tiempo estuvo tomado el WakeLock compartido de las alarmas
+     * (total, medio, máximo y por disparo) y cuántos trabajos lo pidieron.
+     */
+    @PluginMethod
+    public void getWakeLockStats(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        call.resolve(WakeLockManager.toJSObject(getContext()));
+        AlarmMetrics.recordCall(getContext(), "getWakeLockStats", started);
+    }
+
+    /**
+     * Devuelve los percentiles de latencia de entrega (hora real - hora programada)
+     * por API de programación y versión de Android.
+     *
+     * @param call Opciones: reset (opcional, borra las estadísticas después de leerlas)
+     */
+    @PluginMethod
+    public void getDeliveryStats(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        JSObject result = DeliveryStats.toJSObject(getContext());
+        if (call.getBoolean("reset", false)) {
+            DeliveryStats.reset(getContext());
+        }
+        call.resolve(result);
+        AlarmMetrics.recordCall(getContext(), "getDeliveryStats", started);
+    }
+
+    /**
+     * Devuelve los datos de la última reprogramación tras reinicio o actualización
+     * (alarmas registradas y tiempos desde el broadcast).
+     */
+    @PluginMethod
+    public void getRescheduleStats(PluginCall call) {
+        final long started = AlarmMetrics.start();
+        call.resolve(BootRescheduleJob.toJSObject(getContext()));
+        AlarmMetrics.recordCall(getContext(), "getRescheduleStats", started);
+    }
+
+    /**
+     * Devuelve las métricas del subsistema de alarmas: contadores (programadas,
+     * canceladas, disparadas, perdidas, reprogramadas, con error, pospuestas,
+     * rechazos por permiso), gauges y tiempo por método del plugin.
+     *
+     * @param call Opciones: reset (opcional, pone las métricas a cero después de leerlas)
+     */
+    @PluginMethod
+    public void getAlarmMetrics(PluginCall call) {
+        final Context context = getContext();
+        final boolean reset = call.getBoolean("reset", false);
+        // Los gauges consultan AlarmStore: fuera del hilo del bridge
+        batchExecutor.execute(() -> {
+            try {
+                JSObject result = AlarmMetrics.toJSObject(context);
+                if (reset) {
+                    AlarmMetrics.reset(context);
+                } else {
+                    AlarmMetrics.flush(context);
+                }
+                call.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al leer las métricas: " + e.getMessage(), e);
+                call.reject("Error al leer las métricas: " + e.getMessage());
+            }
+        });
     }
 
     /**
@@ -206,6 +1011,7 @@ public class AlarmPlugin extends Plugin {
     @PluginMethod
     public void canScheduleExactAlarms(PluginCall call) {
         Log.d(TAG, "🔍 canScheduleExactAlarms() llamado");
+        final long started = AlarmMetrics.start();
 
         try {
             boolean canSchedule = true;
@@ -228,6 +1034,8 @@ public class AlarmPlugin extends Plugin {
         } catch (Exception e) {
             Log.e(TAG, "❌ Error al verificar permisos: " + e.getMessage(), e);
             call.reject("Error al verificar permisos: " + e.getMessage());
+        } finally {
+            AlarmMetrics.recordCall(getContext(), "canScheduleExactAlarms", started);
         }
     }
 
@@ -237,6 +1045,7 @@ public class AlarmPlugin extends Plugin {
     @PluginMethod
     public void openExactAlarmSettings(PluginCall call) {
         Log.d(TAG, "⚙️ openExactAlarmSettings() llamado");
+        final long started = AlarmMetrics.start();
 
         try {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
@@ -261,6 +1070,8 @@ public class AlarmPlugin extends Plugin {
         } catch (Exception e) {
             Log.e(TAG, "❌ Error al abrir configuración: " + e.getMessage(), e);
             call.reject("Error al abrir configuración: " + e.getMessage());
+        } finally {
+            AlarmMetrics.recordCall(getContext(), "openExactAlarmSettings", started);
         }
     }
 }
@@ -1,6 +1,7 @@
 package com.tidy.app;
 
 import android.app.AlarmManager;
+import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
@@ -11,324 +12,482 @@ import android.media.AudioAttributes;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
-import android.os.PowerManager;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
+import com.getcapacitor.JSObject;
+import java.util.List;
+import java.util.Set;
 
 /**
  * BroadcastReceiver que recibe las alarmas programadas por AlarmManager
- * y muestra notificaciones con sonido, vibración y pantalla completa.
+ * y muestra la notificación de pantalla completa.
+ *
+ * En el hilo principal sólo se despierta el dispositivo y se lanza
+ * AlarmActivity; el resto se hace en AlarmExecutor usando goAsync().
+ * Sonido y vibración los lleva RingingService, que sigue sonando aunque
+ * AlarmActivity no llegue a abrirse.
  */
 public class AlarmReceiver extends BroadcastReceiver {
     private static final String TAG = "AlarmReceiver";
     private static final String CHANNEL_ID = "alarms_native";
     private static final int NOTIFICATION_IMPORTANCE = NotificationManager.IMPORTANCE_MAX;
 
+    // Margen para agrupar en un mismo disparo las alarmas del slot que vencen casi juntas
+    private static final long SLOT_TOLERANCE_MS = 1000;
+    // Máximo de alarmas que se adelantan a un mismo disparo
+    private static final int COALESCE_LIMIT = 20;
+    // Las vencidas hace más que esto no se agrupan: siguen armadas o las recoge MissedAlarms
+    private static final long COALESCE_LATE_TOLERANCE_MS = 5_000;
+
     @Override
     public void onReceive(Context context, Intent intent) {
+        final long receiveStart = SystemClock.elapsedRealtimeNanos();
+        final long receivedAt = System.currentTimeMillis();
         Log.d(TAG, "🔔 AlarmReceiver.onReceive() - Alarma recibida");
 
-        // Obtener datos de la alarma
-        int alarmId = intent.getIntExtra("alarm_id", 0);
-        String title = intent.getStringExtra("title");
-        String message = intent.getStringExtra("message");
-        long triggerTime = intent.getLongExtra("trigger_time", System.currentTimeMillis());
-        boolean isRecurring = intent.getBooleanExtra("is_recurring", false);
-        String frequency = intent.getStringExtra("frequency");
-        String repeatDays = intent.getStringExtra("repeat_days");
+        final Context appContext = context.getApplicationContext();
+
+        // Promoción por horizonte: no suena nada, sólo se registran alarmas exactas
+        if (HorizonScheduler.ACTION_PROMOTE.equals(intent.getAction())) {
+            final PendingResult pendingResult = goAsync();
+            final WakeLockManager.Holder promotionHolder = WakeLockManager.getInstance(appContext)
+                .acquire(WakeLockManager.HOLDER_RESCHEDULE, WakeLockManager.RESCHEDULE_TIMEOUT_MS);
+            AlarmExecutor.execute(() -> {
+                try {
+                    // Las retenidas que se promueven tarde (Doze) suenan ahora: no son perdidas
+                    Set<Integer> promoted = HorizonScheduler.onPromotion(appContext);
+                    MissedAlarms.catchUp(appContext, MissedAlarms.GRACE_MS, MissedAlarms.SOURCE_RECEIVER, promoted);
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Error en la promoción de alarmas: " + e.getMessage(), e);
+                } finally {
+                    promotionHolder.release();
+                    pendingResult.finish();
+                }
+            });
+            return;
+        }
 
-        Log.d(TAG, "📋 Datos de la alarma:");
-        Log.d(TAG, "  - ID: " + alarmId);
-        Log.d(TAG, "  - Title: " + title);
-        Log.d(TAG, "  - Message: " + message);
-        Log.d(TAG, "  - Trigger Time: " + new java.util.Date(triggerTime));
-        Log.d(TAG, "  - Is Recurring: " + isRecurring);
-        Log.d(TAG, "  - Frequency: " + frequency);
+        // CPU despierta hasta que termine el trabajo del disparo (no un tiempo fijo)
+        final WakeLockManager.Holder wakeHolder = WakeLockManager.getInstance(appContext)
+            .acquire(WakeLockManager.HOLDER_FIRE, WakeLockManager.FIRE_TIMEOUT_MS);
+
+        // El resto del trabajo (disco, notificación, reprogramación) sigue en
+        // AlarmExecutor; goAsync() mantiene vivo el broadcast hasta finish()
+        final PendingResult pendingResult = goAsync();
+
+        if (SingleSlotScheduler.ACTION_SLOT.equals(intent.getAction())) {
+            final long mainNanos = SystemClock.elapsedRealtimeNanos() - receiveStart;
+            AlarmExecutor.execute(() -> runAsync(appContext, pendingResult, wakeHolder, mainNanos, () -> {
+                handleSlot(appContext, receivedAt);
+                MissedAlarms.catchUp(appContext, MissedAlarms.GRACE_MS, MissedAlarms.SOURCE_RECEIVER);
+            }));
+            return;
+        }
 
-        // Despertar dispositivo
-        wakeUpDevice(context);
+        // Pospuesta: vuelve a sonar con el ID original; no se reprograma ni cambia de estado
+        if (SnoozeManager.ACTION_FIRE.equals(intent.getAction())) {
+            final AlarmPayload payload = AlarmPayload.from(intent);
+            final int alarmId = payload.alarmId;
+            launchAlarmActivity(context, payload, receivedAt);
+
+            final long mainNanos = SystemClock.elapsedRealtimeNanos() - receiveStart;
+            AlarmExecutor.execute(() -> runAsync(appContext, pendingResult, wakeHolder, mainNanos, () -> {
+                DeliveryStats.record(appContext, payload.scheduleApi, DeliveryStats.STAGE_RECEIVE,
+                    payload.triggerTime, receivedAt);
+                SnoozeChain chain = AlarmStore.getInstance(appContext).getSnooze(alarmId);
+                SnoozeManager.onFired(appContext, alarmId);
+                showAlarmNotification(appContext, alarmId, payload.title,
+                    chain != null && chain.message != null ? chain.message : "Alarma pospuesta");
+
+                JSObject event = new JSObject();
+                event.put("alarmId", alarmId);
+                event.put("title", payload.title);
+                event.put("triggerTime", payload.triggerTime);
+                event.put("isRecurring", false);
+                event.put("snoozeCount", payload.snoozeCount);
+                AlarmPlugin.emit(AlarmPlugin.EVENT_ALARM_FIRED, event);
+            }));
+            return;
+        }
 
-        // Crear y mostrar notificación
-        showAlarmNotification(context, alarmId, title, message);
+        // Ruta crítica: lanzar AlarmActivity con los datos que ya trae el payload
+        final AlarmPayload payload = AlarmPayload.from(intent);
+        launchAlarmActivity(context, payload, receivedAt);
+
+        final long mainNanos = SystemClock.elapsedRealtimeNanos() - receiveStart;
+        AlarmExecutor.execute(() -> runAsync(appContext, pendingResult, wakeHolder, mainNanos, () -> {
+            DeliveryStats.record(appContext, payload.scheduleApi, DeliveryStats.STAGE_RECEIVE,
+                payload.triggerTime, receivedAt);
+            boolean strategyChanged = SchedulingStrategy.reevaluate(appContext);
+            processAlarm(appContext, resolveAlarm(appContext, payload));
+            coalesceUpcoming(appContext, payload.alarmId, receivedAt);
+            // Aprovechar el despertar para avisar de las que no llegaron a sonar
+            MissedAlarms.catchUp(appContext, MissedAlarms.GRACE_MS, MissedAlarms.SOURCE_RECEIVER);
+            if (strategyChanged) {
+                // Volver a registrar el resto de alarmas con la nueva API, fuera del broadcast
+                BootRescheduleJob.enqueueStrategyChange(appContext, SystemClock.elapsedRealtime());
+            }
+        }));
+    }
 
-        // IMPORTANTE: Iniciar AlarmActivity en pantalla completa
-        // Esto muestra la alarma con sonido y vibración
-        Intent alarmIntent = new Intent(context, AlarmActivity.class);
-        alarmIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-        alarmIntent.putExtra("alarmId", alarmId);
-        alarmIntent.putExtra("label", title != null ? title : "Alarma Tidy");
-        context.startActivity(alarmIntent);
+    /**
+     * Ejecuta el trabajo en segundo plano, registra los tiempos y libera el broadcast
+     * y el WakeLock del disparo.
+     */
+    private void runAsync(Context context, PendingResult pendingResult, WakeLockManager.Holder wakeHolder,
+                          long mainNanos, Runnable work) {
+        long asyncStart = SystemClock.elapsedRealtimeNanos();
+        try {
+            work.run();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al procesar alarma en segundo plano: " + e.getMessage(), e);
+            AlarmMetrics.increment(context, AlarmMetrics.FAILED);
+        } finally {
+            long asyncNanos = SystemClock.elapsedRealtimeNanos() - asyncStart;
+            Log.d(TAG, "⏱️ onReceive: " + mainNanos / 1000 + " µs en hilo principal, "
+                + asyncNanos / 1000 + " µs en segundo plano");
+            ReceiverTimings.record(context, mainNanos, asyncNanos);
+            AlarmMetrics.flush(context);
+            wakeHolder.release();
+            pendingResult.finish();
+        }
+    }
 
-        Log.d(TAG, "✅ AlarmActivity iniciada");
+    /**
+     * Obtiene los datos de la alarma: el payload sólo trae ID, hora y título; el resto
+     * sale del almacén nativo (o de los extras sueltos de una alarma v1).
+     */
+    private AlarmRecord resolveAlarm(Context context, AlarmPayload payload) {
+        AlarmRecord stored = null;
+        try {
+            stored = AlarmStore.getInstance(context).get(payload.alarmId);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ No se pudo leer el almacén de alarmas: " + e.getMessage());
+        }
 
-        // 🔄 REPROGRAMAR si es recurrente
-        if (isRecurring && frequency != null) {
-            rescheduleRecurringAlarm(context, alarmId, title, message, triggerTime, frequency, repeatDays);
+        if (stored == null) {
+            AlarmRecord alarm = new AlarmRecord(
+                payload.alarmId,
+                payload.triggerTime > 0 ? payload.triggerTime : System.currentTimeMillis(),
+                payload.title,
+                payload.legacyMessage,
+                payload.recurring && payload.legacyFrequency != null,
+                payload.legacyFrequency,
+                payload.legacyRepeatDays
+            );
+            // Sin registro en el almacén: no hay estado que actualizar
+            alarm.state = null;
+            return alarm;
         }
 
-        Log.d(TAG, "✅ Alarma procesada correctamente");
+        if (payload.triggerTime > 0) {
+            stored.triggerTime = payload.triggerTime;
+        }
+        return stored;
     }
 
     /**
-     * Despierta el dispositivo brevemente para mostrar la alarma.
+     * Modo single_slot: dispara todas las alarmas vencidas de la cola.
+     * La cola arma automáticamente la siguiente al extraerlas.
      */
-    private void wakeUpDevice(Context context) {
-        try {
-            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-            if (powerManager != null) {
-                PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
-                    PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
-                    "Tidy::AlarmWakeLock"
-                );
-                wakeLock.acquire(10000); // 10 segundos
-                Log.d(TAG, "📱 Dispositivo despertado");
-
-                // Liberar después de un delay
-                new android.os.Handler().postDelayed(() -> {
-                    if (wakeLock.isHeld()) {
-                        wakeLock.release();
-                        Log.d(TAG, "📱 WakeLock liberado");
-                    }
-                }, 10000);
+    private void handleSlot(Context context, long receivedAt) {
+        SingleSlotScheduler slot = SingleSlotScheduler.getInstance(context);
+        AlarmStore store = AlarmStore.getInstance(context);
+
+        int[] due = slot.popDue(System.currentTimeMillis() + SLOT_TOLERANCE_MS);
+        Log.d(TAG, "🎰 Slot disparado: " + due.length + " alarmas vencidas, " + slot.size() + " pendientes");
+
+        for (int alarmId : due) {
+            AlarmRecord alarm = store.get(alarmId);
+            if (alarm == null || !alarm.isScheduled()) {
+                Log.w(TAG, "⚠️ Alarma " + alarmId + " ya no está programada, se ignora");
+                continue;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error al despertar dispositivo: " + e.getMessage(), e);
+            String scheduleApi = "single_slot:" + AlarmScheduler.exactApiName(context);
+            launchAlarmActivity(context, AlarmPayload.of(alarm, scheduleApi), receivedAt);
+            DeliveryStats.record(context, scheduleApi, DeliveryStats.STAGE_RECEIVE, alarm.triggerTime, receivedAt);
+            processAlarm(context, alarm);
         }
     }
 
     /**
-     * Nota: La vibración se maneja ahora en AlarmActivity
-     * para tener control sobre cuándo detenerla.
+     * Hace sonar la alarma en RingingService (sonido y vibración, aunque la actividad
+     * no llegue a abrirse), la añade a la RingingSession e inicia AlarmActivity en
+     * pantalla completa si todavía no está mostrando la sesión.
+     * Pasa la hora programada y la de recepción para medir la latencia de entrega,
+     * y las veces que ya se pospuso para limitar el botón de posponer.
      */
+    private void launchAlarmActivity(Context context, AlarmPayload payload, long receivedAt) {
+        RingingService.start(context, payload, receivedAt);
+
+        RingingSession.Item item = new RingingSession.Item(payload.alarmId, payload.title,
+            payload.triggerTime, receivedAt, payload.scheduleApi, payload.snoozeCount);
+        if (!RingingSession.offer(item)) {
+            Log.d(TAG, "➕ Alarma " + payload.alarmId + " añadida a la sesión en curso (" + RingingSession.size() + ")");
+            return;
+        }
+
+        // Sin CLEAR_TASK: si la actividad ya existe recibe onNewIntent en lugar de reiniciarse
+        Intent alarmIntent = new Intent(context, AlarmActivity.class);
+        alarmIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        payload.putInto(alarmIntent);
+        alarmIntent.putExtra(AlarmActivity.EXTRA_RECEIVED_AT, receivedAt);
+        context.startActivity(alarmIntent);
+
+        Log.d(TAG, "✅ AlarmActivity iniciada");
+    }
 
     /**
-     * Crea y muestra una notificación de alarma con máxima prioridad.
+     * Adelanta las alarmas que vencen dentro de RingingSession.COALESCE_WINDOW_MS para
+     * que suenen en esta misma sesión, en lugar de despertar el dispositivo y reiniciar
+     * la pantalla de alarma segundos después. En single_slot el slot ya agrupa las vencidas.
+     *
+     * Sólo se agrupan las que vencen desde casi ahora: una atrasada (Doze, cambio de
+     * hora, registro fallido) no es de esta sesión.
      */
-    private void showAlarmNotification(Context context, int alarmId, String title, String message) {
-        try {
-            NotificationManager notificationManager =
-                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    private void coalesceUpcoming(Context context, int firedId, long receivedAt) {
+        if (AlarmScheduler.isSingleSlotMode(context)) {
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
 
-            if (notificationManager == null) {
-                Log.e(TAG, "❌ NotificationManager no disponible");
-                return;
+        List<AlarmRecord> upcoming = AlarmStore.getInstance(context)
+            .getScheduledAlarmsBetween(receivedAt - COALESCE_LATE_TOLERANCE_MS,
+                receivedAt + RingingSession.COALESCE_WINDOW_MS, COALESCE_LIMIT);
+        for (AlarmRecord alarm : upcoming) {
+            if (alarm.id == firedId) {
+                continue;
             }
+            Log.d(TAG, "🧲 Alarma " + alarm.id + " agrupada en este disparo");
+            AlarmScheduler.cancelAlarm(context, alarmManager, alarm.id);
+            launchAlarmActivity(context, AlarmPayload.of(alarm, AlarmScheduler.exactApiName(context)), receivedAt);
+            processAlarm(context, alarm);
+        }
+    }
 
-            // Crear canal de notificación (Android 8+)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                createNotificationChannel(context, notificationManager);
-            }
+    /**
+     * Trabajo no visual de un disparo: notificación y reprogramación o marca como disparada.
+     * Se ejecuta en AlarmExecutor.
+     */
+    private void processAlarm(Context context, AlarmRecord alarm) {
+        int alarmId = alarm.id;
 
-            // URI del sonido de alarma
-            Uri alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-            if (alarmSoundUri == null) {
-                alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-            }
-            Log.d(TAG, "🔊 Sonido de alarma: " + alarmSoundUri);
+        Log.d(TAG, "📋 Datos de la alarma:");
+        Log.d(TAG, "  - ID: " + alarmId);
+        Log.d(TAG, "  - Title: " + alarm.title);
+        Log.d(TAG, "  - Message: " + alarm.message);
+        Log.d(TAG, "  - Trigger Time: " + new java.util.Date(alarm.triggerTime));
+        Log.d(TAG, "  - Is Recurring: " + alarm.isRecurring);
+        Log.d(TAG, "  - Frequency: " + alarm.frequency);
 
-            // Intent para abrir la app al tocar la notificación
-            Intent contentIntent = new Intent(context, MainActivity.class);
-            contentIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-            contentIntent.putExtra("alarm_id", alarmId);
-            contentIntent.putExtra("from_notification", true);
+        AlarmMetrics.increment(context, AlarmMetrics.FIRED);
 
-            int pendingIntentFlags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                pendingIntentFlags |= PendingIntent.FLAG_IMMUTABLE;
-            }
+        // Una nueva ocurrencia empieza de cero: se descarta la cadena de pospuestas anterior
+        SnoozeManager.finish(context, alarmId);
 
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                alarmId,
-                contentIntent,
-                pendingIntentFlags
-            );
+        // Crear y mostrar notificación
+        showAlarmNotification(context, alarmId, alarm.title, alarm.message);
+
+        JSObject event = new JSObject();
+        event.put("alarmId", alarmId);
+        event.put("title", alarm.title);
+        event.put("triggerTime", alarm.triggerTime);
+        event.put("isRecurring", alarm.isRecurring);
+        AlarmPlugin.emit(AlarmPlugin.EVENT_ALARM_FIRED, event);
 
-            // Construir notificación
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-                .setSmallIcon(getNotificationIcon(context))
-                .setContentTitle(title != null ? title : "Alarma Tidy")
-                .setContentText(message != null ? message : "Es hora de tu alarma")
-                .setPriority(NotificationCompat.PRIORITY_MAX)
-                .setCategory(NotificationCompat.CATEGORY_ALARM)
-                .setSound(alarmSoundUri)
-                .setVibrate(new long[]{0, 500, 200, 500})
-                .setLights(0xFFFF0000, 1000, 500) // Luz roja intermitente
-                .setAutoCancel(true)
-                .setContentIntent(pendingIntent)
-                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC) // Mostrar en pantalla bloqueada
-                .setOngoing(false); // No mantener permanentemente
-
-            // Full-screen intent para pantalla bloqueada (Android 10+)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                Intent fullScreenIntent = new Intent(context, MainActivity.class);
-                fullScreenIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                fullScreenIntent.putExtra("alarm_id", alarmId);
-                fullScreenIntent.putExtra("full_screen", true);
-
-                PendingIntent fullScreenPendingIntent = PendingIntent.getActivity(
-                    context,
-                    alarmId + 10000, // ID diferente para evitar conflictos
-                    fullScreenIntent,
-                    pendingIntentFlags
-                );
-
-                builder.setFullScreenIntent(fullScreenPendingIntent, true);
-                Log.d(TAG, "📱 Full-screen intent configurado");
+        // 🔄 REPROGRAMAR si es recurrente
+        if (alarm.isRecurring && alarm.frequency != null) {
+            rescheduleRecurringAlarm(context, alarm);
+        } else if (alarm.state != null) {
+            try {
+                AlarmStore.getInstance(context).updateState(alarmId, AlarmRecord.STATE_FIRED);
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ No se pudo marcar la alarma como disparada: " + e.getMessage());
             }
+        }
 
-            // Mostrar notificación
-            notificationManager.notify(alarmId, builder.build());
-            Log.d(TAG, "✅ Notificación mostrada con ID: " + alarmId);
+        Log.d(TAG, "✅ Alarma procesada correctamente");
+    }
 
+    /**
+     * Crea y muestra la notificación de alarma con máxima prioridad.
+     * Hay una sola notificación por RingingSession: si ya suenan otras alarmas se
+     * actualiza con la lista en lugar de publicar otra que tape a la anterior.
+     * Es también la notificación en primer plano de RingingService, que la
+     * publica primero con el mismo ID.
+     */
+    private void showAlarmNotification(Context context, int alarmId, String title, String message) {
+        try {
+            Notification notification = buildSessionNotification(context, alarmId, title, message);
+            // Las actualizaciones seguidas de la sesión se fusionan en el dispatcher
+            NotificationDispatcher.getInstance(context).post(RingingSession.NOTIFICATION_ID,
+                NotificationDispatcher.GROUP_ALARMS, notification,
+                notification.extras.getCharSequence(Notification.EXTRA_TITLE, "Alarma Tidy").toString());
+            Log.d(TAG, "✅ Notificación de la sesión encolada (" + Math.max(1, RingingSession.size()) + " alarmas)");
         } catch (Exception e) {
             Log.e(TAG, "❌ Error al mostrar notificación: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Crea el canal de notificaciones para alarmas (Android 8+).
+     * Notificación de la sesión que está sonando: lista de alarmas, acciones
+     * Detener/Posponer y full-screen intent hacia AlarmActivity.
      */
-    private void createNotificationChannel(Context context, NotificationManager notificationManager) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            try {
-                // Verificar si el canal ya existe
-                NotificationChannel existingChannel = notificationManager.getNotificationChannel(CHANNEL_ID);
-                if (existingChannel != null) {
-                    Log.d(TAG, "ℹ️ Canal de notificación ya existe");
-                    return;
-                }
+    static Notification buildSessionNotification(Context context, int alarmId, String title, String message) {
+        NotificationDispatcher dispatcher = NotificationDispatcher.getInstance(context);
 
-                // Crear nuevo canal
-                NotificationChannel channel = new NotificationChannel(
-                    CHANNEL_ID,
-                    "Alarmas Nativas",
-                    NOTIFICATION_IMPORTANCE
-                );
-
-                channel.setDescription("Alarmas programadas con máxima prioridad");
-                channel.enableVibration(true);
-                channel.setVibrationPattern(new long[]{0, 500, 200, 500});
-                channel.enableLights(true);
-                channel.setLightColor(0xFFFF0000); // Rojo
-                channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-                channel.setShowBadge(true);
-                channel.setBypassDnd(true); // Omitir "No molestar" para alarmas
-                channel.setImportance(NotificationManager.IMPORTANCE_MAX); // Máxima prioridad
-
-                // Configurar sonido
-                Uri alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-                if (alarmSoundUri == null) {
-                    alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-                }
+        // Crear canal de notificación (Android 8+, sólo se comprueba una vez por proceso)
+        dispatcher.ensureChannel(CHANNEL_ID, AlarmReceiver::createNotificationChannel);
+        dispatcher.registerGroup(NotificationDispatcher.GROUP_ALARMS, CHANNEL_ID, "%d alarmas");
 
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .build();
+        // URI del sonido de alarma
+        Uri alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        if (alarmSoundUri == null) {
+            alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+        }
+        Log.d(TAG, "🔊 Sonido de alarma: " + alarmSoundUri);
 
-                channel.setSound(alarmSoundUri, audioAttributes);
+        // Al tocar la notificación se muestra la sesión en AlarmActivity, sin arrancar el WebView
+        Intent contentIntent = new Intent(context, AlarmActivity.class);
+        contentIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        new AlarmPayload(alarmId, 0, title, null, 0, false).putInto(contentIntent);
 
-                notificationManager.createNotificationChannel(channel);
-                Log.d(TAG, "✅ Canal de notificación creado: " + CHANNEL_ID);
+        int pendingIntentFlags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            pendingIntentFlags |= PendingIntent.FLAG_IMMUTABLE;
+        }
 
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Error al crear canal de notificación: " + e.getMessage(), e);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            RequestCodes.SESSION_CONTENT,
+            contentIntent,
+            pendingIntentFlags
+        );
+
+        // Construir notificación
+        List<RingingSession.Item> ringing = RingingSession.items();
+        String contentTitle = title != null ? title : "Alarma Tidy";
+        String contentText = message != null ? message : "Es hora de tu alarma";
+        NotificationCompat.InboxStyle inbox = null;
+        // "Posponer" se ofrece mientras alguna alarma de la sesión no haya llegado al máximo
+        int maxSnoozes = SnoozeManager.getMaxCount(context);
+        boolean canSnooze = ringing.isEmpty();
+        for (RingingSession.Item item : ringing) {
+            canSnooze |= SnoozeManager.canSnooze(item.snoozeCount, maxSnoozes);
+        }
+        if (ringing.size() > 1) {
+            contentTitle = ringing.size() + " alarmas";
+            inbox = new NotificationCompat.InboxStyle().setBigContentTitle(contentTitle);
+            StringBuilder summary = new StringBuilder();
+            for (RingingSession.Item item : ringing) {
+                inbox.addLine(item.title);
+                summary.append(summary.length() > 0 ? ", " : "").append(item.title);
             }
+            contentText = summary.toString();
         }
-    }
 
-    /**
-     * Obtiene el icono de notificación correcto.
-     */
-    private int getNotificationIcon(Context context) {
-        // Intentar usar el icono personalizado de alarma
-        int iconId = context.getResources().getIdentifier("ic_stat_alarm", "drawable", context.getPackageName());
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setSmallIcon(dispatcher.smallIcon())
+            .setGroup(NotificationDispatcher.GROUP_ALARMS)
+            .setContentTitle(contentTitle)
+            .setContentText(contentText)
+            .setStyle(inbox)
+            .setOnlyAlertOnce(true) // las actualizaciones de la sesión no vuelven a sonar
+            .addAction(0, ringing.size() > 1 ? "Detener todas" : "Detener",
+                AlarmActionReceiver.actionIntent(context, AlarmActionReceiver.ACTION_DISMISS, alarmId, title))
+            .setPriority(NotificationCompat.PRIORITY_MAX)
+            .setCategory(NotificationCompat.CATEGORY_ALARM)
+            .setSound(alarmSoundUri)
+            .setVibrate(new long[]{0, 500, 200, 500})
+            .setLights(0xFFFF0000, 1000, 500) // Luz roja intermitente
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC) // Mostrar en pantalla bloqueada
+            .setOngoing(false); // No mantener permanentemente
+
+        if (canSnooze) {
+            builder.addAction(0, "Posponer " + SnoozeManager.getMinutes(context) + " min",
+                AlarmActionReceiver.actionIntent(context, AlarmActionReceiver.ACTION_SNOOZE, alarmId, title));
+        }
+
+        // Full-screen intent para pantalla bloqueada (Android 10+)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Intent fullScreenIntent = new Intent(context, AlarmActivity.class);
+            fullScreenIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            new AlarmPayload(alarmId, 0, title, null, 0, false).putInto(fullScreenIntent);
+
+            PendingIntent fullScreenPendingIntent = PendingIntent.getActivity(
+                context,
+                RequestCodes.SESSION_FULL_SCREEN,
+                fullScreenIntent,
+                pendingIntentFlags
+            );
+
+            builder.setFullScreenIntent(fullScreenPendingIntent, true);
+            Log.d(TAG, "📱 Full-screen intent configurado");
+        }
 
-        // Si no existe, usar el icono del launcher
-        if (iconId == 0) {
-            iconId = context.getApplicationInfo().icon;
+        return builder.build();
+    }
+
+    private static NotificationChannel createNotificationChannel() {
+        NotificationChannel channel = new NotificationChannel(
+            CHANNEL_ID,
+            "Alarmas Nativas",
+            NOTIFICATION_IMPORTANCE
+        );
+
+        channel.setDescription("Alarmas programadas con máxima prioridad");
+        channel.enableVibration(true);
+        channel.setVibrationPattern(new long[]{0, 500, 200, 500});
+        channel.enableLights(true);
+        channel.setLightColor(0xFFFF0000); // Rojo
+        channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        channel.setShowBadge(true);
+        channel.setBypassDnd(true); // Omitir "No molestar" para alarmas
+        channel.setImportance(NotificationManager.IMPORTANCE_MAX); // Máxima prioridad
+
+        // Configurar sonido
+        Uri alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        if (alarmSoundUri == null) {
+            alarmSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
         }
 
-        return iconId;
+        AudioAttributes audioAttributes = new AudioAttributes.Builder()
+            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+            .setUsage(AudioAttributes.USAGE_ALARM)
+            .build();
+
+        channel.setSound(alarmSoundUri, audioAttributes);
+        return channel;
     }
 
     /**
      * Reprograma una alarma recurrente para la próxima ocurrencia.
      *
+     * La próxima ocurrencia se calcula con RecurrenceRule a partir del ancla de la
+     * alarma (no sumando un período al disparo actual), respetando repeatDays y
+     * saltando las ocurrencias que ya pasaron si el disparo llegó tarde.
+     *
      * @param context Contexto de la aplicación
-     * @param alarmId ID de la alarma
-     * @param title Título de la alarma
-     * @param message Mensaje de la alarma
-     * @param originalTriggerTime Hora del disparo original
-     * @param frequency Frecuencia (diaria, semanal, mensual, anual)
-     * @param repeatDays Días de repetición (solo para semanal, JSON array)
+     * @param alarm Alarma que acaba de dispararse
      */
-    private void rescheduleRecurringAlarm(Context context, int alarmId, String title, String message,
-                                          long originalTriggerTime, String frequency, String repeatDays) {
+    private void rescheduleRecurringAlarm(Context context, AlarmRecord alarm) {
         try {
-            Log.d(TAG, "🔄 Reprogramando alarma recurrente ID: " + alarmId);
-
-            java.util.Calendar calendar = java.util.Calendar.getInstance();
-            calendar.setTimeInMillis(originalTriggerTime);
-
-            // Calcular próxima ocurrencia según frecuencia
-            switch (frequency) {
-                case "diaria":
-                    // Agregar 1 día
-                    calendar.add(java.util.Calendar.DAY_OF_MONTH, 1);
-                    Log.d(TAG, "  📅 Próxima ocurrencia (diaria): " + calendar.getTime());
-                    break;
-
-                case "semanal":
-                    // Agregar 7 días
-                    // TODO: Si hay repeatDays específicos, calcular próximo día válido
-                    calendar.add(java.util.Calendar.DAY_OF_MONTH, 7);
-                    Log.d(TAG, "  📅 Próxima ocurrencia (semanal): " + calendar.getTime());
-                    break;
-
-                case "mensual":
-                    // Agregar 1 mes
-                    calendar.add(java.util.Calendar.MONTH, 1);
-                    Log.d(TAG, "  📅 Próxima ocurrencia (mensual): " + calendar.getTime());
-                    break;
-
-                case "anual":
-                    // Agregar 1 año
-                    calendar.add(java.util.Calendar.YEAR, 1);
-                    Log.d(TAG, "  📅 Próxima ocurrencia (anual): " + calendar.getTime());
-                    break;
-
-                default:
-                    Log.w(TAG, "⚠️ Frecuencia desconocida: " + frequency);
-                    return;
-            }
+            Log.d(TAG, "🔄 Reprogramando alarma recurrente ID: " + alarm.id);
 
-            long nextTriggerTime = calendar.getTimeInMillis();
-
-            // Crear intent para la próxima alarma
-            Intent intent = new Intent(context, AlarmReceiver.class);
-            intent.putExtra("alarm_id", alarmId);
-            intent.putExtra("title", title);
-            intent.putExtra("message", message);
-            intent.putExtra("trigger_time", nextTriggerTime);
-            intent.putExtra("is_recurring", true);
-            intent.putExtra("frequency", frequency);
-            intent.putExtra("repeat_days", repeatDays);
-
-            // Crear PendingIntent
-            int flags = PendingIntent.FLAG_UPDATE_CURRENT;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                flags |= PendingIntent.FLAG_IMMUTABLE;
+            long after = Math.max(System.currentTimeMillis(), alarm.triggerTime);
+            long nextTriggerTime = AlarmScheduler.nextOccurrence(alarm, after);
+            if (nextTriggerTime == -1) {
+                Log.w(TAG, "⚠️ Frecuencia desconocida: " + alarm.frequency);
+                return;
             }
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                alarmId,
-                intent,
-                flags
-            );
+            Log.d(TAG, "  📅 Próxima ocurrencia (" + alarm.frequency + "): " + new java.util.Date(nextTriggerTime));
 
             // Obtener AlarmManager
             AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
@@ -338,25 +497,28 @@ public class AlarmReceiver extends BroadcastReceiver {
                 return;
             }
 
+            // Primero el almacén: si el proceso muere tras registrar la alarma, el
+            // reinicio y las perdidas deben ver ya la nueva hora. Solo cambia la hora
+            // y el estado, así que no cambia la versión del almacén
+            AlarmStore.getInstance(context).updateTriggerTime(alarm.id, nextTriggerTime);
+
             // Programar próxima alarma
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    nextTriggerTime,
-                    pendingIntent
-                );
-            } else {
-                alarmManager.setExact(
-                    AlarmManager.RTC_WAKEUP,
-                    nextTriggerTime,
-                    pendingIntent
-                );
-            }
+            alarm.triggerTime = nextTriggerTime;
+            alarm.state = AlarmRecord.STATE_SCHEDULED;
+            AlarmScheduler.setAlarm(context, alarmManager, alarm);
+            AlarmMetrics.increment(context, AlarmMetrics.RESCHEDULED);
+
+            Log.d(TAG, "✅ Alarma recurrente reprogramada para: " + new java.util.Date(nextTriggerTime));
 
-            Log.d(TAG, "✅ Alarma recurrente reprogramada para: " + calendar.getTime());
+            JSObject event = new JSObject();
+            event.put("alarmId", alarm.id);
+            event.put("triggerTime", nextTriggerTime);
+            event.put("frequency", alarm.frequency);
+            AlarmPlugin.emit(AlarmPlugin.EVENT_ALARM_RESCHEDULED, event);
 
         } catch (Exception e) {
             Log.e(TAG, "❌ Error al reprogramar alarma recurrente: " + e.getMessage(), e);
+            AlarmMetrics.increment(context, AlarmMetrics.FAILED);
         }
     }
 }
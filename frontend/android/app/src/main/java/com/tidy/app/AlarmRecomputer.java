@@ -0,0 +1,93 @@
+package com.tidy.app;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recalcula las horas de disparo cuando cambia la zona horaria o el reloj.
+ *
+ * Las alarmas son de hora local ("a las 07:00"), pero se registran en
+ * AlarmManager como milisegundos RTC absolutos. Al cambiar de zona, cada
+ * alarma conserva su fecha y hora local y se traslada a la nueva zona; las
+ * recurrentes que quedaron en el pasado (reloj adelantado) pasan a su próxima
+ * ocurrencia. Sólo las alarmas cuya hora cambió deben volver a registrarse.
+ */
+final class AlarmRecomputer {
+
+    /**
+     * Resultado de un recálculo.
+     */
+    static final class Result {
+        // Alarmas con nueva hora de disparo: hay que registrarlas y guardarlas
+        final List<AlarmRecord> moved = new ArrayList<>();
+        // Alarmas con otros datos cambiados (zona/ancla) pero misma hora: sólo guardarlas
+        final List<AlarmRecord> updated = new ArrayList<>();
+    }
+
+    private AlarmRecomputer() {
+    }
+
+    /**
+     * Recalcula todas las alarmas en una sola pasada. Modifica los registros recibidos.
+     *
+     * @param alarms alarmas programadas
+     * @param fallbackZone zona anterior para alarmas guardadas sin zona
+     * @param newZone zona actual del dispositivo
+     * @param now hora actual (ms)
+     */
+    static Result recompute(List<AlarmRecord> alarms, ZoneId fallbackZone, ZoneId newZone, long now) {
+        Result result = new Result();
+
+        for (AlarmRecord record : alarms) {
+            ZoneId oldZone = zoneOf(record, fallbackZone);
+            long oldTrigger = record.triggerTime;
+            long oldAnchor = record.anchorTime;
+            String oldZoneId = record.timeZone;
+
+            if (!oldZone.equals(newZone)) {
+                record.triggerTime = shiftZone(record.triggerTime, oldZone, newZone);
+                record.anchorTime = shiftZone(record.anchorTime, oldZone, newZone);
+            }
+            record.timeZone = newZone.getId();
+
+            if (record.triggerTime <= now && record.isRecurring) {
+                RecurrenceRule rule = RecurrenceRule.parse(
+                    record.frequency, record.repeatDays, record.anchorTime, newZone);
+                if (rule != null) {
+                    record.triggerTime = rule.nextAfter(now, newZone);
+                }
+            }
+
+            if (record.triggerTime != oldTrigger) {
+                result.moved.add(record);
+            } else if (record.anchorTime != oldAnchor || !newZone.getId().equals(oldZoneId)) {
+                result.updated.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mantiene la fecha y hora local de {@code millis} pasándola de una zona a otra.
+     * Si esa hora local no existe en la nueva zona (salto de DST) se usa la primera válida.
+     */
+    static long shiftZone(long millis, ZoneId from, ZoneId to) {
+        LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), from);
+        return local.atZone(to).toInstant().toEpochMilli();
+    }
+
+    private static ZoneId zoneOf(AlarmRecord record, ZoneId fallbackZone) {
+        if (record.timeZone != null) {
+            try {
+                return ZoneId.of(record.timeZone);
+            } catch (DateTimeException e) {
+                return fallbackZone;
+            }
+        }
+        return fallbackZone;
+    }
+}
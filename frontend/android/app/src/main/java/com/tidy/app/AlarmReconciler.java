@@ -0,0 +1,61 @@
+package com.tidy.app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calcula la diferencia entre las alarmas que quiere la app (lista de JS) y las
+ * que ya están programadas en nativo, comparando la huella de cada una.
+ *
+ * Así una sincronización sólo toca AlarmManager para lo que cambió, en lugar de
+ * cancelar y reprogramar todo.
+ */
+final class AlarmReconciler {
+
+    /**
+     * Resultado de la comparación.
+     */
+    static final class Plan {
+        final List<AlarmRecord> added = new ArrayList<>();
+        final List<AlarmRecord> updated = new ArrayList<>();
+        final List<Integer> removed = new ArrayList<>();
+        int unchanged;
+    }
+
+    private AlarmReconciler() {
+    }
+
+    /**
+     * @param desired alarmas que deben quedar programadas (si un ID se repite, gana la última)
+     * @param current alarmas programadas actualmente en el almacén nativo
+     */
+    static Plan diff(List<AlarmRecord> desired, List<AlarmRecord> current) {
+        Map<Integer, AlarmRecord> currentById = new LinkedHashMap<>();
+        for (AlarmRecord record : current) {
+            currentById.put(record.id, record);
+        }
+
+        Map<Integer, AlarmRecord> desiredById = new LinkedHashMap<>();
+        for (AlarmRecord record : desired) {
+            desiredById.put(record.id, record);
+        }
+
+        Plan plan = new Plan();
+        for (AlarmRecord record : desiredById.values()) {
+            AlarmRecord existing = currentById.remove(record.id);
+            if (existing == null) {
+                plan.added.add(record);
+            } else if (existing.isScheduled() && existing.fingerprint() == record.fingerprint()) {
+                plan.unchanged++;
+            } else {
+                plan.updated.add(record);
+            }
+        }
+
+        // Lo que queda en el almacén ya no está en la lista deseada
+        plan.removed.addAll(currentById.keySet());
+        return plan;
+    }
+}
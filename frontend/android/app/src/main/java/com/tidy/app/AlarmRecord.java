@@ -0,0 +1,88 @@
+package com.tidy.app;
+
+/**
+ * Representación nativa de una alarma programada.
+ *
+ * Es el mismo conjunto de datos que viaja en los extras del Intent de
+ * AlarmReceiver, pero guardado en AlarmStore para poder reprogramar sin
+ * depender del WebView.
+ */
+public class AlarmRecord {
+    public static final String STATE_SCHEDULED = "scheduled";
+    public static final String STATE_FIRED = "fired";
+    // Atendida por el usuario tras sonar (sólo alarmas de un disparo)
+    public static final String STATE_DISMISSED = "dismissed";
+    public static final String STATE_SNOOZED = "snoozed";
+    // De un solo disparo cuya hora pasó sin sonar (ver MissedAlarms)
+    public static final String STATE_MISSED = "missed";
+
+    public int id;
+    public long triggerTime;
+    public String title;
+    public String message;
+    public boolean isRecurring;
+    public String frequency;
+    public String repeatDays;
+    // Primera ocurrencia y zona horaria en la que se definió: base de RecurrenceRule
+    public long anchorTime;
+    public String timeZone;
+    // Críticas: siempre registradas como exactas, aunque falte mucho (ver HorizonScheduler)
+    public boolean critical;
+    public String state = STATE_SCHEDULED;
+    public long updatedAt;
+
+    public AlarmRecord() {
+    }
+
+    public AlarmRecord(int id, long triggerTime, String title, String message,
+                       boolean isRecurring, String frequency, String repeatDays) {
+        this.id = id;
+        this.triggerTime = triggerTime;
+        this.title = title;
+        this.message = message;
+        this.isRecurring = isRecurring;
+        this.frequency = frequency;
+        this.repeatDays = repeatDays;
+        this.anchorTime = triggerTime;
+    }
+
+    public boolean isScheduled() {
+        return STATE_SCHEDULED.equals(state);
+    }
+
+    /**
+     * Huella de la definición de la alarma (hora original, recurrencia, criticidad y textos).
+     *
+     * No incluye triggerTime: en las recurrentes avanza con cada disparo, pero la
+     * alarma sigue siendo la misma mientras no cambie su anchorTime.
+     */
+    public long fingerprint() {
+        long hash = 0xcbf29ce484222325L; // FNV-1a de 64 bits
+        hash = mix(hash, Long.toString(anchorTime));
+        hash = mix(hash, isRecurring ? "1" : "0");
+        hash = mix(hash, critical ? "1" : "0");
+        hash = mix(hash, frequency);
+        hash = mix(hash, repeatDays);
+        hash = mix(hash, title);
+        hash = mix(hash, message);
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        String text = value != null ? value : "\u0000";
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Separador para que ("ab", "c") y ("a", "bc") no coincidan
+        hash ^= 0x1f;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "AlarmRecord{id=" + id + ", triggerTime=" + triggerTime + ", state=" + state
+            + ", recurring=" + isRecurring + ", frequency=" + frequency + "}";
+    }
+}
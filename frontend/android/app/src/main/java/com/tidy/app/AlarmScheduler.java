@@ -0,0 +1,462 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lógica compartida para registrar y cancelar alarmas en AlarmManager.
+ *
+ * La usan AlarmPlugin (desde JS), AlarmReceiver (recurrencias) y
+ * BootReceiver (reprogramación tras reinicio) para que todos construyan
+ * exactamente el mismo Intent/PendingIntent.
+ *
+ * Soporta dos modos de programación:
+ * - per_alarm (por defecto): un PendingIntent por alarma en AlarmManager; las no
+ *   críticas lejanas se retienen hasta entrar en el horizonte (ver HorizonScheduler).
+ * - single_slot: sólo la alarma más próxima se registra (ver SingleSlotScheduler).
+ */
+public final class AlarmScheduler {
+    private static final String TAG = "AlarmScheduler";
+
+    static final String PREFS_NAME = "tidy_alarm_prefs";
+    private static final String PREF_SCHEDULING_MODE = "scheduling_mode";
+    private static final String PREF_LAST_TIME_ZONE = "last_time_zone";
+
+    public static final String MODE_PER_ALARM = "per_alarm";
+    public static final String MODE_SINGLE_SLOT = "single_slot";
+
+    // Índice de ocurrencias y versión de AlarmStore con la que se construyó
+    private static OccurrenceIndex occurrenceIndex;
+    private static long occurrenceIndexVersion = -1;
+
+    private AlarmScheduler() {
+    }
+
+    /**
+     * Construye el Intent que recibirá AlarmReceiver para esta alarma.
+     */
+    static Intent buildAlarmIntent(Context context, AlarmRecord record) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        // Mensaje y recurrencia se leen de AlarmStore al dispararse
+        AlarmPayload.of(record, exactApiName(context)).putInto(intent);
+        return intent;
+    }
+
+    static int pendingIntentFlags() {
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+        return flags;
+    }
+
+    /**
+     * Nombre de la API de AlarmManager que usa setAlarm en este dispositivo
+     * (para agrupar las estadísticas de entrega). Ver SchedulingStrategy.
+     */
+    static String exactApiName(Context context) {
+        return SchedulingStrategy.current(context);
+    }
+
+    /**
+     * Indica si la app puede programar alarmas exactas (siempre true antes de Android 12).
+     */
+    public static boolean canScheduleExact(AlarmManager alarmManager) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return alarmManager.canScheduleExactAlarms();
+        }
+        return true;
+    }
+
+    static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Devuelve el modo de programación actual (per_alarm o single_slot).
+     */
+    public static String getSchedulingMode(Context context) {
+        return prefs(context).getString(PREF_SCHEDULING_MODE, MODE_PER_ALARM);
+    }
+
+    public static boolean isSingleSlotMode(Context context) {
+        return MODE_SINGLE_SLOT.equals(getSchedulingMode(context));
+    }
+
+    /**
+     * Cambia el modo de programación migrando las alarmas ya registradas.
+     */
+    public static void setSchedulingMode(Context context, AlarmManager alarmManager, String mode) {
+        if (!MODE_PER_ALARM.equals(mode) && !MODE_SINGLE_SLOT.equals(mode)) {
+            throw new IllegalArgumentException("Modo de programación desconocido: " + mode);
+        }
+        if (mode.equals(getSchedulingMode(context))) {
+            return;
+        }
+
+        List<AlarmRecord> alarms = AlarmStore.getInstance(context).getScheduledAlarms();
+
+        if (MODE_SINGLE_SLOT.equals(mode)) {
+            // Quitar los PendingIntents individuales y dejar sólo el slot
+            for (AlarmRecord record : alarms) {
+                cancelPerAlarm(context, alarmManager, record.id);
+            }
+            prefs(context).edit().putString(PREF_SCHEDULING_MODE, mode).apply();
+            SingleSlotScheduler.getInstance(context).reload(alarms);
+        } else {
+            SingleSlotScheduler.getInstance(context).shutdown();
+            prefs(context).edit().putString(PREF_SCHEDULING_MODE, mode).apply();
+            rescheduleFromStore(context);
+        }
+
+        Log.d(TAG, "🔀 Modo de programación cambiado a " + mode + " (" + alarms.size() + " alarmas)");
+    }
+
+    /**
+     * Agrupa varias llamadas a setAlarm/cancelAlarm. En modo single_slot evita
+     * re-armar AlarmManager en cada llamada; en modo per_alarm no hace nada.
+     */
+    public static void beginBatch(Context context) {
+        if (isSingleSlotMode(context)) {
+            SingleSlotScheduler.getInstance(context).beginBatch();
+        }
+    }
+
+    public static void endBatch(Context context) {
+        if (isSingleSlotMode(context)) {
+            SingleSlotScheduler.getInstance(context).endBatch();
+        }
+    }
+
+    /**
+     * Registra la alarma en AlarmManager con la API exacta elegida para este dispositivo.
+     * El llamador debe haber verificado canScheduleExact() en Android 12+.
+     */
+    public static void setAlarm(Context context, AlarmManager alarmManager, AlarmRecord record) {
+        if (isSingleSlotMode(context)) {
+            SingleSlotScheduler.getInstance(context).schedule(record);
+            return;
+        }
+
+        // Lejos del disparo y no crítica: queda retenida hasta entrar en el horizonte
+        if (HorizonScheduler.shouldHold(context, record, System.currentTimeMillis())) {
+            HorizonScheduler.hold(context, alarmManager, record);
+            return;
+        }
+
+        setExactAlarm(context, alarmManager, record);
+    }
+
+    /**
+     * Registra la alarma como exacta en AlarmManager, sin aplicar la política por horizonte.
+     */
+    static void setExactAlarm(Context context, AlarmManager alarmManager, AlarmRecord record) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            RequestCodes.alarm(record.id),
+            buildAlarmIntent(context, record),
+            pendingIntentFlags()
+        );
+
+        SchedulingStrategy.register(context, alarmManager, record.triggerTime, pendingIntent);
+        HorizonScheduler.countExactRegistration(context);
+    }
+
+    /**
+     * Cancela la alarma registrada en AlarmManager con el ID indicado.
+     */
+    public static void cancelAlarm(Context context, AlarmManager alarmManager, int alarmId) {
+        if (isSingleSlotMode(context)) {
+            SingleSlotScheduler.getInstance(context).cancel(alarmId);
+            return;
+        }
+        cancelPerAlarm(context, alarmManager, alarmId);
+    }
+
+    private static void cancelPerAlarm(Context context, AlarmManager alarmManager, int alarmId) {
+        // Crear intent idéntico al usado para programar
+        Intent intent = new Intent(context, AlarmReceiver.class);
+
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            RequestCodes.alarm(alarmId),
+            intent,
+            pendingIntentFlags()
+        );
+
+        alarmManager.cancel(pendingIntent);
+        pendingIntent.cancel();
+    }
+
+    /**
+     * Zona horaria con la que se definió la alarma (la del sistema si no se guardó).
+     */
+    static ZoneId zoneOf(AlarmRecord record) {
+        if (record.timeZone != null) {
+            try {
+                return ZoneId.of(record.timeZone);
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ Zona horaria inválida: " + record.timeZone);
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
+    /**
+     * Calcula la próxima ocurrencia de una alarma recurrente posterior a {@code afterMillis}.
+     *
+     * @return timestamp de la próxima ocurrencia, o -1 si la frecuencia es desconocida
+     */
+    static long nextOccurrence(AlarmRecord record, long afterMillis) {
+        ZoneId zone = zoneOf(record);
+        RecurrenceRule rule = RecurrenceRule.parse(record.frequency, record.repeatDays, record.anchorTime, zone);
+        return rule == null ? -1 : rule.nextAfter(afterMillis, zone);
+    }
+
+    /**
+     * Índice de ocurrencias de las alarmas programadas. Se vuelve a construir (sin
+     * expandir nada todavía) sólo cuando cambió el conjunto de alarmas del almacén.
+     */
+    static synchronized OccurrenceIndex occurrenceIndex(Context context) {
+        AlarmStore store = AlarmStore.getInstance(context);
+        long version = store.getVersion();
+        if (occurrenceIndex == null || version != occurrenceIndexVersion) {
+            List<OccurrenceIndex.Source> sources = new ArrayList<>();
+            for (AlarmRecord record : store.getScheduledAlarms()) {
+                ZoneId zone = zoneOf(record);
+                RecurrenceRule rule = record.isRecurring
+                    ? RecurrenceRule.parse(record.frequency, record.repeatDays, record.anchorTime, zone)
+                    : null;
+                sources.add(new OccurrenceIndex.Source(record.id, rule, zone, record.triggerTime));
+            }
+            occurrenceIndex = new OccurrenceIndex(sources);
+            occurrenceIndexVersion = version;
+            Log.d(TAG, "🗂️ Índice de ocurrencias reconstruido con " + sources.size() + " alarmas");
+        }
+        return occurrenceIndex;
+    }
+
+    /**
+     * Ajusta la hora de disparo de una alarma recurrente recién creada a su primera
+     * ocurrencia válida (p. ej. si el día no está en repeatDays o la hora ya pasó).
+     */
+    static void alignToRecurrence(AlarmRecord record, long now) {
+        // Todas guardan la zona en que se definieron: la necesita recomputeForTimeChange
+        if (record.timeZone == null) {
+            record.timeZone = ZoneId.systemDefault().getId();
+        }
+        if (!record.isRecurring || record.frequency == null) {
+            return;
+        }
+        record.anchorTime = record.triggerTime;
+        long first = nextOccurrence(record, Math.max(now, record.triggerTime - 1));
+        if (first != -1) {
+            record.triggerTime = first;
+        }
+    }
+
+    /**
+     * Vuelve a registrar en AlarmManager todas las alarmas activas del almacén nativo.
+     *
+     * Sólo registra las que aún no vencieron. Las vencidas se dejan a
+     * {@link MissedAlarms#catchUp}: puede que su disparo aún esté en camino (Doze)
+     * y, si no llega, es quien avisa de ellas y adelanta las recurrentes.
+     *
+     * @return cantidad de alarmas registradas
+     */
+    public static int rescheduleFromStore(Context context) {
+        return rescheduleFromStore(context, 0, null, null);
+    }
+
+    /**
+     * Avisa del avance de una reprogramación por bloques.
+     */
+    public interface ChunkListener {
+        void onChunkArmed(int armedSoFar, int total);
+    }
+
+    /**
+     * Igual que {@link #rescheduleFromStore(Context)}, pero registra las alarmas en
+     * bloques de {@code chunkSize}, las más próximas primero, y comprueba {@code stopped}
+     * entre bloques para poder interrumpirse (por ejemplo, si el sistema detiene el job).
+     *
+     * @param chunkSize tamaño del bloque; 0 o menos para registrar todo de una vez
+     * @param stopped bandera de interrupción (opcional)
+     * @param listener se llama después de cada bloque (opcional)
+     * @return cantidad de alarmas registradas
+     */
+    public static int rescheduleFromStore(Context context, int chunkSize,
+                                          AtomicBoolean stopped, ChunkListener listener) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "❌ AlarmManager no disponible");
+            return 0;
+        }
+        if (!canScheduleExact(alarmManager)) {
+            Log.e(TAG, "❌ No hay permiso para alarmas exactas, no se reprograma");
+            return 0;
+        }
+
+        AlarmStore store = AlarmStore.getInstance(context);
+        List<AlarmRecord> alarms = store.getScheduledAlarms();
+        long now = System.currentTimeMillis();
+        List<AlarmRecord> toArm = new ArrayList<>();
+
+        for (AlarmRecord record : alarms) {
+            if (record.triggerTime > now) {
+                toArm.add(record);
+            }
+        }
+
+        int scheduled = 0;
+        if (isSingleSlotMode(context)) {
+            // Un único registro en AlarmManager para toda la lista
+            SingleSlotScheduler.getInstance(context).reload(toArm);
+            scheduled = toArm.size();
+            if (listener != null) {
+                listener.onChunkArmed(scheduled, toArm.size());
+            }
+        } else {
+            int size = chunkSize > 0 ? chunkSize : Math.max(1, toArm.size());
+            for (int i = 0; i < toArm.size(); i++) {
+                try {
+                    setAlarm(context, alarmManager, toArm.get(i));
+                    scheduled++;
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Error al reprogramar alarma " + toArm.get(i).id + ": " + e.getMessage(), e);
+                    AlarmMetrics.increment(context, AlarmMetrics.FAILED);
+                }
+
+                boolean endOfChunk = (i + 1) % size == 0 || i == toArm.size() - 1;
+                if (endOfChunk) {
+                    if (listener != null) {
+                        listener.onChunkArmed(i + 1, toArm.size());
+                    }
+                    if (stopped != null && stopped.get() && i < toArm.size() - 1) {
+                        Log.w(TAG, "⏹️ Reprogramación interrumpida tras " + (i + 1) + " de " + toArm.size());
+                        AlarmMetrics.add(context, AlarmMetrics.RESCHEDULED, scheduled);
+                        return scheduled;
+                    }
+                }
+            }
+        }
+
+        if (!isSingleSlotMode(context)) {
+            // Tras un reinicio la promoción anterior ya no existe: rearmarla desde el almacén
+            HorizonScheduler.rearmFromStore(context, alarmManager);
+        }
+        SnoozeManager.rearmAll(context, alarmManager);
+        rememberZone(context, ZoneId.systemDefault());
+        AlarmMetrics.add(context, AlarmMetrics.RESCHEDULED, scheduled);
+        Log.d(TAG, "✅ " + scheduled + " de " + alarms.size() + " alarmas reprogramadas desde el almacén");
+        return scheduled;
+    }
+
+    /**
+     * Registra sólo las alarmas que vencen dentro de {@code windowMs} (como máximo
+     * {@code limit}), para que la próxima no espere a una reprogramación completa.
+     * Las vencidas se dejan a {@link MissedAlarms#catchUp}, que en el arranque pasa antes.
+     *
+     * @return cantidad de alarmas registradas
+     */
+    public static int armUpcoming(Context context, long windowMs, int limit) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null || !canScheduleExact(alarmManager)) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long until = now + windowMs;
+        int armed = 0;
+        for (AlarmRecord record : AlarmStore.getInstance(context).getScheduledAlarmsUntil(until, limit)) {
+            if (record.triggerTime <= now) {
+                continue;
+            }
+            try {
+                setAlarm(context, alarmManager, record);
+                armed++;
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al registrar alarma próxima " + record.id + ": " + e.getMessage(), e);
+            }
+        }
+        return armed;
+    }
+
+    /**
+     * Recalcula todas las alarmas tras un cambio de zona horaria o de reloj y
+     * vuelve a registrar sólo las que cambiaron de hora (ver AlarmRecomputer).
+     *
+     * @return cantidad de alarmas registradas de nuevo
+     */
+    public static int recomputeForTimeChange(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "❌ AlarmManager no disponible");
+            return 0;
+        }
+
+        ZoneId newZone = ZoneId.systemDefault();
+        ZoneId lastZone = lastKnownZone(context, newZone);
+
+        AlarmStore store = AlarmStore.getInstance(context);
+        List<AlarmRecord> alarms = store.getScheduledAlarms();
+        AlarmRecomputer.Result result = AlarmRecomputer.recompute(
+            alarms, lastZone, newZone, System.currentTimeMillis());
+
+        List<AlarmRecord> changed = new ArrayList<>(result.moved);
+        changed.addAll(result.updated);
+        if (!changed.isEmpty()) {
+            store.upsertAll(changed);
+        }
+
+        int rearmed = 0;
+        if (!result.moved.isEmpty() && canScheduleExact(alarmManager)) {
+            beginBatch(context);
+            try {
+                for (AlarmRecord record : result.moved) {
+                    try {
+                        setAlarm(context, alarmManager, record);
+                        rearmed++;
+                    } catch (Exception e) {
+                        Log.e(TAG, "❌ Error al registrar alarma " + record.id + ": " + e.getMessage(), e);
+                    }
+                }
+            } finally {
+                endBatch(context);
+            }
+        }
+
+        rememberZone(context, newZone);
+        Log.d(TAG, "🌍 Zona " + lastZone.getId() + " → " + newZone.getId() + ": " + rearmed + " de "
+            + alarms.size() + " alarmas registradas de nuevo");
+        return rearmed;
+    }
+
+    /**
+     * Zona del dispositivo en el último recálculo o reprogramación (para alarmas sin zona guardada).
+     */
+    private static ZoneId lastKnownZone(Context context, ZoneId fallback) {
+        String zoneId = prefs(context).getString(PREF_LAST_TIME_ZONE, null);
+        if (zoneId != null) {
+            try {
+                return ZoneId.of(zoneId);
+            } catch (Exception e) {
+                Log.w(TAG, "⚠️ Zona horaria guardada inválida: " + zoneId);
+            }
+        }
+        return fallback;
+    }
+
+    static void rememberZone(Context context, ZoneId zone) {
+        prefs(context).edit().putString(PREF_LAST_TIME_ZONE, zone.getId()).apply();
+    }
+}
@@ -0,0 +1,382 @@
+package com.tidy.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.media.RingtoneManager;
+import android.media.ToneGenerator;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Sonido de la sesión de alarmas, uno solo aunque suenen varias.
+ *
+ * Lo arranca RingingService.start() desde AlarmReceiver en cuanto acepta el
+ * disparo, antes de que el servicio y AlarmActivity terminen de arrancar:
+ *
+ * - Todo el trabajo de audio va en un hilo propio (callbacks de MediaPlayer incluidos),
+ *   así que setDataSource no bloquea ni el receiver ni la UI.
+ * - prepareAsync en lugar de prepare().
+ * - La URI del tono se guarda resuelta en SharedPreferences; sólo se consulta a
+ *   RingtoneManager (lectura de Settings) la primera vez y para refrescarla después de sonar.
+ * - Si la URI resuelta no se puede abrir (p. ej. un tono del almacenamiento compartido,
+ *   sin permiso de medios) se reintenta con el alias de Settings, que abre el sistema,
+ *   y esa URI ya no se vuelve a guardar. Si tampoco suena, un ToneGenerator en el
+ *   stream de alarma.
+ * - El volumen sube de RAMP_START_VOLUME a 1 en RAMP_MS.
+ *
+ * Se mide el tiempo desde onReceive hasta el primer frame audible (la posición de
+ * reproducción empieza a avanzar) y se guarda en ReceiverTimings.
+ */
+public final class AlarmSound {
+    private static final String TAG = "AlarmSound";
+    private static final String PREFS_NAME = "tidy_alarm_sound";
+    private static final String KEY_URI = "resolved_uri";
+    // URI resuelta que no se pudo abrir: en su lugar se usa el alias de Settings
+    private static final String KEY_FAILED_URI = "failed_uri";
+
+    static final float RAMP_START_VOLUME = 0.15f;
+    static final long RAMP_MS = 20_000;
+    private static final long RAMP_STEP_MS = 250;
+    // Sondeo del primer frame: cada 5 ms, como mucho 2 s tras start()
+    private static final long FIRST_FRAME_POLL_MS = 5;
+    private static final long FIRST_FRAME_TIMEOUT_MS = 2_000;
+
+    /**
+     * Avisado en el hilo de audio cuando el sonido empieza a oírse.
+     */
+    public interface Listener {
+        void onAudible(long audibleAt);
+    }
+
+    private static AlarmSound instance;
+    // Cache en memoria de la URI resuelta (null: leerla de SharedPreferences)
+    private static volatile Uri cachedUri;
+
+    private final Context context;
+    private final Handler handler;
+
+    // Estado sólo accedido desde el hilo de audio
+    private MediaPlayer mediaPlayer;
+    private Uri playingUri;
+    private ToneGenerator toneGenerator;
+    private long playStartedAt;
+    private long rampStartedAt;
+    // Hora de onReceive del disparo que arrancó el sonido (0: sin medición)
+    private long receivedAt;
+    private boolean fallback;
+
+    // Leídos desde cualquier hilo
+    private volatile boolean playing;
+    private volatile long audibleAt;
+    private volatile Listener listener;
+
+    public static synchronized AlarmSound getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlarmSound(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AlarmSound(Context context) {
+        this.context = context;
+        HandlerThread thread = new HandlerThread("tidy-alarm-sound");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Empieza a sonar si no está sonando ya. No bloquea: se puede llamar desde
+     * onReceive o desde el hilo principal.
+     *
+     * @param receivedAt hora de onReceive del disparo, para medir el tiempo hasta
+     *                   el primer frame; 0 si no viene de AlarmReceiver
+     */
+    public void start(long receivedAt) {
+        handler.post(() -> startOnAudioThread(receivedAt));
+    }
+
+    /**
+     * Silencio. Se puede llamar más de una vez.
+     */
+    public void stop() {
+        handler.post(this::stopOnAudioThread);
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Cuándo empezó a oírse el sonido actual; 0 si todavía no se oye.
+     */
+    public long audibleAt() {
+        return audibleAt;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    private void startOnAudioThread(long receivedAt) {
+        if (playing) {
+            return;
+        }
+        playing = true;
+        audibleAt = 0;
+        fallback = false;
+        this.receivedAt = receivedAt;
+
+        preparePlayer(resolveUri(context));
+
+        // Refrescar la cache fuera de la ruta crítica, por si el usuario cambió el tono
+        AlarmExecutor.execute(() -> refreshUri(context));
+    }
+
+    private void preparePlayer(Uri uri) {
+        Log.d(TAG, "🔊 Preparando sonido: " + uri);
+        playingUri = uri;
+        MediaPlayer player = new MediaPlayer();
+        mediaPlayer = player;
+        try {
+            player.setAudioAttributes(new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_ALARM)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build());
+            player.setLooping(true);
+            player.setVolume(RAMP_START_VOLUME, RAMP_START_VOLUME);
+            player.setOnPreparedListener(mp -> {
+                if (mp != mediaPlayer) {
+                    return;
+                }
+                mp.start();
+                playStartedAt = SystemClock.elapsedRealtime();
+                rampStartedAt = playStartedAt;
+                handler.post(pollFirstFrame);
+                handler.postDelayed(rampStep, RAMP_STEP_MS);
+            });
+            player.setOnErrorListener((mp, what, extra) -> {
+                Log.e(TAG, "❌ Error de MediaPlayer (" + what + ", " + extra + ")");
+                onPlaybackError();
+                return true;
+            });
+            player.setDataSource(context, uri);
+            player.prepareAsync();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ No se pudo preparar el sonido: " + e.getMessage(), e);
+            onPlaybackError();
+        }
+    }
+
+    /**
+     * La URI resuelta no suena: se prueba el alias de Settings antes del tono generado,
+     * y se recuerda para que refreshUri no vuelva a guardar la misma URI.
+     */
+    private void onPlaybackError() {
+        Uri failed = playingUri;
+        Uri alias = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        if (!playing || failed == null || failed.equals(alias)) {
+            startFallback();
+            return;
+        }
+        releasePlayer();
+        Log.w(TAG, "⚠️ No se pudo abrir " + failed + ", se usa el alias de Settings");
+        cachedUri = alias;
+        prefs(context).edit()
+            .putString(KEY_URI, alias.toString())
+            .putString(KEY_FAILED_URI, failed.toString())
+            .apply();
+        preparePlayer(alias);
+    }
+
+    /**
+     * Tono generado, para cuando el archivo no existe o no se puede decodificar.
+     * La cache se borra para que el próximo disparo resuelva el tono de nuevo.
+     */
+    private void startFallback() {
+        releasePlayer();
+        cachedUri = null;
+        prefs(context).edit().remove(KEY_URI).apply();
+        if (!playing || toneGenerator != null) {
+            return;
+        }
+        fallback = true;
+        try {
+            toneGenerator = new ToneGenerator(AudioManager.STREAM_ALARM, ToneGenerator.MAX_VOLUME);
+            // Tono de llamada con cadencia: se repite hasta stopTone()
+            toneGenerator.startTone(ToneGenerator.TONE_SUP_RINGTONE);
+            Log.w(TAG, "⚠️ Sonando tono de respaldo");
+            markAudible();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Tampoco se pudo generar el tono de respaldo: " + e.getMessage(), e);
+        }
+    }
+
+    private final Runnable pollFirstFrame = new Runnable() {
+        @Override
+        public void run() {
+            MediaPlayer player = mediaPlayer;
+            if (player == null || audibleAt != 0) {
+                return;
+            }
+            boolean advanced;
+            try {
+                advanced = player.getCurrentPosition() > 0;
+            } catch (IllegalStateException e) {
+                return;
+            }
+            if (advanced || SystemClock.elapsedRealtime() - playStartedAt >= FIRST_FRAME_TIMEOUT_MS) {
+                markAudible();
+            } else {
+                handler.postDelayed(this, FIRST_FRAME_POLL_MS);
+            }
+        }
+    };
+
+    private final Runnable rampStep = new Runnable() {
+        @Override
+        public void run() {
+            MediaPlayer player = mediaPlayer;
+            if (player == null) {
+                return;
+            }
+            float volume = rampVolume(SystemClock.elapsedRealtime() - rampStartedAt);
+            try {
+                player.setVolume(volume, volume);
+            } catch (IllegalStateException e) {
+                return;
+            }
+            if (volume < 1f) {
+                handler.postDelayed(this, RAMP_STEP_MS);
+            }
+        }
+    };
+
+    /**
+     * Volumen tras {@code elapsedMs} de rampa. Sube con el cuadrado del progreso:
+     * el oído percibe el volumen de forma logarítmica y una subida lineal se nota
+     * casi entera en los primeros segundos.
+     */
+    static float rampVolume(long elapsedMs) {
+        if (elapsedMs <= 0) {
+            return RAMP_START_VOLUME;
+        }
+        if (elapsedMs >= RAMP_MS) {
+            return 1f;
+        }
+        float progress = (float) elapsedMs / RAMP_MS;
+        return RAMP_START_VOLUME + (1f - RAMP_START_VOLUME) * progress * progress;
+    }
+
+    private void markAudible() {
+        long now = System.currentTimeMillis();
+        audibleAt = now;
+        if (receivedAt > 0) {
+            long latencyMs = now - receivedAt;
+            Log.d(TAG, "⏱️ Primer audio " + latencyMs + " ms tras onReceive" + (fallback ? " (respaldo)" : ""));
+            ReceiverTimings.recordFirstAudio(context, latencyMs, fallback);
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onAudible(now);
+        }
+    }
+
+    private void stopOnAudioThread() {
+        if (!playing) {
+            return;
+        }
+        playing = false;
+        audibleAt = 0;
+        releasePlayer();
+        if (toneGenerator != null) {
+            try {
+                toneGenerator.stopTone();
+                toneGenerator.release();
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al detener el tono: " + e.getMessage());
+            }
+            toneGenerator = null;
+        }
+        Log.d(TAG, "🔇 Sonido detenido");
+    }
+
+    private void releasePlayer() {
+        handler.removeCallbacks(pollFirstFrame);
+        handler.removeCallbacks(rampStep);
+        playingUri = null;
+        if (mediaPlayer == null) {
+            return;
+        }
+        try {
+            mediaPlayer.reset();
+            mediaPlayer.release();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al liberar MediaPlayer: " + e.getMessage());
+        }
+        mediaPlayer = null;
+    }
+
+    /**
+     * URI del tono de alarma: memoria, después SharedPreferences y como último
+     * recurso RingtoneManager.
+     */
+    private static Uri resolveUri(Context context) {
+        Uri uri = cachedUri;
+        if (uri != null) {
+            return uri;
+        }
+        String saved = prefs(context).getString(KEY_URI, null);
+        if (saved != null) {
+            uri = Uri.parse(saved);
+        } else {
+            uri = usableUri(context);
+        }
+        cachedUri = uri;
+        return uri;
+    }
+
+    private static void refreshUri(Context context) {
+        try {
+            Uri uri = usableUri(context);
+            cachedUri = uri;
+            prefs(context).edit().putString(KEY_URI, uri.toString()).apply();
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ No se pudo refrescar el tono de alarma: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tono configurado, salvo que ya se sepa que no se puede abrir: entonces el alias de Settings.
+     */
+    private static Uri usableUri(Context context) {
+        Uri uri = lookupUri(context);
+        if (uri.toString().equals(prefs(context).getString(KEY_FAILED_URI, null))) {
+            return RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        }
+        return uri;
+    }
+
+    /**
+     * Tono real configurado (no el alias de Settings, que se vuelve a resolver al abrirlo).
+     */
+    private static Uri lookupUri(Context context) {
+        Uri uri = RingtoneManager.getActualDefaultRingtoneUri(context, RingtoneManager.TYPE_ALARM);
+        if (uri == null) {
+            uri = RingtoneManager.getActualDefaultRingtoneUri(context, RingtoneManager.TYPE_NOTIFICATION);
+        }
+        if (uri == null) {
+            uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        }
+        return uri;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,466 @@
+package com.tidy.app;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Almacén nativo (SQLite) de las alarmas programadas por AlarmPlugin.
+ *
+ * Permite que BootReceiver y AlarmReceiver reprogramen las alarmas leyendo
+ * directamente de disco, sin necesidad de arrancar MainActivity ni el WebView.
+ * La tabla está indexada por (state, trigger_time) para que el recorrido de
+ * alarmas activas ordenado por hora de disparo sea un escaneo de índice.
+ */
+public class AlarmStore extends SQLiteOpenHelper {
+    private static final String TAG = "AlarmStore";
+
+    private static final String DB_NAME = "tidy_alarms.db";
+    private static final int DB_VERSION = 4;
+
+    static final String TABLE_ALARMS = "alarms";
+    static final String COL_ID = "id";
+    static final String COL_TRIGGER_TIME = "trigger_time";
+    static final String COL_TITLE = "title";
+    static final String COL_MESSAGE = "message";
+    static final String COL_IS_RECURRING = "is_recurring";
+    static final String COL_FREQUENCY = "frequency";
+    static final String COL_REPEAT_DAYS = "repeat_days";
+    static final String COL_STATE = "state";
+    static final String COL_UPDATED_AT = "updated_at";
+    static final String COL_ANCHOR_TIME = "anchor_time";
+    static final String COL_TIME_ZONE = "time_zone";
+    static final String COL_CRITICAL = "critical";
+
+    // v4: cadenas de pospuestas (ver SnoozeManager)
+    static final String TABLE_SNOOZES = "snoozes";
+    static final String COL_ALARM_ID = "alarm_id";
+    static final String COL_SNOOZE_COUNT = "snooze_count";
+    static final String COL_REQUEST_CODE = "request_code";
+    static final String COL_STARTED_AT = "started_at";
+
+    private static final String[] SNOOZE_COLUMNS = {
+        COL_ALARM_ID, COL_TITLE, COL_MESSAGE, COL_TRIGGER_TIME,
+        COL_SNOOZE_COUNT, COL_REQUEST_CODE, COL_STARTED_AT
+    };
+
+    private static final String[] ALL_COLUMNS = {
+        COL_ID, COL_TRIGGER_TIME, COL_TITLE, COL_MESSAGE, COL_IS_RECURRING,
+        COL_FREQUENCY, COL_REPEAT_DAYS, COL_STATE, COL_UPDATED_AT,
+        COL_ANCHOR_TIME, COL_TIME_ZONE, COL_CRITICAL
+    };
+
+    private static volatile AlarmStore instance;
+
+    // Cambia con cada alta, baja o cambio de estado (ver OccurrenceIndex)
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Devuelve la instancia única del almacén (ligada al contexto de aplicación).
+     */
+    public static AlarmStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AlarmStore.class) {
+                if (instance == null) {
+                    instance = new AlarmStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private AlarmStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    /**
+     * Versión del conjunto de alarmas: cambia al añadir, eliminar o cambiar el
+     * estado de alguna. Avanzar la hora de una recurrente no la cambia, porque sus
+     * ocurrencias dependen del ancla y no del próximo disparo.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ALARMS + " ("
+            + COL_ID + " INTEGER PRIMARY KEY, "
+            + COL_TRIGGER_TIME + " INTEGER NOT NULL, "
+            + COL_TITLE + " TEXT, "
+            + COL_MESSAGE + " TEXT, "
+            + COL_IS_RECURRING + " INTEGER NOT NULL DEFAULT 0, "
+            + COL_FREQUENCY + " TEXT, "
+            + COL_REPEAT_DAYS + " TEXT, "
+            + COL_STATE + " TEXT NOT NULL, "
+            + COL_UPDATED_AT + " INTEGER NOT NULL, "
+            + COL_ANCHOR_TIME + " INTEGER, "
+            + COL_TIME_ZONE + " TEXT, "
+            + COL_CRITICAL + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_alarms_state_trigger ON " + TABLE_ALARMS
+            + " (" + COL_STATE + ", " + COL_TRIGGER_TIME + ")");
+        createSnoozesTable(db);
+        Log.d(TAG, "✅ Tabla de alarmas creada");
+    }
+
+    private static void createSnoozesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_SNOOZES + " ("
+            + COL_ALARM_ID + " INTEGER PRIMARY KEY, "
+            + COL_TITLE + " TEXT, "
+            + COL_MESSAGE + " TEXT, "
+            + COL_TRIGGER_TIME + " INTEGER NOT NULL, "
+            + COL_SNOOZE_COUNT + " INTEGER NOT NULL, "
+            + COL_REQUEST_CODE + " INTEGER NOT NULL UNIQUE, "
+            + COL_STARTED_AT + " INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // v2: ancla y zona horaria para RecurrenceRule
+            db.execSQL("ALTER TABLE " + TABLE_ALARMS + " ADD COLUMN " + COL_ANCHOR_TIME + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_ALARMS + " ADD COLUMN " + COL_TIME_ZONE + " TEXT");
+            db.execSQL("UPDATE " + TABLE_ALARMS + " SET " + COL_ANCHOR_TIME + " = " + COL_TRIGGER_TIME);
+        }
+        if (oldVersion < 3) {
+            // v3: alarmas críticas (siempre exactas, ver HorizonScheduler)
+            db.execSQL("ALTER TABLE " + TABLE_ALARMS + " ADD COLUMN " + COL_CRITICAL + " INTEGER NOT NULL DEFAULT 0");
+        }
+        if (oldVersion < 4) {
+            // v4: cadenas de pospuestas persistentes
+            createSnoozesTable(db);
+        }
+        Log.d(TAG, "⬆️ Base de alarmas migrada de v" + oldVersion + " a v" + newVersion);
+    }
+
+    /**
+     * Inserta o reemplaza una alarma.
+     */
+    public void upsert(AlarmRecord record) {
+        record.updatedAt = System.currentTimeMillis();
+        getWritableDatabase().insertWithOnConflict(
+            TABLE_ALARMS, null, toValues(record), SQLiteDatabase.CONFLICT_REPLACE);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Inserta o reemplaza varias alarmas en una única transacción.
+     */
+    public void upsertAll(List<AlarmRecord> records) {
+        SQLiteDatabase db = getWritableDatabase();
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            for (AlarmRecord record : records) {
+                record.updatedAt = now;
+                db.insertWithOnConflict(TABLE_ALARMS, null, toValues(record), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Elimina varias alarmas en una única transacción.
+     */
+    public void deleteAll(List<Integer> alarmIds) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Integer alarmId : alarmIds) {
+                db.delete(TABLE_ALARMS, COL_ID + " = ?", new String[]{String.valueOf(alarmId)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Elimina una alarma del almacén.
+     */
+    public void delete(int alarmId) {
+        getWritableDatabase().delete(TABLE_ALARMS, COL_ID + " = ?",
+            new String[]{String.valueOf(alarmId)});
+        version.incrementAndGet();
+    }
+
+    /**
+     * Obtiene una alarma por su ID, o null si no existe.
+     */
+    public AlarmRecord get(int alarmId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, ALL_COLUMNS,
+                COL_ID + " = ?", new String[]{String.valueOf(alarmId)}, null, null, null)) {
+            return cursor.moveToFirst() ? fromCursor(cursor) : null;
+        }
+    }
+
+    /**
+     * Devuelve todas las alarmas en estado programado, ordenadas por hora de disparo.
+     */
+    public List<AlarmRecord> getScheduledAlarms() {
+        List<AlarmRecord> result = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, ALL_COLUMNS,
+                COL_STATE + " = ?", new String[]{AlarmRecord.STATE_SCHEDULED},
+                null, null, COL_TRIGGER_TIME + " ASC")) {
+            while (cursor.moveToNext()) {
+                result.add(fromCursor(cursor));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Alarmas programadas cuya hora de disparo es anterior a {@code until}, las más
+     * próximas primero (usa el índice por estado y hora).
+     */
+    public List<AlarmRecord> getScheduledAlarmsUntil(long until, int limit) {
+        List<AlarmRecord> result = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, ALL_COLUMNS,
+                COL_STATE + " = ? AND " + COL_TRIGGER_TIME + " <= ?",
+                new String[]{AlarmRecord.STATE_SCHEDULED, String.valueOf(until)},
+                null, null, COL_TRIGGER_TIME + " ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                result.add(fromCursor(cursor));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Alarmas programadas con disparo en [from, until], las más próximas primero
+     * (usa el índice por estado y hora).
+     */
+    public List<AlarmRecord> getScheduledAlarmsBetween(long from, long until, int limit) {
+        List<AlarmRecord> result = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, ALL_COLUMNS,
+                COL_STATE + " = ? AND " + COL_TRIGGER_TIME + " >= ? AND " + COL_TRIGGER_TIME + " <= ?",
+                new String[]{AlarmRecord.STATE_SCHEDULED, String.valueOf(from), String.valueOf(until)},
+                null, null, COL_TRIGGER_TIME + " ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                result.add(fromCursor(cursor));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Una página de alarmas programadas con disparo en [from, to], ordenadas por
+     * hora de disparo e ID. Recorre el índice (state, trigger_time), que ya incluye
+     * el ID, así que no hay ordenación en memoria aunque haya miles de alarmas.
+     */
+    public List<AlarmRecord> getScheduledPage(long from, long to, int offset, int limit) {
+        List<AlarmRecord> result = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, ALL_COLUMNS,
+                COL_STATE + " = ? AND " + COL_TRIGGER_TIME + " BETWEEN ? AND ?",
+                new String[]{AlarmRecord.STATE_SCHEDULED, String.valueOf(from), String.valueOf(to)},
+                null, null, COL_TRIGGER_TIME + " ASC, " + COL_ID + " ASC",
+                offset + "," + limit)) {
+            while (cursor.moveToNext()) {
+                result.add(fromCursor(cursor));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cantidad de alarmas programadas con disparo en [from, to].
+     */
+    public int countScheduled(long from, long to) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS, new String[]{"COUNT(*)"},
+                COL_STATE + " = ? AND " + COL_TRIGGER_TIME + " BETWEEN ? AND ?",
+                new String[]{AlarmRecord.STATE_SCHEDULED, String.valueOf(from), String.valueOf(to)},
+                null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Hora de disparo más próxima posterior a {@code after} entre las alarmas
+     * programadas no críticas, o -1 si no hay ninguna.
+     */
+    public long getNextNonCriticalTriggerAfter(long after) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ALARMS,
+                new String[]{"MIN(" + COL_TRIGGER_TIME + ")"},
+                COL_STATE + " = ? AND " + COL_CRITICAL + " = 0 AND " + COL_TRIGGER_TIME + " > ?",
+                new String[]{AlarmRecord.STATE_SCHEDULED, String.valueOf(after)},
+                null, null, null)) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : -1;
+        }
+    }
+
+    /**
+     * Actualiza la hora de disparo de varias alarmas en una única transacción.
+     */
+    public void updateTriggerTimes(List<AlarmRecord> records) {
+        SQLiteDatabase db = getWritableDatabase();
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            for (AlarmRecord record : records) {
+                ContentValues values = new ContentValues();
+                values.put(COL_TRIGGER_TIME, record.triggerTime);
+                values.put(COL_STATE, AlarmRecord.STATE_SCHEDULED);
+                values.put(COL_UPDATED_AT, now);
+                db.update(TABLE_ALARMS, values, COL_ID + " = ?", new String[]{String.valueOf(record.id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Actualiza la hora de disparo de una alarma recurrente y la deja programada.
+     */
+    public void updateTriggerTime(int alarmId, long triggerTime) {
+        ContentValues values = new ContentValues();
+        values.put(COL_TRIGGER_TIME, triggerTime);
+        values.put(COL_STATE, AlarmRecord.STATE_SCHEDULED);
+        values.put(COL_UPDATED_AT, System.currentTimeMillis());
+        getWritableDatabase().update(TABLE_ALARMS, values, COL_ID + " = ?",
+            new String[]{String.valueOf(alarmId)});
+    }
+
+    /**
+     * Cambia el estado de una alarma (por ejemplo, a disparada).
+     */
+    public void updateState(int alarmId, String state) {
+        ContentValues values = new ContentValues();
+        values.put(COL_STATE, state);
+        values.put(COL_UPDATED_AT, System.currentTimeMillis());
+        getWritableDatabase().update(TABLE_ALARMS, values, COL_ID + " = ?",
+            new String[]{String.valueOf(alarmId)});
+        version.incrementAndGet();
+    }
+
+    /**
+     * Cambia el estado de varias alarmas en una única transacción.
+     */
+    public void updateStates(List<Integer> alarmIds, String state) {
+        if (alarmIds.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(COL_STATE, state);
+        values.put(COL_UPDATED_AT, System.currentTimeMillis());
+        db.beginTransaction();
+        try {
+            for (int alarmId : alarmIds) {
+                db.update(TABLE_ALARMS, values, COL_ID + " = ?", new String[]{String.valueOf(alarmId)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Cadena de pospuestas de una alarma, o null si no está pospuesta.
+     */
+    public SnoozeChain getSnooze(int alarmId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SNOOZES, SNOOZE_COLUMNS,
+                COL_ALARM_ID + " = ?", new String[]{String.valueOf(alarmId)}, null, null, null)) {
+            return cursor.moveToFirst() ? snoozeFromCursor(cursor) : null;
+        }
+    }
+
+    /**
+     * Todas las cadenas de pospuestas, las más próximas primero.
+     */
+    public List<SnoozeChain> getSnoozes() {
+        List<SnoozeChain> result = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SNOOZES, SNOOZE_COLUMNS,
+                null, null, null, null, COL_TRIGGER_TIME + " ASC")) {
+            while (cursor.moveToNext()) {
+                result.add(snoozeFromCursor(cursor));
+            }
+        }
+        return result;
+    }
+
+    public void upsertSnooze(SnoozeChain chain) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ALARM_ID, chain.alarmId);
+        values.put(COL_TITLE, chain.title);
+        values.put(COL_MESSAGE, chain.message);
+        values.put(COL_TRIGGER_TIME, chain.triggerTime);
+        values.put(COL_SNOOZE_COUNT, chain.snoozeCount);
+        values.put(COL_REQUEST_CODE, chain.requestCode);
+        values.put(COL_STARTED_AT, chain.startedAt);
+        getWritableDatabase().insertWithOnConflict(
+            TABLE_SNOOZES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Marca que la pospuesta ya sonó (sin disparo pendiente), conservando la cadena.
+     */
+    public void clearSnoozeTrigger(int alarmId) {
+        ContentValues values = new ContentValues();
+        values.put(COL_TRIGGER_TIME, 0);
+        getWritableDatabase().update(TABLE_SNOOZES, values, COL_ALARM_ID + " = ?",
+            new String[]{String.valueOf(alarmId)});
+    }
+
+    public void deleteSnooze(int alarmId) {
+        getWritableDatabase().delete(TABLE_SNOOZES, COL_ALARM_ID + " = ?",
+            new String[]{String.valueOf(alarmId)});
+    }
+
+    private static SnoozeChain snoozeFromCursor(Cursor cursor) {
+        SnoozeChain chain = new SnoozeChain();
+        chain.alarmId = cursor.getInt(0);
+        chain.title = cursor.getString(1);
+        chain.message = cursor.getString(2);
+        chain.triggerTime = cursor.getLong(3);
+        chain.snoozeCount = cursor.getInt(4);
+        chain.requestCode = cursor.getInt(5);
+        chain.startedAt = cursor.getLong(6);
+        return chain;
+    }
+
+    private static ContentValues toValues(AlarmRecord record) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, record.id);
+        values.put(COL_TRIGGER_TIME, record.triggerTime);
+        values.put(COL_TITLE, record.title);
+        values.put(COL_MESSAGE, record.message);
+        values.put(COL_IS_RECURRING, record.isRecurring ? 1 : 0);
+        values.put(COL_FREQUENCY, record.frequency);
+        values.put(COL_REPEAT_DAYS, record.repeatDays);
+        values.put(COL_STATE, record.state);
+        values.put(COL_UPDATED_AT, record.updatedAt);
+        values.put(COL_ANCHOR_TIME, record.anchorTime);
+        values.put(COL_TIME_ZONE, record.timeZone);
+        values.put(COL_CRITICAL, record.critical ? 1 : 0);
+        return values;
+    }
+
+    private static AlarmRecord fromCursor(Cursor cursor) {
+        AlarmRecord record = new AlarmRecord();
+        record.id = cursor.getInt(0);
+        record.triggerTime = cursor.getLong(1);
+        record.title = cursor.getString(2);
+        record.message = cursor.getString(3);
+        record.isRecurring = cursor.getInt(4) != 0;
+        record.frequency = cursor.getString(5);
+        record.repeatDays = cursor.getString(6);
+        record.state = cursor.getString(7);
+        record.updatedAt = cursor.getLong(8);
+        record.anchorTime = cursor.isNull(9) ? record.triggerTime : cursor.getLong(9);
+        record.timeZone = cursor.getString(10);
+        record.critical = cursor.getInt(11) != 0;
+        return record;
+    }
+}
@@ -3,37 +3,80 @@ package com.tidy.app;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 
 /**
- * BroadcastReceiver que se ejecuta cuando el dispositivo se reinicia
- * para reprogramar las alarmas que se perdieron durante el reinicio.
+ * BroadcastReceiver que se ejecuta cuando el dispositivo se reinicia (o la app
+ * se actualiza) para reprogramar las alarmas que se perdieron.
+ *
+ * Las alarmas se leen de AlarmStore, por lo que la reprogramación es
+ * completamente nativa y no depende de que el usuario abra la app.
+ *
+ * Para no bloquear el broadcast durante el arranque sólo se registran aquí las
+ * alarmas inminentes; el resto lo hace BootRescheduleJob en segundo plano. Antes
+ * se avisan y adelantan las que debían sonar con el dispositivo apagado (MissedAlarms).
  */
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
 
+    // Alarmas que se registran de inmediato, sin esperar al job
+    private static final long UPCOMING_WINDOW_MS = 15 * 60 * 1000;
+    private static final int UPCOMING_LIMIT = 10;
+
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
         Log.d(TAG, "Received broadcast: " + action);
 
+        final String reason;
         if (Intent.ACTION_BOOT_COMPLETED.equals(action) ||
             "android.intent.action.QUICKBOOT_POWERON".equals(action)) {
+            reason = "boot";
+        } else if (Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            reason = "package_replaced";
+        } else {
+            return;
+        }
 
-            Log.d(TAG, "Device booted - Alarms will be rescheduled by Capacitor Local Notifications plugin");
+        Log.d(TAG, "Rescheduling alarms from native AlarmStore (" + reason + ")");
 
-            // El plugin @capacitor/local-notifications v6.x automáticamente
-            // reprograma las notificaciones pendientes después del reinicio,
-            // por lo que no necesitamos hacer nada manualmente aquí.
-            //
-            // Si necesitas lógica personalizada, puedes agregar código aquí
-            // para lanzar un servicio o actividad que reprograme las alarmas.
+        final long receivedAt = SystemClock.elapsedRealtime();
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+        final WakeLockManager.Holder wakeHolder = WakeLockManager.getInstance(appContext)
+            .acquire(WakeLockManager.HOLDER_RESCHEDULE, WakeLockManager.RESCHEDULE_TIMEOUT_MS);
 
-            // Opcionalmente, puedes lanzar la app en background para
-            // que reprograme las alarmas:
-            // Intent launchIntent = new Intent(context, MainActivity.class);
-            // launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            // context.startActivity(launchIntent);
-        }
+        AlarmExecutor.execute(() -> {
+            // 0. Lo que debió sonar con el dispositivo apagado: avisar y adelantar.
+            // Tras un reinicio no queda nada pendiente en AlarmManager, así que sin margen
+            try {
+                MissedAlarms.catchUp(appContext, "boot".equals(reason) ? 0 : MissedAlarms.GRACE_MS, reason);
+            } catch (Exception e) {
+                Log.e(TAG, "Error checking missed alarms: " + e.getMessage(), e);
+            }
+
+            try {
+                // 1. Lo inminente primero: normalmente una o dos alarmas
+                int upcoming = AlarmScheduler.armUpcoming(appContext, UPCOMING_WINDOW_MS, UPCOMING_LIMIT);
+                long upcomingMs = SystemClock.elapsedRealtime() - receivedAt;
+                BootRescheduleJob.recordUpcoming(appContext, upcoming, upcomingMs);
+                Log.d(TAG, "Armed " + upcoming + " upcoming alarms in " + upcomingMs + " ms");
+
+                // 2. El resto en un job, por bloques y fuera del broadcast
+                if (!BootRescheduleJob.enqueue(appContext, reason, receivedAt)) {
+                    Log.w(TAG, "Job not queued, rescheduling inline");
+                    int count = AlarmScheduler.rescheduleFromStore(appContext);
+                    Log.d(TAG, "Rescheduled " + count + " alarms in "
+                        + (SystemClock.elapsedRealtime() - receivedAt) + " ms");
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error rescheduling alarms: " + e.getMessage(), e);
+            } finally {
+                AlarmMetrics.flush(appContext);
+                wakeHolder.release();
+                pendingResult.finish();
+            }
+        });
     }
 }
@@ -0,0 +1,189 @@
+package com.tidy.app;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.PersistableBundle;
+import android.os.SystemClock;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Job que reprograma todas las alarmas del almacén después de un reinicio o
+ * una actualización de la app, fuera del broadcast de arranque.
+ *
+ * Las alarmas se registran en bloques, las más próximas primero, y se guarda
+ * cuánto tardó la reprogramación completa (ver getRescheduleStats en AlarmPlugin).
+ */
+public class BootRescheduleJob extends JobService {
+    private static final String TAG = "BootRescheduleJob";
+
+    static final int JOB_ID = 0x7A1D;
+    /** Job aparte para el cambio de estrategia: no debe reemplazar al de arranque. */
+    static final int STRATEGY_JOB_ID = 0x7A1E;
+    static final int CHUNK_SIZE = 25;
+
+    private static final String EXTRA_REASON = "reason";
+    private static final String EXTRA_REQUESTED_AT = "requested_at";
+
+    private static final String PREFS_NAME = "tidy_reschedule_stats";
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /**
+     * Encola la reprogramación completa. En Android 12+ se pide como job expedited;
+     * si el sistema lo rechaza (cuota agotada) se encola como job normal inmediato.
+     *
+     * @param reason motivo, para las estadísticas (boot, package_replaced, ...)
+     * @param requestedAt SystemClock.elapsedRealtime() en que llegó el broadcast
+     * @return true si el job quedó encolado
+     */
+    public static boolean enqueue(Context context, String reason, long requestedAt) {
+        return enqueue(context, JOB_ID, reason, requestedAt);
+    }
+
+    /**
+     * Encola la reprogramación tras un cambio de API de alarmas exactas, con su
+     * propio id para no reemplazar (ni detener) una reprogramación de arranque.
+     */
+    public static boolean enqueueStrategyChange(Context context, long requestedAt) {
+        return enqueue(context, STRATEGY_JOB_ID, "strategy_change", requestedAt);
+    }
+
+    private static boolean enqueue(Context context, int jobId, String reason, long requestedAt) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) {
+            return false;
+        }
+
+        PersistableBundle extras = new PersistableBundle();
+        extras.putString(EXTRA_REASON, reason);
+        extras.putLong(EXTRA_REQUESTED_AT, requestedAt);
+
+        ComponentName component = new ComponentName(context, BootRescheduleJob.class);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            JobInfo expedited = new JobInfo.Builder(jobId, component)
+                .setExpedited(true)
+                .setExtras(extras)
+                .build();
+            if (scheduler.schedule(expedited) == JobScheduler.RESULT_SUCCESS) {
+                Log.d(TAG, "📥 Reprogramación encolada como job expedited (" + reason + ")");
+                return true;
+            }
+            Log.w(TAG, "⚠️ Job expedited rechazado, se encola como job normal");
+        }
+
+        JobInfo regular = new JobInfo.Builder(jobId, component)
+            .setOverrideDeadline(0)
+            .setExtras(extras)
+            .build();
+        boolean queued = scheduler.schedule(regular) == JobScheduler.RESULT_SUCCESS;
+        Log.d(TAG, (queued ? "📥 Reprogramación encolada (" : "❌ No se pudo encolar la reprogramación (") + reason + ")");
+        return queued;
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        stopped.set(false);
+        final Context context = getApplicationContext();
+        final String reason = params.getExtras().getString(EXTRA_REASON, "unknown");
+        final long requestedAt = params.getExtras().getLong(EXTRA_REQUESTED_AT, SystemClock.elapsedRealtime());
+
+        AlarmExecutor.execute(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            final long[] firstChunkAt = {0};
+            final int[] total = {0};
+            boolean completed = false;
+
+            try {
+                int armed = AlarmScheduler.rescheduleFromStore(context, CHUNK_SIZE, stopped, (armedSoFar, size) -> {
+                    if (firstChunkAt[0] == 0) {
+                        firstChunkAt[0] = SystemClock.elapsedRealtime();
+                    }
+                    total[0] = size;
+                    Log.d(TAG, "🔁 " + armedSoFar + " de " + size + " alarmas registradas");
+                });
+                completed = !stopped.get();
+
+                long finishedAt = SystemClock.elapsedRealtime();
+                recordRun(context, reason, armed, total[0],
+                    startedAt - requestedAt,
+                    firstChunkAt[0] == 0 ? 0 : firstChunkAt[0] - requestedAt,
+                    finishedAt - requestedAt,
+                    completed);
+
+                Log.d(TAG, "✅ Reprogramación (" + reason + "): " + armed + " alarmas en "
+                    + (finishedAt - startedAt) + " ms (" + (finishedAt - requestedAt) + " ms desde el broadcast)");
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al reprogramar alarmas: " + e.getMessage(), e);
+            } finally {
+                AlarmMetrics.flush(context);
+                // Si el sistema detuvo el job, onStopJob ya pidió repetirlo
+                if (!stopped.get()) {
+                    jobFinished(params, !completed);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        Log.w(TAG, "⏹️ El sistema detuvo la reprogramación, se repetirá");
+        stopped.set(true);
+        // Registrar alarmas es idempotente: repetir el job completo es seguro
+        return true;
+    }
+
+    private static void recordRun(Context context, String reason, int armed, int total,
+                                  long queueDelayMs, long firstChunkMs, long totalMs, boolean completed) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+            .putString("reason", reason)
+            .putInt("armed", armed)
+            .putInt("total", total)
+            .putLong("queue_delay_ms", queueDelayMs)
+            .putLong("first_chunk_ms", firstChunkMs)
+            .putLong("total_ms", totalMs)
+            .putBoolean("completed", completed)
+            .putLong("finished_at", System.currentTimeMillis())
+            .apply();
+    }
+
+    /**
+     * Última reprogramación completa, para exponer a JS. Los tiempos se miden
+     * desde que llegó el broadcast de arranque.
+     */
+    public static JSObject toJSObject(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        JSObject result = new JSObject();
+        result.put("hasRun", prefs.contains("finished_at"));
+        result.put("reason", prefs.getString("reason", null));
+        result.put("armed", prefs.getInt("armed", 0));
+        result.put("total", prefs.getInt("total", 0));
+        result.put("queueDelayMs", prefs.getLong("queue_delay_ms", 0));
+        result.put("firstChunkMs", prefs.getLong("first_chunk_ms", 0));
+        result.put("totalMs", prefs.getLong("total_ms", 0));
+        result.put("completed", prefs.getBoolean("completed", false));
+        result.put("finishedAt", prefs.getLong("finished_at", 0));
+        result.put("upcomingArmed", prefs.getInt("upcoming_armed", 0));
+        result.put("upcomingMs", prefs.getLong("upcoming_ms", 0));
+        return result;
+    }
+
+    /**
+     * Registra la parte rápida que hace BootReceiver antes de encolar el job.
+     */
+    static void recordUpcoming(Context context, int armed, long elapsedMs) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+            .putInt("upcoming_armed", armed)
+            .putLong("upcoming_ms", elapsedMs)
+            .apply();
+    }
+}
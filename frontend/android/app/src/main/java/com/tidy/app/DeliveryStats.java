@@ -0,0 +1,125 @@
+package com.tidy.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencia de entrega de las alarmas: cuánto después de la hora programada
+ * llega cada etapa de un disparo.
+ *
+ * - receive: AlarmReceiver.onReceive
+ * - activity: AlarmActivity.onCreate
+ * - audio: el sonido empieza a reproducirse
+ *
+ * Hay un LatencyHistogram por API de programación, versión de Android y etapa,
+ * guardado en SharedPreferences con la clave "api|sdk|etapa".
+ */
+public final class DeliveryStats {
+    private static final String PREFS_NAME = "tidy_delivery_stats";
+
+    public static final String STAGE_RECEIVE = "receive";
+    public static final String STAGE_ACTIVITY = "activity";
+    public static final String STAGE_AUDIO = "audio";
+
+    private static final String[] STAGES = {STAGE_RECEIVE, STAGE_ACTIVITY, STAGE_AUDIO};
+
+    private DeliveryStats() {
+    }
+
+    /**
+     * Registra la latencia de una etapa (ahora - hora programada).
+     */
+    public static void record(Context context, String api, String stage, long scheduledAt, long observedAt) {
+        if (scheduledAt <= 0 || observedAt <= 0) {
+            return;
+        }
+        record(context, api, Build.VERSION.SDK_INT, stage, observedAt - scheduledAt);
+    }
+
+    static synchronized void record(Context context, String api, int sdkInt, String stage, long latencyMs) {
+        SharedPreferences prefs = prefs(context);
+        String key = (api != null ? api : "unknown") + "|" + sdkInt + "|" + stage;
+        LatencyHistogram histogram = LatencyHistogram.parse(prefs.getString(key, null));
+        histogram.record(latencyMs);
+        prefs.edit().putString(key, histogram.serialize()).apply();
+    }
+
+    /**
+     * Histograma guardado para una API, versión de Android y etapa (vacío si no hay datos).
+     */
+    static synchronized LatencyHistogram histogram(Context context, String api, int sdkInt, String stage) {
+        return LatencyHistogram.parse(prefs(context).getString(api + "|" + sdkInt + "|" + stage, null));
+    }
+
+    /**
+     * Percentiles agrupados por API y versión de Android, para exponer a JS.
+     */
+    public static synchronized JSObject toJSObject(Context context) {
+        // api|sdk -> etapa -> histograma
+        Map<String, Map<String, LatencyHistogram>> groups = new TreeMap<>();
+        for (Map.Entry<String, ?> entry : prefs(context).getAll().entrySet()) {
+            String key = entry.getKey();
+            int split = key.lastIndexOf('|');
+            if (split <= 0 || !(entry.getValue() instanceof String)) {
+                continue;
+            }
+            Map<String, LatencyHistogram> stages = groups.get(key.substring(0, split));
+            if (stages == null) {
+                stages = new TreeMap<>();
+                groups.put(key.substring(0, split), stages);
+            }
+            stages.put(key.substring(split + 1), LatencyHistogram.parse((String) entry.getValue()));
+        }
+
+        JSArray list = new JSArray();
+        for (Map.Entry<String, Map<String, LatencyHistogram>> group : groups.entrySet()) {
+            String[] parts = group.getKey().split("\\|");
+            JSObject item = new JSObject();
+            item.put("api", parts[0]);
+            try {
+                item.put("sdkInt", Integer.parseInt(parts[1]));
+            } catch (RuntimeException e) {
+                continue;
+            }
+
+            JSObject stages = new JSObject();
+            for (String stage : STAGES) {
+                LatencyHistogram histogram = group.getValue().get(stage);
+                if (histogram != null) {
+                    stages.put(stage, summarize(histogram));
+                }
+            }
+            item.put("stages", stages);
+            list.put(item);
+        }
+
+        JSObject result = new JSObject();
+        result.put("currentSdkInt", Build.VERSION.SDK_INT);
+        result.put("groups", list);
+        return result;
+    }
+
+    private static JSObject summarize(LatencyHistogram histogram) {
+        JSObject summary = new JSObject();
+        summary.put("count", histogram.getCount());
+        summary.put("meanMs", histogram.getMeanMs());
+        summary.put("p50Ms", histogram.percentile(50));
+        summary.put("p90Ms", histogram.percentile(90));
+        summary.put("p99Ms", histogram.percentile(99));
+        summary.put("maxMs", histogram.getMaxMs());
+        return summary;
+    }
+
+    public static synchronized void reset(Context context) {
+        prefs(context).edit().clear().apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
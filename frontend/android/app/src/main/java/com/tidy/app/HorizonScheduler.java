@@ -0,0 +1,212 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Política por horizonte para el modo per_alarm.
+ *
+ * Las alarmas no críticas que faltan más que el horizonte (2 h por defecto) no
+ * se registran como exactas: quedan retenidas en AlarmStore. Un único registro
+ * inexacto (setWindow) despierta la app poco antes de que la más próxima entre
+ * en el horizonte y entonces se promueven a exactas todas las que ya entraron.
+ *
+ * Así no se gasta el cupo de alarmas exactas en recordatorios a semanas vista y
+ * el sistema puede agrupar el despertar de la promoción con otros. Las alarmas
+ * críticas (despertadores) se registran siempre como exactas.
+ *
+ * Si la promoción llega tarde (Doze profundo), las alarmas ya vencidas se
+ * registran igualmente y suenan de inmediato: tarde, pero no se pierden.
+ */
+public final class HorizonScheduler {
+    private static final String TAG = "HorizonScheduler";
+
+    public static final String ACTION_PROMOTE = "com.tidy.app.action.ALARM_PROMOTE";
+    static final long DEFAULT_HORIZON_MS = 2 * 60 * 60 * 1000;
+    private static final long MAX_WINDOW_MS = 30 * 60 * 1000;
+    private static final int MAX_PROMOTED_PER_WAKEUP = 500;
+
+    private static final String PREF_HORIZON_MS = "horizon_ms";
+    private static final String PREF_PROMOTION_AT = "promotion_at";
+
+    private static final String STATS_PREFS = "tidy_tier_stats";
+    private static final String STAT_EXACT = "exact_registrations";
+    private static final String STAT_HELD = "held_registrations";
+    private static final String STAT_WAKEUPS = "promotion_wakeups";
+    private static final String STAT_PROMOTED = "alarms_promoted";
+
+    private HorizonScheduler() {
+    }
+
+    public static long getHorizonMs(Context context) {
+        return AlarmScheduler.prefs(context).getLong(PREF_HORIZON_MS, DEFAULT_HORIZON_MS);
+    }
+
+    /**
+     * Cambia el horizonte. 0 desactiva la retención (todas exactas).
+     * El llamador debe reprogramar las alarmas para aplicarlo.
+     */
+    public static void setHorizonMs(Context context, long horizonMs) {
+        if (horizonMs < 0) {
+            throw new IllegalArgumentException("El horizonte no puede ser negativo");
+        }
+        AlarmScheduler.prefs(context).edit().putLong(PREF_HORIZON_MS, horizonMs).apply();
+    }
+
+    /**
+     * Indica si la alarma debe quedar retenida en lugar de registrarse como exacta.
+     */
+    static boolean shouldHold(Context context, AlarmRecord record, long now) {
+        long horizon = getHorizonMs(context);
+        return horizon > 0 && !record.critical && record.triggerTime - now > horizon;
+    }
+
+    /**
+     * Retiene la alarma: quita un registro exacto previo si lo hay y se asegura de
+     * que la promoción esté armada a tiempo para ella.
+     */
+    static void hold(Context context, AlarmManager alarmManager, AlarmRecord record) {
+        // FLAG_NO_CREATE: sólo cancelar si realmente había un registro exacto
+        PendingIntent existing = PendingIntent.getBroadcast(
+            context, RequestCodes.alarm(record.id), new Intent(context, AlarmReceiver.class), noCreateFlags());
+        if (existing != null) {
+            alarmManager.cancel(existing);
+            existing.cancel();
+        }
+
+        long promoteAt = record.triggerTime - getHorizonMs(context);
+        long armedAt = AlarmScheduler.prefs(context).getLong(PREF_PROMOTION_AT, 0);
+        if (armedAt <= System.currentTimeMillis() || promoteAt < armedAt) {
+            armPromotion(context, alarmManager, promoteAt);
+        }
+        increment(context, STAT_HELD, 1);
+    }
+
+    static void countExactRegistration(Context context) {
+        increment(context, STAT_EXACT, 1);
+    }
+
+    /**
+     * Llega la alarma de promoción: registra como exactas las alarmas que ya entraron
+     * en el horizonte y arma la siguiente promoción.
+     *
+     * Sólo promueve las que vencieron hace menos de {@link MissedAlarms#GRACE_MS}: las
+     * más antiguas se dejan a MissedAlarms, que avisa de ellas.
+     *
+     * @return IDs promovidos; las ya vencidas suenan ahora y no cuentan como perdidas
+     */
+    static Set<Integer> onPromotion(Context context) {
+        Set<Integer> promotedIds = new HashSet<>();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "❌ AlarmManager no disponible");
+            return promotedIds;
+        }
+        AlarmScheduler.prefs(context).edit().remove(PREF_PROMOTION_AT).apply();
+
+        long now = System.currentTimeMillis();
+        long until = now + getHorizonMs(context);
+        // Límite inferior exclusivo: la vencida justo hace GRACE_MS ya es de MissedAlarms
+        long from = now - MissedAlarms.GRACE_MS + 1;
+        int promoted = 0;
+        for (AlarmRecord record : AlarmStore.getInstance(context)
+                .getScheduledAlarmsBetween(from, until, MAX_PROMOTED_PER_WAKEUP)) {
+            if (record.critical) {
+                continue; // ya registradas como exactas
+            }
+            try {
+                AlarmScheduler.setExactAlarm(context, alarmManager, record);
+                promotedIds.add(record.id);
+                promoted++;
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al promover alarma " + record.id + ": " + e.getMessage(), e);
+            }
+        }
+
+        increment(context, STAT_WAKEUPS, 1);
+        increment(context, STAT_PROMOTED, promoted);
+        Log.d(TAG, "⬆️ " + promoted + " alarmas promovidas a exactas");
+
+        rearmFromStore(context, alarmManager);
+        return promotedIds;
+    }
+
+    /**
+     * Arma la promoción para la próxima alarma retenida según AlarmStore, o la quita si no hay.
+     */
+    static void rearmFromStore(Context context, AlarmManager alarmManager) {
+        long horizon = getHorizonMs(context);
+        long next = horizon > 0
+            ? AlarmStore.getInstance(context).getNextNonCriticalTriggerAfter(System.currentTimeMillis() + horizon)
+            : -1;
+
+        if (next == -1) {
+            alarmManager.cancel(promotionIntent(context));
+            AlarmScheduler.prefs(context).edit().remove(PREF_PROMOTION_AT).apply();
+            return;
+        }
+        armPromotion(context, alarmManager, next - horizon);
+    }
+
+    private static void armPromotion(Context context, AlarmManager alarmManager, long promoteAt) {
+        // Ventana inexacta que termina antes de que la alarma entre en el horizonte
+        long window = Math.min(MAX_WINDOW_MS, getHorizonMs(context) / 4);
+        alarmManager.setWindow(AlarmManager.RTC_WAKEUP, promoteAt - window, window, promotionIntent(context));
+        AlarmScheduler.prefs(context).edit().putLong(PREF_PROMOTION_AT, promoteAt).apply();
+        Log.d(TAG, "⏳ Promoción armada para " + new java.util.Date(promoteAt));
+    }
+
+    private static PendingIntent promotionIntent(Context context) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(ACTION_PROMOTE);
+        return PendingIntent.getBroadcast(context, RequestCodes.PROMOTION, intent,
+            AlarmScheduler.pendingIntentFlags());
+    }
+
+    private static int noCreateFlags() {
+        int flags = PendingIntent.FLAG_NO_CREATE;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+        return flags;
+    }
+
+    private static synchronized void increment(Context context, String key, long delta) {
+        SharedPreferences prefs = context.getSharedPreferences(STATS_PREFS, Context.MODE_PRIVATE);
+        prefs.edit().putLong(key, prefs.getLong(key, 0) + delta).apply();
+    }
+
+    /**
+     * Contadores para exponer a JS.
+     *
+     * - exactRegistrationsSaved: registros que quedaron retenidos en lugar de exactos.
+     * - wakeupsSaved: alarmas promovidas que compartieron un mismo despertar de
+     *   promoción (frente a un despertar inexacto por alarma).
+     */
+    public static synchronized JSObject toJSObject(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(STATS_PREFS, Context.MODE_PRIVATE);
+        long exact = prefs.getLong(STAT_EXACT, 0);
+        long held = prefs.getLong(STAT_HELD, 0);
+        long wakeups = prefs.getLong(STAT_WAKEUPS, 0);
+        long promoted = prefs.getLong(STAT_PROMOTED, 0);
+
+        JSObject result = new JSObject();
+        result.put("horizonMinutes", getHorizonMs(context) / 60000);
+        result.put("exactRegistrations", exact);
+        result.put("heldRegistrations", held);
+        result.put("promotionWakeups", wakeups);
+        result.put("alarmsPromoted", promoted);
+        result.put("exactRegistrationsSaved", held);
+        result.put("wakeupsSaved", Math.max(0, promoted - wakeups));
+        result.put("nextPromotionAt", AlarmScheduler.prefs(context).getLong(PREF_PROMOTION_AT, 0));
+        return result;
+    }
+}
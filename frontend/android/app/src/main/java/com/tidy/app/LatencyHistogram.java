@@ -0,0 +1,125 @@
+package com.tidy.app;
+
+/**
+ * Histograma compacto de latencias en milisegundos.
+ *
+ * Usa cubetas fijas en serie 1-2-5 (de 10 ms a 1 h): cada disparo suma 1 a
+ * una cubeta, así que el tamaño no crece con el número de alarmas. Los
+ * percentiles devuelven el límite superior de la cubeta (o el máximo real
+ * en la última), suficiente para distinguir "a tiempo" de "minutos tarde".
+ *
+ * Se serializa a texto para guardarlo en SharedPreferences.
+ */
+public class LatencyHistogram {
+
+    // Límites superiores (inclusive) de cada cubeta; la última es abierta
+    static final long[] BOUNDS_MS = {
+        10, 20, 50, 100, 200, 500,
+        1_000, 2_000, 5_000, 10_000, 20_000, 30_000,
+        60_000, 120_000, 300_000, 600_000, 1_800_000, 3_600_000
+    };
+
+    private final long[] counts = new long[BOUNDS_MS.length + 1];
+    private long total;
+    private long sumMs;
+    private long maxMs;
+
+    /**
+     * Registra una latencia. Los valores negativos (disparo adelantado) cuentan como 0.
+     */
+    public void record(long latencyMs) {
+        long value = Math.max(0, latencyMs);
+        counts[bucketOf(value)]++;
+        total++;
+        sumMs += value;
+        maxMs = Math.max(maxMs, value);
+    }
+
+    static int bucketOf(long value) {
+        int low = 0;
+        int high = BOUNDS_MS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BOUNDS_MS[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    public double getMeanMs() {
+        return total == 0 ? 0 : (double) sumMs / total;
+    }
+
+    /**
+     * Percentil aproximado (0-100) en milisegundos; 0 si no hay datos.
+     */
+    public long percentile(double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p / 100.0 * total);
+        rank = Math.max(1, Math.min(total, rank));
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMs) : maxMs;
+            }
+        }
+        return maxMs;
+    }
+
+    /**
+     * Formato: "total,suma,max;c0,c1,...".
+     */
+    public String serialize() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(total).append(',').append(sumMs).append(',').append(maxMs).append(';');
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(counts[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reconstruye un histograma serializado; devuelve uno vacío si el texto no es válido.
+     */
+    public static LatencyHistogram parse(String value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (value == null || value.isEmpty()) {
+            return histogram;
+        }
+        try {
+            String[] parts = value.split(";", -1);
+            String[] header = parts[0].split(",");
+            String[] buckets = parts[1].split(",");
+            if (header.length != 3 || buckets.length != histogram.counts.length) {
+                return new LatencyHistogram();
+            }
+            histogram.total = Long.parseLong(header[0]);
+            histogram.sumMs = Long.parseLong(header[1]);
+            histogram.maxMs = Long.parseLong(header[2]);
+            for (int i = 0; i < buckets.length; i++) {
+                histogram.counts[i] = Long.parseLong(buckets[i]);
+            }
+        } catch (RuntimeException e) {
+            return new LatencyHistogram();
+        }
+        return histogram;
+    }
+}
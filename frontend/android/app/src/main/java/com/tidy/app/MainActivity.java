@@ -31,6 +31,7 @@ public class MainActivity extends BridgeActivity {
         // pero sus métodos devolverán "not implemented on android"
         registerPlugin(AlarmPlugin.class);
         registerPlugin(PermissionsPlugin.class);
+        registerPlugin(TimerPlugin.class);
 
         // Ahora sí, llamar al onCreate del padre
         super.onCreate(savedInstanceState);
@@ -38,6 +39,9 @@ public class MainActivity extends BridgeActivity {
         // Crear canal de notificaciones para alarmas al iniciar la app
         createAlarmNotificationChannel();
 
+        // Avisar de las alarmas que no sonaron mientras la app estaba cerrada
+        MissedAlarms.catchUpAsync(this, MissedAlarms.SOURCE_APP_START);
+
         // Manejar intents de alarmas (SET_ALARM, SHOW_ALARMS)
         handleAlarmIntent(getIntent());
     }
@@ -0,0 +1,239 @@
+package com.tidy.app;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro de métricas en memoria: contadores repartidos en franjas, temporizadores
+ * por nombre y gauges que se leen al consultar.
+ *
+ * Cada contador ocupa varias franjas separadas por una línea de caché, y cada hilo
+ * suma en la suya, así que incrementar desde el hilo principal, el bridge y los
+ * ejecutores no compite por el mismo valor. Leer suma las franjas (sólo al consultar
+ * o al persistir). Es el mismo reparto que LongAdder, que no está disponible en API 22.
+ *
+ * No depende de Android: la persistencia la hace AlarmMetrics con {@link #snapshot()}
+ * y {@link #restore(Map)}.
+ */
+public final class MetricsRegistry {
+
+    // Potencia de dos: la franja se elige con una máscara
+    static final int STRIPES = 8;
+    // 8 longs = 64 bytes, una línea de caché entre franjas
+    private static final int PAD = 8;
+
+    /**
+     * Contador repartido en franjas.
+     */
+    public static final class StripedCounter {
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+        public void add(long delta) {
+            int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+            cells.addAndGet(stripe * PAD, delta);
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        public long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PAD);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Llamadas, tiempo total y máximo de una operación, en microsegundos.
+     */
+    public static final class Timer {
+        final StripedCounter count = new StripedCounter();
+        final StripedCounter totalMicros = new StripedCounter();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        public void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            count.increment();
+            totalMicros.add(micros);
+            raiseMax(micros);
+        }
+
+        void raiseMax(long micros) {
+            long max = maxMicros.get();
+            while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+                max = maxMicros.get();
+            }
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long totalMicros() {
+            return totalMicros.sum();
+        }
+
+        public long maxMicros() {
+            return maxMicros.get();
+        }
+    }
+
+    private final String[] counterNames;
+    private final StripedCounter[] counters;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+    /**
+     * @param counterNames nombres de los contadores; se direccionan por su índice
+     */
+    public MetricsRegistry(String... counterNames) {
+        this.counterNames = counterNames.clone();
+        this.counters = new StripedCounter[counterNames.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new StripedCounter();
+        }
+    }
+
+    public void increment(int counter) {
+        counters[counter].increment();
+    }
+
+    public void add(int counter, long delta) {
+        if (delta != 0) {
+            counters[counter].add(delta);
+        }
+    }
+
+    public long get(int counter) {
+        return counters[counter].sum();
+    }
+
+    public String counterName(int counter) {
+        return counterNames[counter];
+    }
+
+    public int counterCount() {
+        return counters.length;
+    }
+
+    public Timer timer(String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            Timer created = new Timer();
+            timer = timers.putIfAbsent(name, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * Registra la duración de una operación desde {@code startNanos} (System.nanoTime()).
+     */
+    public void recordSince(String name, long startNanos) {
+        timer(name).record(System.nanoTime() - startNanos);
+    }
+
+    public Map<String, Timer> timers() {
+        return new LinkedHashMap<>(timers);
+    }
+
+    /**
+     * Registra un gauge: un valor que se calcula al consultar, no se acumula ni se persiste.
+     */
+    public synchronized void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Lee todos los gauges. Uno que falla se informa como -1.
+     */
+    public synchronized Map<String, Long> readGauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            long value;
+            try {
+                value = entry.getValue().getAsLong();
+            } catch (RuntimeException e) {
+                value = -1;
+            }
+            values.put(entry.getKey(), value);
+        }
+        return values;
+    }
+
+    /**
+     * Valores acumulados con claves planas: "c.<contador>", "t.<nombre>.count",
+     * "t.<nombre>.total_us" y "t.<nombre>.max_us".
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (int i = 0; i < counters.length; i++) {
+            values.put("c." + counterNames[i], counters[i].sum());
+        }
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            String prefix = "t." + entry.getKey();
+            values.put(prefix + ".count", timer.count());
+            values.put(prefix + ".total_us", timer.totalMicros());
+            values.put(prefix + ".max_us", timer.maxMicros());
+        }
+        return values;
+    }
+
+    /**
+     * Suma valores de un {@link #snapshot()} anterior (el que se guardó antes de
+     * que terminara el proceso). Las claves desconocidas se ignoran.
+     */
+    public void restore(Map<String, Long> values) {
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            String key = entry.getKey();
+            long value = entry.getValue();
+            if (key.startsWith("c.")) {
+                String name = key.substring(2);
+                for (int i = 0; i < counterNames.length; i++) {
+                    if (counterNames[i].equals(name)) {
+                        counters[i].add(value);
+                    }
+                }
+            } else if (key.startsWith("t.")) {
+                int dot = key.lastIndexOf('.');
+                if (dot <= 2) {
+                    continue;
+                }
+                Timer timer = timer(key.substring(2, dot));
+                switch (key.substring(dot + 1)) {
+                    case "count":
+                        timer.count.add(value);
+                        break;
+                    case "total_us":
+                        timer.totalMicros.add(value);
+                        break;
+                    case "max_us":
+                        timer.raiseMax(value);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pone a cero contadores y temporizadores.
+     */
+    public void reset() {
+        for (StripedCounter counter : counters) {
+            counter.add(-counter.sum());
+        }
+        timers.clear();
+    }
+}
@@ -0,0 +1,264 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.text.format.DateUtils;
+import android.util.Log;
+import androidx.core.app.NotificationCompat;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Detección de alarmas perdidas.
+ *
+ * Si el dispositivo estuvo apagado, la app se detuvo a la fuerza o el sistema
+ * retuvo el disparo, una alarma puede quedar en AlarmStore como programada con
+ * su hora ya pasada. Esta pasada la busca (al abrir la app, tras un reinicio y
+ * en cada despertar de AlarmReceiver), la avisa en una única notificación
+ * agrupada y la deja al día en un solo lote:
+ *
+ * - Recurrentes: se adelantan a su próxima ocurrencia futura y se vuelven a registrar.
+ * - De un solo disparo: quedan en estado "missed" y se cancela su PendingIntent.
+ */
+public final class MissedAlarms {
+    private static final String TAG = "MissedAlarms";
+
+    // Margen antes de dar una alarma por perdida: en Doze setExactAndAllowWhileIdle
+    // puede llegar varios minutos tarde (como mucho una cada ~9 min por app)
+    static final long GRACE_MS = 10 * 60 * 1000;
+
+    // ID fijo de la notificación (no coincide con IDs de alarma ni con la sesión)
+    static final int NOTIFICATION_ID = 0x7A1A0001;
+    static final String GROUP_MISSED = "com.tidy.app.MISSED";
+    private static final String CHANNEL_ID = "alarms_missed";
+    private static final int MAX_LINES = 6;
+
+    public static final String SOURCE_APP_START = "app_start";
+    public static final String SOURCE_RECEIVER = "receiver";
+
+    /**
+     * Una alarma perdida; nextTriggerTime es -1 si no vuelve a sonar.
+     */
+    static final class Missed {
+        final int alarmId;
+        final String title;
+        final long triggerTime;
+        final long nextTriggerTime;
+
+        Missed(int alarmId, String title, long triggerTime, long nextTriggerTime) {
+            this.alarmId = alarmId;
+            this.title = title;
+            this.triggerTime = triggerTime;
+            this.nextTriggerTime = nextTriggerTime;
+        }
+    }
+
+    /**
+     * Qué hacer con las alarmas vencidas: adelantar las recurrentes y cerrar el resto.
+     */
+    static final class Plan {
+        final List<Missed> missed = new ArrayList<>();
+        final List<AlarmRecord> advanced = new ArrayList<>();
+        final List<Integer> expired = new ArrayList<>();
+    }
+
+    private MissedAlarms() {
+    }
+
+    /**
+     * Reparte las alarmas vencidas. Las recurrentes con frecuencia desconocida no
+     * tienen próxima ocurrencia y se cierran como las de un solo disparo.
+     */
+    static Plan plan(List<AlarmRecord> overdue, long now) {
+        return plan(overdue, now, Collections.<Integer>emptySet());
+    }
+
+    /**
+     * Igual que {@link #plan(List, long)} pero sin tocar las alarmas de {@code skip}
+     * (recién registradas: van a sonar aunque su hora ya pasó).
+     */
+    static Plan plan(List<AlarmRecord> overdue, long now, Collection<Integer> skip) {
+        Plan plan = new Plan();
+        for (AlarmRecord record : overdue) {
+            if (skip.contains(record.id)) {
+                continue;
+            }
+            long missedAt = record.triggerTime;
+            long next = record.isRecurring && record.frequency != null
+                ? AlarmScheduler.nextOccurrence(record, now)
+                : -1;
+            if (next != -1) {
+                record.triggerTime = next;
+                plan.advanced.add(record);
+            } else {
+                plan.expired.add(record.id);
+            }
+            plan.missed.add(new Missed(record.id, record.title, missedAt, next));
+        }
+        return plan;
+    }
+
+    /**
+     * Ejecuta la pasada en AlarmExecutor (para llamarla desde el hilo principal).
+     */
+    public static void catchUpAsync(Context context, String source) {
+        final Context appContext = context.getApplicationContext();
+        AlarmExecutor.execute(() -> {
+            try {
+                catchUp(appContext, GRACE_MS, source);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al buscar alarmas perdidas: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Busca las alarmas programadas cuya hora pasó hace más de {@code graceMs},
+     * las avisa y las deja al día. No debe llamarse desde el hilo principal.
+     *
+     * @param graceMs margen para disparos que llegan tarde; 0 tras un reinicio,
+     *                cuando ya no queda ninguno pendiente en AlarmManager
+     * @return cantidad de alarmas perdidas encontradas
+     */
+    public static int catchUp(Context context, long graceMs, String source) {
+        return catchUp(context, graceMs, source, Collections.<Integer>emptySet());
+    }
+
+    /**
+     * @param skip alarmas que no se dan por perdidas aunque estén vencidas (las que
+     *             HorizonScheduler acaba de promover tarde y ya están registradas)
+     */
+    public static synchronized int catchUp(Context context, long graceMs, String source, Collection<Integer> skip) {
+        long now = System.currentTimeMillis();
+        AlarmStore store = AlarmStore.getInstance(context);
+        List<AlarmRecord> overdue = store.getScheduledAlarmsUntil(now - graceMs, Integer.MAX_VALUE);
+        if (overdue.isEmpty()) {
+            return 0;
+        }
+
+        Plan plan = plan(overdue, now, skip);
+        if (plan.missed.isEmpty()) {
+            return 0;
+        }
+        store.updateTriggerTimes(plan.advanced);
+        store.updateStates(plan.expired, AlarmRecord.STATE_MISSED);
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            boolean canArm = AlarmScheduler.canScheduleExact(alarmManager);
+            AlarmScheduler.beginBatch(context);
+            try {
+                for (int alarmId : plan.expired) {
+                    try {
+                        AlarmScheduler.cancelAlarm(context, alarmManager, alarmId);
+                    } catch (Exception e) {
+                        Log.w(TAG, "⚠️ No se pudo cancelar la alarma perdida " + alarmId + ": " + e.getMessage());
+                    }
+                }
+                // Sin permiso quedan adelantadas en el almacén: las registra la próxima reprogramación
+                if (canArm) {
+                    for (AlarmRecord record : plan.advanced) {
+                        try {
+                            AlarmScheduler.setAlarm(context, alarmManager, record);
+                        } catch (Exception e) {
+                            Log.e(TAG, "❌ Error al reprogramar la alarma perdida " + record.id + ": " + e.getMessage(), e);
+                            AlarmMetrics.increment(context, AlarmMetrics.FAILED);
+                        }
+                    }
+                }
+            } finally {
+                AlarmScheduler.endBatch(context);
+            }
+        }
+
+        AlarmMetrics.add(context, AlarmMetrics.MISSED, plan.missed.size());
+        showNotification(context, plan.missed);
+        emit(plan.missed);
+
+        Log.d(TAG, "🕳️ " + plan.missed.size() + " alarmas perdidas (" + source + "): "
+            + plan.advanced.size() + " adelantadas, " + plan.expired.size() + " cerradas");
+        return plan.missed.size();
+    }
+
+    /**
+     * Una sola notificación con las alarmas perdidas; una pasada nueva la reemplaza.
+     */
+    private static void showNotification(Context context, List<Missed> missed) {
+        try {
+            NotificationDispatcher dispatcher = NotificationDispatcher.getInstance(context);
+            dispatcher.ensureChannel(CHANNEL_ID, MissedAlarms::createNotificationChannel);
+            dispatcher.registerGroup(GROUP_MISSED, CHANNEL_ID, "%d alarmas perdidas");
+
+            Intent openApp = new Intent(context, MainActivity.class);
+            openApp.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+            PendingIntent contentIntent = PendingIntent.getActivity(
+                context, RequestCodes.MISSED_CONTENT, openApp, AlarmScheduler.pendingIntentFlags());
+
+            String contentTitle = missed.size() == 1 ? "Alarma perdida" : missed.size() + " alarmas perdidas";
+            NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle().setBigContentTitle(contentTitle);
+            StringBuilder summary = new StringBuilder();
+            for (int i = 0; i < Math.min(missed.size(), MAX_LINES); i++) {
+                Missed item = missed.get(i);
+                String title = item.title != null ? item.title : "Alarma Tidy";
+                inbox.addLine(DateUtils.formatDateTime(context, item.triggerTime,
+                    DateUtils.FORMAT_SHOW_TIME | DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_MONTH)
+                    + " · " + title);
+                summary.append(summary.length() > 0 ? ", " : "").append(title);
+            }
+            if (missed.size() > MAX_LINES) {
+                inbox.setSummaryText("y " + (missed.size() - MAX_LINES) + " más");
+            }
+
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(dispatcher.smallIcon())
+                .setGroup(GROUP_MISSED)
+                .setContentTitle(contentTitle)
+                .setContentText(summary.toString())
+                .setStyle(inbox)
+                .setNumber(missed.size())
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setCategory(NotificationCompat.CATEGORY_REMINDER)
+                .setAutoCancel(true)
+                .setContentIntent(contentIntent);
+
+            dispatcher.post(NOTIFICATION_ID, GROUP_MISSED, builder.build(), contentTitle);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al mostrar alarmas perdidas: " + e.getMessage(), e);
+        }
+    }
+
+    private static NotificationChannel createNotificationChannel() {
+        // Sin sonido de alarma ni bypass de "No molestar": es un aviso, no una alarma
+        NotificationChannel channel = new NotificationChannel(
+            CHANNEL_ID,
+            "Alarmas perdidas",
+            NotificationManager.IMPORTANCE_DEFAULT
+        );
+        channel.setDescription("Alarmas que no sonaron porque el dispositivo estaba apagado o la app detenida");
+        channel.setShowBadge(true);
+        return channel;
+    }
+
+    private static void emit(List<Missed> missed) {
+        JSArray alarms = new JSArray();
+        for (Missed item : missed) {
+            JSObject alarm = new JSObject();
+            alarm.put("alarmId", item.alarmId);
+            alarm.put("title", item.title);
+            alarm.put("triggerTime", item.triggerTime);
+            alarm.put("nextTriggerTime", item.nextTriggerTime);
+            alarms.put(alarm);
+        }
+        JSObject event = new JSObject();
+        event.put("alarms", alarms);
+        AlarmPlugin.emit(AlarmPlugin.EVENT_ALARMS_MISSED, event);
+    }
+}
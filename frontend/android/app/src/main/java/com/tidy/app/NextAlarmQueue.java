@@ -0,0 +1,222 @@
+package com.tidy.app;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cola de prioridad (min-heap indexado) con las próximas horas de disparo.
+ *
+ * Se usa en el modo de programación "single_slot": en lugar de registrar un
+ * PendingIntent por alarma en AlarmManager, sólo se registra la más próxima.
+ * Cada vez que cambia la cabeza de la cola se avisa al {@link Armer}, que
+ * reemplaza el único registro existente en el sistema.
+ *
+ * No es thread-safe: el llamador debe sincronizar el acceso.
+ */
+public class NextAlarmQueue {
+
+    /**
+     * Destino del único registro del sistema (AlarmManager en producción).
+     */
+    public interface Armer {
+        /** Registra (o reemplaza) el disparo para la hora indicada. */
+        void arm(long triggerAtMillis);
+
+        /** Elimina el registro porque la cola quedó vacía. */
+        void disarm();
+    }
+
+    private static final long NOT_ARMED = Long.MIN_VALUE;
+
+    private final Armer armer;
+    private int[] ids = new int[16];
+    private long[] times = new long[16];
+    private int size;
+    private final Map<Integer, Integer> positions = new HashMap<>();
+
+    private long armedTime = NOT_ARMED;
+    private int batchDepth;
+
+    public NextAlarmQueue(Armer armer) {
+        this.armer = armer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int alarmId) {
+        return positions.containsKey(alarmId);
+    }
+
+    /**
+     * Hora de disparo más próxima, o -1 si la cola está vacía.
+     */
+    public long peekTime() {
+        return size == 0 ? -1 : times[0];
+    }
+
+    /**
+     * Agrupa varias operaciones para que el Armer se invoque una sola vez al final.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            syncArm();
+        }
+    }
+
+    /**
+     * Inserta la alarma o actualiza su hora de disparo si ya estaba en la cola.
+     */
+    public void schedule(int alarmId, long triggerTime) {
+        Integer index = positions.get(alarmId);
+        if (index != null) {
+            long old = times[index];
+            times[index] = triggerTime;
+            if (triggerTime < old) {
+                siftUp(index);
+            } else {
+                siftDown(index);
+            }
+        } else {
+            ensureCapacity();
+            ids[size] = alarmId;
+            times[size] = triggerTime;
+            positions.put(alarmId, size);
+            size++;
+            siftUp(size - 1);
+        }
+        syncArm();
+    }
+
+    /**
+     * Quita la alarma de la cola.
+     *
+     * @return true si estaba en la cola
+     */
+    public boolean cancel(int alarmId) {
+        Integer index = positions.get(alarmId);
+        if (index == null) {
+            return false;
+        }
+        removeAt(index);
+        syncArm();
+        return true;
+    }
+
+    /**
+     * Extrae todas las alarmas cuya hora de disparo es menor o igual a {@code now},
+     * en orden de disparo, y arma la siguiente.
+     */
+    public int[] popDue(long now) {
+        int count = 0;
+        int[] due = new int[4];
+        beginBatch();
+        try {
+            while (size > 0 && times[0] <= now) {
+                if (count == due.length) {
+                    int[] grown = new int[count * 2];
+                    System.arraycopy(due, 0, grown, 0, count);
+                    due = grown;
+                }
+                due[count++] = ids[0];
+                removeAt(0);
+            }
+        } finally {
+            endBatch();
+        }
+        int[] result = new int[count];
+        System.arraycopy(due, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Vacía la cola y elimina el registro del sistema.
+     */
+    public void clear() {
+        size = 0;
+        positions.clear();
+        syncArm();
+    }
+
+    private void syncArm() {
+        if (batchDepth > 0) {
+            return;
+        }
+        if (size == 0) {
+            if (armedTime != NOT_ARMED) {
+                armedTime = NOT_ARMED;
+                armer.disarm();
+            }
+        } else if (times[0] != armedTime) {
+            armedTime = times[0];
+            armer.arm(armedTime);
+        }
+    }
+
+    private void removeAt(int index) {
+        positions.remove(ids[index]);
+        size--;
+        if (index == size) {
+            return;
+        }
+        ids[index] = ids[size];
+        times[index] = times[size];
+        positions.put(ids[index], index);
+        siftDown(index);
+        siftUp(index);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (times[parent] <= times[index]) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int smallest = (right < size && times[right] < times[left]) ? right : left;
+            if (times[index] <= times[smallest]) {
+                break;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        long time = times[a];
+        ids[a] = ids[b];
+        times[a] = times[b];
+        ids[b] = id;
+        times[b] = time;
+        positions.put(ids[a], a);
+        positions.put(ids[b], b);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            int[] newIds = new int[size * 2];
+            long[] newTimes = new long[size * 2];
+            System.arraycopy(ids, 0, newIds, 0, size);
+            System.arraycopy(times, 0, newTimes, 0, size);
+            ids = newIds;
+            times = newTimes;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.tidy.app;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+import android.util.Log;
+import androidx.core.app.NotificationCompat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Punto único para publicar notificaciones nativas.
+ *
+ * - Cachea los canales ya comprobados y el icono, en lugar de llamar a
+ *   getNotificationChannel y getIdentifier en cada disparo.
+ * - Pasa todo por NotificationQueue en un hilo propio: fusiona actualizaciones
+ *   del mismo ID, respeta el límite de notify() por segundo y agrupa las
+ *   ráfagas en una notificación resumen, para que el sistema no descarte ninguna.
+ */
+public final class NotificationDispatcher {
+    private static final String TAG = "NotificationDispatcher";
+
+    public static final String GROUP_ALARMS = "com.tidy.app.ALARMS";
+
+    // NotificationManagerService: ~5 notify()/s por paquete y 50 activas como máximo
+    static final int RATE_PER_SECOND = 5;
+    static final int MAX_ACTIVE = 45;
+    // Líneas visibles del resumen (InboxStyle)
+    private static final int SUMMARY_MAX_LINES = 6;
+
+    /**
+     * Crea el canal la primera vez que se necesita (sólo Android 8+).
+     */
+    public interface ChannelFactory {
+        NotificationChannel create();
+    }
+
+    private static final class GroupInfo {
+        final String channelId;
+        final String titleFormat;
+
+        GroupInfo(String channelId, String titleFormat) {
+            this.channelId = channelId;
+            this.titleFormat = titleFormat;
+        }
+    }
+
+    private static NotificationDispatcher instance;
+
+    private final Context context;
+    private final NotificationManager notificationManager;
+    private final Handler handler;
+    private final NotificationQueue<Notification> queue =
+        new NotificationQueue<>(RATE_PER_SECOND, MAX_ACTIVE);
+    private final Runnable drainTask = this::drain;
+
+    private final Set<String> readyChannels = new HashSet<>();
+    private final Map<String, GroupInfo> groups = new HashMap<>();
+    private int smallIcon;
+
+    public static synchronized NotificationDispatcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationDispatcher(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NotificationDispatcher(Context context) {
+        this.context = context;
+        this.notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        HandlerThread thread = new HandlerThread("tidy-notifications");
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+        // Notificaciones de primer plano: plegarlas perdería el full-screen intent y las acciones
+        queue.exemptFromFolding(RingingSession.NOTIFICATION_ID);
+        queue.exemptFromFolding(TimerEngine.NOTIFICATION_ID);
+    }
+
+    /**
+     * Se asegura de que el canal exista, consultando al sistema sólo la primera vez.
+     */
+    public synchronized void ensureChannel(String channelId, ChannelFactory factory) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || readyChannels.contains(channelId)
+                || notificationManager == null) {
+            return;
+        }
+        try {
+            if (notificationManager.getNotificationChannel(channelId) == null) {
+                notificationManager.createNotificationChannel(factory.create());
+                Log.d(TAG, "✅ Canal de notificación creado: " + channelId);
+            }
+            readyChannels.add(channelId);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al crear canal de notificación: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Icono pequeño de las notificaciones (ic_stat_alarm o el del launcher), cacheado.
+     */
+    public synchronized int smallIcon() {
+        if (smallIcon == 0) {
+            smallIcon = context.getResources().getIdentifier("ic_stat_alarm", "drawable", context.getPackageName());
+            if (smallIcon == 0) {
+                smallIcon = context.getApplicationInfo().icon;
+            }
+        }
+        return smallIcon;
+    }
+
+    /**
+     * Define el canal y el título ("%d alarmas") del resumen de un grupo.
+     */
+    public synchronized void registerGroup(String group, String channelId, String titleFormat) {
+        groups.put(group, new GroupInfo(channelId, titleFormat));
+    }
+
+    /**
+     * Encola una notificación. La notificación debe llevar setGroup(group).
+     *
+     * @param line texto con el que aparece en el resumen si se agrupa
+     */
+    public void post(int id, String group, Notification notification, String line) {
+        handler.post(() -> {
+            queue.enqueue(id, group, notification, line);
+            drain();
+        });
+    }
+
+    /**
+     * Retira una notificación, incluida cualquier actualización aún pendiente.
+     */
+    public void cancel(int id) {
+        handler.post(() -> {
+            queue.cancel(id);
+            if (notificationManager != null) {
+                notificationManager.cancel(id);
+            }
+        });
+    }
+
+    /**
+     * Entrega lo que permita el límite y se vuelve a programar para el resto. Hilo propio.
+     */
+    private void drain() {
+        handler.removeCallbacks(drainTask);
+        if (notificationManager == null) {
+            return;
+        }
+        syncActive();
+
+        long now = SystemClock.elapsedRealtime();
+        NotificationQueue.Dispatch<Notification> dispatch;
+        while ((dispatch = queue.poll(now)) != null) {
+            try {
+                Notification notification = dispatch.summary
+                    ? buildSummary(dispatch.group, dispatch.lines)
+                    : dispatch.payload;
+                notificationManager.notify(dispatch.id, notification);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al publicar notificación " + dispatch.id + ": " + e.getMessage(), e);
+            }
+        }
+
+        long delay = queue.delayUntilNext(now);
+        if (delay >= 0) {
+            Log.d(TAG, "⏳ " + queue.pendingCount() + " notificaciones esperando " + delay + " ms");
+            handler.postDelayed(drainTask, delay);
+        }
+    }
+
+    private void syncActive() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return;
+        }
+        try {
+            List<Integer> ids = new ArrayList<>();
+            for (StatusBarNotification sbn : notificationManager.getActiveNotifications()) {
+                ids.add(sbn.getId());
+            }
+            queue.syncActive(ids);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ No se pudieron leer las notificaciones activas: " + e.getMessage());
+        }
+    }
+
+    private Notification buildSummary(String group, List<String> lines) {
+        GroupInfo info;
+        synchronized (this) {
+            info = groups.get(group);
+        }
+        String channelId = info != null ? info.channelId : group;
+        String title = String.format(info != null ? info.titleFormat : "%d avisos", lines.size());
+
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle().setBigContentTitle(title);
+        for (int i = 0; i < lines.size() && i < SUMMARY_MAX_LINES; i++) {
+            inbox.addLine(lines.get(i));
+        }
+        if (lines.size() > SUMMARY_MAX_LINES) {
+            inbox.setSummaryText("+" + (lines.size() - SUMMARY_MAX_LINES) + " más");
+        }
+
+        return new NotificationCompat.Builder(context, channelId)
+            .setSmallIcon(smallIcon())
+            .setContentTitle(title)
+            .setContentText(lines.isEmpty() ? "" : lines.get(0))
+            .setStyle(inbox)
+            .setGroup(group)
+            .setGroupSummary(true)
+            .setOnlyAlertOnce(true)
+            .setAutoCancel(true)
+            .build();
+    }
+}
@@ -0,0 +1,268 @@
+package com.tidy.app;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cola de notificaciones pendientes, independiente de Android (ver NotificationDispatcher).
+ *
+ * NotificationManagerService descarta en silencio:
+ * - las actualizaciones de un paquete que supera ~5 notify() por segundo, y
+ * - las notificaciones nuevas a partir de 50 activas por paquete.
+ *
+ * Para no perder ninguna, la cola:
+ * - fusiona las actualizaciones pendientes de un mismo ID (gana la última),
+ * - no entrega más de {@code ratePerSecond} en cualquier ventana de 1 s, y
+ * - cuando una ráfaga de un grupo no cabe en el presupuesto (o se llegaría al
+ *   máximo de activas) pliega el resto en la notificación resumen del grupo.
+ *
+ * Cada entrada acaba entregada sola o contada en el resumen: nunca se descarta.
+ * Los IDs marcados con exemptFromFolding (notificaciones de servicio en primer
+ * plano, con full-screen intent o acciones) nunca se pliegan: van por delante
+ * del resto en cuanto hay presupuesto.
+ * No es thread-safe; NotificationDispatcher la usa desde un único hilo.
+ */
+final class NotificationQueue<T> {
+
+    static final int SUMMARY_ID_BASE = 0x7A1B0000;
+
+    /**
+     * Una notificación lista para notify(): individual o resumen de grupo.
+     */
+    static final class Dispatch<T> {
+        final int id;
+        final String group;
+        // null en los resúmenes
+        final T payload;
+        final boolean summary;
+        // Resumen: líneas de las entradas plegadas
+        final List<String> lines;
+
+        Dispatch(int id, String group, T payload, boolean summary, List<String> lines) {
+            this.id = id;
+            this.group = group;
+            this.payload = payload;
+            this.summary = summary;
+            this.lines = lines;
+        }
+    }
+
+    private static final class Entry<T> {
+        final int id;
+        final String group;
+        T payload;
+        String line;
+
+        Entry(int id, String group, T payload, String line) {
+            this.id = id;
+            this.group = group;
+            this.payload = payload;
+            this.line = line;
+        }
+    }
+
+    private final int ratePerSecond;
+    private final int maxActive;
+
+    private final LinkedHashMap<Integer, Entry<T>> pending = new LinkedHashMap<>();
+    private final Set<Integer> active = new HashSet<>();
+    private final ArrayDeque<Long> sentAt = new ArrayDeque<>();
+    // grupo -> líneas plegadas en su resumen
+    private final Map<String, List<String>> folded = new HashMap<>();
+    private final Set<String> dirtySummaries = new LinkedHashSet<>();
+    private final Set<Integer> exempt = new HashSet<>();
+
+    private int coalescedCount;
+    private int foldedCount;
+    private int postedCount;
+
+    NotificationQueue(int ratePerSecond, int maxActive) {
+        this.ratePerSecond = ratePerSecond;
+        this.maxActive = maxActive;
+    }
+
+    /**
+     * Marca un ID que no debe plegarse nunca en el resumen de su grupo.
+     */
+    void exemptFromFolding(int id) {
+        exempt.add(id);
+    }
+
+    /**
+     * Encola una notificación. Si ya había una pendiente con el mismo ID se reemplaza.
+     *
+     * @param group grupo para el resumen (obligatorio)
+     * @param line texto con el que aparece en el resumen si se pliega
+     */
+    void enqueue(int id, String group, T payload, String line) {
+        Entry<T> existing = pending.get(id);
+        if (existing != null) {
+            existing.payload = payload;
+            existing.line = line;
+            coalescedCount++;
+            return;
+        }
+        pending.put(id, new Entry<>(id, group, payload, line));
+    }
+
+    /**
+     * Quita una notificación pendiente (y la da por retirada si estaba activa).
+     */
+    void cancel(int id) {
+        pending.remove(id);
+        active.remove(id);
+    }
+
+    /**
+     * Sustituye las activas por las que reporta el sistema (el usuario descarta
+     * notificaciones sin avisar). Si el resumen de un grupo ya no está, se olvidan
+     * sus líneas plegadas.
+     */
+    void syncActive(Collection<Integer> ids) {
+        active.clear();
+        active.addAll(ids);
+        Iterator<String> groups = folded.keySet().iterator();
+        while (groups.hasNext()) {
+            String group = groups.next();
+            if (!active.contains(summaryId(group)) && !dirtySummaries.contains(group)) {
+                groups.remove();
+            }
+        }
+    }
+
+    /**
+     * Siguiente notificación a entregar en {@code now}, o null si no hay o el
+     * presupuesto de la ventana actual está agotado (ver delayUntilNext).
+     */
+    Dispatch<T> poll(long now) {
+        trimWindow(now);
+        int budget = ratePerSecond - sentAt.size();
+        if (budget <= 0) {
+            return null;
+        }
+
+        Entry<T> priority = firstExempt();
+        if (priority != null) {
+            pending.remove(priority.id);
+            return send(now, new Dispatch<>(priority.id, priority.group, priority.payload, false, null));
+        }
+
+        if (!pending.isEmpty()) {
+            Entry<T> head = pending.values().iterator().next();
+            int groupPending = countPending(head.group);
+            boolean full = active.size() >= maxActive - 1; // sitio para el resumen
+            boolean burst = groupPending > budget;
+            if (full || (burst && budget < 2)) {
+                foldGroup(head.group);
+            } else {
+                pending.remove(head.id);
+                return send(now, new Dispatch<>(head.id, head.group, head.payload, false, null));
+            }
+        }
+
+        if (!dirtySummaries.isEmpty()) {
+            String group = dirtySummaries.iterator().next();
+            dirtySummaries.remove(group);
+            List<String> lines = Collections.unmodifiableList(new ArrayList<>(folded.get(group)));
+            return send(now, new Dispatch<T>(summaryId(group), group, null, true, lines));
+        }
+        return null;
+    }
+
+    /**
+     * Milisegundos hasta que poll() pueda entregar algo; -1 si no queda nada.
+     */
+    long delayUntilNext(long now) {
+        if (pending.isEmpty() && dirtySummaries.isEmpty()) {
+            return -1;
+        }
+        trimWindow(now);
+        if (sentAt.size() < ratePerSecond) {
+            return 0;
+        }
+        return Math.max(0, sentAt.peekFirst() + 1000 - now);
+    }
+
+    static int summaryId(String group) {
+        return SUMMARY_ID_BASE + (group.hashCode() & 0xFFFF);
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    int getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    int getFoldedCount() {
+        return foldedCount;
+    }
+
+    int getPostedCount() {
+        return postedCount;
+    }
+
+    private Dispatch<T> send(long now, Dispatch<T> dispatch) {
+        sentAt.addLast(now);
+        active.add(dispatch.id);
+        postedCount++;
+        return dispatch;
+    }
+
+    private void foldGroup(String group) {
+        List<String> lines = folded.get(group);
+        if (lines == null) {
+            lines = new ArrayList<>();
+            folded.put(group, lines);
+        }
+        Iterator<Entry<T>> entries = pending.values().iterator();
+        while (entries.hasNext()) {
+            Entry<T> entry = entries.next();
+            if (entry.group.equals(group) && !exempt.contains(entry.id)) {
+                lines.add(entry.line);
+                entries.remove();
+                foldedCount++;
+            }
+        }
+        dirtySummaries.add(group);
+    }
+
+    private Entry<T> firstExempt() {
+        if (exempt.isEmpty()) {
+            return null;
+        }
+        for (Entry<T> entry : pending.values()) {
+            if (exempt.contains(entry.id)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private int countPending(String group) {
+        int count = 0;
+        for (Entry<T> entry : pending.values()) {
+            if (entry.group.equals(group) && !exempt.contains(entry.id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void trimWindow(long now) {
+        while (!sentAt.isEmpty() && sentAt.peekFirst() <= now - 1000) {
+            sentAt.pollFirst();
+        }
+    }
+}
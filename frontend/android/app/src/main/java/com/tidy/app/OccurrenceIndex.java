@@ -0,0 +1,243 @@
+package com.tidy.app;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de ocurrencias de alarmas para consultas por rango ("qué suena entre X e Y").
+ *
+ * Las recurrentes no se expanden de antemano: el tiempo se divide en cubetas de
+ * una semana y cada cubeta se expande la primera vez que una consulta la toca,
+ * quedando como arrays ordenados (hora, alarma) en los que se busca por bisección.
+ * Las cubetas expandidas se guardan en una caché LRU acotada por cantidad de
+ * ocurrencias. Una consulta paginada sólo expande las cubetas que necesita para
+ * llenar la página, y las páginas siguientes saltan las cubetas ya vistas por su tamaño.
+ *
+ * El índice refleja la lista de alarmas con la que se construyó; si las alarmas
+ * cambian se construye uno nuevo. No depende de Android, por lo que se prueba en la JVM.
+ */
+public final class OccurrenceIndex {
+
+    static final long BUCKET_MS = 7L * 24 * 60 * 60 * 1000;
+    // ~12 bytes por ocurrencia: unos 2,4 MB como máximo
+    static final int MAX_CACHED_OCCURRENCES = 200_000;
+
+    /**
+     * Una alarma del índice: recurrente (rule != null) o de un solo disparo.
+     */
+    public static final class Source {
+        final int alarmId;
+        final RecurrenceRule rule;
+        final ZoneId zone;
+        final long triggerTime;
+
+        public Source(int alarmId, RecurrenceRule rule, ZoneId zone, long triggerTime) {
+            this.alarmId = alarmId;
+            this.rule = rule;
+            this.zone = zone;
+            this.triggerTime = triggerTime;
+        }
+    }
+
+    /**
+     * Resultado de una consulta, en orden de hora y luego de ID de alarma.
+     */
+    public static final class Page {
+        public final long[] times;
+        public final int[] alarmIds;
+        // Offset de la página siguiente, -1 si no hay más ocurrencias en el rango
+        public final int nextOffset;
+
+        Page(long[] times, int[] alarmIds, int nextOffset) {
+            this.times = times;
+            this.alarmIds = alarmIds;
+            this.nextOffset = nextOffset;
+        }
+
+        public int size() {
+            return times.length;
+        }
+    }
+
+    private static final class Bucket {
+        final long[] times;
+        final int[] alarmIds;
+
+        Bucket(long[] times, int[] alarmIds) {
+            this.times = times;
+            this.alarmIds = alarmIds;
+        }
+    }
+
+    // Ordenadas por ID: el desempate entre ocurrencias a la misma hora
+    private final Source[] sources;
+    private final LinkedHashMap<Long, Bucket> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedOccurrences;
+    // Tamaño de cada cubeta ya expandida (no se desaloja): permite saltar por offset
+    // las cubetas completas sin volver a expandirlas
+    private final Map<Long, Integer> bucketSizes = new HashMap<>();
+    private int bucketsExpanded;
+
+    public OccurrenceIndex(List<Source> sources) {
+        List<Source> sorted = new ArrayList<>(sources);
+        Collections.sort(sorted, (a, b) -> Integer.compare(a.alarmId, b.alarmId));
+        this.sources = sorted.toArray(new Source[0]);
+    }
+
+    public int sourceCount() {
+        return sources.length;
+    }
+
+    /**
+     * Cubetas expandidas desde que se construyó el índice (incluye re-expansiones
+     * de cubetas que salieron de la caché).
+     */
+    public synchronized int bucketsExpanded() {
+        return bucketsExpanded;
+    }
+
+    /**
+     * Ocurrencias en [from, to), saltando las {@code offset} primeras y devolviendo
+     * como máximo {@code limit}.
+     */
+    public synchronized Page query(long from, long to, int offset, int limit) {
+        int capacity = Math.max(0, Math.min(limit, 1024));
+        long[] times = new long[capacity];
+        int[] ids = new int[capacity];
+        int count = 0;
+        int skipped = 0;
+        boolean more = false;
+
+        if (to > from && limit > 0) {
+            long lastBucket = Math.floorDiv(to - 1, BUCKET_MS);
+            for (long b = Math.floorDiv(from, BUCKET_MS); b <= lastBucket && !more; b++) {
+                boolean inside = b * BUCKET_MS >= from && (b + 1) * BUCKET_MS <= to;
+                Integer knownSize = inside ? bucketSizes.get(b) : null;
+                if (knownSize != null && skipped + knownSize <= offset) {
+                    skipped += knownSize;
+                    continue;
+                }
+
+                Bucket bucket = bucket(b);
+                int start = lowerBound(bucket.times, from);
+                int end = lowerBound(bucket.times, to);
+
+                int available = end - start;
+                if (skipped + available <= offset) {
+                    skipped += available;
+                    continue;
+                }
+                start += offset - skipped;
+                skipped = offset;
+
+                for (int i = start; i < end; i++) {
+                    if (count == limit) {
+                        // Con la página llena basta saber que queda alguna más
+                        more = true;
+                        break;
+                    }
+                    if (count == times.length) {
+                        times = Arrays.copyOf(times, times.length * 2);
+                        ids = Arrays.copyOf(ids, ids.length * 2);
+                    }
+                    times[count] = bucket.times[i];
+                    ids[count] = bucket.alarmIds[i];
+                    count++;
+                }
+            }
+        }
+
+        return new Page(Arrays.copyOf(times, count), Arrays.copyOf(ids, count),
+            more ? offset + count : -1);
+    }
+
+    private Bucket bucket(long index) {
+        Bucket bucket = cache.get(index);
+        if (bucket == null) {
+            bucket = expand(index);
+            cache.put(index, bucket);
+            bucketSizes.put(index, bucket.times.length);
+            cachedOccurrences += bucket.times.length;
+            evict();
+        }
+        return bucket;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Long, Bucket>> it = cache.entrySet().iterator();
+        // Siempre queda al menos la cubeta recién expandida
+        while (cachedOccurrences > MAX_CACHED_OCCURRENCES && cache.size() > 1) {
+            cachedOccurrences -= it.next().getValue().times.length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Expande una cubeta. Cada ocurrencia se codifica como (hora relativa << 32 | fuente)
+     * para ordenar con un sort de primitivos: la hora relativa cabe en 31 bits
+     * (una semana son ~6e8 ms) y la fuente desempata por ID.
+     */
+    private Bucket expand(long index) {
+        bucketsExpanded++;
+        final long start = index * BUCKET_MS;
+        final long end = start + BUCKET_MS;
+        final long[][] keys = {new long[64]};
+        final int[] size = {0};
+
+        for (int s = 0; s < sources.length; s++) {
+            Source source = sources[s];
+            final long low = s;
+            if (source.rule == null) {
+                if (source.triggerTime >= start && source.triggerTime < end) {
+                    size[0] = append(keys, size[0], ((source.triggerTime - start) << 32) | low);
+                }
+                continue;
+            }
+            source.rule.forEachBetween(start, end, source.zone,
+                millis -> size[0] = append(keys, size[0], ((millis - start) << 32) | low));
+        }
+
+        long[] sorted = keys[0];
+        int n = size[0];
+        Arrays.sort(sorted, 0, n);
+        long[] times = new long[n];
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = start + (sorted[i] >>> 32);
+            ids[i] = sources[(int) (sorted[i] & 0xFFFFFFFFL)].alarmId;
+        }
+        return new Bucket(times, ids);
+    }
+
+    private static int append(long[][] keys, int size, long key) {
+        if (size == keys[0].length) {
+            keys[0] = Arrays.copyOf(keys[0], size * 2);
+        }
+        keys[0][size] = key;
+        return size + 1;
+    }
+
+    /**
+     * Primera posición con valor >= key.
+     */
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -283,11 +283,7 @@ public class PermissionsPlugin extends Plugin {
             result.put("androidVersion", androidVersion);
 
             // Detectar fabricantes problemáticos para alarmas
-            boolean isProblematic = manufacturer.contains("xiaomi") ||
-                                   manufacturer.contains("huawei") ||
-                                   manufacturer.contains("oppo") ||
-                                   manufacturer.contains("vivo") ||
-                                   manufacturer.contains("oneplus");
+            boolean isProblematic = SchedulingStrategy.isAggressiveOem(manufacturer);
 
             result.put("hasAggressiveBatterySaving", isProblematic);
 
@@ -0,0 +1,80 @@
+package com.tidy.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.getcapacitor.JSObject;
+
+/**
+ * Mide cuánto tarda AlarmReceiver.onReceive en el hilo principal y cuánto el
+ * trabajo que se delega al AlarmExecutor, para comprobar que la ruta crítica
+ * (lanzar AlarmActivity) se mantiene corta, y cuánto pasa desde onReceive hasta
+ * que el sonido de la alarma se oye (ver AlarmSound).
+ *
+ * Se guarda el acumulado en SharedPreferences: una escritura asíncrona por disparo.
+ */
+public final class ReceiverTimings {
+    private static final String PREFS_NAME = "tidy_receiver_timings";
+
+    private ReceiverTimings() {
+    }
+
+    /**
+     * Registra la duración de un disparo.
+     *
+     * @param mainNanos tiempo en el hilo principal (onReceive hasta return)
+     * @param asyncNanos tiempo del trabajo en segundo plano
+     */
+    public static synchronized void record(Context context, long mainNanos, long asyncNanos) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long mainMicros = mainNanos / 1000;
+        long asyncMicros = asyncNanos / 1000;
+        prefs.edit()
+            .putLong("count", prefs.getLong("count", 0) + 1)
+            .putLong("main_total_us", prefs.getLong("main_total_us", 0) + mainMicros)
+            .putLong("main_max_us", Math.max(prefs.getLong("main_max_us", 0), mainMicros))
+            .putLong("main_last_us", mainMicros)
+            .putLong("async_total_us", prefs.getLong("async_total_us", 0) + asyncMicros)
+            .putLong("async_max_us", Math.max(prefs.getLong("async_max_us", 0), asyncMicros))
+            .putLong("async_last_us", asyncMicros)
+            .apply();
+    }
+
+    /**
+     * Registra el tiempo desde onReceive hasta el primer frame audible.
+     *
+     * @param fallback si sonó el tono de respaldo en lugar del tono configurado
+     */
+    public static synchronized void recordFirstAudio(Context context, long latencyMs, boolean fallback) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit()
+            .putLong("audio_count", prefs.getLong("audio_count", 0) + 1)
+            .putLong("audio_total_ms", prefs.getLong("audio_total_ms", 0) + latencyMs)
+            .putLong("audio_max_ms", Math.max(prefs.getLong("audio_max_ms", 0), latencyMs))
+            .putLong("audio_last_ms", latencyMs)
+            .putLong("audio_fallbacks", prefs.getLong("audio_fallbacks", 0) + (fallback ? 1 : 0))
+            .apply();
+    }
+
+    /**
+     * Resumen en milisegundos para exponer a JS.
+     */
+    public static synchronized JSObject toJSObject(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long count = prefs.getLong("count", 0);
+        JSObject result = new JSObject();
+        result.put("count", count);
+        result.put("mainThreadAvgMs", count == 0 ? 0 : prefs.getLong("main_total_us", 0) / 1000.0 / count);
+        result.put("mainThreadMaxMs", prefs.getLong("main_max_us", 0) / 1000.0);
+        result.put("mainThreadLastMs", prefs.getLong("main_last_us", 0) / 1000.0);
+        result.put("backgroundAvgMs", count == 0 ? 0 : prefs.getLong("async_total_us", 0) / 1000.0 / count);
+        result.put("backgroundMaxMs", prefs.getLong("async_max_us", 0) / 1000.0);
+        result.put("backgroundLastMs", prefs.getLong("async_last_us", 0) / 1000.0);
+        long audioCount = prefs.getLong("audio_count", 0);
+        result.put("firstAudioCount", audioCount);
+        result.put("firstAudioAvgMs", audioCount == 0 ? 0 : (double) prefs.getLong("audio_total_ms", 0) / audioCount);
+        result.put("firstAudioMaxMs", prefs.getLong("audio_max_ms", 0));
+        result.put("firstAudioLastMs", prefs.getLong("audio_last_ms", 0));
+        result.put("fallbackTones", prefs.getLong("audio_fallbacks", 0));
+        return result;
+    }
+}
@@ -0,0 +1,245 @@
+package com.tidy.app;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Regla de recurrencia de una alarma basada en java.time.
+ *
+ * Calcula la próxima ocurrencia estrictamente posterior a un instante a partir
+ * de la ocurrencia original (ancla), no del último disparo, de modo que:
+ * - no se acumula deriva si un disparo llegó tarde o se perdió (se salta
+ *   directamente a la primera ocurrencia futura),
+ * - los meses cortos recortan el día (31 → 28/29/30) sin perder el día original,
+ * - los cambios de horario (DST) conservan la hora local; si la hora no existe
+ *   ese día se usa la primera hora válida posterior,
+ * - "semanal" respeta el conjunto de días repeatDays (0 = domingo … 6 = sábado).
+ *
+ * Es inmutable y no depende de Android, por lo que se prueba en la JVM.
+ */
+public final class RecurrenceRule {
+
+    public static final int DAILY = 1;
+    public static final int WEEKLY = 2;
+    public static final int MONTHLY = 3;
+    public static final int YEARLY = 4;
+
+    private final int frequency;
+    // Bit d activo = día d de la semana, con 0 = domingo (igual que Date.getDay() en JS)
+    private final int weekdayMask;
+    private final LocalDate anchorDate;
+    private final LocalTime anchorTime;
+
+    public RecurrenceRule(int frequency, int weekdayMask, LocalDateTime anchor) {
+        this.frequency = frequency;
+        this.anchorDate = anchor.toLocalDate();
+        this.anchorTime = anchor.toLocalTime();
+        if (frequency == WEEKLY && weekdayMask == 0) {
+            // Sin días explícitos: el mismo día de la semana que el ancla
+            weekdayMask = 1 << jsDay(anchorDate.getDayOfWeek());
+        }
+        this.weekdayMask = weekdayMask;
+    }
+
+    /**
+     * Construye la regla a partir de los datos guardados de la alarma.
+     *
+     * @param frequency  "diaria", "semanal", "mensual" o "anual"
+     * @param repeatDays días de la semana, p. ej. "[1,3,5]" (puede ser null)
+     * @param anchorMillis primera ocurrencia de la alarma
+     * @param zone zona horaria en la que se interpreta la hora local
+     * @return la regla, o null si la frecuencia es desconocida
+     */
+    public static RecurrenceRule parse(String frequency, String repeatDays, long anchorMillis, ZoneId zone) {
+        int freq = parseFrequency(frequency);
+        if (freq == 0) {
+            return null;
+        }
+        LocalDateTime anchor = LocalDateTime.ofInstant(Instant.ofEpochMilli(anchorMillis), zone);
+        return new RecurrenceRule(freq, parseWeekdayMask(repeatDays), anchor);
+    }
+
+    static int parseFrequency(String frequency) {
+        if (frequency == null) {
+            return 0;
+        }
+        switch (frequency) {
+            case "diaria":
+            case "daily":
+                return DAILY;
+            case "semanal":
+            case "weekly":
+                return WEEKLY;
+            case "mensual":
+            case "monthly":
+                return MONTHLY;
+            case "anual":
+            case "yearly":
+                return YEARLY;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Convierte "[1,3,5]" / "1,3,5" en una máscara de bits; ignora valores fuera de 0-6.
+     */
+    static int parseWeekdayMask(String repeatDays) {
+        if (repeatDays == null) {
+            return 0;
+        }
+        int mask = 0;
+        int value = -1;
+        for (int i = 0, n = repeatDays.length(); i <= n; i++) {
+            char c = i < n ? repeatDays.charAt(i) : ',';
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+            } else {
+                if (value >= 0 && value <= 6) {
+                    mask |= 1 << value;
+                }
+                value = -1;
+            }
+        }
+        return mask;
+    }
+
+    private static int jsDay(DayOfWeek day) {
+        return day.getValue() % 7;
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    public int getWeekdayMask() {
+        return weekdayMask;
+    }
+
+    /**
+     * Próxima ocurrencia estrictamente posterior a {@code afterMillis}.
+     * La ocurrencia del ancla cuenta si es posterior.
+     */
+    public long nextAfter(long afterMillis, ZoneId zone) {
+        LocalDate afterDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone).toLocalDate();
+        LocalDate from = afterDate.isBefore(anchorDate) ? anchorDate : afterDate;
+
+        switch (frequency) {
+            case DAILY:
+            case WEEKLY:
+                return nextByDay(from, afterMillis, zone);
+            case MONTHLY:
+                return nextByMonths(from, afterMillis, zone, 1);
+            case YEARLY:
+                return nextByMonths(from, afterMillis, zone, 12);
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Entrega en orden todas las ocurrencias en [fromMillis, toMillis). Recorre las
+     * fechas del rango una vez en lugar de encadenar nextAfter, así que el costo es
+     * proporcional a los días (o meses) del rango.
+     */
+    public void forEachBetween(long fromMillis, long toMillis, ZoneId zone, LongConsumer sink) {
+        if (toMillis <= fromMillis) {
+            return;
+        }
+        // Un día de margen a cada lado: el offset de la zona puede mover la fecha local
+        LocalDate first = LocalDateTime.ofInstant(Instant.ofEpochMilli(fromMillis), zone).toLocalDate().minusDays(1);
+        LocalDate last = LocalDateTime.ofInstant(Instant.ofEpochMilli(toMillis), zone).toLocalDate().plusDays(1);
+        if (first.isBefore(anchorDate)) {
+            first = anchorDate;
+        }
+
+        switch (frequency) {
+            case DAILY:
+            case WEEKLY:
+                for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                    if (weekdayMask == 0 || (weekdayMask & (1 << jsDay(date.getDayOfWeek()))) != 0) {
+                        emitIfInRange(date, fromMillis, toMillis, zone, sink);
+                    }
+                }
+                break;
+            case MONTHLY:
+            case YEARLY:
+                int step = frequency == MONTHLY ? 1 : 12;
+                long months = ChronoUnit.MONTHS.between(anchorDate.withDayOfMonth(1), first.withDayOfMonth(1));
+                for (long k = Math.max(0, months / step); ; k++) {
+                    LocalDate date = monthlyOccurrence(k * step);
+                    if (date.isAfter(last)) {
+                        break;
+                    }
+                    if (!date.isBefore(first)) {
+                        emitIfInRange(date, fromMillis, toMillis, zone, sink);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void emitIfInRange(LocalDate date, long fromMillis, long toMillis, ZoneId zone, LongConsumer sink) {
+        long millis = toEpochMillis(date, zone);
+        if (millis >= fromMillis && millis < toMillis) {
+            sink.accept(millis);
+        }
+    }
+
+    private long nextByDay(LocalDate from, long afterMillis, ZoneId zone) {
+        LocalDate date = from;
+        // Como máximo una semana hasta el primer día válido, más una por si
+        // la ocurrencia de ese día ya pasó (misma fecha que afterMillis)
+        for (int i = 0; i < 15; i++) {
+            if (weekdayMask == 0 || (weekdayMask & (1 << jsDay(date.getDayOfWeek()))) != 0) {
+                long candidate = toEpochMillis(date, zone);
+                if (candidate > afterMillis) {
+                    return candidate;
+                }
+            }
+            date = date.plusDays(1);
+        }
+        return -1;
+    }
+
+    private long nextByMonths(LocalDate from, long afterMillis, ZoneId zone, int step) {
+        long months = ChronoUnit.MONTHS.between(anchorDate.withDayOfMonth(1), from.withDayOfMonth(1));
+        long k = Math.max(0, months / step);
+        for (int i = 0; i < 3; i++, k++) {
+            LocalDate date = monthlyOccurrence(k * step);
+            if (date.isBefore(from)) {
+                continue;
+            }
+            long candidate = toEpochMillis(date, zone);
+            if (candidate > afterMillis) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fecha de la ocurrencia a {@code monthsFromAnchor} meses del ancla,
+     * recortando el día al último del mes cuando hace falta.
+     */
+    private LocalDate monthlyOccurrence(long monthsFromAnchor) {
+        LocalDate firstOfMonth = anchorDate.withDayOfMonth(1).plusMonths(monthsFromAnchor);
+        int day = Math.min(anchorDate.getDayOfMonth(), firstOfMonth.lengthOfMonth());
+        return firstOfMonth.withDayOfMonth(day);
+    }
+
+    private long toEpochMillis(LocalDate date, ZoneId zone) {
+        // ZonedDateTime.of adelanta las horas inexistentes (salto DST) y
+        // usa el offset anterior en las horas repetidas
+        return ZonedDateTime.of(date, anchorTime, zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,76 @@
+package com.tidy.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Reparto de request codes de PendingIntent.
+ *
+ * Dos PendingIntent con el mismo request code (y el mismo componente) son el
+ * mismo para el sistema: uno reemplaza o cancela al otro. Para que nunca choquen:
+ *
+ * - [0, MAX_VALUE]: alarmas, el request code es el ID de la alarma.
+ * - [-99, -1]: PendingIntent únicos de la app (slot, promoción, notificación...).
+ * - [MIN_VALUE, -100]: códigos dinámicos (pospuestas), asignados por un contador
+ *   persistente que nunca repite un valor.
+ */
+public final class RequestCodes {
+
+    public static final int SINGLE_SLOT = -1;
+    public static final int PROMOTION = -2;
+    public static final int SESSION_CONTENT = -3;
+    public static final int SESSION_FULL_SCREEN = -4;
+    public static final int ACTION_DISMISS = -5;
+    public static final int ACTION_SNOOZE = -6;
+    public static final int ALARM_CLOCK_SHOW = -7;
+    public static final int MISSED_CONTENT = -8;
+    public static final int TIMER_INTERVAL = -9;
+    public static final int TIMER_CONTENT = -10;
+    public static final int TIMER_PAUSE = -11;
+    public static final int TIMER_RESUME = -12;
+    public static final int TIMER_STOP = -13;
+
+    static final int LAST_FIXED = -99;
+    static final int FIRST_DYNAMIC = -100;
+
+    private static final String PREFS_NAME = "tidy_request_codes";
+    private static final String KEY_LAST_DYNAMIC = "last_dynamic";
+
+    private RequestCodes() {
+    }
+
+    /**
+     * Request code del PendingIntent de una alarma.
+     */
+    public static int alarm(int alarmId) {
+        if (alarmId < 0) {
+            throw new IllegalArgumentException("ID de alarma inválido: " + alarmId);
+        }
+        return alarmId;
+    }
+
+    /**
+     * Reserva un código dinámico nuevo; se guarda antes de devolverlo.
+     */
+    public static synchronized int allocate(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int code = nextDynamic(prefs.getInt(KEY_LAST_DYNAMIC, 0));
+        prefs.edit().putInt(KEY_LAST_DYNAMIC, code).commit();
+        return code;
+    }
+
+    /**
+     * Siguiente código dinámico tras {@code last} (0 si aún no se asignó ninguno).
+     */
+    static int nextDynamic(int last) {
+        if (last > FIRST_DYNAMIC || last == Integer.MIN_VALUE) {
+            // Primer uso, o ~2 mil millones de pospuestas después: volver a empezar
+            return FIRST_DYNAMIC;
+        }
+        return last - 1;
+    }
+
+    static boolean isDynamic(int code) {
+        return code <= FIRST_DYNAMIC;
+    }
+}
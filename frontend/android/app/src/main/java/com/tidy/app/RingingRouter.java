@@ -0,0 +1,44 @@
+package com.tidy.app;
+
+import java.util.List;
+
+/**
+ * Reparto de las órdenes de detener y posponer que llegan a RingingService, sin
+ * dependencias de Android.
+ *
+ * Decide si una orden va a toda la sesión o a una sola alarma, y qué guardar
+ * cuando el servicio no se puede arrancar y la orden se aplica directamente.
+ */
+final class RingingRouter {
+
+    private RingingRouter() {
+    }
+
+    /**
+     * Orden de la notificación o de quien no está enlazado.
+     *
+     * @param all si es para toda la sesión; sin sesión sonando se aplica sólo a {@code alarmId}
+     */
+    static RingingStateMachine.Transition route(RingingStateMachine machine, boolean snooze, int alarmId, boolean all) {
+        if (all && machine.state() == RingingStateMachine.State.RINGING) {
+            return snooze ? machine.snoozeAll() : machine.dismissAll();
+        }
+        return snooze ? machine.snooze(alarmId) : machine.dismiss(alarmId);
+    }
+
+    /**
+     * Orden directa cuando RingingService no está disponible: las alarmas que sonaban
+     * en la sesión del proceso se tratan igual que lo haría el servicio, para que
+     * ninguna quede sin posponer ni detener en el almacén.
+     *
+     * @param sessionIds alarmas que quedaban en RingingSession (ya vaciada)
+     */
+    static RingingStateMachine.Transition fallback(boolean snooze, int alarmId, boolean all, List<Integer> sessionIds) {
+        RingingStateMachine machine = new RingingStateMachine();
+        for (int sessionId : sessionIds) {
+            // El límite de pospuestas lo aplica AlarmActionReceiver.snooze al guardar
+            machine.start(sessionId, true);
+        }
+        return route(machine, snooze, alarmId, all);
+    }
+}
@@ -0,0 +1,344 @@
+package com.tidy.app;
+
+import android.app.Notification;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.Log;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio en primer plano que hace sonar la sesión de alarmas: sonido
+ * (AlarmSound), vibración, WakeLock y tiempo máximo.
+ *
+ * Lo arranca AlarmReceiver en cada disparo, así que la alarma suena aunque
+ * Android 10+ bloquee o retrase el lanzamiento de AlarmActivity desde segundo
+ * plano, y recrear la actividad (rotación) ya no reinicia el sonido.
+ *
+ * AlarmActivity (enlazada con bindService) y las acciones de la notificación
+ * sólo le mandan órdenes; los estados y las transiciones están en
+ * RingingStateMachine. Todo se ejecuta en el hilo principal.
+ */
+public class RingingService extends Service {
+    private static final String TAG = "RingingService";
+
+    static final String ACTION_START = "com.tidy.app.action.RINGING_START";
+    static final String ACTION_DISMISS = "com.tidy.app.action.RINGING_DISMISS";
+    static final String ACTION_SNOOZE = "com.tidy.app.action.RINGING_SNOOZE";
+    // Con esta marca la orden es para toda la sesión; el payload sólo se usa si no suena nada
+    static final String EXTRA_ALL = "all";
+
+    // Tiempo máximo sonando sin que nadie atienda la sesión
+    static final long RING_TIMEOUT_MS = 10 * 60 * 1000;
+
+    /**
+     * Acceso directo al servicio para AlarmActivity (mismo proceso).
+     */
+    final class LocalBinder extends Binder {
+        RingingService getService() {
+            return RingingService.this;
+        }
+    }
+
+    private final IBinder binder = new LocalBinder();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final RingingStateMachine machine = new RingingStateMachine();
+    private final Runnable timeout = () -> {
+        Log.w(TAG, "⏰ Nadie atendió la sesión en " + RING_TIMEOUT_MS / 60_000 + " min: se pospone");
+        apply(machine.timeout(), null);
+    };
+
+    private Vibrator vibrator;
+    // CPU despierta mientras suena, aunque se apague la pantalla
+    private WakeLockManager.Holder ringingHolder;
+    private int lastStartId;
+
+    /**
+     * Hace sonar una alarma. El sonido empieza ya, sin esperar a que arranque el
+     * servicio; si el sistema no deja arrancarlo suena igualmente y lo paran
+     * AlarmActivity o la notificación.
+     */
+    static void start(Context context, AlarmPayload payload, long receivedAt) {
+        AlarmSound.getInstance(context).start(receivedAt);
+        Intent intent = new Intent(context, RingingService.class);
+        intent.setAction(ACTION_START);
+        payload.putInto(intent);
+        intent.putExtra(AlarmActivity.EXTRA_RECEIVED_AT, receivedAt);
+        try {
+            ContextCompat.startForegroundService(context, intent);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ No se pudo arrancar el servicio de timbre: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Orden de detener o posponer para quien no está enlazado (acciones de la notificación).
+     *
+     * @param all si es para toda la sesión; {@code alarmId} sólo cuenta si no suena nada
+     */
+    static void send(Context context, String action, int alarmId, String title, boolean all) {
+        Intent intent = new Intent(context, RingingService.class);
+        intent.setAction(action);
+        new AlarmPayload(alarmId, 0, title, null, 0, false).putInto(intent);
+        intent.putExtra(EXTRA_ALL, all);
+        try {
+            context.startService(intent);
+        } catch (Exception e) {
+            // Proceso en segundo plano sin el servicio: no suena nada, sólo queda el almacén
+            Log.w(TAG, "⚠️ Servicio de timbre no disponible, orden directa: " + e.getMessage());
+            AlarmSound.getInstance(context).stop();
+            final Map<Integer, String> titles = new HashMap<>();
+            List<Integer> sessionIds = new ArrayList<>();
+            for (RingingSession.Item item : RingingSession.drain()) {
+                sessionIds.add(item.alarmId);
+                titles.put(item.alarmId, item.title);
+            }
+            if (!titles.containsKey(alarmId)) {
+                titles.put(alarmId, title);
+            }
+            final RingingStateMachine.Transition transition =
+                RingingRouter.fallback(ACTION_SNOOZE.equals(action), alarmId, all, sessionIds);
+            final Context appContext = context.getApplicationContext();
+            NotificationDispatcher.getInstance(appContext).cancel(RingingSession.NOTIFICATION_ID);
+            AlarmExecutor.execute(() -> {
+                saveActions(appContext, transition, titles);
+                AlarmMetrics.flush(appContext);
+            });
+        }
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        lastStartId = startId;
+        String action = intent != null ? intent.getAction() : null;
+        if (ACTION_START.equals(action)) {
+            handleStart(intent);
+        } else if (ACTION_DISMISS.equals(action) || ACTION_SNOOZE.equals(action)) {
+            AlarmPayload payload = AlarmPayload.from(intent);
+            apply(RingingRouter.route(machine, ACTION_SNOOZE.equals(action), payload.alarmId,
+                intent.getBooleanExtra(EXTRA_ALL, false)), payload);
+        } else {
+            // Sin Intent o con una orden que no es de este servicio: nada que hacer
+            Log.w(TAG, "⚠️ Orden desconocida: " + action);
+            stopIfIdle();
+        }
+        // Si el proceso muere no se recrea: AlarmActivity o la notificación lo vuelven a arrancar
+        return START_NOT_STICKY;
+    }
+
+    private void handleStart(Intent intent) {
+        AlarmPayload payload = AlarmPayload.from(intent);
+        long receivedAt = intent.getLongExtra(AlarmActivity.EXTRA_RECEIVED_AT, 0);
+        RingingSession.offer(new RingingSession.Item(payload.alarmId, payload.title,
+            payload.triggerTime, receivedAt, payload.scheduleApi, payload.snoozeCount));
+
+        // Cada startForegroundService exige su startForeground, también si ya sonaba
+        Notification notification = AlarmReceiver.buildSessionNotification(
+            this, payload.alarmId, payload.title, "Es hora de tu alarma");
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                startForeground(RingingSession.NOTIFICATION_ID, notification,
+                    ServiceInfo.FOREGROUND_SERVICE_TYPE_MEDIA_PLAYBACK);
+            } else {
+                startForeground(RingingSession.NOTIFICATION_ID, notification);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "❌ No se pudo pasar a primer plano: " + e.getMessage(), e);
+        }
+
+        boolean canSnooze = SnoozeManager.canSnooze(payload.snoozeCount, SnoozeManager.getMaxCount(this));
+        Log.d(TAG, "🔔 Alarma " + payload.alarmId + " sonando");
+        apply(machine.start(payload.alarmId, canSnooze), null);
+    }
+
+    // Órdenes de AlarmActivity (enlazada)
+
+    void dismiss(int alarmId) {
+        apply(machine.dismiss(alarmId), null);
+    }
+
+    void snooze(int alarmId) {
+        apply(machine.snooze(alarmId), null);
+    }
+
+    void dismissAll() {
+        apply(machine.dismissAll(), null);
+    }
+
+    void snoozeAll() {
+        apply(machine.snoozeAll(), null);
+    }
+
+    /**
+     * Aplica los efectos de una transición, en orden, y guarda en segundo plano
+     * las alarmas pospuestas y detenidas.
+     *
+     * @param payload alarma de la orden, por si ya no está en la sesión (para su título)
+     */
+    private void apply(RingingStateMachine.Transition transition, AlarmPayload payload) {
+        // Títulos antes de quitar las alarmas de la sesión
+        final Map<Integer, String> titles = new HashMap<>();
+        for (RingingSession.Item item : RingingSession.items()) {
+            titles.put(item.alarmId, item.title);
+        }
+        if (payload != null && !titles.containsKey(payload.alarmId)) {
+            titles.put(payload.alarmId, payload.title);
+        }
+
+        for (RingingStateMachine.Effect effect : transition.effects) {
+            switch (effect) {
+                case START_AUDIO:
+                    // Normalmente ya arrancó en start(), con la hora de onReceive
+                    AlarmSound.getInstance(this).start(0);
+                    break;
+                case START_VIBRATION:
+                    startVibration();
+                    break;
+                case ARM_TIMEOUT:
+                    armTimeout();
+                    break;
+                case CANCEL_TIMEOUT:
+                    handler.removeCallbacks(timeout);
+                    releaseHolder();
+                    break;
+                case STOP_VIBRATION:
+                    if (vibrator != null) {
+                        vibrator.cancel();
+                        vibrator = null;
+                        Log.d(TAG, "📴 Vibración detenida");
+                    }
+                    break;
+                case STOP_AUDIO:
+                    AlarmSound.getInstance(this).stop();
+                    break;
+                case STOP_FOREGROUND:
+                    ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+                    // Una actualización aún en la cola volvería a publicar "sonando"
+                    NotificationDispatcher.getInstance(this).cancel(RingingSession.NOTIFICATION_ID);
+                    break;
+            }
+        }
+
+        List<Integer> removed = new ArrayList<>(transition.snoozed);
+        removed.addAll(transition.dismissed);
+        if (transition.stopped()) {
+            RingingSession.drain();
+        } else if (!removed.isEmpty()) {
+            RingingSession.discard(removed);
+        }
+        if (transition.state == RingingStateMachine.State.IDLE && !transition.stopped()) {
+            // Una orden sin sesión (proceso recreado): asegurar el silencio
+            AlarmSound.getInstance(this).stop();
+        }
+
+        if (removed.isEmpty()) {
+            stopIfIdle();
+            return;
+        }
+        final Context appContext = getApplicationContext();
+        AlarmExecutor.execute(() -> {
+            try {
+                saveActions(appContext, transition, titles);
+            } finally {
+                AlarmMetrics.flush(appContext);
+                // El servicio sigue vivo hasta guardar, como hacía el goAsync del receiver
+                handler.post(this::stopIfIdle);
+            }
+        });
+    }
+
+    /**
+     * Guarda las alarmas pospuestas y detenidas de una transición. En AlarmExecutor.
+     */
+    private static void saveActions(Context context, RingingStateMachine.Transition transition,
+                                    Map<Integer, String> titles) {
+        try {
+            for (int alarmId : transition.snoozed) {
+                AlarmActionReceiver.snooze(context, alarmId, titles.get(alarmId));
+            }
+            for (int alarmId : transition.dismissed) {
+                AlarmActionReceiver.dismiss(context, alarmId);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al guardar la acción: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cada alarma nueva concede el tiempo máximo completo, y también su WakeLock.
+     */
+    private void armTimeout() {
+        handler.removeCallbacks(timeout);
+        handler.postDelayed(timeout, RING_TIMEOUT_MS);
+        WakeLockManager.Holder previous = ringingHolder;
+        ringingHolder = WakeLockManager.getInstance(this)
+            .acquire(WakeLockManager.HOLDER_RINGING, WakeLockManager.RINGING_TIMEOUT_MS);
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    private void releaseHolder() {
+        if (ringingHolder != null) {
+            ringingHolder.release();
+            ringingHolder = null;
+        }
+    }
+
+    private void startVibration() {
+        vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
+        if (vibrator != null && vibrator.hasVibrator()) {
+            long[] pattern = {0, 1000, 500, 1000}; // Vibrar 1s, pausa 0.5s, repetir
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                vibrator.vibrate(VibrationEffect.createWaveform(pattern, 0)); // 0 = repetir desde inicio
+            } else {
+                vibrator.vibrate(pattern, 0);
+            }
+
+            Log.d(TAG, "📳 Vibración iniciada");
+        } else {
+            Log.w(TAG, "⚠️ Vibrator no disponible");
+        }
+    }
+
+    private void stopIfIdle() {
+        if (machine.state() == RingingStateMachine.State.IDLE) {
+            // Con el último startId: si llegó otra orden entretanto, el servicio sigue
+            stopSelf(lastStartId);
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        Log.d(TAG, "💀 RingingService.onDestroy()");
+        handler.removeCallbacks(timeout);
+        if (machine.state() == RingingStateMachine.State.RINGING) {
+            // El sistema paró el servicio sonando: no dejar sonido ni vibración huérfanos
+            AlarmSound.getInstance(this).stop();
+            if (vibrator != null) {
+                vibrator.cancel();
+            }
+        }
+        releaseHolder();
+    }
+}
@@ -0,0 +1,179 @@
+package com.tidy.app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sesión de timbre: las alarmas que están sonando a la vez.
+ *
+ * Todas las alarmas que vencen mientras AlarmActivity está abierta (o que
+ * AlarmReceiver adelanta por caer dentro de COALESCE_WINDOW_MS) se añaden a
+ * la misma sesión: un solo sonido, una sola actividad con la lista, y cada
+ * alarma se detiene o pospone por separado. La sesión termina cuando la
+ * lista queda vacía.
+ *
+ * Esta clase es sólo la lista que pinta AlarmActivity; sonido, vibración y
+ * tiempo máximo los lleva RingingService, que es quien añade y quita alarmas.
+ *
+ * Se usa desde el hilo principal y desde AlarmExecutor; el listener
+ * (AlarmActivity) siempre se llama en el hilo principal.
+ */
+public final class RingingSession {
+
+    // Alarmas que vencen dentro de esta ventana se disparan juntas
+    static final long COALESCE_WINDOW_MS = 60_000;
+    // ID fijo de la notificación de la sesión (no coincide con IDs de alarma)
+    static final int NOTIFICATION_ID = 0x7A1A0000;
+
+    // Si AlarmActivity no se registra en este tiempo se vuelve a lanzar
+    private static final long LAUNCH_TIMEOUT_MS = 10_000;
+
+    /**
+     * Una alarma sonando dentro de la sesión.
+     */
+    static final class Item {
+        final int alarmId;
+        final String title;
+        final long triggerTime;
+        final long receivedAt;
+        final String scheduleApi;
+        // Veces que ya se pospuso (0 si no es una pospuesta)
+        final int snoozeCount;
+        // Sólo hilo principal (AlarmActivity): etapas de entrega ya registradas
+        boolean shown;
+        boolean audible;
+
+        Item(int alarmId, String title, long triggerTime, long receivedAt, String scheduleApi, int snoozeCount) {
+            this.alarmId = alarmId;
+            this.title = title != null ? title : "Alarma Tidy";
+            this.triggerTime = triggerTime;
+            this.receivedAt = receivedAt;
+            this.scheduleApi = scheduleApi;
+            this.snoozeCount = snoozeCount;
+        }
+    }
+
+    interface Listener {
+        void onItemsChanged();
+    }
+
+    private static final List<Item> items = new ArrayList<>();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static Listener listener;
+    private static long launchRequestedAt;
+
+    private RingingSession() {
+    }
+
+    /**
+     * Añade una alarma a la sesión.
+     *
+     * @return true si hay que lanzar AlarmActivity (no hay ninguna mostrando la sesión)
+     */
+    static synchronized boolean offer(Item item) {
+        for (Item existing : items) {
+            if (existing.alarmId == item.alarmId) {
+                return false; // mismo disparo entregado dos veces
+            }
+        }
+        items.add(item);
+
+        if (listener != null) {
+            notifyChanged();
+            return false;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (launchRequestedAt != 0 && now - launchRequestedAt < LAUNCH_TIMEOUT_MS) {
+            return false; // la actividad ya está arrancando y leerá la lista completa
+        }
+        launchRequestedAt = now;
+        return true;
+    }
+
+    static synchronized List<Item> items() {
+        return new ArrayList<>(items);
+    }
+
+    static synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * Quita una alarma de la sesión (detenida o pospuesta).
+     *
+     * @return true si la sesión quedó vacía
+     */
+    static synchronized boolean remove(int alarmId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).alarmId == alarmId) {
+                items.remove(i);
+                break;
+            }
+        }
+        return items.isEmpty();
+    }
+
+    /**
+     * Quita alarmas desde RingingService y avisa al listener para que repinte.
+     *
+     * @return true si la sesión quedó vacía
+     */
+    static synchronized boolean discard(List<Integer> alarmIds) {
+        boolean changed = false;
+        for (int alarmId : alarmIds) {
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).alarmId == alarmId) {
+                    items.remove(i);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        if (changed && listener != null) {
+            notifyChanged();
+        }
+        return items.isEmpty();
+    }
+
+    /**
+     * Vacía la sesión desde fuera de AlarmActivity (RingingService al terminar) y
+     * avisa al listener para que se cierre.
+     *
+     * @return las alarmas que estaban sonando
+     */
+    static synchronized List<Item> drain() {
+        List<Item> drained = new ArrayList<>(items);
+        items.clear();
+        launchRequestedAt = 0;
+        if (listener != null) {
+            notifyChanged();
+        }
+        return drained;
+    }
+
+    static synchronized void attach(Listener newListener) {
+        listener = newListener;
+        launchRequestedAt = 0;
+    }
+
+    static synchronized void detach(Listener oldListener) {
+        if (listener == oldListener) {
+            listener = null;
+        }
+    }
+
+    private static void notifyChanged() {
+        mainHandler.post(() -> {
+            Listener current;
+            synchronized (RingingSession.class) {
+                current = listener;
+            }
+            if (current != null) {
+                current.onItemsChanged();
+            }
+        });
+    }
+}
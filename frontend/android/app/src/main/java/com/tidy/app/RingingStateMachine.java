@@ -0,0 +1,160 @@
+package com.tidy.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estados del motor de timbre (RingingService), sin dependencias de Android.
+ *
+ * Cada orden (disparo, detener, posponer, tiempo máximo) devuelve una
+ * {@link Transition} con los efectos que el servicio debe aplicar en orden y las
+ * alarmas que hay que posponer o detener en el almacén. No es thread-safe: el
+ * servicio la usa sólo desde el hilo principal.
+ */
+final class RingingStateMachine {
+
+    enum State {
+        IDLE,
+        RINGING
+    }
+
+    enum Effect {
+        START_AUDIO,
+        START_VIBRATION,
+        ARM_TIMEOUT,
+        STOP_AUDIO,
+        STOP_VIBRATION,
+        CANCEL_TIMEOUT,
+        STOP_FOREGROUND
+    }
+
+    /**
+     * Resultado de una orden.
+     */
+    static final class Transition {
+        final State state;
+        final List<Effect> effects;
+        final List<Integer> snoozed;
+        final List<Integer> dismissed;
+
+        Transition(State state, List<Effect> effects, List<Integer> snoozed, List<Integer> dismissed) {
+            this.state = state;
+            this.effects = effects;
+            this.snoozed = snoozed;
+            this.dismissed = dismissed;
+        }
+
+        boolean stopped() {
+            return effects.contains(Effect.STOP_FOREGROUND);
+        }
+    }
+
+    private State state = State.IDLE;
+    // Alarmas sonando, en orden de llegada, con si todavía se pueden posponer
+    private final Map<Integer, Boolean> ringing = new LinkedHashMap<>();
+
+    State state() {
+        return state;
+    }
+
+    boolean isRinging(int alarmId) {
+        return ringing.containsKey(alarmId);
+    }
+
+    List<Integer> ringingIds() {
+        return new ArrayList<>(ringing.keySet());
+    }
+
+    /**
+     * Una alarma empieza a sonar. La primera arranca sonido y vibración; las
+     * siguientes se suman a la sesión y reinician el tiempo máximo.
+     */
+    Transition start(int alarmId, boolean canSnooze) {
+        if (ringing.containsKey(alarmId)) {
+            // Mismo disparo entregado dos veces
+            return transition(Collections.<Effect>emptyList(), null, null);
+        }
+        ringing.put(alarmId, canSnooze);
+        if (state == State.RINGING) {
+            return transition(Collections.singletonList(Effect.ARM_TIMEOUT), null, null);
+        }
+        state = State.RINGING;
+        List<Effect> effects = new ArrayList<>();
+        effects.add(Effect.START_AUDIO);
+        effects.add(Effect.START_VIBRATION);
+        effects.add(Effect.ARM_TIMEOUT);
+        return transition(effects, null, null);
+    }
+
+    /**
+     * Detiene una alarma. Una que no está sonando (el proceso murió desde el
+     * disparo) se detiene igualmente en el almacén.
+     */
+    Transition dismiss(int alarmId) {
+        ringing.remove(alarmId);
+        return finishIfEmpty(null, Collections.singletonList(alarmId));
+    }
+
+    /**
+     * Pospone una alarma; si ya llegó al máximo de pospuestas se detiene.
+     */
+    Transition snooze(int alarmId) {
+        Boolean canSnooze = ringing.remove(alarmId);
+        if (canSnooze == null || canSnooze) {
+            return finishIfEmpty(Collections.singletonList(alarmId), null);
+        }
+        return finishIfEmpty(null, Collections.singletonList(alarmId));
+    }
+
+    Transition dismissAll() {
+        List<Integer> dismissed = ringingIds();
+        ringing.clear();
+        return finishIfEmpty(null, dismissed);
+    }
+
+    /**
+     * Pospone todas las que se pueden posponer y detiene el resto.
+     */
+    Transition snoozeAll() {
+        List<Integer> snoozed = new ArrayList<>();
+        List<Integer> dismissed = new ArrayList<>();
+        for (Map.Entry<Integer, Boolean> entry : ringing.entrySet()) {
+            (entry.getValue() ? snoozed : dismissed).add(entry.getKey());
+        }
+        ringing.clear();
+        return finishIfEmpty(snoozed, dismissed);
+    }
+
+    /**
+     * Nadie atendió la sesión en el tiempo máximo: se trata como "posponer todas"
+     * para que las alarmas vuelvan a sonar en lugar de perderse.
+     */
+    Transition timeout() {
+        if (state == State.IDLE) {
+            return transition(Collections.<Effect>emptyList(), null, null);
+        }
+        return snoozeAll();
+    }
+
+    private Transition finishIfEmpty(List<Integer> snoozed, List<Integer> dismissed) {
+        if (!ringing.isEmpty() || state == State.IDLE) {
+            return transition(Collections.<Effect>emptyList(), snoozed, dismissed);
+        }
+        state = State.IDLE;
+        List<Effect> effects = new ArrayList<>();
+        effects.add(Effect.CANCEL_TIMEOUT);
+        effects.add(Effect.STOP_VIBRATION);
+        effects.add(Effect.STOP_AUDIO);
+        effects.add(Effect.STOP_FOREGROUND);
+        return transition(effects, snoozed, dismissed);
+    }
+
+    private Transition transition(List<Effect> effects, List<Integer> snoozed, List<Integer> dismissed) {
+        return new Transition(state, effects,
+            snoozed != null ? snoozed : Collections.<Integer>emptyList(),
+            dismissed != null ? dismissed : Collections.<Integer>emptyList());
+    }
+}
@@ -0,0 +1,234 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elige con qué API de AlarmManager se registran las alarmas exactas.
+ *
+ * - setAlarmClock: la más puntual (exenta de Doze y de la mayoría de
+ *   restricciones de fabricante), pero muestra el icono de despertador.
+ * - setExactAndAllowWhileIdle: la de siempre en Android 6+.
+ * - setExact: sin permiso para Doze; sólo como último recurso.
+ *
+ * En modo automático se parte de setExactAndAllowWhileIdle (setAlarmClock en
+ * fabricantes con ahorro de batería agresivo) y se cambia cuando el p95 de la
+ * latencia de recepción medida en este dispositivo (DeliveryStats) supera
+ * LATE_P95_MS: primero se prueba una API sin datos suficientes y, si todas
+ * tienen datos, se queda la de menor p95. Nunca se cambia a una API medida peor.
+ */
+public final class SchedulingStrategy {
+    private static final String TAG = "SchedulingStrategy";
+
+    public static final String API_ALARM_CLOCK = "setAlarmClock";
+    public static final String API_EXACT_IDLE = "setExactAndAllowWhileIdle";
+    public static final String API_EXACT = "setExact";
+    public static final String AUTO = "auto";
+
+    // Disparos mínimos para fiarse del p95 de una API
+    static final int MIN_SAMPLES = 5;
+    // p95 a partir del cual una API se considera impuntual en este dispositivo
+    static final long LATE_P95_MS = 60_000;
+
+    private static final String PREF_OVERRIDE = "strategy_override";
+    private static final String PREF_SELECTED = "strategy_selected";
+    private static final String PREF_SELECTED_AT = "strategy_selected_at";
+    private static final String PREF_REASON = "strategy_reason";
+
+    private SchedulingStrategy() {
+    }
+
+    /**
+     * API con la que se registran ahora las alarmas.
+     */
+    public static String current(Context context) {
+        String override = AlarmScheduler.prefs(context).getString(PREF_OVERRIDE, AUTO);
+        if (!AUTO.equals(override) && isAvailable(override, Build.VERSION.SDK_INT)) {
+            return override;
+        }
+        String selected = AlarmScheduler.prefs(context).getString(PREF_SELECTED, null);
+        if (selected != null && isAvailable(selected, Build.VERSION.SDK_INT)) {
+            return selected;
+        }
+        return defaultApi(Build.VERSION.SDK_INT, isAggressiveOem(Build.MANUFACTURER));
+    }
+
+    /**
+     * Registra {@code operation} para {@code triggerAtMillis} con la API actual.
+     *
+     * @return nombre de la API usada (para las estadísticas de entrega)
+     */
+    static String register(Context context, AlarmManager alarmManager, long triggerAtMillis, PendingIntent operation) {
+        String api = current(context);
+        if (API_ALARM_CLOCK.equals(api)) {
+            alarmManager.setAlarmClock(
+                new AlarmManager.AlarmClockInfo(triggerAtMillis, showIntent(context)), operation);
+        } else if (API_EXACT_IDLE.equals(api)) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, operation);
+        } else {
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerAtMillis, operation);
+        }
+        return api;
+    }
+
+    /**
+     * Fija una API concreta o vuelve al modo automático ("auto").
+     */
+    public static void setOverride(Context context, String api) {
+        if (!AUTO.equals(api) && !isAvailable(api, Build.VERSION.SDK_INT)) {
+            throw new IllegalArgumentException("Estrategia no disponible en este dispositivo: " + api);
+        }
+        AlarmScheduler.prefs(context).edit().putString(PREF_OVERRIDE, api).apply();
+    }
+
+    /**
+     * Vuelve a elegir la API según las latencias medidas. Se llama después de cada disparo.
+     *
+     * @return true si la API cambió (hay que volver a registrar las alarmas)
+     */
+    static boolean reevaluate(Context context) {
+        if (!AUTO.equals(AlarmScheduler.prefs(context).getString(PREF_OVERRIDE, AUTO))) {
+            return false;
+        }
+        String previous = current(context);
+        String next = choose(previous, receiveHistograms(context), Build.VERSION.SDK_INT);
+        if (next.equals(previous)) {
+            return false;
+        }
+
+        LatencyHistogram late = receiveHistograms(context).get(previous);
+        String reason = previous + " p95=" + (late != null ? late.percentile(95) : 0) + "ms";
+        AlarmScheduler.prefs(context).edit()
+            .putString(PREF_SELECTED, next)
+            .putLong(PREF_SELECTED_AT, System.currentTimeMillis())
+            .putString(PREF_REASON, reason)
+            .apply();
+        Log.w(TAG, "🔀 Estrategia de programación: " + previous + " → " + next + " (" + reason + ")");
+        return true;
+    }
+
+    /**
+     * Decide la API a usar a partir de la actual y de las latencias de recepción por API.
+     */
+    static String choose(String current, Map<String, LatencyHistogram> receiveByApi, int sdkInt) {
+        LatencyHistogram currentStats = receiveByApi.get(current);
+        if (currentStats == null || currentStats.getCount() < MIN_SAMPLES
+                || currentStats.percentile(95) <= LATE_P95_MS) {
+            return current;
+        }
+
+        String best = current;
+        long bestP95 = currentStats.percentile(95);
+        for (String candidate : candidates(sdkInt)) {
+            if (candidate.equals(current)) {
+                continue;
+            }
+            LatencyHistogram stats = receiveByApi.get(candidate);
+            if (stats == null || stats.getCount() < MIN_SAMPLES) {
+                // Sin datos suficientes: probarla antes que quedarse con una impuntual
+                return candidate;
+            }
+            if (stats.percentile(95) < bestP95) {
+                best = candidate;
+                bestP95 = stats.percentile(95);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * APIs disponibles en orden de preferencia cuando hay que probar otra.
+     */
+    static List<String> candidates(int sdkInt) {
+        List<String> list = new ArrayList<>();
+        list.add(API_ALARM_CLOCK);
+        if (sdkInt >= Build.VERSION_CODES.M) {
+            list.add(API_EXACT_IDLE);
+        }
+        list.add(API_EXACT);
+        return list;
+    }
+
+    static String defaultApi(int sdkInt, boolean aggressiveOem) {
+        if (aggressiveOem) {
+            return API_ALARM_CLOCK;
+        }
+        return sdkInt >= Build.VERSION_CODES.M ? API_EXACT_IDLE : API_EXACT;
+    }
+
+    static boolean isAvailable(String api, int sdkInt) {
+        return candidates(sdkInt).contains(api);
+    }
+
+    /**
+     * Fabricantes con optimización de batería agresiva (retrasan o descartan alarmas).
+     */
+    public static boolean isAggressiveOem(String manufacturer) {
+        if (manufacturer == null) {
+            return false;
+        }
+        String name = manufacturer.toLowerCase();
+        return name.contains("xiaomi") ||
+               name.contains("huawei") ||
+               name.contains("oppo") ||
+               name.contains("vivo") ||
+               name.contains("oneplus");
+    }
+
+    private static Map<String, LatencyHistogram> receiveHistograms(Context context) {
+        Map<String, LatencyHistogram> result = new HashMap<>();
+        for (String api : candidates(Build.VERSION.SDK_INT)) {
+            result.put(api, DeliveryStats.histogram(context, api, Build.VERSION.SDK_INT, DeliveryStats.STAGE_RECEIVE));
+        }
+        return result;
+    }
+
+    /**
+     * Al tocar el icono de despertador del sistema se abre la app.
+     */
+    private static PendingIntent showIntent(Context context) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        return PendingIntent.getActivity(context, RequestCodes.ALARM_CLOCK_SHOW, intent, AlarmScheduler.pendingIntentFlags());
+    }
+
+    /**
+     * Estrategia actual y p95 observado por API, para exponer a JS.
+     */
+    public static JSObject toJSObject(Context context) {
+        Map<String, LatencyHistogram> histograms = receiveHistograms(context);
+        String api = current(context);
+
+        JSArray observed = new JSArray();
+        for (String candidate : candidates(Build.VERSION.SDK_INT)) {
+            LatencyHistogram histogram = histograms.get(candidate);
+            JSObject item = new JSObject();
+            item.put("api", candidate);
+            item.put("samples", histogram.getCount());
+            item.put("p95Ms", histogram.percentile(95));
+            observed.put(item);
+        }
+
+        LatencyHistogram selected = histograms.get(api);
+        JSObject result = new JSObject();
+        result.put("strategy", api);
+        result.put("mode", AlarmScheduler.prefs(context).getString(PREF_OVERRIDE, AUTO));
+        result.put("p95Ms", selected != null ? selected.percentile(95) : 0);
+        result.put("samples", selected != null ? selected.getCount() : 0);
+        result.put("aggressiveOem", isAggressiveOem(Build.MANUFACTURER));
+        result.put("selectedAt", AlarmScheduler.prefs(context).getLong(PREF_SELECTED_AT, 0));
+        result.put("reason", AlarmScheduler.prefs(context).getString(PREF_REASON, null));
+        result.put("apis", observed);
+        return result;
+    }
+}
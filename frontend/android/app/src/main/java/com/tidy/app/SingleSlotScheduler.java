@@ -0,0 +1,123 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+import java.util.List;
+
+/**
+ * Modo de programación "single_slot": mantiene todas las alarmas pendientes en
+ * una {@link NextAlarmQueue} en memoria (reconstruida desde AlarmStore) y sólo
+ * registra en AlarmManager la más próxima.
+ *
+ * Así el número de PendingIntents en system_server es siempre 0 ó 1, sin importar
+ * cuántas alarmas tenga el usuario. AlarmReceiver recibe ACTION_SLOT, extrae las
+ * alarmas vencidas con popDue() y la cola arma automáticamente la siguiente.
+ */
+public final class SingleSlotScheduler implements NextAlarmQueue.Armer {
+    private static final String TAG = "SingleSlotScheduler";
+
+    public static final String ACTION_SLOT = "com.tidy.app.action.ALARM_SLOT";
+
+    private static SingleSlotScheduler instance;
+
+    private final Context context;
+    private final NextAlarmQueue queue;
+
+    /**
+     * Devuelve la instancia única; la primera vez carga la cola desde AlarmStore
+     * (por ejemplo, cuando el proceso se recrea al recibir ACTION_SLOT).
+     */
+    public static synchronized SingleSlotScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new SingleSlotScheduler(context.getApplicationContext());
+            instance.reload(AlarmStore.getInstance(context).getScheduledAlarms());
+        }
+        return instance;
+    }
+
+    private SingleSlotScheduler(Context context) {
+        this.context = context;
+        this.queue = new NextAlarmQueue(this);
+    }
+
+    public synchronized void schedule(AlarmRecord record) {
+        queue.schedule(record.id, record.triggerTime);
+    }
+
+    public synchronized void cancel(int alarmId) {
+        queue.cancel(alarmId);
+    }
+
+    public synchronized int[] popDue(long now) {
+        return queue.popDue(now);
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized void beginBatch() {
+        queue.beginBatch();
+    }
+
+    public synchronized void endBatch() {
+        queue.endBatch();
+    }
+
+    /**
+     * Reemplaza el contenido de la cola y arma una única vez.
+     */
+    public synchronized void reload(List<AlarmRecord> records) {
+        queue.beginBatch();
+        try {
+            queue.clear();
+            for (AlarmRecord record : records) {
+                queue.schedule(record.id, record.triggerTime);
+            }
+        } finally {
+            queue.endBatch();
+        }
+        Log.d(TAG, "📥 Cola cargada con " + queue.size() + " alarmas");
+    }
+
+    /**
+     * Vacía la cola y elimina el registro de AlarmManager (al salir de este modo).
+     */
+    public synchronized void shutdown() {
+        queue.clear();
+    }
+
+    @Override
+    public void arm(long triggerAtMillis) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "❌ AlarmManager no disponible");
+            return;
+        }
+
+        try {
+            SchedulingStrategy.register(context, alarmManager, triggerAtMillis, slotIntent());
+            Log.d(TAG, "⏰ Slot armado para: " + new java.util.Date(triggerAtMillis));
+        } catch (SecurityException e) {
+            Log.e(TAG, "❌ No hay permiso para alarmas exactas: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void disarm() {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(slotIntent());
+        }
+        Log.d(TAG, "🗑️ Slot desarmado (cola vacía)");
+    }
+
+    private PendingIntent slotIntent() {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(ACTION_SLOT);
+        return PendingIntent.getBroadcast(context, RequestCodes.SINGLE_SLOT, intent, AlarmScheduler.pendingIntentFlags());
+    }
+}
@@ -0,0 +1,28 @@
+package com.tidy.app;
+
+/**
+ * Estado de una alarma pospuesta, guardado en AlarmStore para sobrevivir a la
+ * muerte del proceso y a los reinicios.
+ *
+ * La cadena empieza con la primera pospuesta y termina al detener la alarma.
+ */
+public class SnoozeChain {
+    public int alarmId;
+    public String title;
+    public String message;
+    // Próximo disparo de la pospuesta
+    public long triggerTime;
+    public int snoozeCount;
+    public int requestCode;
+    public long startedAt;
+
+    public SnoozeChain() {
+    }
+
+    public SnoozeChain(int alarmId, String title, String message) {
+        this.alarmId = alarmId;
+        this.title = title;
+        this.message = message;
+        this.startedAt = System.currentTimeMillis();
+    }
+}
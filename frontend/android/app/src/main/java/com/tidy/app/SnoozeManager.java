@@ -0,0 +1,189 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+/**
+ * Alarmas pospuestas.
+ *
+ * Cada alarma pospuesta tiene una SnoozeChain en AlarmStore (título original,
+ * número de pospuestas, próximo disparo y request code propio), así que la
+ * pospuesta sobrevive a la muerte del proceso y se vuelve a registrar tras un
+ * reinicio. La duración y el máximo de pospuestas son configurables desde JS.
+ *
+ * La pospuesta llega a AlarmReceiver con ACTION_FIRE y el ID original de la alarma.
+ */
+public final class SnoozeManager {
+    private static final String TAG = "SnoozeManager";
+
+    public static final String ACTION_FIRE = "com.tidy.app.action.SNOOZE_FIRE";
+
+    static final int DEFAULT_MINUTES = 10;
+    static final int DEFAULT_MAX_COUNT = 3;
+    static final int MAX_MINUTES = 120;
+    static final int MAX_COUNT_LIMIT = 10;
+
+    private static final String PREF_MINUTES = "snooze_minutes";
+    private static final String PREF_MAX_COUNT = "snooze_max_count";
+
+    private SnoozeManager() {
+    }
+
+    public static int getMinutes(Context context) {
+        return AlarmScheduler.prefs(context).getInt(PREF_MINUTES, DEFAULT_MINUTES);
+    }
+
+    /**
+     * Máximo de pospuestas seguidas de una alarma; 0 = sin límite.
+     */
+    public static int getMaxCount(Context context) {
+        return AlarmScheduler.prefs(context).getInt(PREF_MAX_COUNT, DEFAULT_MAX_COUNT);
+    }
+
+    public static void setConfig(Context context, int minutes, int maxCount) {
+        if (minutes < 1 || minutes > MAX_MINUTES) {
+            throw new IllegalArgumentException("minutes debe estar entre 1 y " + MAX_MINUTES);
+        }
+        if (maxCount < 0 || maxCount > MAX_COUNT_LIMIT) {
+            throw new IllegalArgumentException("maxCount debe estar entre 0 y " + MAX_COUNT_LIMIT);
+        }
+        AlarmScheduler.prefs(context).edit()
+            .putInt(PREF_MINUTES, minutes)
+            .putInt(PREF_MAX_COUNT, maxCount)
+            .apply();
+    }
+
+    /**
+     * Indica si una alarma pospuesta {@code snoozeCount} veces puede posponerse otra vez.
+     */
+    static boolean canSnooze(int snoozeCount, int maxCount) {
+        return maxCount == 0 || snoozeCount < maxCount;
+    }
+
+    /**
+     * Pospone la alarma: guarda la cadena y registra el disparo.
+     *
+     * @return la cadena actualizada, o null si ya alcanzó el máximo de pospuestas
+     */
+    static SnoozeChain snooze(Context context, int alarmId, String title) {
+        AlarmStore store = AlarmStore.getInstance(context);
+        SnoozeChain chain = store.getSnooze(alarmId);
+        if (chain == null) {
+            AlarmRecord record = store.get(alarmId);
+            chain = new SnoozeChain(alarmId,
+                record != null && record.title != null ? record.title : title,
+                record != null ? record.message : null);
+        }
+        if (!canSnooze(chain.snoozeCount, getMaxCount(context))) {
+            Log.d(TAG, "🚫 Alarma " + alarmId + " ya se pospuso " + chain.snoozeCount + " veces");
+            return null;
+        }
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "❌ AlarmManager no disponible");
+            return null;
+        }
+
+        chain.snoozeCount++;
+        chain.triggerTime = System.currentTimeMillis() + getMinutes(context) * 60_000L;
+        if (chain.requestCode == 0) {
+            chain.requestCode = RequestCodes.allocate(context);
+        }
+        store.upsertSnooze(chain);
+        arm(context, alarmManager, chain);
+
+        Log.d(TAG, "⏰ Alarma " + alarmId + " pospuesta (" + chain.snoozeCount + ") hasta "
+            + new java.util.Date(chain.triggerTime));
+        return chain;
+    }
+
+    /**
+     * Termina la cadena de la alarma (detenida): quita la pospuesta pendiente y el registro.
+     */
+    static void finish(Context context, int alarmId) {
+        AlarmStore store = AlarmStore.getInstance(context);
+        SnoozeChain chain = store.getSnooze(alarmId);
+        if (chain == null) {
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            PendingIntent pendingIntent = fireIntent(context, chain);
+            alarmManager.cancel(pendingIntent);
+            pendingIntent.cancel();
+        }
+        store.deleteSnooze(alarmId);
+        Log.d(TAG, "🧹 Cadena de pospuestas de la alarma " + alarmId + " terminada");
+    }
+
+    /**
+     * Vuelve a registrar todas las pospuestas (tras un reinicio). Las que vencieron
+     * con el dispositivo apagado suenan de inmediato.
+     */
+    static int rearmAll(Context context, AlarmManager alarmManager) {
+        int armed = 0;
+        for (SnoozeChain chain : AlarmStore.getInstance(context).getSnoozes()) {
+            if (chain.triggerTime == 0) {
+                continue; // sonando ahora, no hay disparo pendiente
+            }
+            try {
+                arm(context, alarmManager, chain);
+                armed++;
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al rearmar pospuesta " + chain.alarmId + ": " + e.getMessage(), e);
+            }
+        }
+        return armed;
+    }
+
+    /**
+     * La pospuesta sonó: ya no hay disparo pendiente, pero la cadena (y su contador)
+     * sigue hasta que se detenga o se vuelva a posponer.
+     */
+    static void onFired(Context context, int alarmId) {
+        AlarmStore.getInstance(context).clearSnoozeTrigger(alarmId);
+    }
+
+    private static void arm(Context context, AlarmManager alarmManager, SnoozeChain chain) {
+        long triggerAt = Math.max(chain.triggerTime, System.currentTimeMillis());
+        SchedulingStrategy.register(context, alarmManager, triggerAt, fireIntent(context, chain));
+    }
+
+    private static PendingIntent fireIntent(Context context, SnoozeChain chain) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(ACTION_FIRE);
+        // El mensaje se lee de la cadena guardada al dispararse
+        new AlarmPayload(chain.alarmId, chain.triggerTime,
+            chain.title != null ? chain.title : "Alarma Pospuesta",
+            AlarmScheduler.exactApiName(context), chain.snoozeCount, false).putInto(intent);
+        return PendingIntent.getBroadcast(context, chain.requestCode, intent, AlarmScheduler.pendingIntentFlags());
+    }
+
+    /**
+     * Configuración y pospuestas activas, para exponer a JS.
+     */
+    public static JSObject toJSObject(Context context) {
+        JSArray active = new JSArray();
+        for (SnoozeChain chain : AlarmStore.getInstance(context).getSnoozes()) {
+            JSObject item = new JSObject();
+            item.put("alarmId", chain.alarmId);
+            item.put("title", chain.title);
+            item.put("snoozeCount", chain.snoozeCount);
+            item.put("triggerTime", chain.triggerTime);
+            item.put("startedAt", chain.startedAt);
+            active.put(item);
+        }
+
+        JSObject result = new JSObject();
+        result.put("minutes", getMinutes(context));
+        result.put("maxCount", getMaxCount(context));
+        result.put("active", active);
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tidy.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * BroadcastReceiver para cambios de zona horaria o de hora del sistema.
+ *
+ * Las alarmas se registran como hora RTC absoluta; si el usuario viaja a otra
+ * zona, una alarma de las 07:00 sonaría a otra hora local. Aquí se recalculan
+ * todas en una pasada y sólo se vuelven a registrar las que cambiaron.
+ */
+public class TimeChangeReceiver extends BroadcastReceiver {
+    private static final String TAG = "TimeChangeReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_TIMEZONE_CHANGED.equals(action) && !Intent.ACTION_TIME_CHANGED.equals(action)) {
+            return;
+        }
+
+        Log.d(TAG, "🌍 Cambio de hora/zona recibido: " + action);
+
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+
+        AlarmExecutor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                int rearmed = AlarmScheduler.recomputeForTimeChange(appContext);
+                Log.d(TAG, "✅ " + rearmed + " alarmas recalculadas en "
+                    + (SystemClock.elapsedRealtime() - start) + " ms");
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al recalcular alarmas: " + e.getMessage(), e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+}
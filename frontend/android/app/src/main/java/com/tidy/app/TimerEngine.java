@@ -0,0 +1,400 @@
+package com.tidy.app;
+
+import android.app.AlarmManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.text.format.DateUtils;
+import android.util.Log;
+import androidx.core.app.NotificationCompat;
+import com.getcapacitor.JSObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Motor nativo de temporizadores por bloques (timeboxing).
+ *
+ * Sólo se registra en AlarmManager el final del intervalo actual, con
+ * ELAPSED_REALTIME_WAKEUP; mientras corre, la cuenta atrás la pinta el sistema
+ * con el cronómetro de la notificación. JS no recibe ticks: sólo un evento
+ * timerStateChanged por cambio de estado (inicio, pausa, reanudación, cambio de
+ * intervalo, fin, parada), así que un temporizador en marcha no gasta CPU en el WebView.
+ *
+ * El estado se guarda en SharedPreferences en cada cambio para sobrevivir a que
+ * el sistema mate el proceso; tras un reinicio del dispositivo se descarta,
+ * porque elapsedRealtime vuelve a empezar.
+ */
+public final class TimerEngine {
+    private static final String TAG = "TimerEngine";
+    private static final String PREFS_NAME = "tidy_timer";
+
+    static final String ACTION_INTERVAL_END = "com.tidy.app.action.TIMER_INTERVAL_END";
+    static final String ACTION_PAUSE = "com.tidy.app.action.TIMER_PAUSE";
+    static final String ACTION_RESUME = "com.tidy.app.action.TIMER_RESUME";
+    static final String ACTION_STOP = "com.tidy.app.action.TIMER_STOP";
+
+    // ID fijo de la notificación (no coincide con IDs de alarma, la sesión ni las perdidas)
+    static final int NOTIFICATION_ID = 0x7A1A0002;
+    static final String GROUP_TIMER = "com.tidy.app.TIMER";
+    private static final String CHANNEL_ID = "timers";
+
+    static final int MAX_INTERVALS = 100;
+
+    // Motivo del evento timerStateChanged
+    static final String REASON_START = "start";
+    static final String REASON_PAUSE = "pause";
+    static final String REASON_RESUME = "resume";
+    static final String REASON_INTERVAL = "interval";
+    static final String REASON_FINISHED = "finished";
+    static final String REASON_STOP = "stop";
+
+    private static TimerEngine instance;
+
+    private final Context context;
+    // null: no hay temporizador
+    private TimerSequence sequence;
+
+    public static synchronized TimerEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new TimerEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private TimerEngine(Context context) {
+        this.context = context;
+        this.sequence = load();
+    }
+
+    public synchronized JSObject start(List<TimerSequence.Interval> intervals) {
+        sequence = TimerSequence.start(intervals, SystemClock.elapsedRealtime());
+        Log.d(TAG, "⏱️ Temporizador iniciado: " + intervals.size() + " intervalos");
+        return publish(REASON_START, false);
+    }
+
+    /**
+     * @return null si no hay un temporizador corriendo
+     */
+    public synchronized JSObject pause() {
+        if (sequence == null || !sequence.pause(SystemClock.elapsedRealtime())) {
+            return null;
+        }
+        Log.d(TAG, "⏸️ Temporizador en pausa");
+        return publish(REASON_PAUSE, false);
+    }
+
+    /**
+     * @return null si no hay un temporizador en pausa
+     */
+    public synchronized JSObject resume() {
+        if (sequence == null || !sequence.resume(SystemClock.elapsedRealtime())) {
+            return null;
+        }
+        Log.d(TAG, "▶️ Temporizador reanudado");
+        return publish(REASON_RESUME, false);
+    }
+
+    public synchronized JSObject stop() {
+        if (sequence == null) {
+            return toJSObject(null);
+        }
+        Log.d(TAG, "⏹️ Temporizador detenido");
+        sequence = null;
+        return publish(REASON_STOP, false);
+    }
+
+    /**
+     * Aviso de AlarmManager: termina el intervalo actual (o varios, si llegó tarde).
+     */
+    synchronized void onIntervalEnd() {
+        if (sequence == null) {
+            return;
+        }
+        int completed = sequence.advance(SystemClock.elapsedRealtime());
+        if (completed == 0) {
+            // Llegó antes de tiempo (inexacto sin permiso): volver a registrar el final
+            arm();
+            return;
+        }
+        if (sequence.state() == TimerSequence.State.FINISHED) {
+            Log.d(TAG, "🏁 Temporizador terminado");
+            publish(REASON_FINISHED, true);
+            // Terminado no queda nada que restaurar
+            sequence = null;
+            return;
+        }
+        Log.d(TAG, "🔁 Intervalo " + (sequence.index() + 1) + "/" + sequence.intervals().size()
+            + (completed > 1 ? " (" + (completed - 1) + " saltados)" : ""));
+        publish(REASON_INTERVAL, true);
+    }
+
+    public synchronized JSObject state() {
+        return toJSObject(sequence);
+    }
+
+    /**
+     * Aplica el estado actual: alarma, notificación, SharedPreferences y evento para JS.
+     *
+     * @param alert si la notificación debe sonar (cambio de intervalo o fin)
+     */
+    private JSObject publish(String reason, boolean alert) {
+        TimerSequence.State current = sequence != null ? sequence.state() : null;
+        if (current == TimerSequence.State.RUNNING) {
+            arm();
+        } else {
+            disarm();
+        }
+        if (sequence == null) {
+            clear();
+            NotificationDispatcher.getInstance(context).cancel(NOTIFICATION_ID);
+        } else {
+            if (current == TimerSequence.State.FINISHED) {
+                clear();
+            } else {
+                save();
+            }
+            showNotification(alert);
+        }
+
+        JSObject state = toJSObject(sequence);
+        JSObject event = new JSObject();
+        event.put("reason", reason);
+        event.put("timer", state);
+        TimerPlugin.emit(TimerPlugin.EVENT_STATE_CHANGED, event);
+        return state;
+    }
+
+    private void arm() {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        long triggerAt = sequence.endsAt();
+        PendingIntent pendingIntent = intervalEndIntent();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            alarmManager.setExact(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent);
+        } else if (AlarmScheduler.canScheduleExact(alarmManager)) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent);
+        } else {
+            // Sin permiso de alarmas exactas: puede llegar tarde, pero sin deriva acumulada
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent);
+        }
+    }
+
+    private void disarm() {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(intervalEndIntent());
+        }
+    }
+
+    private PendingIntent intervalEndIntent() {
+        Intent intent = new Intent(context, TimerReceiver.class);
+        intent.setAction(ACTION_INTERVAL_END);
+        return PendingIntent.getBroadcast(context, RequestCodes.TIMER_INTERVAL, intent,
+            AlarmScheduler.pendingIntentFlags());
+    }
+
+    private PendingIntent actionIntent(String action, int requestCode) {
+        Intent intent = new Intent(context, TimerReceiver.class);
+        intent.setAction(action);
+        return PendingIntent.getBroadcast(context, requestCode, intent, AlarmScheduler.pendingIntentFlags());
+    }
+
+    /**
+     * Notificación con cuenta atrás: corriendo la actualiza el sistema (cronómetro),
+     * en pausa muestra lo que queda.
+     */
+    private void showNotification(boolean alert) {
+        try {
+            NotificationDispatcher dispatcher = NotificationDispatcher.getInstance(context);
+            dispatcher.ensureChannel(CHANNEL_ID, TimerEngine::createNotificationChannel);
+            dispatcher.registerGroup(GROUP_TIMER, CHANNEL_ID, "%d temporizadores");
+
+            Intent openApp = new Intent(context, MainActivity.class);
+            openApp.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+            PendingIntent contentIntent = PendingIntent.getActivity(
+                context, RequestCodes.TIMER_CONTENT, openApp, AlarmScheduler.pendingIntentFlags());
+
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(dispatcher.smallIcon())
+                .setGroup(GROUP_TIMER)
+                .setCategory(NotificationCompat.CATEGORY_STOPWATCH)
+                .setPriority(alert ? NotificationCompat.PRIORITY_HIGH : NotificationCompat.PRIORITY_LOW)
+                .setSilent(!alert)
+                .setOngoing(true)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .setContentIntent(contentIntent);
+
+            int count = sequence.intervals().size();
+            if (sequence.state() == TimerSequence.State.FINISHED) {
+                String title = "Tiempo terminado";
+                builder.setContentTitle(title)
+                    .setContentText(count == 1 ? "Bloque completado" : count + " bloques completados")
+                    .setOngoing(false)
+                    .setAutoCancel(true);
+                dispatcher.post(NOTIFICATION_ID, GROUP_TIMER, builder.build(), title);
+                return;
+            }
+
+            TimerSequence.Interval interval = sequence.current();
+            long now = SystemClock.elapsedRealtime();
+            boolean running = sequence.state() == TimerSequence.State.RUNNING;
+            String title = interval.label != null && !interval.label.isEmpty()
+                ? interval.label
+                : TimerSequence.KIND_BREAK.equals(interval.kind) ? "Descanso" : "Trabajo";
+            String position = (sequence.index() + 1) + "/" + count;
+            builder.setContentTitle(title)
+                .setContentText(running
+                    ? position
+                    : position + " · En pausa, quedan " + DateUtils.formatElapsedTime(sequence.remaining(now) / 1000));
+
+            if (running) {
+                // Cuenta atrás hasta el fin del intervalo, en hora de reloj
+                builder.setWhen(System.currentTimeMillis() + sequence.remaining(now))
+                    .setShowWhen(true)
+                    .setUsesChronometer(true)
+                    .setChronometerCountDown(true)
+                    .addAction(0, "Pausar", actionIntent(ACTION_PAUSE, RequestCodes.TIMER_PAUSE));
+            } else {
+                builder.setShowWhen(false)
+                    .addAction(0, "Reanudar", actionIntent(ACTION_RESUME, RequestCodes.TIMER_RESUME));
+            }
+            builder.addAction(0, "Detener", actionIntent(ACTION_STOP, RequestCodes.TIMER_STOP));
+
+            dispatcher.post(NOTIFICATION_ID, GROUP_TIMER, builder.build(), title);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al mostrar el temporizador: " + e.getMessage(), e);
+        }
+    }
+
+    private static NotificationChannel createNotificationChannel() {
+        // Suena sólo al cambiar de intervalo; las actualizaciones van en silencio
+        NotificationChannel channel = new NotificationChannel(
+            CHANNEL_ID,
+            "Temporizadores",
+            NotificationManager.IMPORTANCE_HIGH
+        );
+        channel.setDescription("Bloques de trabajo y descanso en curso");
+        channel.setShowBadge(false);
+        return channel;
+    }
+
+    /**
+     * Estado para JS. Las horas van en hora de reloj (epoch ms).
+     */
+    private static JSObject toJSObject(TimerSequence timer) {
+        JSObject result = new JSObject();
+        if (timer == null) {
+            result.put("state", "idle");
+            result.put("intervalIndex", -1);
+            result.put("intervalCount", 0);
+            result.put("remainingMs", 0);
+            result.put("intervalEndsAt", 0);
+            return result;
+        }
+        long now = SystemClock.elapsedRealtime();
+        TimerSequence.Interval interval = timer.current();
+        long remaining = timer.remaining(now);
+        result.put("state", timer.state().name().toLowerCase(Locale.ROOT));
+        result.put("intervalIndex", timer.index());
+        result.put("intervalCount", timer.intervals().size());
+        result.put("label", interval.label);
+        result.put("kind", interval.kind);
+        result.put("durationMs", interval.durationMs);
+        result.put("remainingMs", remaining);
+        result.put("intervalEndsAt", timer.state() == TimerSequence.State.RUNNING
+            ? System.currentTimeMillis() + remaining
+            : 0);
+        return result;
+    }
+
+    private void save() {
+        try {
+            JSONArray intervals = new JSONArray();
+            for (TimerSequence.Interval interval : sequence.intervals()) {
+                JSONObject item = new JSONObject();
+                item.put("label", interval.label);
+                item.put("kind", interval.kind);
+                item.put("durationMs", interval.durationMs);
+                intervals.put(item);
+            }
+            prefs().edit()
+                .putString("intervals", intervals.toString())
+                .putString("state", sequence.state().name())
+                .putInt("index", sequence.index())
+                .putLong("ends_at", sequence.endsAt())
+                .putLong("remaining_ms", sequence.remaining(SystemClock.elapsedRealtime()))
+                .putInt("boot_count", bootCount())
+                .putLong("saved_at", SystemClock.elapsedRealtime())
+                .apply();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error al guardar el temporizador: " + e.getMessage(), e);
+        }
+    }
+
+    private TimerSequence load() {
+        SharedPreferences prefs = prefs();
+        String json = prefs.getString("intervals", null);
+        if (json == null) {
+            return null;
+        }
+        // elapsedRealtime vuelve a cero al reiniciar: lo guardado ya no vale
+        boolean rebooted = bootCount() != prefs.getInt("boot_count", -1)
+            || SystemClock.elapsedRealtime() < prefs.getLong("saved_at", 0);
+        if (rebooted) {
+            Log.w(TAG, "⚠️ Temporizador descartado: el dispositivo se reinició");
+            clear();
+            return null;
+        }
+        try {
+            JSONArray array = new JSONArray(json);
+            List<TimerSequence.Interval> intervals = new ArrayList<>();
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                intervals.add(new TimerSequence.Interval(
+                    item.isNull("label") ? null : item.optString("label"),
+                    item.optString("kind"),
+                    item.getLong("durationMs")));
+            }
+            TimerSequence restored = TimerSequence.restore(intervals,
+                TimerSequence.State.valueOf(prefs.getString("state", TimerSequence.State.PAUSED.name())),
+                prefs.getInt("index", 0),
+                prefs.getLong("ends_at", 0),
+                prefs.getLong("remaining_ms", 0));
+            Log.d(TAG, "♻️ Temporizador restaurado (" + restored.state() + ")");
+            return restored;
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Temporizador guardado ilegible: " + e.getMessage(), e);
+            clear();
+            return null;
+        }
+    }
+
+    private void clear() {
+        prefs().edit().clear().apply();
+    }
+
+    /**
+     * Número de arranques del dispositivo (API 24+); -1 si no está disponible.
+     */
+    private int bootCount() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return -1;
+        }
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    private SharedPreferences prefs() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
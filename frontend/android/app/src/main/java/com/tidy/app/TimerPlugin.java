@@ -0,0 +1,147 @@
+package com.tidy.app;
+
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONObject;
+
+/**
+ * Plugin de temporizadores por bloques (timeboxing) sobre TimerEngine.
+ *
+ * La cuenta atrás corre en nativo (AlarmManager + cronómetro de la notificación);
+ * JS sólo recibe el evento timerStateChanged cuando cambia el estado y calcula lo
+ * que quede a partir de intervalEndsAt si necesita mostrarlo.
+ */
+@CapacitorPlugin(name = "TimerPlugin")
+public class TimerPlugin extends Plugin {
+    private static final String TAG = "TimerPlugin";
+
+    // Evento que se envía a JS (addListener) desde TimerEngine
+    public static final String EVENT_STATE_CHANGED = "timerStateChanged";
+
+    // Instancia cargada por el Bridge; null si el WebView no está activo
+    private static volatile TimerPlugin instance;
+
+    @Override
+    public void load() {
+        instance = this;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (instance == this) {
+            instance = null;
+        }
+        super.handleOnDestroy();
+    }
+
+    /**
+     * Envía un evento a los listeners de JS si la app está abierta.
+     * Sin WebView activo se descarta: al abrirse, la app pide getTimerState().
+     */
+    public static void emit(String eventName, JSObject data) {
+        TimerPlugin plugin = instance;
+        if (plugin == null) {
+            Log.d(TAG, "📭 Evento " + eventName + " sin WebView activo, se descarta");
+            return;
+        }
+        data.put("timestamp", System.currentTimeMillis());
+        plugin.notifyListeners(eventName, data, true);
+        Log.d(TAG, "📨 Evento " + eventName + " enviado a JS");
+    }
+
+    /**
+     * Inicia un temporizador; si ya había uno, lo sustituye.
+     *
+     * @param call - Objeto con:
+     *   - intervals: Array de { label?, kind: 'work' | 'break', durationMs }
+     * @return Estado del temporizador (ver getTimerState)
+     */
+    @PluginMethod
+    public void startTimer(PluginCall call) {
+        JSArray items = call.getArray("intervals");
+
+        if (items == null || items.length() == 0) {
+            call.reject("Falta parámetro obligatorio: intervals");
+            return;
+        }
+        if (items.length() > TimerEngine.MAX_INTERVALS) {
+            call.reject("Demasiados intervalos: como máximo " + TimerEngine.MAX_INTERVALS);
+            return;
+        }
+
+        List<TimerSequence.Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.optJSONObject(i);
+            long durationMs = item != null ? item.optLong("durationMs", 0) : 0;
+            if (durationMs <= 0) {
+                call.reject("Intervalo " + i + " inválido: durationMs debe ser mayor que 0");
+                return;
+            }
+            intervals.add(new TimerSequence.Interval(
+                item.isNull("label") ? null : item.optString("label"),
+                item.optString("kind", TimerSequence.KIND_WORK),
+                durationMs));
+        }
+
+        Log.d(TAG, "⏱️ startTimer() llamado con " + intervals.size() + " intervalos");
+        AlarmExecutor.execute(() -> {
+            try {
+                call.resolve(TimerEngine.getInstance(getContext()).start(intervals));
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error al iniciar el temporizador: " + e.getMessage(), e);
+                call.reject("Error al iniciar el temporizador: " + e.getMessage());
+            }
+        });
+    }
+
+    @PluginMethod
+    public void pauseTimer(PluginCall call) {
+        AlarmExecutor.execute(() -> {
+            JSObject state = TimerEngine.getInstance(getContext()).pause();
+            if (state == null) {
+                call.reject("No hay un temporizador en marcha");
+                return;
+            }
+            call.resolve(state);
+        });
+    }
+
+    @PluginMethod
+    public void resumeTimer(PluginCall call) {
+        AlarmExecutor.execute(() -> {
+            JSObject state = TimerEngine.getInstance(getContext()).resume();
+            if (state == null) {
+                call.reject("No hay un temporizador en pausa");
+                return;
+            }
+            call.resolve(state);
+        });
+    }
+
+    /**
+     * Detiene el temporizador. Sin temporizador no es un error: devuelve el estado idle.
+     */
+    @PluginMethod
+    public void stopTimer(PluginCall call) {
+        AlarmExecutor.execute(() -> call.resolve(TimerEngine.getInstance(getContext()).stop()));
+    }
+
+    /**
+     * Estado actual, para sincronizar la UI al abrirse.
+     *
+     * @return state ('idle' | 'running' | 'paused' | 'finished'), intervalIndex,
+     *         intervalCount, label, kind, durationMs, remainingMs e intervalEndsAt
+     *         (epoch ms; 0 si no está corriendo)
+     */
+    @PluginMethod
+    public void getTimerState(PluginCall call) {
+        AlarmExecutor.execute(() -> call.resolve(TimerEngine.getInstance(getContext()).state()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.tidy.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * BroadcastReceiver del temporizador: fin de intervalo (AlarmManager) y botones
+ * Pausar/Reanudar/Detener de la notificación.
+ */
+public class TimerReceiver extends BroadcastReceiver {
+    private static final String TAG = "TimerReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final String action = intent.getAction();
+        if (action == null) {
+            return;
+        }
+
+        Log.d(TAG, "⏱️ Acción de temporizador recibida: " + action);
+
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+
+        AlarmExecutor.execute(() -> {
+            try {
+                TimerEngine engine = TimerEngine.getInstance(appContext);
+                switch (action) {
+                    case TimerEngine.ACTION_INTERVAL_END:
+                        engine.onIntervalEnd();
+                        break;
+                    case TimerEngine.ACTION_PAUSE:
+                        engine.pause();
+                        break;
+                    case TimerEngine.ACTION_RESUME:
+                        engine.resume();
+                        break;
+                    case TimerEngine.ACTION_STOP:
+                        engine.stop();
+                        break;
+                    default:
+                        Log.w(TAG, "⚠️ Acción desconocida: " + action);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error en la acción " + action + ": " + e.getMessage(), e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+}
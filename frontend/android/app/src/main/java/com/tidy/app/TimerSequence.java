@@ -0,0 +1,157 @@
+package com.tidy.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Secuencia de intervalos de un temporizador (bloques de trabajo y descanso),
+ * sin dependencias de Android.
+ *
+ * Los tiempos van en elapsedRealtime: no los mueven cambios de hora ni de zona,
+ * y siguen corriendo con el dispositivo dormido. Cada intervalo termina a una
+ * hora fija calculada desde el final del anterior, no desde que llegó el aviso,
+ * así que un aviso que llega tarde no acumula deriva: si llega muy tarde se
+ * saltan los intervalos que ya vencieron.
+ */
+final class TimerSequence {
+
+    static final String KIND_WORK = "work";
+    static final String KIND_BREAK = "break";
+
+    enum State {
+        RUNNING,
+        PAUSED,
+        FINISHED
+    }
+
+    static final class Interval {
+        final String label;
+        final String kind;
+        final long durationMs;
+
+        Interval(String label, String kind, long durationMs) {
+            if (durationMs <= 0) {
+                throw new IllegalArgumentException("Duración inválida: " + durationMs);
+            }
+            this.label = label;
+            this.kind = KIND_BREAK.equals(kind) ? KIND_BREAK : KIND_WORK;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private final List<Interval> intervals;
+    private State state;
+    private int index;
+    // RUNNING: cuándo termina el intervalo actual (elapsedRealtime)
+    private long endsAt;
+    // PAUSED: lo que quedaba del intervalo actual al pausar
+    private long remainingMs;
+
+    private TimerSequence(List<Interval> intervals, State state, int index, long endsAt, long remainingMs) {
+        if (intervals.isEmpty()) {
+            throw new IllegalArgumentException("La secuencia no tiene intervalos");
+        }
+        this.intervals = Collections.unmodifiableList(new ArrayList<>(intervals));
+        this.state = state;
+        this.index = Math.max(0, Math.min(index, intervals.size() - 1));
+        this.endsAt = endsAt;
+        this.remainingMs = remainingMs;
+    }
+
+    /**
+     * Empieza el primer intervalo en {@code now}.
+     */
+    static TimerSequence start(List<Interval> intervals, long now) {
+        return new TimerSequence(intervals, State.RUNNING, 0, now + intervals.get(0).durationMs, 0);
+    }
+
+    /**
+     * Reconstruye una secuencia guardada.
+     */
+    static TimerSequence restore(List<Interval> intervals, State state, int index, long endsAt, long remainingMs) {
+        return new TimerSequence(intervals, state, index, endsAt, remainingMs);
+    }
+
+    /**
+     * @return false si no estaba corriendo
+     */
+    boolean pause(long now) {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        remainingMs = Math.max(0, endsAt - now);
+        state = State.PAUSED;
+        return true;
+    }
+
+    /**
+     * @return false si no estaba en pausa
+     */
+    boolean resume(long now) {
+        if (state != State.PAUSED) {
+            return false;
+        }
+        endsAt = now + remainingMs;
+        remainingMs = 0;
+        state = State.RUNNING;
+        return true;
+    }
+
+    /**
+     * Pasa los intervalos que ya terminaron en {@code now}.
+     *
+     * @return cuántos intervalos terminaron (0 si el aviso llegó antes de tiempo)
+     */
+    int advance(long now) {
+        int completed = 0;
+        while (state == State.RUNNING && now >= endsAt) {
+            completed++;
+            if (index + 1 >= intervals.size()) {
+                state = State.FINISHED;
+                remainingMs = 0;
+                break;
+            }
+            index++;
+            endsAt += intervals.get(index).durationMs;
+        }
+        return completed;
+    }
+
+    State state() {
+        return state;
+    }
+
+    int index() {
+        return index;
+    }
+
+    Interval current() {
+        return intervals.get(index);
+    }
+
+    List<Interval> intervals() {
+        return intervals;
+    }
+
+    /**
+     * Fin del intervalo actual (elapsedRealtime); sólo tiene sentido corriendo.
+     */
+    long endsAt() {
+        return endsAt;
+    }
+
+    /**
+     * Lo que queda del intervalo actual.
+     */
+    long remaining(long now) {
+        switch (state) {
+            case RUNNING:
+                return Math.max(0, endsAt - now);
+            case PAUSED:
+                return remainingMs;
+            default:
+                return 0;
+        }
+    }
+}
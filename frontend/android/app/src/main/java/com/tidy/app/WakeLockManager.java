@@ -0,0 +1,200 @@
+package com.tidy.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Un único WakeLock parcial compartido por todo el trabajo de las alarmas
+ * (disparo en AlarmReceiver, timbre en RingingService, reprogramación tras reinicio).
+ *
+ * Cada trabajo pide un {@link Holder} y lo libera al terminar; el WakeLock se toma
+ * con el primer holder y se suelta en cuanto se libera el último, en lugar de
+ * mantener la CPU despierta un tiempo fijo por alarma. Cada holder tiene además un
+ * tiempo máximo: si no se libera (excepción, proceso colgado) se libera solo.
+ *
+ * Por cada período con el WakeLock tomado se guarda su duración en SharedPreferences
+ * (una escritura asíncrona al soltarlo), para estimar el coste en batería por disparo.
+ */
+public final class WakeLockManager {
+    private static final String TAG = "WakeLockManager";
+    private static final String LOCK_TAG = "Tidy::AlarmWakeLock";
+    private static final String PREFS_NAME = "tidy_wake_lock_stats";
+
+    public static final String HOLDER_FIRE = "fire";
+    public static final String HOLDER_RINGING = "ringing";
+    public static final String HOLDER_RESCHEDULE = "reschedule";
+
+    // Tiempos máximos por tipo de trabajo
+    public static final long FIRE_TIMEOUT_MS = 30_000;
+    public static final long RINGING_TIMEOUT_MS = 10 * 60 * 1000;
+    public static final long RESCHEDULE_TIMEOUT_MS = 60_000;
+
+    /**
+     * Un trabajo que necesita la CPU despierta. release() se puede llamar más de una vez.
+     */
+    public final class Holder {
+        final String name;
+        private boolean released;
+        private final Runnable timeout = () -> WakeLockManager.this.release(this, true);
+
+        private Holder(String name) {
+            this.name = name;
+        }
+
+        public void release() {
+            WakeLockManager.this.release(this, false);
+        }
+    }
+
+    private static WakeLockManager instance;
+
+    private final Context context;
+    private final PowerManager.WakeLock wakeLock;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private int holders;
+    private long heldSince;
+    // Hasta cuándo está pedido el WakeLock al sistema (elapsedRealtime)
+    private long deadline;
+    // Holders y liberaciones por tiempo máximo del período actual
+    private final Map<String, Integer> periodAcquisitions = new HashMap<>();
+    private int periodTimeouts;
+
+    public static synchronized WakeLockManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new WakeLockManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private WakeLockManager(Context context) {
+        this.context = context;
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null) {
+            wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, LOCK_TAG);
+            // La cuenta de holders la lleva esta clase
+            wakeLock.setReferenceCounted(false);
+        } else {
+            wakeLock = null;
+        }
+    }
+
+    /**
+     * Mantiene la CPU despierta hasta que se libere el holder o pase {@code timeoutMs}.
+     */
+    public synchronized Holder acquire(String name, long timeoutMs) {
+        Holder holder = new Holder(name);
+        long now = SystemClock.elapsedRealtime();
+        if (holders++ == 0) {
+            heldSince = now;
+            deadline = 0;
+        }
+        Integer count = periodAcquisitions.get(name);
+        periodAcquisitions.put(name, count == null ? 1 : count + 1);
+
+        // Con el WakeLock sin contar referencias, acquire(timeout) sólo extiende el plazo
+        if (now + timeoutMs > deadline) {
+            deadline = now + timeoutMs;
+            if (wakeLock != null) {
+                try {
+                    wakeLock.acquire(timeoutMs);
+                } catch (Exception e) {
+                    Log.e(TAG, "❌ Error al tomar el WakeLock: " + e.getMessage(), e);
+                }
+            }
+        }
+        handler.postDelayed(holder.timeout, timeoutMs);
+        return holder;
+    }
+
+    private synchronized void release(Holder holder, boolean timedOut) {
+        if (holder.released) {
+            return;
+        }
+        holder.released = true;
+        handler.removeCallbacks(holder.timeout);
+        if (timedOut) {
+            periodTimeouts++;
+            Log.w(TAG, "⚠️ Holder " + holder.name + " liberado por tiempo máximo");
+        }
+        if (--holders > 0) {
+            return;
+        }
+
+        if (wakeLock != null && wakeLock.isHeld()) {
+            try {
+                wakeLock.release();
+            } catch (Exception e) {
+                // El sistema ya lo soltó por su plazo
+                Log.w(TAG, "⚠️ WakeLock ya liberado: " + e.getMessage());
+            }
+        }
+        long heldMs = SystemClock.elapsedRealtime() - heldSince;
+        Log.d(TAG, "📱 WakeLock liberado tras " + heldMs + " ms (" + periodAcquisitions + ")");
+        record(heldMs, periodAcquisitions, periodTimeouts);
+        periodAcquisitions.clear();
+        periodTimeouts = 0;
+    }
+
+    /**
+     * Holders activos en este momento.
+     */
+    public synchronized int activeHolders() {
+        return holders;
+    }
+
+    private void record(long heldMs, Map<String, Integer> acquisitions, int timeouts) {
+        SharedPreferences prefs = prefs(context);
+        SharedPreferences.Editor editor = prefs.edit()
+            .putLong("periods", prefs.getLong("periods", 0) + 1)
+            .putLong("held_total_ms", prefs.getLong("held_total_ms", 0) + heldMs)
+            .putLong("held_max_ms", Math.max(prefs.getLong("held_max_ms", 0), heldMs))
+            .putLong("held_last_ms", heldMs)
+            .putLong("timeouts", prefs.getLong("timeouts", 0) + timeouts);
+        for (Map.Entry<String, Integer> entry : acquisitions.entrySet()) {
+            String key = "holders_" + entry.getKey();
+            editor.putLong(key, prefs.getLong(key, 0) + entry.getValue());
+        }
+        editor.apply();
+    }
+
+    /**
+     * Resumen para exponer a JS. heldMsPerFire reparte todo el tiempo con el
+     * WakeLock tomado entre los disparos de alarma.
+     */
+    public static JSObject toJSObject(Context context) {
+        SharedPreferences prefs = prefs(context);
+        long periods = prefs.getLong("periods", 0);
+        long totalMs = prefs.getLong("held_total_ms", 0);
+        long fires = prefs.getLong("holders_" + HOLDER_FIRE, 0);
+
+        JSObject holders = new JSObject();
+        holders.put(HOLDER_FIRE, fires);
+        holders.put(HOLDER_RINGING, prefs.getLong("holders_" + HOLDER_RINGING, 0));
+        holders.put(HOLDER_RESCHEDULE, prefs.getLong("holders_" + HOLDER_RESCHEDULE, 0));
+
+        JSObject result = new JSObject();
+        result.put("periods", periods);
+        result.put("heldTotalMs", totalMs);
+        result.put("heldAvgMs", periods == 0 ? 0 : (double) totalMs / periods);
+        result.put("heldMaxMs", prefs.getLong("held_max_ms", 0));
+        result.put("heldLastMs", prefs.getLong("held_last_ms", 0));
+        result.put("heldMsPerFire", fires == 0 ? 0 : (double) totalMs / fires);
+        result.put("timeouts", prefs.getLong("timeouts", 0));
+        result.put("holders", holders);
+        result.put("activeHolders", getInstance(context).activeHolders());
+        return result;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
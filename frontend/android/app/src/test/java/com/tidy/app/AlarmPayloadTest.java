@@ -0,0 +1,82 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Tests del formato binario de AlarmPayload.
+ */
+public class AlarmPayloadTest {
+
+    @Test
+    public void roundTrip() {
+        AlarmPayload payload = new AlarmPayload(42, 1_767_225_600_000L, "Despertar ⏰", "setAlarmClock", 2, true);
+
+        AlarmPayload decoded = AlarmPayload.decode(AlarmPayload.encode(payload));
+
+        assertEquals(AlarmPayload.VERSION, decoded.version);
+        assertEquals(42, decoded.alarmId);
+        assertEquals(1_767_225_600_000L, decoded.triggerTime);
+        assertEquals("Despertar ⏰", decoded.title);
+        assertEquals("setAlarmClock", decoded.scheduleApi);
+        assertEquals(2, decoded.snoozeCount);
+        assertTrue(decoded.recurring);
+    }
+
+    @Test
+    public void nullsAndLongTitlesStayCompact() {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            title.append('x');
+        }
+        byte[] bytes = AlarmPayload.encode(new AlarmPayload(1, 0, title.toString(), null, 0, false));
+        AlarmPayload decoded = AlarmPayload.decode(bytes);
+
+        assertEquals(AlarmPayload.MAX_TITLE_LENGTH, decoded.title.length());
+        assertNull(decoded.scheduleApi);
+        assertTrue(bytes.length < 110);
+
+        assertNull(AlarmPayload.decode(AlarmPayload.encode(new AlarmPayload(1, 0, null, null, 0, false))).title);
+    }
+
+    @Test
+    public void truncateDoesNotSplitSurrogatePairs() {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < AlarmPayload.MAX_TITLE_LENGTH - 3; i++) {
+            title.append('a');
+        }
+        title.append("😀😀😀");
+
+        String truncated = AlarmPayload.truncate(title.toString());
+
+        assertTrue(truncated.length() <= AlarmPayload.MAX_TITLE_LENGTH);
+        assertFalse(Character.isHighSurrogate(truncated.charAt(truncated.length() - 2)));
+    }
+
+    @Test
+    public void newerVersionsAreReadByTheirKnownPrefix() throws IOException {
+        byte[] v2 = AlarmPayload.encode(new AlarmPayload(7, 1000, "t", "setExact", 0, false));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(v2);
+        out.writeInt(123); // campo añadido por una versión futura
+        byte[] v3 = bytes.toByteArray();
+        v3[0] = 3;
+
+        AlarmPayload decoded = AlarmPayload.decode(v3);
+
+        assertEquals(3, decoded.version);
+        assertEquals(7, decoded.alarmId);
+        assertEquals("setExact", decoded.scheduleApi);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedPayloadIsRejected() {
+        byte[] bytes = AlarmPayload.encode(new AlarmPayload(7, 1000, "t", null, 0, false));
+        AlarmPayload.decode(java.util.Arrays.copyOf(bytes, 6));
+    }
+}
@@ -0,0 +1,159 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Tests del recálculo de alarmas ante cambios de zona horaria, reloj y DST.
+ */
+public class AlarmRecomputerTest {
+
+    private static final ZoneId MADRID = ZoneId.of("Europe/Madrid");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+    private static long at(ZoneId zone, int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime local(long millis, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private static AlarmRecord oneShot(int id, long triggerTime, ZoneId zone) {
+        AlarmRecord record = new AlarmRecord(id, triggerTime, "Alarma", "m", false, null, null);
+        record.timeZone = zone.getId();
+        return record;
+    }
+
+    @Test
+    public void travellingKeepsLocalWallClockTime() {
+        AlarmRecord alarm = oneShot(1, at(MADRID, 2026, 10, 20, 7, 0), MADRID);
+        long now = at(MADRID, 2026, 10, 18, 12, 0);
+
+        AlarmRecomputer.Result result = AlarmRecomputer.recompute(
+            Collections.singletonList(alarm), MADRID, NEW_YORK, now);
+
+        assertEquals(1, result.moved.size());
+        assertEquals(LocalDateTime.of(2026, 10, 20, 7, 0), local(alarm.triggerTime, NEW_YORK));
+        assertEquals(NEW_YORK.getId(), alarm.timeZone);
+    }
+
+    @Test
+    public void sameZoneMovesNothing() {
+        AlarmRecord a = oneShot(1, at(MADRID, 2026, 10, 20, 7, 0), MADRID);
+        AlarmRecord b = oneShot(2, at(MADRID, 2026, 12, 24, 21, 30), MADRID);
+        long now = at(MADRID, 2026, 10, 18, 12, 0);
+
+        AlarmRecomputer.Result result = AlarmRecomputer.recompute(Arrays.asList(a, b), MADRID, MADRID, now);
+
+        assertTrue(result.moved.isEmpty());
+        assertTrue(result.updated.isEmpty());
+    }
+
+    @Test
+    public void alarmAcrossDstTransitionIsNotShiftedWithoutZoneChange() {
+        // Definida en verano, suena después del cambio a horario de invierno (25/10/2026)
+        long trigger = at(MADRID, 2026, 11, 2, 8, 0);
+        AlarmRecord alarm = oneShot(1, trigger, MADRID);
+        long now = at(MADRID, 2026, 10, 24, 12, 0);
+
+        AlarmRecomputer.Result result = AlarmRecomputer.recompute(
+            Collections.singletonList(alarm), MADRID, MADRID, now);
+
+        assertTrue(result.moved.isEmpty());
+        assertEquals(LocalDateTime.of(2026, 11, 2, 8, 0), local(alarm.triggerTime, MADRID));
+    }
+
+    @Test
+    public void travellingAcrossDifferentDstRulesKeepsLocalTime() {
+        // Madrid y Nueva York cambian de horario en fechas distintas: el desfase
+        // entre ambas no es constante, pero la hora local se mantiene
+        AlarmRecord alarm = oneShot(1, at(MADRID, 2026, 10, 28, 6, 45), MADRID);
+        long now = at(MADRID, 2026, 10, 18, 12, 0);
+
+        AlarmRecomputer.recompute(Collections.singletonList(alarm), MADRID, NEW_YORK, now);
+
+        assertEquals(LocalDateTime.of(2026, 10, 28, 6, 45), local(alarm.triggerTime, NEW_YORK));
+    }
+
+    @Test
+    public void localTimeInDstGapMovesToFirstValidTime() {
+        // 02:30 del 8/3/2026 no existe en Nueva York
+        AlarmRecord alarm = oneShot(1, at(TOKYO, 2026, 3, 8, 2, 30), TOKYO);
+        long now = at(TOKYO, 2026, 3, 1, 0, 0);
+
+        AlarmRecomputer.recompute(Collections.singletonList(alarm), TOKYO, NEW_YORK, now);
+
+        assertEquals(LocalDateTime.of(2026, 3, 8, 3, 30), local(alarm.triggerTime, NEW_YORK));
+    }
+
+    @Test
+    public void recurringAlarmKeepsAnchorLocalTimeAfterZoneChange() {
+        long anchor = at(MADRID, 2026, 10, 1, 7, 30);
+        AlarmRecord alarm = new AlarmRecord(3, anchor, "Diaria", "m", true, "diaria", null);
+        alarm.timeZone = MADRID.getId();
+        alarm.triggerTime = at(MADRID, 2026, 10, 19, 7, 30);
+        long now = at(MADRID, 2026, 10, 18, 22, 0);
+
+        AlarmRecomputer.recompute(Collections.singletonList(alarm), MADRID, TOKYO, now);
+
+        assertEquals(LocalDateTime.of(2026, 10, 19, 7, 30), local(alarm.triggerTime, TOKYO));
+        assertEquals(LocalDateTime.of(2026, 10, 1, 7, 30), local(alarm.anchorTime, TOKYO));
+    }
+
+    @Test
+    public void recurringAlarmLeftInThePastAdvancesToNextOccurrence() {
+        // Viajar al este: las 07:30 de Tokio del 19/10 ya pasaron
+        long anchor = at(MADRID, 2026, 10, 1, 7, 30);
+        AlarmRecord alarm = new AlarmRecord(3, anchor, "Diaria", "m", true, "diaria", null);
+        alarm.timeZone = MADRID.getId();
+        alarm.triggerTime = at(MADRID, 2026, 10, 19, 7, 30);
+        long now = at(TOKYO, 2026, 10, 19, 9, 0);
+
+        AlarmRecomputer.Result result = AlarmRecomputer.recompute(
+            Collections.singletonList(alarm), MADRID, TOKYO, now);
+
+        assertEquals(1, result.moved.size());
+        assertEquals(LocalDateTime.of(2026, 10, 20, 7, 30), local(alarm.triggerTime, TOKYO));
+    }
+
+    @Test
+    public void clockJumpForwardAdvancesOnlyPastRecurringAlarms() {
+        long anchor = at(MADRID, 2026, 10, 1, 7, 30);
+        AlarmRecord recurring = new AlarmRecord(1, anchor, "Diaria", "m", true, "diaria", null);
+        recurring.timeZone = MADRID.getId();
+        recurring.triggerTime = at(MADRID, 2026, 10, 19, 7, 30);
+        AlarmRecord pastOneShot = oneShot(2, at(MADRID, 2026, 10, 19, 8, 0), MADRID);
+        AlarmRecord futureOneShot = oneShot(3, at(MADRID, 2026, 10, 25, 8, 0), MADRID);
+
+        // El usuario adelantó el reloj dos días (ACTION_TIME_CHANGED, misma zona)
+        long now = at(MADRID, 2026, 10, 21, 9, 0);
+        AlarmRecomputer.Result result = AlarmRecomputer.recompute(
+            Arrays.asList(recurring, pastOneShot, futureOneShot), MADRID, MADRID, now);
+
+        assertEquals(Collections.singletonList(recurring), result.moved);
+        assertEquals(LocalDateTime.of(2026, 10, 22, 7, 30), local(recurring.triggerTime, MADRID));
+        assertEquals(at(MADRID, 2026, 10, 19, 8, 0), pastOneShot.triggerTime);
+    }
+
+    @Test
+    public void alarmsWithoutStoredZoneUseFallbackAndGetZoneSaved() {
+        AlarmRecord alarm = new AlarmRecord(1, at(MADRID, 2026, 10, 20, 7, 0), "A", "m", false, null, null);
+        long now = at(MADRID, 2026, 10, 18, 12, 0);
+
+        AlarmRecomputer.Result sameZone = AlarmRecomputer.recompute(
+            Collections.singletonList(alarm), MADRID, MADRID, now);
+
+        assertTrue(sameZone.moved.isEmpty());
+        assertEquals(Collections.singletonList(alarm), sameZone.updated);
+        assertEquals(MADRID.getId(), alarm.timeZone);
+    }
+}
@@ -0,0 +1,152 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests de la comparación por huellas de AlarmReconciler.
+ */
+public class AlarmReconcilerTest {
+
+    private static AlarmRecord alarm(int id, long triggerTime, String title) {
+        return new AlarmRecord(id, triggerTime, title, "mensaje", false, null, null);
+    }
+
+    @Test
+    public void identicalListsProduceNoChanges() {
+        List<AlarmRecord> current = Arrays.asList(alarm(1, 1_000, "A"), alarm(2, 2_000, "B"));
+        List<AlarmRecord> desired = Arrays.asList(alarm(2, 2_000, "B"), alarm(1, 1_000, "A"));
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(desired, current);
+
+        assertEquals(2, plan.unchanged);
+        assertTrue(plan.added.isEmpty());
+        assertTrue(plan.updated.isEmpty());
+        assertTrue(plan.removed.isEmpty());
+    }
+
+    @Test
+    public void detectsAddedUpdatedAndRemoved() {
+        List<AlarmRecord> current = Arrays.asList(
+            alarm(1, 1_000, "A"), alarm(2, 2_000, "B"), alarm(3, 3_000, "C"));
+        List<AlarmRecord> desired = Arrays.asList(
+            alarm(1, 1_000, "A"), alarm(2, 2_500, "B"), alarm(4, 4_000, "D"));
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(desired, current);
+
+        assertEquals(1, plan.unchanged);
+        assertEquals(1, plan.added.size());
+        assertEquals(4, plan.added.get(0).id);
+        assertEquals(1, plan.updated.size());
+        assertEquals(2, plan.updated.get(0).id);
+        assertEquals(Collections.singletonList(3), plan.removed);
+    }
+
+    @Test
+    public void textChangesCountAsUpdates() {
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Collections.singletonList(alarm(1, 1_000, "Nuevo título")),
+            Collections.singletonList(alarm(1, 1_000, "A")));
+
+        assertEquals(1, plan.updated.size());
+        assertEquals(0, plan.unchanged);
+    }
+
+    @Test
+    public void recurringAlarmAdvancedByFiringIsUnchanged() {
+        AlarmRecord stored = new AlarmRecord(7, 1_000, "Diaria", "m", true, "diaria", null);
+        stored.triggerTime = 1_000 + 24L * 3600 * 1000; // ya se disparó y se reprogramó
+        AlarmRecord desired = new AlarmRecord(7, 1_000, "Diaria", "m", true, "diaria", null);
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Collections.singletonList(desired), Collections.singletonList(stored));
+
+        assertEquals(1, plan.unchanged);
+    }
+
+    @Test
+    public void recurrenceChangeIsAnUpdate() {
+        AlarmRecord stored = new AlarmRecord(7, 1_000, "Alarma", "m", true, "semanal", "[1,3]");
+        AlarmRecord desired = new AlarmRecord(7, 1_000, "Alarma", "m", true, "semanal", "[1,3,5]");
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Collections.singletonList(desired), Collections.singletonList(stored));
+
+        assertEquals(1, plan.updated.size());
+    }
+
+    @Test
+    public void firedAlarmIsRearmed() {
+        AlarmRecord stored = alarm(1, 1_000, "A");
+        stored.state = AlarmRecord.STATE_FIRED;
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Collections.singletonList(alarm(1, 1_000, "A")), Collections.singletonList(stored));
+
+        assertEquals(1, plan.updated.size());
+    }
+
+    @Test
+    public void duplicateIdsKeepTheLastDefinition() {
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Arrays.asList(alarm(1, 1_000, "A"), alarm(1, 5_000, "A")),
+            Collections.<AlarmRecord>emptyList());
+
+        assertEquals(1, plan.added.size());
+        assertEquals(5_000, plan.added.get(0).triggerTime);
+    }
+
+    @Test
+    public void fingerprintSeparatesFields() {
+        AlarmRecord a = new AlarmRecord(1, 1_000, "ab", "c", false, null, null);
+        AlarmRecord b = new AlarmRecord(1, 1_000, "a", "bc", false, null, null);
+        AlarmRecord c = new AlarmRecord(1, 1_000, null, "c", false, null, null);
+        AlarmRecord d = new AlarmRecord(1, 1_000, "", "c", false, null, null);
+
+        assertNotEquals(a.fingerprint(), b.fingerprint());
+        assertNotEquals(c.fingerprint(), d.fingerprint());
+        assertEquals(a.fingerprint(), new AlarmRecord(9, 1_000, "ab", "c", false, null, null).fingerprint());
+    }
+
+    @Test
+    public void recurringAlarmWithPastAnchorStaysUnchanged() {
+        long day = 24L * 60 * 60 * 1000;
+        long now = System.currentTimeMillis();
+        long anchor = now - day - 60_000;
+
+        // En el almacén: creada ayer y ya adelantada a su próxima ocurrencia
+        AlarmRecord stored = new AlarmRecord(1, anchor, "Diaria", "mensaje", true, "daily", null);
+        AlarmScheduler.alignToRecurrence(stored, now);
+        assertTrue(stored.triggerTime > now);
+
+        // JS vuelve a mandar la definición con su fecha original, ya pasada
+        AlarmRecord desired = new AlarmRecord(1, anchor, "Diaria", "mensaje", true, "daily", null);
+        AlarmScheduler.alignToRecurrence(desired, now);
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Collections.singletonList(desired), Collections.singletonList(stored));
+
+        assertEquals(1, plan.unchanged);
+        assertTrue(plan.removed.isEmpty());
+        assertTrue(plan.updated.isEmpty());
+        assertEquals(stored.triggerTime, desired.triggerTime);
+    }
+
+    @Test
+    public void droppingRecurrenceCountsAsUpdate() {
+        long anchor = System.currentTimeMillis() - 60_000;
+        AlarmRecord stored = new AlarmRecord(1, anchor, "Diaria", "mensaje", true, "daily", null);
+        stored.anchorTime = anchor;
+        AlarmRecord oneShot = new AlarmRecord(1, anchor, "Diaria", "mensaje", false, null, null);
+        oneShot.anchorTime = anchor;
+
+        AlarmReconciler.Plan plan = AlarmReconciler.diff(
+            Collections.singletonList(oneShot), Collections.singletonList(stored));
+
+        assertEquals(1, plan.updated.size());
+    }
+}
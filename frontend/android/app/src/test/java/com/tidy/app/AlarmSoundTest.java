@@ -0,0 +1,35 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests de la rampa de volumen del sonido de alarma.
+ */
+public class AlarmSoundTest {
+
+    @Test
+    public void rampStartsLowAndEndsAtFullVolume() {
+        assertEquals(AlarmSound.RAMP_START_VOLUME, AlarmSound.rampVolume(0), 0f);
+        assertEquals(1f, AlarmSound.rampVolume(AlarmSound.RAMP_MS), 0f);
+        assertEquals(1f, AlarmSound.rampVolume(AlarmSound.RAMP_MS * 3), 0f);
+    }
+
+    @Test
+    public void rampNeverGoesDown() {
+        float previous = 0f;
+        for (long t = 0; t <= AlarmSound.RAMP_MS; t += 250) {
+            float volume = AlarmSound.rampVolume(t);
+            assertTrue(volume >= previous);
+            assertTrue(volume <= 1f);
+            previous = volume;
+        }
+    }
+
+    @Test
+    public void halfwayIsStillBelowHalfTheRange() {
+        float half = AlarmSound.rampVolume(AlarmSound.RAMP_MS / 2);
+        assertTrue(half < AlarmSound.RAMP_START_VOLUME + (1f - AlarmSound.RAMP_START_VOLUME) / 2);
+    }
+}
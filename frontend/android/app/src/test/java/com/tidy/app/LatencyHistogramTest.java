@@ -0,0 +1,88 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests de percentiles y serialización de LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void percentilesUseBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(15); // cubeta <= 20 ms
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(1_500); // cubeta <= 2 s
+        }
+        histogram.record(400_000); // cubeta <= 10 min
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(20, histogram.percentile(50));
+        assertEquals(20, histogram.percentile(90));
+        assertEquals(2_000, histogram.percentile(99));
+        assertEquals(400_000, histogram.percentile(100));
+        assertEquals(400_000, histogram.getMaxMs());
+    }
+
+    @Test
+    public void percentileNeverExceedsObservedMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(7, histogram.percentile(50));
+    }
+
+    @Test
+    public void earlyAndVeryLateValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-250); // disparo adelantado
+        histogram.record(5L * 3600 * 1000); // cinco horas tarde, cubeta abierta
+
+        assertEquals(10, histogram.percentile(50)); // primera cubeta
+        assertEquals(5L * 3600 * 1000, histogram.percentile(100));
+    }
+
+    @Test
+    public void bucketBoundariesAreInclusive() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(0, LatencyHistogram.bucketOf(10));
+        assertEquals(1, LatencyHistogram.bucketOf(11));
+        assertEquals(LatencyHistogram.BOUNDS_MS.length, LatencyHistogram.bucketOf(3_600_001));
+    }
+
+    @Test
+    public void serializeRoundTrip() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(12);
+        histogram.record(80);
+        histogram.record(65_000);
+
+        LatencyHistogram copy = LatencyHistogram.parse(histogram.serialize());
+
+        assertEquals(histogram.serialize(), copy.serialize());
+        assertEquals(3, copy.getCount());
+        assertEquals(65_000, copy.getMaxMs());
+        assertEquals(histogram.getMeanMs(), copy.getMeanMs(), 0.0001);
+    }
+
+    @Test
+    public void invalidTextParsesAsEmpty() {
+        assertEquals(0, LatencyHistogram.parse(null).getCount());
+        assertEquals(0, LatencyHistogram.parse("basura").getCount());
+        assertEquals(0, LatencyHistogram.parse("1,2,3;4,5").getCount());
+    }
+}
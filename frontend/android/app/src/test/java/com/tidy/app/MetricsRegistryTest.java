@@ -0,0 +1,95 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Tests del registro de métricas: sumas entre hilos, temporizadores y persistencia.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void concurrentIncrementsAreNotLost() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry("fired", "failed");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    registry.increment(0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(160_000, registry.get(0));
+        assertEquals(0, registry.get(1));
+    }
+
+    @Test
+    public void timerTracksCountTotalAndMax() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("scheduleAlarm").record(2_000_000);
+        registry.timer("scheduleAlarm").record(500_000);
+
+        MetricsRegistry.Timer timer = registry.timers().get("scheduleAlarm");
+        assertEquals(2, timer.count());
+        assertEquals(2_500, timer.totalMicros());
+        assertEquals(2_000, timer.maxMicros());
+    }
+
+    @Test
+    public void snapshotRestoresIntoANewRegistry() {
+        MetricsRegistry before = new MetricsRegistry("scheduled", "cancelled");
+        before.add(0, 5);
+        before.increment(1);
+        before.timer("cancelAlarm").record(3_000_000);
+
+        Map<String, Long> saved = before.snapshot();
+        MetricsRegistry after = new MetricsRegistry("scheduled", "cancelled");
+        after.increment(0);
+        after.restore(saved);
+
+        assertEquals(6, after.get(0));
+        assertEquals(1, after.get(1));
+        assertEquals(1, after.timers().get("cancelAlarm").count());
+        assertEquals(3_000, after.timers().get("cancelAlarm").maxMicros());
+    }
+
+    @Test
+    public void unknownKeysAreIgnoredOnRestore() {
+        MetricsRegistry registry = new MetricsRegistry("fired");
+        registry.restore(java.util.Collections.singletonMap("c.removed", 7L));
+        assertEquals(0, registry.get(0));
+    }
+
+    @Test
+    public void failingGaugeReadsAsMinusOne() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("ok", () -> 3);
+        registry.gauge("broken", () -> {
+            throw new IllegalStateException("sin base de datos");
+        });
+
+        Map<String, Long> gauges = registry.readGauges();
+        assertEquals(Long.valueOf(3), gauges.get("ok"));
+        assertEquals(Long.valueOf(-1), gauges.get("broken"));
+    }
+
+    @Test
+    public void resetClearsCountersAndTimers() {
+        MetricsRegistry registry = new MetricsRegistry("fired");
+        registry.add(0, 4);
+        registry.timer("getOccurrences").record(1_000);
+        registry.reset();
+
+        assertEquals(0, registry.get(0));
+        assertTrue(registry.timers().isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Tests del reparto de alarmas perdidas entre adelantadas y cerradas.
+ */
+public class MissedAlarmsTest {
+
+    private static final ZoneId MADRID = ZoneId.of("Europe/Madrid");
+
+    private static long at(int day, int hour, int minute) {
+        return ZonedDateTime.of(2026, 10, day, hour, minute, 0, 0, MADRID).toInstant().toEpochMilli();
+    }
+
+    private static AlarmRecord alarm(int id, long triggerTime, String frequency) {
+        AlarmRecord record = new AlarmRecord(id, triggerTime, "Alarma " + id, "m",
+            frequency != null, frequency, null);
+        record.timeZone = MADRID.getId();
+        record.anchorTime = triggerTime;
+        return record;
+    }
+
+    @Test
+    public void recurringAdvanceToNextFutureOccurrence() {
+        AlarmRecord daily = alarm(1, at(15, 7, 0), "daily");
+        long now = at(18, 12, 0);
+
+        MissedAlarms.Plan plan = MissedAlarms.plan(Arrays.asList(daily), now);
+
+        assertEquals(1, plan.advanced.size());
+        assertTrue(plan.expired.isEmpty());
+        assertEquals(at(19, 7, 0), daily.triggerTime);
+
+        MissedAlarms.Missed missed = plan.missed.get(0);
+        assertEquals(at(15, 7, 0), missed.triggerTime);
+        assertEquals(at(19, 7, 0), missed.nextTriggerTime);
+    }
+
+    @Test
+    public void oneShotAndUnknownFrequencyAreClosed() {
+        AlarmRecord once = alarm(2, at(18, 9, 0), null);
+        AlarmRecord unknown = alarm(3, at(18, 10, 0), "cada luna llena");
+        long now = at(18, 12, 0);
+
+        MissedAlarms.Plan plan = MissedAlarms.plan(Arrays.asList(once, unknown), now);
+
+        assertTrue(plan.advanced.isEmpty());
+        assertEquals(Arrays.asList(2, 3), plan.expired);
+        assertEquals(2, plan.missed.size());
+        assertEquals(-1, plan.missed.get(0).nextTriggerTime);
+        assertEquals(at(18, 9, 0), once.triggerTime);
+    }
+
+    @Test
+    public void everyOverdueAlarmIsReportedOnce() {
+        long now = at(18, 12, 0);
+        MissedAlarms.Plan plan = MissedAlarms.plan(Arrays.asList(
+            alarm(1, at(17, 8, 0), "weekly"),
+            alarm(2, at(16, 8, 0), null),
+            alarm(3, at(18, 11, 0), "daily")), now);
+
+        assertEquals(3, plan.missed.size());
+        assertEquals(plan.missed.size(), plan.advanced.size() + plan.expired.size());
+        for (AlarmRecord record : plan.advanced) {
+            assertTrue(record.triggerTime > now);
+        }
+    }
+
+    @Test
+    public void latePromotionIsNotReportedAsMissed() {
+        // Retenida por el horizonte; Doze retrasó la promoción 20 min más allá de su hora
+        AlarmRecord held = alarm(4, at(18, 11, 40), null);
+        AlarmRecord lost = alarm(5, at(18, 9, 0), null);
+        long now = at(18, 12, 0);
+
+        MissedAlarms.Plan plan = MissedAlarms.plan(Arrays.asList(held, lost), now,
+            Collections.singleton(4));
+
+        assertEquals(Collections.singletonList(5), plan.expired);
+        assertEquals(1, plan.missed.size());
+        assertEquals(5, plan.missed.get(0).alarmId);
+        assertEquals(at(18, 11, 40), held.triggerTime);
+    }
+}
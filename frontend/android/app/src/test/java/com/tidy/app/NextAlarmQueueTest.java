@@ -0,0 +1,127 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests de la cola de prioridad usada por el modo single_slot.
+ */
+public class NextAlarmQueueTest {
+
+    /**
+     * Armer falso que simula AlarmManager con un único PendingIntent:
+     * cada arm() reemplaza el registro anterior.
+     */
+    private static class FakeArmer implements NextAlarmQueue.Armer {
+        int armCalls;
+        int disarmCalls;
+        int activeRegistrations;
+        int maxActiveRegistrations;
+        long armedAt = -1;
+
+        @Override
+        public void arm(long triggerAtMillis) {
+            armCalls++;
+            armedAt = triggerAtMillis;
+            activeRegistrations = 1;
+            maxActiveRegistrations = Math.max(maxActiveRegistrations, activeRegistrations);
+        }
+
+        @Override
+        public void disarm() {
+            disarmCalls++;
+            armedAt = -1;
+            activeRegistrations = 0;
+        }
+    }
+
+    @Test
+    public void popsInTriggerOrderAndArmsNext() {
+        FakeArmer armer = new FakeArmer();
+        NextAlarmQueue queue = new NextAlarmQueue(armer);
+
+        queue.schedule(1, 3000);
+        queue.schedule(2, 1000);
+        queue.schedule(3, 2000);
+        assertEquals(1000, armer.armedAt);
+
+        assertArrayEquals(new int[]{2, 3}, queue.popDue(2000));
+        assertEquals(3000, armer.armedAt);
+
+        assertArrayEquals(new int[]{1}, queue.popDue(5000));
+        assertEquals(-1, armer.armedAt);
+        assertEquals(1, armer.disarmCalls);
+    }
+
+    @Test
+    public void rescheduleAndCancelUpdateHead() {
+        FakeArmer armer = new FakeArmer();
+        NextAlarmQueue queue = new NextAlarmQueue(armer);
+
+        queue.schedule(1, 1000);
+        queue.schedule(2, 2000);
+        queue.schedule(1, 5000);
+        assertEquals(2000, armer.armedAt);
+        assertEquals(2, queue.size());
+
+        assertTrue(queue.cancel(2));
+        assertFalse(queue.cancel(2));
+        assertEquals(5000, armer.armedAt);
+    }
+
+    @Test
+    public void unchangedHeadDoesNotRearm() {
+        FakeArmer armer = new FakeArmer();
+        NextAlarmQueue queue = new NextAlarmQueue(armer);
+
+        queue.schedule(1, 1000);
+        queue.schedule(2, 2000);
+        queue.schedule(3, 3000);
+        queue.cancel(3);
+
+        assertEquals(1, armer.armCalls);
+    }
+
+    @Test
+    public void stressTenThousandAlarmsKeepsSingleRegistration() {
+        FakeArmer armer = new FakeArmer();
+        NextAlarmQueue queue = new NextAlarmQueue(armer);
+        Random random = new Random(42);
+        int count = 10_000;
+        long base = 1_700_000_000_000L;
+
+        queue.beginBatch();
+        for (int id = 1; id <= count; id++) {
+            queue.schedule(id, base + random.nextInt(30 * 24 * 3600) * 1000L);
+        }
+        queue.endBatch();
+
+        assertEquals(count, queue.size());
+        assertEquals("Un lote de 10k alarmas arma AlarmManager una sola vez", 1, armer.armCalls);
+        assertEquals(1, armer.maxActiveRegistrations);
+
+        // Altas individuales fuera de lote: el registro sigue siendo uno solo
+        for (int id = count + 1; id <= count + 1000; id++) {
+            queue.schedule(id, base + random.nextInt(30 * 24 * 3600) * 1000L);
+        }
+        assertEquals(1, armer.maxActiveRegistrations);
+
+        // Vaciar la cola en orden, simulando los disparos sucesivos del slot
+        long previous = Long.MIN_VALUE;
+        int popped = 0;
+        while (queue.size() > 0) {
+            long head = queue.peekTime();
+            assertTrue(head >= previous);
+            assertEquals(head, armer.armedAt);
+            previous = head;
+            popped += queue.popDue(head).length;
+            assertTrue(armer.activeRegistrations <= 1);
+        }
+
+        assertEquals(count + 1000, popped);
+        assertEquals(0, armer.activeRegistrations);
+        assertEquals(1, armer.maxActiveRegistrations);
+    }
+}
@@ -0,0 +1,158 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Tests de NotificationQueue: fusión por ID, límite de ritmo y resumen de ráfagas.
+ */
+public class NotificationQueueTest {
+
+    private static final int RATE = 5;
+    private static final int MAX_ACTIVE = 45;
+    private static final String GROUP = "reminders";
+
+    /**
+     * Vacía la cola como lo haría NotificationDispatcher, esperando lo que indique delayUntilNext.
+     */
+    private static List<Long> drain(NotificationQueue<String> queue, List<NotificationQueue.Dispatch<String>> out) {
+        List<Long> times = new ArrayList<>();
+        long now = 0;
+        for (int guard = 0; guard < 10_000; guard++) {
+            long delay = queue.delayUntilNext(now);
+            if (delay < 0) {
+                break;
+            }
+            now += delay;
+            NotificationQueue.Dispatch<String> dispatch = queue.poll(now);
+            if (dispatch != null) {
+                out.add(dispatch);
+                times.add(now);
+            }
+        }
+        return times;
+    }
+
+    @Test
+    public void hundredRemindersAreAllDeliveredOrSummarized() {
+        NotificationQueue<String> queue = new NotificationQueue<>(RATE, MAX_ACTIVE);
+        for (int id = 1; id <= 100; id++) {
+            queue.enqueue(id, GROUP, "payload " + id, "Recordatorio " + id);
+        }
+
+        List<NotificationQueue.Dispatch<String>> dispatched = new ArrayList<>();
+        drain(queue, dispatched);
+
+        Set<String> delivered = new HashSet<>();
+        int summaries = 0;
+        for (NotificationQueue.Dispatch<String> dispatch : dispatched) {
+            if (dispatch.summary) {
+                summaries++;
+                assertEquals(NotificationQueue.summaryId(GROUP), dispatch.id);
+                for (String line : dispatch.lines) {
+                    assertTrue("Línea repetida: " + line, delivered.add(line.replace("Recordatorio ", "payload ")));
+                }
+            } else {
+                assertTrue(delivered.add(dispatch.payload));
+            }
+        }
+
+        assertEquals(100, delivered.size());
+        assertEquals(1, summaries);
+        assertEquals(0, queue.pendingCount());
+        assertEquals(100, queue.getFoldedCount() + queue.getPostedCount() - summaries);
+    }
+
+    @Test
+    public void neverExceedsRateInAnyOneSecondWindow() {
+        NotificationQueue<String> queue = new NotificationQueue<>(RATE, MAX_ACTIVE);
+        // Ráfagas de grupos distintos: no se pliegan entre sí
+        for (int id = 1; id <= 30; id++) {
+            queue.enqueue(id, "group" + id, "payload " + id, "line " + id);
+        }
+
+        List<NotificationQueue.Dispatch<String>> dispatched = new ArrayList<>();
+        List<Long> times = drain(queue, dispatched);
+
+        assertEquals(30, dispatched.size());
+        for (int i = 0; i < times.size(); i++) {
+            int inWindow = 0;
+            for (long other : times) {
+                if (other >= times.get(i) && other < times.get(i) + 1000) {
+                    inWindow++;
+                }
+            }
+            assertTrue("Más de " + RATE + " notify() en 1 s", inWindow <= RATE);
+        }
+    }
+
+    @Test
+    public void coalescesUpdatesToSameId() {
+        NotificationQueue<String> queue = new NotificationQueue<>(RATE, MAX_ACTIVE);
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue(7, GROUP, "update " + i, "line " + i);
+        }
+
+        List<NotificationQueue.Dispatch<String>> dispatched = new ArrayList<>();
+        drain(queue, dispatched);
+
+        assertEquals(1, dispatched.size());
+        assertEquals("update 9", dispatched.get(0).payload);
+        assertEquals(9, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void foldsWhenActiveLimitIsReached() {
+        NotificationQueue<String> queue = new NotificationQueue<>(RATE, 3);
+        List<Integer> shown = new ArrayList<>();
+        shown.add(100);
+        shown.add(101);
+        queue.syncActive(shown);
+
+        queue.enqueue(1, GROUP, "payload 1", "line 1");
+
+        NotificationQueue.Dispatch<String> dispatch = queue.poll(0);
+        assertNotNull(dispatch);
+        assertTrue(dispatch.summary);
+        assertEquals(1, dispatch.lines.size());
+    }
+
+    @Test
+    public void exemptIdIsNeverFolded() {
+        NotificationQueue<String> queue = new NotificationQueue<>(RATE, 3);
+        queue.exemptFromFolding(50);
+        List<Integer> shown = new ArrayList<>();
+        shown.add(100);
+        shown.add(101);
+        queue.syncActive(shown);
+
+        queue.enqueue(1, GROUP, "payload 1", "line 1");
+        queue.enqueue(50, GROUP, "sesión", "Sonando");
+
+        // Lleno: la sesión sale sola (antes que el resto) y sólo se pliega el recordatorio
+        NotificationQueue.Dispatch<String> first = queue.poll(0);
+        assertFalse(first.summary);
+        assertEquals(50, first.id);
+        assertEquals("sesión", first.payload);
+
+        NotificationQueue.Dispatch<String> second = queue.poll(0);
+        assertTrue(second.summary);
+        assertEquals(1, second.lines.size());
+        assertEquals("line 1", second.lines.get(0));
+    }
+
+    @Test
+    public void cancelRemovesPendingUpdate() {
+        NotificationQueue<String> queue = new NotificationQueue<>(RATE, MAX_ACTIVE);
+        queue.enqueue(1, GROUP, "payload", "line");
+        queue.cancel(1);
+
+        assertNull(queue.poll(0));
+        assertEquals(-1, queue.delayUntilNext(0));
+    }
+}
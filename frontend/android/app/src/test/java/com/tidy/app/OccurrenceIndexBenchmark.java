@@ -0,0 +1,88 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Micro-benchmark de OccurrenceIndex: 5.000 alarmas recurrentes y una ventana de un año.
+ *
+ * Igual que RecurrenceRuleBenchmark, corre como test JVM: calentamiento, varias
+ * rondas con un índice nuevo cada vez (caché fría) y resultados en la salida
+ * estándar. Mide la primera página (lo que espera una vista de calendario) y el
+ * recorrido completo del año en páginas del tamaño máximo de getOccurrences.
+ */
+public class OccurrenceIndexBenchmark {
+
+    private static final int ALARMS = 5_000;
+    private static final int ROUNDS = 5;
+    private static final int PAGE = 2000;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final String[] FREQUENCIES = {"diaria", "semanal", "mensual", "anual"};
+
+    @Test
+    public void oneYearWindowOverRecurringAlarms() {
+        ZoneId zone = ZoneId.of("America/Argentina/Buenos_Aires");
+        Random random = new Random(11);
+        long base = 1_767_225_600_000L; // 2026-01-01
+        long from = base + 30 * DAY;
+        long to = from + 365 * DAY;
+
+        List<OccurrenceIndex.Source> sources = new ArrayList<>();
+        for (int i = 0; i < ALARMS; i++) {
+            String repeatDays = (i % 3 == 0) ? "[1,3,5]" : null;
+            long anchor = base + random.nextInt(60 * 24 * 60) * 60_000L;
+            RecurrenceRule rule = RecurrenceRule.parse(FREQUENCIES[i % FREQUENCIES.length], repeatDays, anchor, zone);
+            sources.add(new OccurrenceIndex.Source(i, rule, zone, anchor));
+        }
+
+        // Calentamiento del JIT
+        long checksum = fullScan(new OccurrenceIndex(sources), from, to);
+
+        long bestFirst = Long.MAX_VALUE;
+        long bestFull = Long.MAX_VALUE;
+        int total = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            OccurrenceIndex index = new OccurrenceIndex(sources);
+            long start = System.nanoTime();
+            OccurrenceIndex.Page first = index.query(from, to, 0, PAGE);
+            bestFirst = Math.min(bestFirst, System.nanoTime() - start);
+            assertEquals(PAGE, first.size());
+
+            index = new OccurrenceIndex(sources);
+            start = System.nanoTime();
+            assertEquals(checksum, fullScan(index, from, to));
+            bestFull = Math.min(bestFull, System.nanoTime() - start);
+            total = lastCount;
+        }
+
+        System.out.printf("OccurrenceIndex: %d alarmas, 1 año = %d ocurrencias; primera página %.2f ms, "
+                + "año completo %.2f ms (%.0f ns/ocurrencia)%n",
+            ALARMS, total, bestFirst / 1e6, bestFull / 1e6, (double) bestFull / total);
+    }
+
+    private int lastCount;
+
+    private long fullScan(OccurrenceIndex index, long from, long to) {
+        long checksum = 0;
+        long previous = Long.MIN_VALUE;
+        int count = 0;
+        int offset = 0;
+        while (offset != -1) {
+            OccurrenceIndex.Page page = index.query(from, to, offset, PAGE);
+            for (int i = 0; i < page.size(); i++) {
+                assertTrue(page.times[i] >= previous && page.times[i] >= from && page.times[i] < to);
+                previous = page.times[i];
+                checksum += page.times[i] ^ page.alarmIds[i];
+            }
+            count += page.size();
+            offset = page.nextOffset;
+        }
+        lastCount = count;
+        return checksum;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests de las consultas por rango de OccurrenceIndex.
+ */
+public class OccurrenceIndexTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static long at(int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(2026, month, day, hour, minute, 0, 0, ZONE).toInstant().toEpochMilli();
+    }
+
+    private static OccurrenceIndex.Source recurring(int id, String frequency, String repeatDays, long anchor) {
+        return new OccurrenceIndex.Source(id, RecurrenceRule.parse(frequency, repeatDays, anchor, ZONE), ZONE, anchor);
+    }
+
+    private static OccurrenceIndex.Source once(int id, long triggerTime) {
+        return new OccurrenceIndex.Source(id, null, ZONE, triggerTime);
+    }
+
+    @Test
+    public void expandsRecurringAndOneShotInOrder() {
+        long anchor = at(3, 2, 7, 0); // lunes
+        OccurrenceIndex index = new OccurrenceIndex(Arrays.asList(
+            recurring(2, "diaria", null, anchor),
+            recurring(1, "semanal", "[1,3]", anchor),
+            once(3, at(3, 4, 7, 0))));
+
+        OccurrenceIndex.Page page = index.query(at(3, 2, 0, 0), at(3, 5, 0, 0), 0, 100);
+
+        // Mismo instante: desempata el ID
+        assertArrayEquals(new int[]{1, 2, 2, 1, 2, 3}, page.alarmIds);
+        assertArrayEquals(new long[]{anchor, anchor, anchor + DAY,
+            anchor + 2 * DAY, anchor + 2 * DAY, anchor + 2 * DAY}, page.times);
+        assertEquals(-1, page.nextOffset);
+    }
+
+    @Test
+    public void rangeIsHalfOpenAndStartsAtAnchor() {
+        long anchor = at(3, 10, 8, 0);
+        OccurrenceIndex index = new OccurrenceIndex(Arrays.asList(recurring(1, "diaria", null, anchor)));
+
+        assertEquals(0, index.query(at(3, 1, 0, 0), anchor, 0, 10).size());
+        assertEquals(1, index.query(anchor, anchor + 1, 0, 10).size());
+        assertEquals(3, index.query(anchor, anchor + 3 * DAY, 0, 10).size());
+    }
+
+    @Test
+    public void pagesCoverTheRangeWithoutGapsOrDuplicates() {
+        long anchor = at(1, 1, 6, 0);
+        List<OccurrenceIndex.Source> sources = new ArrayList<>();
+        for (int id = 0; id < 30; id++) {
+            sources.add(recurring(id, id % 2 == 0 ? "diaria" : "semanal", null, anchor + id * 60_000L));
+        }
+        OccurrenceIndex index = new OccurrenceIndex(sources);
+        long from = at(2, 1, 0, 0);
+        long to = at(5, 1, 0, 0);
+
+        OccurrenceIndex.Page all = index.query(from, to, 0, 100_000);
+        List<Long> paged = new ArrayList<>();
+        int offset = 0;
+        while (offset != -1) {
+            // Tamaño que no divide las cubetas: las páginas cruzan semanas
+            OccurrenceIndex.Page page = index.query(from, to, offset, 37);
+            for (long time : page.times) {
+                paged.add(time);
+            }
+            offset = page.nextOffset;
+        }
+
+        assertEquals(all.size(), paged.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(all.times[i], (long) paged.get(i));
+        }
+    }
+
+    @Test
+    public void nextOffsetWhenPageEndsOnBucketBoundary() {
+        long start = 0;
+        OccurrenceIndex index = new OccurrenceIndex(Arrays.asList(
+            once(1, start + 1000), once(2, start + OccurrenceIndex.BUCKET_MS * 3)));
+
+        OccurrenceIndex.Page first = index.query(start, start + OccurrenceIndex.BUCKET_MS * 4, 0, 1);
+        assertEquals(1, first.nextOffset);
+        OccurrenceIndex.Page second = index.query(start, start + OccurrenceIndex.BUCKET_MS * 4, 1, 1);
+        assertArrayEquals(new int[]{2}, second.alarmIds);
+        assertEquals(-1, second.nextOffset);
+    }
+
+    @Test
+    public void firstPageOnlyExpandsTheBucketsItNeeds() {
+        long anchor = at(1, 1, 6, 0);
+        OccurrenceIndex index = new OccurrenceIndex(Arrays.asList(recurring(1, "diaria", null, anchor)));
+
+        OccurrenceIndex.Page page = index.query(anchor, anchor + 365 * DAY, 0, 3);
+        assertEquals(3, page.size());
+        assertTrue(index.bucketsExpanded() <= 2);
+
+        // Repetir la consulta usa la caché
+        int expanded = index.bucketsExpanded();
+        index.query(anchor, anchor + 365 * DAY, 0, 3);
+        assertEquals(expanded, index.bucketsExpanded());
+    }
+}
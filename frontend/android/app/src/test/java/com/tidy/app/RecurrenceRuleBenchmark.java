@@ -0,0 +1,59 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Micro-benchmark de RecurrenceRule sobre un conjunto grande de alarmas.
+ *
+ * Corre como test JVM (no hay módulo JMH en el proyecto Android): hace un
+ * calentamiento, mide varias rondas y reporta el costo por cálculo en la salida
+ * estándar. Sólo verifica que los resultados sean correctos, no tiempos.
+ */
+public class RecurrenceRuleBenchmark {
+
+    private static final int ALARMS = 20_000;
+    private static final int ROUNDS = 5;
+    private static final String[] FREQUENCIES = {"diaria", "semanal", "mensual", "anual"};
+
+    @Test
+    public void nextOccurrenceAcrossLargeAlarmSet() {
+        ZoneId zone = ZoneId.of("America/Argentina/Buenos_Aires");
+        Random random = new Random(7);
+        long base = 1_767_225_600_000L; // 2026-01-01
+        long now = base + 200L * 24 * 3600 * 1000;
+
+        RecurrenceRule[] rules = new RecurrenceRule[ALARMS];
+        for (int i = 0; i < ALARMS; i++) {
+            String repeatDays = (i % 3 == 0) ? "[1,3,5]" : null;
+            long anchor = base + random.nextInt(365 * 24 * 60) * 60_000L;
+            rules[i] = RecurrenceRule.parse(FREQUENCIES[i % FREQUENCIES.length], repeatDays, anchor, zone);
+        }
+
+        // Calentamiento del JIT
+        long checksum = run(rules, now, zone);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            assertEquals(checksum, run(rules, now, zone));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.printf("RecurrenceRule.nextAfter: %d alarmas, mejor ronda %.2f ms (%.0f ns/alarma)%n",
+            ALARMS, best / 1e6, (double) best / ALARMS);
+    }
+
+    private static long run(RecurrenceRule[] rules, long now, ZoneId zone) {
+        long checksum = 0;
+        for (RecurrenceRule rule : rules) {
+            long next = rule.nextAfter(now, zone);
+            assertTrue(next > now);
+            checksum += next;
+        }
+        return checksum;
+    }
+}
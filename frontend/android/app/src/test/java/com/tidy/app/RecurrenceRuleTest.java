@@ -0,0 +1,158 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests del cálculo de próximas ocurrencias de RecurrenceRule.
+ */
+public class RecurrenceRuleTest {
+
+    private static final ZoneId MADRID = ZoneId.of("Europe/Madrid");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final ZoneId BUENOS_AIRES = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    private static long at(ZoneId zone, int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, zone).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime local(long millis, ZoneId zone) {
+        return LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(millis), zone);
+    }
+
+    @Test
+    public void dailyReturnsNextDayAtSameLocalTime() {
+        long anchor = at(BUENOS_AIRES, 2026, 10, 18, 7, 30);
+        RecurrenceRule rule = RecurrenceRule.parse("diaria", null, anchor, BUENOS_AIRES);
+
+        assertEquals(anchor, rule.nextAfter(anchor - 1, BUENOS_AIRES));
+        assertEquals(at(BUENOS_AIRES, 2026, 10, 19, 7, 30), rule.nextAfter(anchor, BUENOS_AIRES));
+    }
+
+    @Test
+    public void missedOccurrencesAreSkippedWithoutDrift() {
+        long anchor = at(BUENOS_AIRES, 2026, 1, 1, 7, 30);
+        RecurrenceRule rule = RecurrenceRule.parse("diaria", null, anchor, BUENOS_AIRES);
+
+        // El dispositivo estuvo apagado semanas: se salta directo a la próxima futura
+        long now = at(BUENOS_AIRES, 2026, 3, 15, 12, 0);
+        assertEquals(at(BUENOS_AIRES, 2026, 3, 16, 7, 30), rule.nextAfter(now, BUENOS_AIRES));
+
+        // Un disparo que llegó 5 minutos tarde no desplaza la hora de la siguiente
+        long lateFire = at(BUENOS_AIRES, 2026, 3, 16, 7, 35);
+        assertEquals(at(BUENOS_AIRES, 2026, 3, 17, 7, 30), rule.nextAfter(lateFire, BUENOS_AIRES));
+    }
+
+    @Test
+    public void weeklyHonorsRepeatDays() {
+        // Domingo 18/10/2026, repetir lunes, miércoles y viernes
+        long anchor = at(MADRID, 2026, 10, 18, 8, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("semanal", "[1,3,5]", anchor, MADRID);
+
+        long first = rule.nextAfter(anchor - 1, MADRID);
+        assertEquals(at(MADRID, 2026, 10, 19, 8, 0), first);
+        long second = rule.nextAfter(first, MADRID);
+        assertEquals(at(MADRID, 2026, 10, 21, 8, 0), second);
+        long third = rule.nextAfter(second, MADRID);
+        assertEquals(at(MADRID, 2026, 10, 23, 8, 0), third);
+        assertEquals(at(MADRID, 2026, 10, 26, 8, 0), rule.nextAfter(third, MADRID));
+    }
+
+    @Test
+    public void weeklyWithoutRepeatDaysUsesAnchorWeekday() {
+        long anchor = at(MADRID, 2026, 10, 21, 18, 0); // miércoles
+        RecurrenceRule rule = RecurrenceRule.parse("semanal", null, anchor, MADRID);
+
+        assertEquals(1 << 3, rule.getWeekdayMask());
+        assertEquals(at(MADRID, 2026, 10, 28, 18, 0), rule.nextAfter(anchor, MADRID));
+    }
+
+    @Test
+    public void monthlyClampsToMonthEndAndKeepsOriginalDay() {
+        long anchor = at(MADRID, 2026, 1, 31, 9, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("mensual", null, anchor, MADRID);
+
+        long feb = rule.nextAfter(anchor, MADRID);
+        assertEquals(at(MADRID, 2026, 2, 28, 9, 0), feb);
+        long mar = rule.nextAfter(feb, MADRID);
+        assertEquals(at(MADRID, 2026, 3, 31, 9, 0), mar);
+        long apr = rule.nextAfter(mar, MADRID);
+        assertEquals(at(MADRID, 2026, 4, 30, 9, 0), apr);
+        assertEquals(at(MADRID, 2028, 2, 29, 9, 0), rule.nextAfter(at(MADRID, 2028, 2, 1, 0, 0), MADRID));
+    }
+
+    @Test
+    public void yearlyOnLeapDayFallsBackToFebruary28() {
+        long anchor = at(MADRID, 2024, 2, 29, 10, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("anual", null, anchor, MADRID);
+
+        assertEquals(at(MADRID, 2025, 2, 28, 10, 0), rule.nextAfter(anchor, MADRID));
+        assertEquals(at(MADRID, 2028, 2, 29, 10, 0), rule.nextAfter(at(MADRID, 2027, 3, 1, 0, 0), MADRID));
+    }
+
+    @Test
+    public void springForwardGapMovesToFirstValidTime() {
+        // 8/3/2026 en Nueva York: 02:00 → 03:00, las 02:30 no existen
+        long anchor = at(NEW_YORK, 2026, 3, 6, 2, 30);
+        RecurrenceRule rule = RecurrenceRule.parse("diaria", null, anchor, NEW_YORK);
+
+        long gapDay = rule.nextAfter(at(NEW_YORK, 2026, 3, 7, 12, 0), NEW_YORK);
+        assertEquals(LocalDateTime.of(2026, 3, 8, 3, 30), local(gapDay, NEW_YORK));
+
+        // Al día siguiente vuelve a la hora local original
+        assertEquals(LocalDateTime.of(2026, 3, 9, 2, 30), local(rule.nextAfter(gapDay, NEW_YORK), NEW_YORK));
+    }
+
+    @Test
+    public void fallBackKeepsLocalTimeAndFiresOnce() {
+        // 1/11/2026 en Nueva York: 01:30 ocurre dos veces
+        long anchor = at(NEW_YORK, 2026, 10, 30, 1, 30);
+        RecurrenceRule rule = RecurrenceRule.parse("diaria", null, anchor, NEW_YORK);
+
+        long overlapDay = rule.nextAfter(at(NEW_YORK, 2026, 10, 31, 12, 0), NEW_YORK);
+        assertEquals(LocalDateTime.of(2026, 11, 1, 1, 30), local(overlapDay, NEW_YORK));
+
+        long next = rule.nextAfter(overlapDay, NEW_YORK);
+        assertEquals(LocalDateTime.of(2026, 11, 2, 1, 30), local(next, NEW_YORK));
+        assertEquals(25L * 3600 * 1000, next - overlapDay);
+    }
+
+    @Test
+    public void parsesFrequenciesAndRepeatDays() {
+        assertNull(RecurrenceRule.parse("cada_siglo", null, 0, MADRID));
+        assertNull(RecurrenceRule.parse(null, null, 0, MADRID));
+        assertEquals(0b0101010, RecurrenceRule.parseWeekdayMask("[1,3,5]"));
+        assertEquals(0b1000001, RecurrenceRule.parseWeekdayMask("0, 6, 9, 12"));
+        assertEquals(0, RecurrenceRule.parseWeekdayMask("[]"));
+    }
+
+    @Test
+    public void forEachBetweenMatchesChainedNextAfter() {
+        String[][] cases = {
+            {"diaria", null}, {"semanal", "[1,3,5]"}, {"semanal", null}, {"mensual", null}, {"anual", null}
+        };
+        // Ancla el 31 a las 2:30: meses cortos y salto DST de Nueva York incluidos
+        long anchor = at(NEW_YORK, 2026, 1, 31, 2, 30);
+        long from = at(NEW_YORK, 2026, 2, 10, 0, 0);
+        long to = at(NEW_YORK, 2028, 4, 1, 0, 0);
+
+        for (String[] c : cases) {
+            RecurrenceRule rule = RecurrenceRule.parse(c[0], c[1], anchor, NEW_YORK);
+            List<Long> expected = new ArrayList<>();
+            for (long t = rule.nextAfter(from - 1, NEW_YORK); t != -1 && t < to; t = rule.nextAfter(t, NEW_YORK)) {
+                expected.add(t);
+            }
+            List<Long> actual = new ArrayList<>();
+            rule.forEachBetween(from, to, NEW_YORK, actual::add);
+
+            assertFalse(expected.isEmpty());
+            assertEquals(c[0], expected, actual);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Tests del reparto de request codes: ningún rango se pisa con otro.
+ */
+public class RequestCodesTest {
+
+    private static final int[] FIXED = {
+        RequestCodes.SINGLE_SLOT,
+        RequestCodes.PROMOTION,
+        RequestCodes.SESSION_CONTENT,
+        RequestCodes.SESSION_FULL_SCREEN,
+        RequestCodes.ACTION_DISMISS,
+        RequestCodes.ACTION_SNOOZE,
+        RequestCodes.ALARM_CLOCK_SHOW,
+        RequestCodes.MISSED_CONTENT,
+        RequestCodes.TIMER_INTERVAL,
+        RequestCodes.TIMER_CONTENT,
+        RequestCodes.TIMER_PAUSE,
+        RequestCodes.TIMER_RESUME,
+        RequestCodes.TIMER_STOP,
+    };
+
+    @Test
+    public void fixedCodesAreDistinctAndReserved() {
+        Set<Integer> seen = new HashSet<>();
+        for (int code : FIXED) {
+            assertTrue("Duplicado: " + code, seen.add(code));
+            assertTrue(code < 0 && code >= RequestCodes.LAST_FIXED);
+            assertFalse(RequestCodes.isDynamic(code));
+        }
+    }
+
+    @Test
+    public void dynamicCodesNeverRepeatOrOverlap() {
+        Set<Integer> seen = new HashSet<>();
+        int last = 0;
+        for (int i = 0; i < 10_000; i++) {
+            last = RequestCodes.nextDynamic(last);
+            assertTrue(RequestCodes.isDynamic(last));
+            assertTrue(seen.add(last));
+        }
+    }
+
+    @Test
+    public void dynamicCodesWrapInsideTheirRange() {
+        assertEquals(RequestCodes.FIRST_DYNAMIC, RequestCodes.nextDynamic(Integer.MIN_VALUE));
+        assertEquals(Integer.MIN_VALUE, RequestCodes.nextDynamic(Integer.MIN_VALUE + 1));
+    }
+
+    @Test
+    public void alarmCodeIsTheAlarmId() {
+        assertEquals(0, RequestCodes.alarm(0));
+        assertEquals(42, RequestCodes.alarm(42));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeAlarmIdIsRejected() {
+        RequestCodes.alarm(-1);
+    }
+
+    @Test
+    public void snoozeLimit() {
+        assertTrue(SnoozeManager.canSnooze(0, 3));
+        assertTrue(SnoozeManager.canSnooze(2, 3));
+        assertFalse(SnoozeManager.canSnooze(3, 3));
+        assertTrue(SnoozeManager.canSnooze(50, 0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import com.tidy.app.RingingStateMachine.State;
+import com.tidy.app.RingingStateMachine.Transition;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Tests del reparto de órdenes de RingingService: sesión completa, una alarma y
+ * orden directa sin servicio.
+ */
+public class RingingRouterTest {
+
+    private static RingingStateMachine ringing(int... ids) {
+        RingingStateMachine machine = new RingingStateMachine();
+        for (int id : ids) {
+            machine.start(id, true);
+        }
+        return machine;
+    }
+
+    @Test
+    public void allAppliesToTheWholeSession() {
+        RingingStateMachine machine = ringing(1, 2);
+
+        Transition snoozed = RingingRouter.route(machine, true, 1, true);
+
+        assertEquals(Arrays.asList(1, 2), snoozed.snoozed);
+        assertTrue(snoozed.stopped());
+        assertEquals(State.IDLE, machine.state());
+    }
+
+    @Test
+    public void singleOrderLeavesTheRestRinging() {
+        RingingStateMachine machine = ringing(1, 2);
+
+        Transition dismissed = RingingRouter.route(machine, false, 1, false);
+
+        assertEquals(Collections.singletonList(1), dismissed.dismissed);
+        assertFalse(dismissed.stopped());
+        assertEquals(Collections.singletonList(2), machine.ringingIds());
+    }
+
+    @Test
+    public void allWithoutSessionFallsBackToThePayloadAlarm() {
+        // Proceso recreado: el servicio no sabe qué sonaba, sólo la alarma de la notificación
+        Transition dismissed = RingingRouter.route(new RingingStateMachine(), false, 7, true);
+
+        assertEquals(Collections.singletonList(7), dismissed.dismissed);
+        assertTrue(dismissed.snoozed.isEmpty());
+    }
+
+    @Test
+    public void fallbackSavesEveryAlarmLeftInTheSession() {
+        Transition snoozed = RingingRouter.fallback(true, 1, true, Arrays.asList(1, 2, 3));
+
+        assertEquals(Arrays.asList(1, 2, 3), snoozed.snoozed);
+        assertTrue(snoozed.dismissed.isEmpty());
+    }
+
+    @Test
+    public void fallbackWithEmptySessionUsesThePayloadAlarm() {
+        Transition dismissed = RingingRouter.fallback(false, 4, true, Collections.<Integer>emptyList());
+
+        assertEquals(Collections.singletonList(4), dismissed.dismissed);
+    }
+}
@@ -0,0 +1,164 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.ComponentName;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.os.Looper;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowService;
+
+/**
+ * Tests de RingingService con Robolectric: arranque en primer plano, enlace de
+ * AlarmActivity, detener, tiempo máximo (pospone) y la orden directa de send()
+ * cuando el servicio no se puede arrancar.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RingingServiceTest {
+
+    private static final int ALARM_ID = 42;
+    private static final long WAIT_MS = 5_000;
+
+    private Application app;
+
+    @Before
+    public void setUp() {
+        app = RuntimeEnvironment.getApplication();
+        RingingSession.drain();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RingingSession.drain();
+        // Cada test tiene su propia Application: no reutilizar los singletons del anterior
+        AlarmStore.getInstance(app).close();
+        reset(AlarmStore.class);
+        reset(AlarmSound.class);
+        reset(NotificationDispatcher.class);
+        reset(WakeLockManager.class);
+    }
+
+    @Test
+    public void startGoesForegroundAndJoinsTheSession() {
+        ServiceController<RingingService> controller = started();
+        ShadowService service = shadowOf(controller.get());
+
+        assertEquals(RingingSession.NOTIFICATION_ID, service.getLastForegroundNotificationId());
+        assertNotNull(service.getLastForegroundNotification());
+        assertEquals(1, RingingSession.size());
+        assertFalse(service.isStoppedBySelf());
+    }
+
+    @Test
+    public void bindReturnsTheRunningService() {
+        ServiceController<RingingService> controller = started();
+
+        RingingService.LocalBinder binder =
+            (RingingService.LocalBinder) controller.get().onBind(new Intent(app, RingingService.class));
+
+        assertSame(controller.get(), binder.getService());
+    }
+
+    @Test
+    public void dismissStopsTheSessionAndMarksTheAlarm() throws Exception {
+        storeFired(ALARM_ID);
+        ServiceController<RingingService> controller = started();
+        ShadowService service = shadowOf(controller.get());
+
+        controller.get().dismiss(ALARM_ID);
+
+        assertTrue(service.isForegroundStopped());
+        assertEquals(0, RingingSession.size());
+        await(() -> AlarmRecord.STATE_DISMISSED.equals(AlarmStore.getInstance(app).get(ALARM_ID).state));
+        await(service::isStoppedBySelf);
+        assertNull(AlarmStore.getInstance(app).getSnooze(ALARM_ID));
+    }
+
+    @Test
+    public void timeoutSnoozesTheSession() throws Exception {
+        storeFired(ALARM_ID);
+        ServiceController<RingingService> controller = started();
+        ShadowService service = shadowOf(controller.get());
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(RingingService.RING_TIMEOUT_MS));
+
+        assertTrue(service.isForegroundStopped());
+        assertEquals(0, RingingSession.size());
+        await(() -> AlarmStore.getInstance(app).getSnooze(ALARM_ID) != null);
+        assertEquals(1, AlarmStore.getInstance(app).getSnooze(ALARM_ID).snoozeCount);
+        await(service::isStoppedBySelf);
+    }
+
+    @Test
+    public void sendWithoutServiceAppliesTheOrderDirectly() throws Exception {
+        storeFired(ALARM_ID);
+        RingingSession.offer(new RingingSession.Item(ALARM_ID, "Despertar", 0, 0, null, 0));
+        // Como en segundo plano con Android 8+: startService lanza IllegalStateException
+        ContextWrapper background = new ContextWrapper(app) {
+            @Override
+            public ComponentName startService(Intent service) {
+                throw new IllegalStateException("app is in background");
+            }
+        };
+
+        RingingService.send(background, RingingService.ACTION_DISMISS, ALARM_ID, "Despertar", true);
+
+        assertEquals(0, RingingSession.size());
+        await(() -> AlarmRecord.STATE_DISMISSED.equals(AlarmStore.getInstance(app).get(ALARM_ID).state));
+    }
+
+    /**
+     * Arranca el servicio con el mismo Intent que manda {@link RingingService#start}.
+     */
+    private ServiceController<RingingService> started() {
+        AlarmPayload payload = new AlarmPayload(ALARM_ID, System.currentTimeMillis(), "Despertar", null, 0, false);
+        RingingService.start(app, payload, System.currentTimeMillis());
+        Intent intent = shadowOf(app).getNextStartedService();
+        assertNotNull(intent);
+        assertEquals(RingingService.ACTION_START, intent.getAction());
+        return Robolectric.buildService(RingingService.class, intent).create().startCommand(0, 1);
+    }
+
+    private void storeFired(int alarmId) {
+        AlarmRecord record = new AlarmRecord(alarmId, System.currentTimeMillis(), "Despertar", null,
+            false, null, null);
+        record.state = AlarmRecord.STATE_FIRED;
+        AlarmStore.getInstance(app).upsert(record);
+    }
+
+    /**
+     * Espera lo que se guarda en AlarmExecutor, dejando correr el hilo principal
+     * (el servicio se detiene con un post al terminar de guardar).
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("La condición no se cumplió en " + WAIT_MS + " ms");
+            }
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+    }
+
+    private static void reset(Class<?> singleton) throws Exception {
+        Field instance = singleton.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+    }
+}
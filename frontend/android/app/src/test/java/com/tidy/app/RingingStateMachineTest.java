@@ -0,0 +1,103 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import com.tidy.app.RingingStateMachine.Effect;
+import com.tidy.app.RingingStateMachine.State;
+import com.tidy.app.RingingStateMachine.Transition;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Tests de los estados del motor de timbre: arrancar, detener, posponer y tiempo máximo.
+ */
+public class RingingStateMachineTest {
+
+    @Test
+    public void firstAlarmStartsAudioVibrationAndTimeout() {
+        RingingStateMachine machine = new RingingStateMachine();
+        Transition started = machine.start(1, true);
+
+        assertEquals(State.RINGING, started.state);
+        assertEquals(Arrays.asList(Effect.START_AUDIO, Effect.START_VIBRATION, Effect.ARM_TIMEOUT),
+            started.effects);
+    }
+
+    @Test
+    public void laterAlarmsJoinTheSessionAndOnlyRearmTheTimeout() {
+        RingingStateMachine machine = new RingingStateMachine();
+        machine.start(1, true);
+
+        Transition joined = machine.start(2, true);
+        assertEquals(Collections.singletonList(Effect.ARM_TIMEOUT), joined.effects);
+
+        Transition duplicate = machine.start(2, true);
+        assertTrue(duplicate.effects.isEmpty());
+        assertEquals(Arrays.asList(1, 2), machine.ringingIds());
+    }
+
+    @Test
+    public void dismissingTheLastAlarmStopsEverything() {
+        RingingStateMachine machine = new RingingStateMachine();
+        machine.start(1, true);
+        machine.start(2, true);
+
+        Transition first = machine.dismiss(1);
+        assertEquals(State.RINGING, first.state);
+        assertTrue(first.effects.isEmpty());
+        assertEquals(Collections.singletonList(1), first.dismissed);
+
+        Transition last = machine.dismiss(2);
+        assertEquals(State.IDLE, last.state);
+        assertTrue(last.stopped());
+        assertTrue(last.effects.containsAll(Arrays.asList(
+            Effect.CANCEL_TIMEOUT, Effect.STOP_VIBRATION, Effect.STOP_AUDIO)));
+    }
+
+    @Test
+    public void snoozeAtTheLimitDismissesInstead() {
+        RingingStateMachine machine = new RingingStateMachine();
+        machine.start(1, false);
+
+        Transition snoozed = machine.snooze(1);
+        assertTrue(snoozed.snoozed.isEmpty());
+        assertEquals(Collections.singletonList(1), snoozed.dismissed);
+        assertTrue(snoozed.stopped());
+    }
+
+    @Test
+    public void snoozeAllSplitsBySnoozeLimit() {
+        RingingStateMachine machine = new RingingStateMachine();
+        machine.start(1, true);
+        machine.start(2, false);
+        machine.start(3, true);
+
+        Transition transition = machine.snoozeAll();
+        assertEquals(Arrays.asList(1, 3), transition.snoozed);
+        assertEquals(Collections.singletonList(2), transition.dismissed);
+        assertEquals(State.IDLE, transition.state);
+    }
+
+    @Test
+    public void timeoutSnoozesTheSessionAndIsIgnoredWhenIdle() {
+        RingingStateMachine machine = new RingingStateMachine();
+        assertTrue(machine.timeout().effects.isEmpty());
+
+        machine.start(7, true);
+        Transition timedOut = machine.timeout();
+        assertEquals(Collections.singletonList(7), timedOut.snoozed);
+        assertTrue(timedOut.stopped());
+    }
+
+    @Test
+    public void commandForAnAlarmNotRingingOnlyUpdatesTheStore() {
+        // El proceso murió desde el disparo: la acción de la notificación llega sin sesión
+        RingingStateMachine machine = new RingingStateMachine();
+        Transition transition = machine.snooze(9);
+
+        assertEquals(State.IDLE, transition.state);
+        assertTrue(transition.effects.isEmpty());
+        assertEquals(Collections.singletonList(9), transition.snoozed);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Tests de la elección de API de SchedulingStrategy según la latencia medida.
+ */
+public class SchedulingStrategyTest {
+
+    private static final int SDK = 33;
+
+    private static LatencyHistogram samples(int count, long latencyMs) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < count; i++) {
+            histogram.record(latencyMs);
+        }
+        return histogram;
+    }
+
+    @Test
+    public void keepsCurrentWhenPunctual() {
+        Map<String, LatencyHistogram> stats = new HashMap<>();
+        stats.put(SchedulingStrategy.API_EXACT_IDLE, samples(20, 500));
+
+        assertEquals(SchedulingStrategy.API_EXACT_IDLE,
+            SchedulingStrategy.choose(SchedulingStrategy.API_EXACT_IDLE, stats, SDK));
+    }
+
+    @Test
+    public void keepsCurrentWithoutEnoughSamples() {
+        Map<String, LatencyHistogram> stats = new HashMap<>();
+        stats.put(SchedulingStrategy.API_EXACT_IDLE, samples(SchedulingStrategy.MIN_SAMPLES - 1, 600_000));
+
+        assertEquals(SchedulingStrategy.API_EXACT_IDLE,
+            SchedulingStrategy.choose(SchedulingStrategy.API_EXACT_IDLE, stats, SDK));
+    }
+
+    @Test
+    public void triesAlarmClockWhenCurrentIsLate() {
+        Map<String, LatencyHistogram> stats = new HashMap<>();
+        stats.put(SchedulingStrategy.API_EXACT_IDLE, samples(20, 600_000));
+
+        assertEquals(SchedulingStrategy.API_ALARM_CLOCK,
+            SchedulingStrategy.choose(SchedulingStrategy.API_EXACT_IDLE, stats, SDK));
+    }
+
+    @Test
+    public void picksLowestP95WhenAllMeasured() {
+        Map<String, LatencyHistogram> stats = new HashMap<>();
+        stats.put(SchedulingStrategy.API_ALARM_CLOCK, samples(20, 300_000));
+        stats.put(SchedulingStrategy.API_EXACT_IDLE, samples(20, 600_000));
+        stats.put(SchedulingStrategy.API_EXACT, samples(20, 120_000));
+
+        assertEquals(SchedulingStrategy.API_EXACT,
+            SchedulingStrategy.choose(SchedulingStrategy.API_ALARM_CLOCK, stats, SDK));
+    }
+
+    @Test
+    public void neverMovesToWorseApi() {
+        Map<String, LatencyHistogram> stats = new HashMap<>();
+        stats.put(SchedulingStrategy.API_ALARM_CLOCK, samples(20, 120_000));
+        stats.put(SchedulingStrategy.API_EXACT_IDLE, samples(20, 600_000));
+        stats.put(SchedulingStrategy.API_EXACT, samples(20, 1_800_000));
+
+        assertEquals(SchedulingStrategy.API_ALARM_CLOCK,
+            SchedulingStrategy.choose(SchedulingStrategy.API_ALARM_CLOCK, stats, SDK));
+    }
+
+    @Test
+    public void defaultDependsOnManufacturer() {
+        assertTrue(SchedulingStrategy.isAggressiveOem("Xiaomi"));
+        assertFalse(SchedulingStrategy.isAggressiveOem("Google"));
+        assertFalse(SchedulingStrategy.isAggressiveOem(null));
+        assertEquals(SchedulingStrategy.API_ALARM_CLOCK, SchedulingStrategy.defaultApi(SDK, true));
+        assertEquals(SchedulingStrategy.API_EXACT_IDLE, SchedulingStrategy.defaultApi(SDK, false));
+        assertEquals(SchedulingStrategy.API_EXACT, SchedulingStrategy.defaultApi(21, false));
+    }
+}
@@ -0,0 +1,93 @@
+package com.tidy.app;
+
+import static org.junit.Assert.*;
+
+import com.tidy.app.TimerSequence.Interval;
+import com.tidy.app.TimerSequence.State;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests de la secuencia de intervalos: avance sin deriva, avisos tardíos, pausa y fin.
+ */
+public class TimerSequenceTest {
+
+    private static final long MIN = 60_000;
+
+    private static List<Interval> pomodoro() {
+        return Arrays.asList(
+            new Interval("Foco", TimerSequence.KIND_WORK, 25 * MIN),
+            new Interval(null, TimerSequence.KIND_BREAK, 5 * MIN),
+            new Interval("Foco", TimerSequence.KIND_WORK, 25 * MIN));
+    }
+
+    @Test
+    public void startsRunningTheFirstInterval() {
+        TimerSequence timer = TimerSequence.start(pomodoro(), 1_000);
+
+        assertEquals(State.RUNNING, timer.state());
+        assertEquals(0, timer.index());
+        assertEquals(1_000 + 25 * MIN, timer.endsAt());
+        assertEquals(25 * MIN, timer.remaining(1_000));
+    }
+
+    @Test
+    public void earlyWakeupDoesNotAdvance() {
+        TimerSequence timer = TimerSequence.start(pomodoro(), 0);
+
+        assertEquals(0, timer.advance(25 * MIN - 1));
+        assertEquals(0, timer.index());
+    }
+
+    @Test
+    public void nextIntervalIsAnchoredOnThePreviousEnd() {
+        TimerSequence timer = TimerSequence.start(pomodoro(), 0);
+
+        // El aviso llega 3 s tarde: el descanso termina igualmente a los 30 min
+        assertEquals(1, timer.advance(25 * MIN + 3_000));
+        assertEquals(1, timer.index());
+        assertEquals(TimerSequence.KIND_BREAK, timer.current().kind);
+        assertEquals(30 * MIN, timer.endsAt());
+    }
+
+    @Test
+    public void lateWakeupSkipsExpiredIntervals() {
+        TimerSequence timer = TimerSequence.start(pomodoro(), 0);
+
+        assertEquals(2, timer.advance(31 * MIN));
+        assertEquals(2, timer.index());
+        assertEquals(55 * MIN, timer.endsAt());
+    }
+
+    @Test
+    public void pauseKeepsRemainingTimeUntilResume() {
+        TimerSequence timer = TimerSequence.start(pomodoro(), 0);
+
+        assertTrue(timer.pause(10 * MIN));
+        assertFalse(timer.pause(11 * MIN));
+        assertEquals(15 * MIN, timer.remaining(40 * MIN));
+        // En pausa no vence nada
+        assertEquals(0, timer.advance(40 * MIN));
+
+        assertTrue(timer.resume(40 * MIN));
+        assertFalse(timer.resume(41 * MIN));
+        assertEquals(55 * MIN, timer.endsAt());
+    }
+
+    @Test
+    public void finishesAfterTheLastInterval() {
+        TimerSequence timer = TimerSequence.start(pomodoro(), 0);
+
+        assertEquals(3, timer.advance(2 * 60 * MIN));
+        assertEquals(State.FINISHED, timer.state());
+        assertEquals(2, timer.index());
+        assertEquals(0, timer.remaining(2 * 60 * MIN));
+        assertFalse(timer.pause(2 * 60 * MIN));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyDurations() {
+        new Interval("Foco", TimerSequence.KIND_WORK, 0);
+    }
+}
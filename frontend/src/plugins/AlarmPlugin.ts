@@ -1,4 +1,258 @@
-import { registerPlugin } from '@capacitor/core';
+import { registerPlugin, PluginListenerHandle } from '@capacitor/core';
+
+export interface AlarmBatchItem {
+  id: number;
+  triggerTime: number;
+  title?: string;
+  message?: string;
+  isRecurring?: boolean;
+  frequency?: string | null;
+  repeatDays?: string | null;
+  /** Despertadores: siempre exactos, aunque falte más que el horizonte */
+  critical?: boolean;
+}
+
+export interface AlarmBatchItemResult {
+  id: number | null;
+  success: boolean;
+  error?: string;
+}
+
+export interface AlarmBatchResult {
+  success: boolean;
+  failed: number;
+  results: AlarmBatchItemResult[];
+}
+
+export interface AlarmReconcileResult {
+  success: boolean;
+  added: number;
+  updated: number;
+  removed: number;
+  unchanged: number;
+  failed: number;
+  errors: { id: number | null; error: string }[];
+}
+
+export type AlarmSchedulingMode = 'per_alarm' | 'single_slot';
+
+export interface AlarmReceiverTimings {
+  count: number;
+  mainThreadAvgMs: number;
+  mainThreadMaxMs: number;
+  mainThreadLastMs: number;
+  backgroundAvgMs: number;
+  backgroundMaxMs: number;
+  backgroundLastMs: number;
+  /** Disparos con el tiempo de onReceive al primer frame audible medido */
+  firstAudioCount: number;
+  firstAudioAvgMs: number;
+  firstAudioMaxMs: number;
+  firstAudioLastMs: number;
+  /** Veces que sonó el tono generado porque el tono configurado no se pudo reproducir */
+  fallbackTones: number;
+}
+
+export interface AlarmWakeLockStats {
+  /** Veces que se tomó el WakeLock compartido (los trabajos solapados cuentan una) */
+  periods: number;
+  heldTotalMs: number;
+  heldAvgMs: number;
+  heldMaxMs: number;
+  heldLastMs: number;
+  /** Tiempo total con el WakeLock tomado dividido por los disparos */
+  heldMsPerFire: number;
+  /** Trabajos liberados por su tiempo máximo en lugar de al terminar */
+  timeouts: number;
+  holders: { fire: number; ringing: number; reschedule: number };
+  activeHolders: number;
+}
+
+export interface AlarmLatencySummary {
+  count: number;
+  meanMs: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+}
+
+export interface AlarmDeliveryStatsGroup {
+  api: string;
+  sdkInt: number;
+  stages: {
+    receive?: AlarmLatencySummary;
+    activity?: AlarmLatencySummary;
+    audio?: AlarmLatencySummary;
+  };
+}
+
+export interface AlarmDeliveryStats {
+  currentSdkInt: number;
+  groups: AlarmDeliveryStatsGroup[];
+}
+
+export interface AlarmEventBase {
+  alarmId: number;
+  /** Momento (ms) en que el evento se generó en nativo */
+  timestamp: number;
+}
+
+export interface AlarmFiredEvent extends AlarmEventBase {
+  title: string;
+  triggerTime: number;
+  isRecurring: boolean;
+  /** Presente cuando suena una pospuesta: veces que ya se pospuso */
+  snoozeCount?: number;
+}
+
+export interface AlarmSnoozedEvent extends AlarmEventBase {
+  /** La pospuesta suena con el mismo ID que la alarma */
+  snoozeAlarmId: number;
+  snoozeCount: number;
+  triggerTime: number;
+}
+
+export type AlarmDismissedEvent = AlarmEventBase;
+
+export interface AlarmRescheduledEvent extends AlarmEventBase {
+  triggerTime: number;
+  frequency: string;
+}
+
+export interface AlarmMissed {
+  alarmId: number;
+  title: string;
+  /** Hora en que debió sonar (ms) */
+  triggerTime: number;
+  /** Próxima ocurrencia de las recurrentes; -1 si no vuelve a sonar (queda en estado "missed") */
+  nextTriggerTime: number;
+}
+
+export interface AlarmsMissedEvent {
+  alarms: AlarmMissed[];
+  timestamp: number;
+}
+
+export interface AlarmRescheduleStats {
+  hasRun: boolean;
+  /** boot | package_replaced */
+  reason: string | null;
+  armed: number;
+  total: number;
+  /** Tiempos en ms desde que llegó el broadcast */
+  queueDelayMs: number;
+  firstChunkMs: number;
+  totalMs: number;
+  completed: boolean;
+  finishedAt: number;
+  /** Alarmas inminentes registradas directamente por BootReceiver */
+  upcomingArmed: number;
+  upcomingMs: number;
+}
+
+export interface AlarmMethodTiming {
+  count: number;
+  /** Desde la llamada hasta resolve/reject, incluido el trabajo en segundo plano */
+  avgMs: number;
+  maxMs: number;
+  totalMs: number;
+}
+
+export interface AlarmMetrics {
+  /** Acumulados desde la instalación o el último reset */
+  counters: {
+    scheduled: number;
+    cancelled: number;
+    fired: number;
+    /** Ocurrencias que pasaron sin sonar */
+    missed: number;
+    /** Recurrentes reprogramadas tras sonar y alarmas registradas de nuevo desde el almacén */
+    rescheduled: number;
+    failed: number;
+    snoozed: number;
+    /** Pospuestas rechazadas por el máximo configurado */
+    snoozeLimitReached: number;
+    /** Llamadas rechazadas por falta de permiso de alarmas exactas */
+    permissionDenied: number;
+  };
+  /** Valores actuales, leídos al consultar (-1 si no se pudieron leer) */
+  gauges: {
+    storedAlarms: number;
+    activeSnoozes: number;
+    ringing: number;
+  };
+  /** Tiempo por método de AlarmPlugin */
+  methods: Record<string, AlarmMethodTiming>;
+}
+
+export interface AlarmTierStats {
+  /** Minutos: las alarmas no críticas más lejanas se retienen (0 = todas exactas) */
+  horizonMinutes: number;
+  exactRegistrations: number;
+  heldRegistrations: number;
+  promotionWakeups: number;
+  alarmsPromoted: number;
+  /** Registros que quedaron retenidos en lugar de exactos */
+  exactRegistrationsSaved: number;
+  /** Alarmas promovidas que compartieron despertar con otras */
+  wakeupsSaved: number;
+  /** Próxima promoción prevista (ms), 0 si no hay */
+  nextPromotionAt: number;
+}
+
+export type AlarmScheduleApi = 'setAlarmClock' | 'setExactAndAllowWhileIdle' | 'setExact';
+
+export interface AlarmSchedulingStrategy {
+  /** API con la que se registran ahora las alarmas */
+  strategy: AlarmScheduleApi;
+  /** 'auto' o la API fijada con setSchedulingStrategy */
+  mode: 'auto' | AlarmScheduleApi;
+  /** p95 de la latencia de recepción observada con la API actual (ms) */
+  p95Ms: number;
+  samples: number;
+  /** Fabricante con ahorro de batería agresivo (se parte de setAlarmClock) */
+  aggressiveOem: boolean;
+  /** Último cambio automático (ms) y su motivo */
+  selectedAt: number;
+  reason: string | null;
+  apis: Array<{ api: AlarmScheduleApi; samples: number; p95Ms: number }>;
+}
+
+export interface AlarmSnoozeConfig {
+  /** Duración de cada pospuesta */
+  minutes: number;
+  /** Máximo de pospuestas seguidas (0 = sin límite) */
+  maxCount: number;
+  /** Cadenas de pospuestas en curso; triggerTime 0 si está sonando ahora */
+  active: Array<{ alarmId: number; title: string; snoozeCount: number; triggerTime: number; startedAt: number }>;
+}
+
+export interface AlarmScheduledItem {
+  id: number;
+  triggerTime: number;
+  title: string;
+  isRecurring: boolean;
+  frequency: string | null;
+  critical: boolean;
+}
+
+export interface AlarmScheduledPage {
+  /** Alarmas programadas en el rango (todas las páginas) */
+  total: number;
+  offset: number;
+  /** Offset de la siguiente página, -1 si ésta es la última */
+  nextOffset: number;
+  alarms: AlarmScheduledItem[];
+}
+
+export interface AlarmOccurrencePage {
+  offset: number;
+  /** Offset de la siguiente página, -1 si ésta es la última */
+  nextOffset: number;
+  /** En orden de hora (y de ID a igual hora) */
+  occurrences: Array<{ alarmId: number; time: number }>;
+}
 
 export interface AlarmPluginInterface {
   /**
@@ -12,6 +266,7 @@ export interface AlarmPluginInterface {
     triggerTime: number; // Timestamp en milisegundos
     title: string;
     message: string;
+    critical?: boolean;
   }): Promise<{ success: boolean; alarmId: number; scheduledFor: string }>;
 
   /**
@@ -22,6 +277,145 @@ export interface AlarmPluginInterface {
    */
   cancelAlarm(options: { id: number }): Promise<{ success: boolean; alarmId: number }>;
 
+  /**
+   * Programa varias alarmas en una sola llamada al bridge.
+   *
+   * @param options - Lista de alarmas (mismo formato que scheduleAlarm)
+   * @returns Promise con el resultado de cada alarma, en el mismo orden
+   */
+  scheduleAlarms(options: { alarms: AlarmBatchItem[] }): Promise<AlarmBatchResult & { scheduled: number }>;
+
+  /**
+   * Cancela varias alarmas en una sola llamada al bridge.
+   *
+   * @param options - IDs de las alarmas a cancelar
+   * @returns Promise con el resultado de cada ID, en el mismo orden
+   */
+  cancelAlarms(options: { ids: number[] }): Promise<AlarmBatchResult & { cancelled: number }>;
+
+  /**
+   * Sincroniza las alarmas nativas con la lista completa deseada.
+   * Compara una huella por alarma (hora, recurrencia y textos) con el estado nativo
+   * y sólo programa/cancela la diferencia; las alarmas ausentes de la lista se cancelan.
+   *
+   * @param options - Lista completa de alarmas (mismo formato que scheduleAlarm)
+   * @returns Promise con los contadores de añadidas/actualizadas/eliminadas/sin cambios
+   */
+  reconcileAlarms(options: { alarms: AlarmBatchItem[] }): Promise<AlarmReconcileResult>;
+
+  /**
+   * Lista las alarmas registradas en nativo, ordenadas por próximo disparo,
+   * en páginas de `limit` (por defecto 100, máximo 500).
+   *
+   * @param options - offset, limit y rango opcional [from, to] de hora de disparo (ms)
+   */
+  getScheduledAlarms(options?: {
+    offset?: number;
+    limit?: number;
+    from?: number;
+    to?: number;
+  }): Promise<AlarmScheduledPage>;
+
+  /**
+   * Ocurrencias de las alarmas programadas en [from, to) (como máximo 400 días),
+   * con las recurrentes expandidas. Pensado para las vistas de calendario.
+   *
+   * @param options - rango en ms y paginación (limit por defecto 500, máximo 2000)
+   */
+  getOccurrences(options: {
+    from: number;
+    to: number;
+    offset?: number;
+    limit?: number;
+  }): Promise<AlarmOccurrencePage>;
+
+  /**
+   * Cambia el modo de programación nativo.
+   * - per_alarm: un registro en AlarmManager por alarma (por defecto)
+   * - single_slot: sólo la alarma más próxima se registra; el resto espera en una cola nativa
+   */
+  setSchedulingMode(options: { mode: AlarmSchedulingMode }): Promise<{ success: boolean; mode: AlarmSchedulingMode }>;
+
+  /**
+   * Devuelve el modo de programación nativo actual.
+   */
+  getSchedulingMode(): Promise<{ mode: AlarmSchedulingMode }>;
+
+  /**
+   * Cambia el horizonte de programación (modo per_alarm): las alarmas no críticas
+   * que faltan más que el horizonte se retienen y se registran como exactas al
+   * acercarse. Reprograma las alarmas guardadas.
+   *
+   * @param options - horizonMinutes: minutos (0 = todas exactas)
+   */
+  setSchedulingHorizon(options: { horizonMinutes: number }): Promise<{ success: boolean; horizonMinutes: number; rescheduled: number }>;
+
+  /**
+   * Devuelve el horizonte actual y los contadores de registros exactos/retenidos.
+   */
+  getSchedulingTierStats(): Promise<AlarmTierStats>;
+
+  /**
+   * Devuelve la API de AlarmManager elegida para este dispositivo y el p95 de
+   * latencia observado con cada una. En modo automático se cambia a la API más
+   * puntual cuando la actual llega tarde de forma sistemática.
+   */
+  getSchedulingStrategy(): Promise<AlarmSchedulingStrategy>;
+
+  /**
+   * Fija la API de programación ('auto' vuelve a la selección automática)
+   * y reprograma las alarmas guardadas.
+   */
+  setSchedulingStrategy(options: { strategy: 'auto' | AlarmScheduleApi }): Promise<AlarmSchedulingStrategy>;
+
+  /**
+   * Devuelve la configuración de pospuestas y las pospuestas en curso.
+   */
+  getSnoozeConfig(): Promise<AlarmSnoozeConfig>;
+
+  /**
+   * Configura la duración de la pospuesta (1-120 min) y el máximo de
+   * pospuestas seguidas (0-10, 0 = sin límite). Al llegar al máximo la
+   * pantalla de alarma sólo ofrece detener.
+   */
+  setSnoozeConfig(options: { minutes?: number; maxCount?: number }): Promise<AlarmSnoozeConfig>;
+
+  /**
+   * Devuelve los tiempos medidos de AlarmReceiver.onReceive: cuánto se ocupa
+   * el hilo principal y cuánto el trabajo en segundo plano (en ms).
+   */
+  getReceiverTimings(): Promise<AlarmReceiverTimings>;
+
+  /**
+   * Devuelve cuánto tiempo mantuvieron las alarmas la CPU despierta (WakeLock
+   * compartido entre disparo, sonido y reprogramación), para estimar el coste
+   * en batería por disparo.
+   */
+  getWakeLockStats(): Promise<AlarmWakeLockStats>;
+
+  /**
+   * Devuelve la latencia de entrega de las alarmas (cuánto después de la hora
+   * programada llegaron onReceive, la pantalla de alarma y el sonido), en
+   * percentiles por API de programación y versión de Android.
+   *
+   * @param options - reset: borra las estadísticas después de leerlas
+   */
+  getDeliveryStats(options?: { reset?: boolean }): Promise<AlarmDeliveryStats>;
+
+  /**
+   * Devuelve los datos de la última reprogramación nativa tras un reinicio
+   * o una actualización de la app.
+   */
+  getRescheduleStats(): Promise<AlarmRescheduleStats>;
+
+  /**
+   * Devuelve las métricas del subsistema de alarmas para telemetría: contadores,
+   * gauges y tiempo de cada método del plugin.
+   *
+   * @param options - reset: pone las métricas a cero después de leerlas
+   */
+  getAlarmMetrics(options?: { reset?: boolean }): Promise<AlarmMetrics>;
+
   /**
    * Verifica si la app puede programar alarmas exactas (Android 12+).
    *
@@ -43,6 +437,21 @@ export interface AlarmPluginInterface {
    * @returns Promise que resuelve con información de la alarma programada
    */
   testAlarmNow(): Promise<{ success: boolean; alarmId: number; scheduledFor: string; message: string; triggerTime: number }>;
+
+  /**
+   * Eventos nativos: se emiten cuando algo ocurre (no hace falta polling).
+   * - alarmFired: AlarmReceiver disparó la alarma
+   * - alarmSnoozed / alarmDismissed: el usuario actuó en la pantalla de alarma
+   * - alarmRescheduled: una alarma recurrente se programó para su próxima ocurrencia
+   * - alarmsMissed: alarmas cuya hora pasó sin sonar (dispositivo apagado, app detenida)
+   */
+  addListener(eventName: 'alarmFired', listenerFunc: (event: AlarmFiredEvent) => void): Promise<PluginListenerHandle>;
+  addListener(eventName: 'alarmSnoozed', listenerFunc: (event: AlarmSnoozedEvent) => void): Promise<PluginListenerHandle>;
+  addListener(eventName: 'alarmDismissed', listenerFunc: (event: AlarmDismissedEvent) => void): Promise<PluginListenerHandle>;
+  addListener(eventName: 'alarmRescheduled', listenerFunc: (event: AlarmRescheduledEvent) => void): Promise<PluginListenerHandle>;
+  addListener(eventName: 'alarmsMissed', listenerFunc: (event: AlarmsMissedEvent) => void): Promise<PluginListenerHandle>;
+
+  removeAllListeners(): Promise<void>;
 }
 
 const AlarmPlugin = registerPlugin<AlarmPluginInterface>('AlarmPlugin', {
@@ -57,6 +466,157 @@ const AlarmPlugin = registerPlugin<AlarmPluginInterface>('AlarmPlugin', {
         console.warn('AlarmPlugin no está disponible en web');
         return { success: false, alarmId: 0 };
       },
+      scheduleAlarms: async ({ alarms }) => {
+        console.warn('AlarmPlugin no está disponible en web');
+        return {
+          success: false,
+          scheduled: 0,
+          failed: alarms.length,
+          results: alarms.map(a => ({ id: a.id, success: false, error: 'No disponible en web' }))
+        };
+      },
+      cancelAlarms: async ({ ids }) => {
+        console.warn('AlarmPlugin no está disponible en web');
+        return {
+          success: false,
+          cancelled: 0,
+          failed: ids.length,
+          results: ids.map(id => ({ id, success: false, error: 'No disponible en web' }))
+        };
+      },
+      reconcileAlarms: async ({ alarms }) => {
+        console.warn('AlarmPlugin no está disponible en web');
+        return {
+          success: false,
+          added: 0,
+          updated: 0,
+          removed: 0,
+          unchanged: 0,
+          failed: alarms.length,
+          errors: alarms.map(a => ({ id: a.id, error: 'No disponible en web' }))
+        };
+      },
+      getScheduledAlarms: async (options = {}) => {
+        return { total: 0, offset: options.offset ?? 0, nextOffset: -1, alarms: [] };
+      },
+      getOccurrences: async ({ offset }) => {
+        return { offset: offset ?? 0, nextOffset: -1, occurrences: [] };
+      },
+      setSchedulingMode: async ({ mode }) => {
+        return { success: false, mode };
+      },
+      getSchedulingMode: async () => {
+        return { mode: 'per_alarm' as AlarmSchedulingMode };
+      },
+      setSchedulingHorizon: async ({ horizonMinutes }) => {
+        return { success: false, horizonMinutes, rescheduled: 0 };
+      },
+      getSchedulingTierStats: async () => {
+        return {
+          horizonMinutes: 0,
+          exactRegistrations: 0,
+          heldRegistrations: 0,
+          promotionWakeups: 0,
+          alarmsPromoted: 0,
+          exactRegistrationsSaved: 0,
+          wakeupsSaved: 0,
+          nextPromotionAt: 0
+        };
+      },
+      getSchedulingStrategy: async () => {
+        return {
+          strategy: 'setExactAndAllowWhileIdle' as AlarmScheduleApi,
+          mode: 'auto' as const,
+          p95Ms: 0,
+          samples: 0,
+          aggressiveOem: false,
+          selectedAt: 0,
+          reason: null,
+          apis: []
+        };
+      },
+      setSchedulingStrategy: async () => {
+        return {
+          strategy: 'setExactAndAllowWhileIdle' as AlarmScheduleApi,
+          mode: 'auto' as const,
+          p95Ms: 0,
+          samples: 0,
+          aggressiveOem: false,
+          selectedAt: 0,
+          reason: null,
+          apis: []
+        };
+      },
+      getSnoozeConfig: async () => {
+        return { minutes: 10, maxCount: 3, active: [] };
+      },
+      setSnoozeConfig: async ({ minutes, maxCount }) => {
+        return { minutes: minutes ?? 10, maxCount: maxCount ?? 3, active: [] };
+      },
+      getReceiverTimings: async () => {
+        return {
+          count: 0,
+          mainThreadAvgMs: 0,
+          mainThreadMaxMs: 0,
+          mainThreadLastMs: 0,
+          backgroundAvgMs: 0,
+          backgroundMaxMs: 0,
+          backgroundLastMs: 0,
+          firstAudioCount: 0,
+          firstAudioAvgMs: 0,
+          firstAudioMaxMs: 0,
+          firstAudioLastMs: 0,
+          fallbackTones: 0
+        };
+      },
+      getWakeLockStats: async () => {
+        return {
+          periods: 0,
+          heldTotalMs: 0,
+          heldAvgMs: 0,
+          heldMaxMs: 0,
+          heldLastMs: 0,
+          heldMsPerFire: 0,
+          timeouts: 0,
+          holders: { fire: 0, ringing: 0, reschedule: 0 },
+          activeHolders: 0
+        };
+      },
+      getDeliveryStats: async () => {
+        return { currentSdkInt: 0, groups: [] };
+      },
+      getRescheduleStats: async () => {
+        return {
+          hasRun: false,
+          reason: null,
+          armed: 0,
+          total: 0,
+          queueDelayMs: 0,
+          firstChunkMs: 0,
+          totalMs: 0,
+          completed: false,
+          finishedAt: 0,
+          upcomingArmed: 0,
+          upcomingMs: 0
+        };
+      },
+      getAlarmMetrics: async () => {
+        return {
+          counters: {
+            scheduled: 0,
+            cancelled: 0,
+            fired: 0,
+            missed: 0,
+            rescheduled: 0,
+            failed: 0,
+            snoozed: 0,
+            snoozeLimitReached: 0,
+            permissionDenied: 0
+          },
+          gauges: { storedAlarms: 0, activeSnoozes: 0, ringing: 0 },
+          methods: {}
+        };
+      },
       canScheduleExactAlarms: async () => {
         return { canSchedule: false };
       },
@@ -0,0 +1,95 @@
+import { registerPlugin, PluginListenerHandle } from '@capacitor/core';
+
+export type TimerIntervalKind = 'work' | 'break';
+
+export interface TimerInterval {
+  /** Texto de la notificación; sin él se muestra "Trabajo" o "Descanso" */
+  label?: string;
+  kind: TimerIntervalKind;
+  durationMs: number;
+}
+
+export interface TimerState {
+  state: 'idle' | 'running' | 'paused' | 'finished';
+  /** -1 sin temporizador */
+  intervalIndex: number;
+  intervalCount: number;
+  label?: string;
+  kind?: TimerIntervalKind;
+  durationMs?: number;
+  /** Lo que quedaba del intervalo actual al leer el estado */
+  remainingMs: number;
+  /** Fin del intervalo actual (epoch ms); 0 si no está corriendo */
+  intervalEndsAt: number;
+}
+
+export interface TimerStateChangedEvent {
+  reason: 'start' | 'pause' | 'resume' | 'interval' | 'finished' | 'stop';
+  timer: TimerState;
+  timestamp: number;
+}
+
+export interface TimerPluginInterface {
+  /**
+   * Inicia una secuencia de intervalos (bloques de trabajo y descanso); si ya
+   * había un temporizador, lo sustituye. Como máximo 100 intervalos.
+   *
+   * La cuenta atrás la lleva Android (AlarmManager + cronómetro de la notificación):
+   * no hay callbacks por segundo, sólo el evento timerStateChanged.
+   */
+  startTimer(options: { intervals: TimerInterval[] }): Promise<TimerState>;
+
+  /**
+   * Pausa el temporizador en marcha. Falla si no hay ninguno corriendo.
+   */
+  pauseTimer(): Promise<TimerState>;
+
+  /**
+   * Reanuda el temporizador en pausa. Falla si no hay ninguno en pausa.
+   */
+  resumeTimer(): Promise<TimerState>;
+
+  /**
+   * Detiene el temporizador y quita la notificación.
+   */
+  stopTimer(): Promise<TimerState>;
+
+  /**
+   * Devuelve el estado actual, para sincronizar la UI al abrirse.
+   */
+  getTimerState(): Promise<TimerState>;
+
+  /**
+   * Evento nativo en cada cambio de estado: inicio, pausa, reanudación, cambio
+   * de intervalo, fin y parada (también desde los botones de la notificación).
+   */
+  addListener(eventName: 'timerStateChanged', listenerFunc: (event: TimerStateChangedEvent) => void): Promise<PluginListenerHandle>;
+
+  removeAllListeners(): Promise<void>;
+}
+
+const IDLE_STATE: TimerState = {
+  state: 'idle',
+  intervalIndex: -1,
+  intervalCount: 0,
+  remainingMs: 0,
+  intervalEndsAt: 0
+};
+
+const TimerPlugin = registerPlugin<TimerPluginInterface>('TimerPlugin', {
+  web: () => {
+    // Fallback para web (no implementado)
+    return {
+      startTimer: async () => {
+        console.warn('TimerPlugin no está disponible en web');
+        return { ...IDLE_STATE };
+      },
+      pauseTimer: async () => ({ ...IDLE_STATE }),
+      resumeTimer: async () => ({ ...IDLE_STATE }),
+      stopTimer: async () => ({ ...IDLE_STATE }),
+      getTimerState: async () => ({ ...IDLE_STATE })
+    };
+  }
+});
+
+export default TimerPlugin;
@@ -0,0 +1,64 @@
+import { describe, it, expect, beforeEach, vi } from 'vitest'
+
+vi.mock('@capacitor/core', () => ({
+  Capacitor: {
+    isNativePlatform: () => true,
+    getPlatform: () => 'android'
+  }
+}))
+vi.mock('@capacitor/local-notifications', () => ({ LocalNotifications: {} }))
+vi.mock('@/plugins/PermissionsPlugin', () => ({ default: {} }))
+vi.mock('@/plugins/AlarmPlugin', () => ({
+  default: {
+    reconcileAlarms: vi.fn(async ({ alarms }) => ({
+      added: alarms.length, updated: 0, removed: 0, unchanged: 0, failed: 0, errors: []
+    }))
+  }
+}))
+
+import AlarmPlugin from '@/plugins/AlarmPlugin'
+import alarmService from '../alarmService'
+
+describe('alarmService.reconcileAlarms', () => {
+  beforeEach(() => {
+    vi.clearAllMocks()
+    alarmService.initialized = true
+    alarmService.useNativeAlarms = true
+  })
+
+  it('manda las recurrentes con fecha pasada con su definición completa', async () => {
+    await alarmService.reconcileAlarms([{
+      id: 1,
+      nombre: 'Diaria',
+      descripcion: 'Todos los días',
+      fecha_hora: '2020-01-01 07:00:00',
+      repetir: true,
+      frecuencia: 'daily',
+      repeatDays: null,
+      critical: true
+    }])
+
+    const { alarms } = AlarmPlugin.reconcileAlarms.mock.calls[0][0]
+    expect(alarms).toHaveLength(1)
+    expect(alarms[0]).toMatchObject({
+      id: 1,
+      triggerTime: new Date('2020-01-01 07:00:00').getTime(),
+      isRecurring: true,
+      frequency: 'daily',
+      repeatDays: null,
+      critical: true
+    })
+  })
+
+  it('descarta las de un solo disparo ya pasadas', async () => {
+    const summary = await alarmService.reconcileAlarms([
+      { id: 2, nombre: 'Pasada', fecha_hora: '2020-01-01 07:00:00', repetir: false },
+      { id: 3, nombre: 'Futura', fecha_hora: '2999-01-01 07:00:00', repetir: false }
+    ])
+
+    const { alarms } = AlarmPlugin.reconcileAlarms.mock.calls[0][0]
+    expect(alarms.map(a => a.id)).toEqual([3])
+    expect(alarms[0].isRecurring).toBe(false)
+    expect(summary.failed).toBe(1)
+  })
+})
@@ -8,7 +8,9 @@ class AlarmService {
     this.isNative = Capacitor.isNativePlatform();
     this.isAndroid = Capacitor.getPlatform() === 'android';
     this.initialized = false;
-    this.pollingInterval = null;
+    this.listenerHandles = [];
+    // Registro de listeners en curso o hecho; se asigna antes del primer await
+    this.listening = null;
     this.alarmsToCheck = [];
     this.firedAlarms = new Set(); // Para no disparar la misma alarma múltiples veces
     this.useNativeAlarms = false; // Flag para usar AlarmManager nativo
@@ -284,6 +286,131 @@ class AlarmService {
     }
   }
 
+  /**
+   * Programa varias alarmas con una sola llamada al plugin nativo.
+   * Si el plugin nativo no está en uso, programa una por una.
+   * @param {Array} alarms - Alarmas con el mismo formato que scheduleAlarm
+   * @returns {Promise<Array<{id: number, success: boolean, error?: string}>>}
+   */
+  async scheduleAlarms(alarms) {
+    if (!this.initialized && this.isNative) {
+      await this.initialize();
+    }
+
+    if (!(this.isAndroid && this.useNativeAlarms)) {
+      const results = [];
+      for (const alarm of alarms) {
+        results.push({ id: alarm.id, success: await this.scheduleAlarm(alarm) });
+      }
+      return results;
+    }
+
+    const { payload, results } = this.toNativePayload(alarms);
+
+    if (payload.length === 0) {
+      return results;
+    }
+
+    try {
+      const result = await AlarmPlugin.scheduleAlarms({ alarms: payload });
+      console.log(`✅ ${result.scheduled} alarmas nativas programadas (${result.failed} con error)`);
+      return results.concat(result.results);
+    } catch (error) {
+      console.error('❌ Error al programar alarmas nativas en lote:', error);
+      return results.concat(payload.map(a => ({ id: a.id, success: false, error: error.message })));
+    }
+  }
+
+  /**
+   * Convierte alarmas al formato del plugin nativo, separando las inválidas o pasadas.
+   * Se manda la definición completa: el plugin compara huellas que incluyen la
+   * recurrencia y la criticidad. Las recurrentes con la fecha original ya pasada
+   * son válidas (el plugin las adelanta a su próxima ocurrencia).
+   * @param {Array} alarms - Alarmas con el mismo formato que scheduleAlarm
+   *   (repetir, frecuencia, repeatDays y critical opcionales)
+   * @returns {{ payload: Array, results: Array<{id: number, success: boolean, error: string}> }}
+   */
+  toNativePayload(alarms) {
+    const now = Date.now();
+    const payload = [];
+    const results = [];
+
+    alarms.forEach(alarm => {
+      const triggerTime = new Date(alarm.fecha_hora).getTime();
+      const isRecurring = Boolean(alarm.repetir && alarm.frecuencia);
+      if (isNaN(triggerTime) || (triggerTime <= now && !isRecurring)) {
+        results.push({ id: alarm.id, success: false, error: 'Fecha inválida o en el pasado' });
+        return;
+      }
+      payload.push({
+        id: alarm.id,
+        triggerTime,
+        title: alarm.nombre || 'Alarma Tidy',
+        message: alarm.descripcion || 'Es hora de tu alarma',
+        isRecurring,
+        frequency: isRecurring ? alarm.frecuencia : null,
+        repeatDays: alarm.repeatDays ?? null,
+        critical: Boolean(alarm.critical)
+      });
+    });
+
+    return { payload, results };
+  }
+
+  /**
+   * Sincroniza las alarmas nativas con la lista completa deseada.
+   * El plugin compara huellas y sólo programa/cancela lo que cambió; las alarmas
+   * nativas que no estén en la lista se cancelan.
+   * Sin plugin nativo, programa la lista completa como scheduleAlarms.
+   * @param {Array} alarms - Lista completa de alarmas activas (formato de scheduleAlarm)
+   * @returns {Promise<{added: number, updated: number, removed: number, unchanged: number, failed: number}>}
+   */
+  async reconcileAlarms(alarms) {
+    if (!this.initialized && this.isNative) {
+      await this.initialize();
+    }
+
+    if (!(this.isAndroid && this.useNativeAlarms)) {
+      const results = await this.scheduleAlarms(alarms);
+      const failed = results.filter(r => !r.success).length;
+      return { added: results.length - failed, updated: 0, removed: 0, unchanged: 0, failed };
+    }
+
+    const { payload, results } = this.toNativePayload(alarms);
+
+    try {
+      const result = await AlarmPlugin.reconcileAlarms({ alarms: payload });
+      console.log(`✅ Alarmas sincronizadas: +${result.added} ~${result.updated} -${result.removed} =${result.unchanged}`);
+      result.errors.forEach(e => console.error(`❌ Error sincronizando alarma ${e.id}:`, e.error));
+      return { ...result, failed: result.failed + results.length };
+    } catch (error) {
+      console.error('❌ Error al sincronizar alarmas nativas:', error);
+      return { added: 0, updated: 0, removed: 0, unchanged: 0, failed: alarms.length };
+    }
+  }
+
+  /**
+   * Cancela varias alarmas con una sola llamada al plugin nativo.
+   * @param {Array<number>} alarmIds - IDs de las alarmas a cancelar
+   */
+  async cancelAlarms(alarmIds) {
+    if (this.isNative && this.isAndroid && this.useNativeAlarms) {
+      try {
+        const result = await AlarmPlugin.cancelAlarms({ ids: alarmIds });
+        console.log(`✅ ${result.cancelled} alarmas nativas canceladas`);
+        return result.results;
+      } catch (nativeError) {
+        console.warn('⚠️ Error al cancelar alarmas nativas en lote:', nativeError);
+      }
+    }
+
+    const results = [];
+    for (const id of alarmIds) {
+      results.push({ id, success: await this.cancelAlarm(id) });
+    }
+    return results;
+  }
+
   /**
    * Cancela una alarma programada
    * @param {number} alarmId - ID de la alarma a cancelar
@@ -340,6 +467,17 @@ class AlarmService {
     }
   }
 
+  /**
+   * Obtiene una página de las alarmas registradas en AlarmManager, ordenadas por
+   * próximo disparo. Sólo Android con alarmas nativas.
+   */
+  async getScheduledAlarmsPage({ offset = 0, limit = 100, from, to } = {}) {
+    if (!(this.isAndroid && this.useNativeAlarms)) {
+      return { total: 0, offset, nextOffset: -1, alarms: [] };
+    }
+    return AlarmPlugin.getScheduledAlarms({ offset, limit, from, to });
+  }
+
   /**
    * Obtiene las alarmas pendientes
    */
@@ -349,6 +487,18 @@ class AlarmService {
     }
 
     try {
+      if (this.isAndroid && this.useNativeAlarms) {
+        // Recorre el índice nativo por páginas en lugar de LocalNotifications.getPending()
+        const alarms = [];
+        let offset = 0;
+        while (offset !== -1) {
+          const page = await AlarmPlugin.getScheduledAlarms({ offset, limit: 500 });
+          alarms.push(...page.alarms);
+          offset = page.nextOffset;
+        }
+        return alarms;
+      }
+
       const result = await LocalNotifications.getPending();
       return result.notifications;
     } catch (error) {
@@ -385,6 +535,8 @@ class AlarmService {
     if (delay > 0) {
       const timeoutId = setTimeout(() => {
         this.showWebNotification(alarm);
+        this.firedAlarms.add(alarm.id);
+        this.dispatch('alarm-fired', { alarm, alarmId: alarm.id });
       }, delay);
 
       // Guardar el timeout ID para poder cancelarlo después
@@ -437,123 +589,93 @@ class AlarmService {
     return true;
   }
 
-  // ========== Polling de alarmas (fallback mientras app está activa) ==========
+  // ========== Eventos de alarmas (push desde nativo, sin polling) ==========
 
   /**
-   * Inicia el polling para verificar alarmas mientras la app está activa
-   * @param {Array} alarms - Array de alarmas del store
+   * Escucha los eventos de disparo en lugar de revisar la lista periódicamente.
+   * - Android con AlarmManager: eventos de AlarmPlugin (alarmFired, alarmSnoozed, ...)
+   * - LocalNotifications (fallback nativo): localNotificationReceived
+   * - Web: el propio setTimeout de scheduleWebAlarm emite el evento
+   * @param {Array} alarms - Array de alarmas del store (para completar los eventos)
    */
-  startPolling(alarms) {
-    console.log('🔄 Iniciando polling de alarmas (cada 15 segundos)');
+  startListening(alarms) {
     this.alarmsToCheck = alarms;
 
-    // Limpiar intervalo anterior si existe
-    if (this.pollingInterval) {
-      clearInterval(this.pollingInterval);
+    if (!this.isNative) {
+      return Promise.resolve();
+    }
+    // Dos llamadas seguidas comparten el mismo registro en lugar de duplicar listeners
+    if (!this.listening) {
+      this.listening = this.registerListeners();
     }
+    return this.listening;
+  }
 
-    // Verificar cada 15 segundos
-    this.pollingInterval = setInterval(() => {
-      this.checkAlarms();
-    }, 15000); // 15 segundos
+  async registerListeners() {
+    console.log('👂 Escuchando eventos de alarmas nativos');
 
-    // Verificar inmediatamente también
-    this.checkAlarms();
-  }
+    try {
+      if (this.isAndroid) {
+        this.listenerHandles.push(
+          await AlarmPlugin.addListener('alarmFired', event => this.handleNativeEvent('alarm-fired', event)),
+          await AlarmPlugin.addListener('alarmSnoozed', event => this.handleNativeEvent('alarm-snoozed', event)),
+          await AlarmPlugin.addListener('alarmDismissed', event => this.handleNativeEvent('alarm-dismissed', event)),
+          await AlarmPlugin.addListener('alarmRescheduled', event => this.handleNativeEvent('alarm-rescheduled', event)),
+          // Una sola notificación nativa para todas: el UI sólo refresca la lista
+          await AlarmPlugin.addListener('alarmsMissed', event => this.dispatch('alarms-missed', event))
+        );
+      }
 
-  /**
-   * Detiene el polling de alarmas
-   */
-  stopPolling() {
-    if (this.pollingInterval) {
-      clearInterval(this.pollingInterval);
-      this.pollingInterval = null;
-      console.log('⏸️ Polling de alarmas detenido');
+      this.listenerHandles.push(
+        await LocalNotifications.addListener('localNotificationReceived', notification => {
+          const alarmId = notification.extra?.alarmId;
+          if (notification.extra?.type === 'alarm' && alarmId != null) {
+            this.handleNativeEvent('alarm-fired', { alarmId, title: notification.title });
+          }
+        })
+      );
+    } catch (error) {
+      console.error('❌ Error al registrar listeners de alarmas:', error);
     }
   }
 
   /**
-   * Verifica si alguna alarma debe dispararse
+   * Deja de escuchar los eventos de alarmas
    */
-  checkAlarms() {
-    const now = new Date();
-
-    this.alarmsToCheck.forEach(alarm => {
-      // Solo verificar alarmas activas que no hayamos disparado y que no estén eliminadas
-      if (alarm.estado !== 'activo' ||
-          this.firedAlarms.has(alarm.id) ||
-          alarm.deleted_at) {
-        return;
-      }
-
-      // Construir fecha/hora de la alarma
-      if (!alarm.fecha || !alarm.hora) {
-        return;
-      }
-
-      const fecha_hora = `${alarm.fecha} ${alarm.hora}:00`;
-      const alarmDate = new Date(fecha_hora);
-
-      // Verificar que la fecha sea válida
-      if (isNaN(alarmDate.getTime())) {
-        return;
-      }
-
-      // Si la alarma ya pasó (con margen de 1 minuto)
-      const diff = now - alarmDate;
-      if (diff >= 0 && diff < 60000) { // Entre 0 y 60 segundos después
-        console.log(`🔔 ¡DISPARANDO ALARMA! ${alarm.nombre} - ${fecha_hora}`);
-        this.fireAlarm(alarm);
-        this.firedAlarms.add(alarm.id);
-      }
-    });
+  async stopListening() {
+    const pending = this.listening;
+    this.listening = null;
+    // Si el registro sigue en curso, esperarlo para quitar también esos listeners
+    if (pending) {
+      await pending;
+    }
+    const handles = this.listenerHandles;
+    this.listenerHandles = [];
+    await Promise.all(handles.map(handle => handle.remove()));
+    if (handles.length > 0) {
+      console.log('⏸️ Listeners de alarmas eliminados');
+    }
   }
 
   /**
-   * Dispara una alarma (muestra notificación)
-   * @param {Object} alarm - La alarma a disparar
+   * Reenvía un evento nativo como CustomEvent de window para que el UI reaccione.
+   * @param {string} type - Nombre del CustomEvent (alarm-fired, alarm-snoozed, ...)
+   * @param {Object} event - Datos del evento nativo (incluye alarmId)
    */
-  async fireAlarm(alarm) {
-    console.log('🔔 Disparando alarma:', alarm.nombre);
+  handleNativeEvent(type, event) {
+    const alarm = this.alarmsToCheck.find(a => a.id === event.alarmId) || null;
+    console.log(`🔔 Evento ${type} para alarma ${event.alarmId}`);
 
-    if (this.isNative) {
-      try {
-        // Mostrar notificación inmediata
-        await LocalNotifications.schedule({
-          notifications: [{
-            id: alarm.id + 100000, // ID diferente para no conflictuar
-            title: `⏰ ${alarm.nombre}`,
-            body: alarm.descripcion || alarm.contenido || 'Es hora de tu alarma',
-            schedule: {
-              at: new Date(Date.now() + 1000) // 1 segundo en el futuro
-            },
-            sound: 'default',
-            channelId: 'alarms',
-            smallIcon: 'ic_stat_alarm',
-            extra: {
-              alarmId: alarm.id,
-              type: 'alarm',
-              fired: true
-            }
-          }]
-        });
-        console.log('✅ Notificación de alarma programada');
-      } catch (error) {
-        console.error('❌ Error al disparar alarma:', error);
-      }
-    } else {
-      // Versión web: mostrar notificación del navegador
-      this.showWebNotification({
-        nombre: alarm.nombre,
-        descripcion: alarm.descripcion || alarm.contenido || 'Es hora de tu alarma'
-      });
+    if (type === 'alarm-fired') {
+      this.firedAlarms.add(event.alarmId);
     }
 
-    // Emitir evento para que el UI pueda reaccionar
+    this.dispatch(type, { alarm, ...event });
+  }
+
+  dispatch(type, detail) {
     if (typeof window !== 'undefined') {
-      window.dispatchEvent(new CustomEvent('alarm-fired', {
-        detail: { alarm }
-      }));
+      window.dispatchEvent(new CustomEvent(type, { detail }));
     }
   }
 
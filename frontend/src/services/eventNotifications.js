@@ -9,7 +9,7 @@ class EventNotificationService {
   constructor() {
     this.notificationStore = null // Se inicializará cuando se use por primera vez
     this.scheduledNotifications = new Map() // Para almacenar notificaciones programadas
-    this.checkInterval = null
+    this.visibilityHandler = null
   }
 
   /**
@@ -34,8 +34,8 @@ class EventNotificationService {
     // Solicitar permisos de notificación si no los tenemos
     this.requestNotificationPermission()
     
-    // Iniciar el chequeo periódico de eventos próximos
-    this.startPeriodicCheck()
+    // Revisar eventos próximos al volver a la app (sin polling)
+    this.startVisibilityCheck()
     
     console.log('Servicio de notificaciones de eventos inicializado')
   }
@@ -258,22 +258,29 @@ class EventNotificationService {
   }
 
   /**
-   * Inicia el chequeo periódico de eventos próximos
+   * Revisa los eventos próximos cada vez que la app vuelve a primer plano.
+   * Los recordatorios ya quedan programados con setTimeout al crear/actualizar
+   * eventos, así que no hace falta un intervalo que despierte el WebView.
    */
-  startPeriodicCheck() {
-    // Chequear cada 5 minutos por eventos próximos
-    this.checkInterval = setInterval(() => {
-      this.checkUpcomingEvents()
-    }, 5 * 60 * 1000) // 5 minutos
+  startVisibilityCheck() {
+    if (this.visibilityHandler || typeof document === 'undefined') {
+      return
+    }
+    this.visibilityHandler = () => {
+      if (document.visibilityState === 'visible') {
+        this.checkUpcomingEvents()
+      }
+    }
+    document.addEventListener('visibilitychange', this.visibilityHandler)
   }
 
   /**
-   * Detiene el chequeo periódico
+   * Deja de revisar eventos al volver a la app
    */
-  stopPeriodicCheck() {
-    if (this.checkInterval) {
-      clearInterval(this.checkInterval)
-      this.checkInterval = null
+  stopVisibilityCheck() {
+    if (this.visibilityHandler) {
+      document.removeEventListener('visibilitychange', this.visibilityHandler)
+      this.visibilityHandler = null
     }
   }
 
@@ -393,7 +400,7 @@ class EventNotificationService {
    * Limpia todos los recursos del servicio
    */
   destroy() {
-    this.stopPeriodicCheck()
+    this.stopVisibilityCheck()
     this.cancelAllNotifications()
     console.log('Servicio de notificaciones de eventos destruido')
   }
@@ -92,8 +92,8 @@ export const useAlarmsStore = defineStore('alarms', () => {
       console.log('Alarms mapped to store:', alarms.value)
       lastUpdated.value = new Date()
 
-      // 🔄 Iniciar polling de alarmas después de cargarlas
-      startAlarmPolling()
+      // 👂 Escuchar eventos de disparo después de cargarlas
+      startAlarmListeners()
     } catch (err) {
       error.value = err.response?.data?.message || 'Error al cargar alarmas'
       console.error('Error fetching alarms:', err)
@@ -188,7 +188,7 @@ export const useAlarmsStore = defineStore('alarms', () => {
         })
       }
 
-      // 🔄 Actualizar alarmas del polling
+      // 🔄 Actualizar alarmas usadas por los eventos
       alarmService.updateAlarms(alarms.value)
 
       return newAlarm
@@ -289,7 +289,7 @@ export const useAlarmsStore = defineStore('alarms', () => {
         console.log('✅ Alarma cancelada (inactiva):', mappedAlarm.nombre)
       }
 
-      // 🔄 Actualizar alarmas del polling
+      // 🔄 Actualizar alarmas usadas por los eventos
       alarmService.updateAlarms(alarms.value)
 
       return mappedAlarm
@@ -340,9 +340,8 @@ export const useAlarmsStore = defineStore('alarms', () => {
       // 🧹 Limpiar alarma del set de disparadas (liberar memoria)
       alarmService.removeFromFiredAlarms(alarmId)
 
-      // 🔄 Actualizar alarmas del polling
+      // 🔄 Actualizar alarmas usadas por los eventos
       alarmService.updateAlarms(alarms.value)
-      console.log('✅ Polling actualizado')
 
       return true
     } catch (err) {
@@ -501,44 +500,46 @@ export const useAlarmsStore = defineStore('alarms', () => {
   // Re-programar todas las alarmas activas (útil al iniciar la app)
   async function rescheduleAllAlarms() {
     console.log('🔄 Re-programando todas las alarmas activas...')
-    const activeAlarmsList = activeAlarms.value
+    const now = new Date()
+    const toSchedule = []
 
-    for (const alarm of activeAlarmsList) {
+    for (const alarm of activeAlarms.value) {
       if (alarm.fecha && alarm.hora) {
         const fecha_hora = `${alarm.fecha} ${alarm.hora}:00`
-        const alarmDate = new Date(fecha_hora)
-
-        // Solo programar si la alarma es futura
-        if (alarmDate > new Date()) {
-          try {
-            await alarmService.scheduleAlarm({
-              id: alarm.id,
-              nombre: alarm.nombre,
-              descripcion: alarm.contenido || alarm.descripcion,
-              fecha_hora: fecha_hora,
-              repetir: alarm.es_recurrente,
-              frecuencia: alarm.frecuencia
-            })
-            console.log(`✅ Alarma re-programada: ${alarm.nombre}`)
-          } catch (error) {
-            console.error(`❌ Error re-programando alarma ${alarm.nombre}:`, error)
-          }
+
+        // Todas las que siguen vivas: lo que no esté en la lista se cancela en nativo.
+        // Una recurrente con la fecha original pasada sigue vigente (nativo la adelanta)
+        const isRecurring = Boolean(alarm.es_recurrente && alarm.frecuencia)
+        if (isRecurring || new Date(fecha_hora) > now) {
+          toSchedule.push({
+            id: alarm.id,
+            nombre: alarm.nombre,
+            descripcion: alarm.contenido || alarm.descripcion,
+            fecha_hora: fecha_hora,
+            repetir: alarm.es_recurrente,
+            frecuencia: alarm.frecuencia,
+            repeatDays: alarm.configuraciones?.repeatDays ?? null,
+            critical: Boolean(alarm.configuraciones?.critical)
+          })
         }
       }
     }
-    console.log('✅ Re-programación de alarmas completada')
+
+    // Una sola llamada al plugin nativo: sólo se tocan las alarmas que cambiaron
+    const summary = await alarmService.reconcileAlarms(toSchedule)
+    console.log('✅ Re-programación de alarmas completada', summary)
+    return summary
   }
 
-  // Iniciar polling de alarmas (fallback mientras app está activa)
-  function startAlarmPolling() {
-    console.log('🔄 Iniciando polling de alarmas desde store')
-    alarmService.startPolling(alarms.value)
+  // Escuchar eventos de alarmas (alarmFired, alarmSnoozed, ...) en lugar de hacer polling
+  function startAlarmListeners() {
+    alarmService.startListening(alarms.value)
   }
 
-  // Detener polling de alarmas
-  function stopAlarmPolling() {
-    console.log('⏸️ Deteniendo polling de alarmas desde store')
-    alarmService.stopPolling()
+  // Dejar de escuchar eventos de alarmas
+  function stopAlarmListeners() {
+    console.log('⏸️ Deteniendo listeners de alarmas desde store')
+    return alarmService.stopListening()
   }
 
   return {
@@ -583,7 +584,7 @@ export const useAlarmsStore = defineStore('alarms', () => {
     clearAlarms,
     refreshAlarms,
     rescheduleAllAlarms,
-    startAlarmPolling,
-    stopAlarmPolling
+    startAlarmListeners,
+    stopAlarmListeners
   }
 })
\ No newline at end of file